@@ -1,6 +1,10 @@
 package com.github.nomou.spreadsheet;
 
+import com.github.nomou.spreadsheet.schema.ColumnStatsCollector;
+import com.github.nomou.spreadsheet.util.StringCache;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -26,6 +30,106 @@ public abstract class AbstractSpreadsheetParser implements SpreadsheetParser {
      */
     protected String worksheetName;
 
+    /**
+     * The row filter matcher, null if rows are not filtered.
+     */
+    protected RowFilter.Matcher rowMatcher;
+
+    /**
+     * The string deduplication cache, null if strings are not deduplicated.
+     */
+    protected StringCache stringCache;
+
+    /**
+     * The resume position, null if parsing starts at the beginning.
+     */
+    protected SpreadsheetPosition resumePosition;
+
+    /**
+     * The error collector of the lenient mode, null if the parser is strict.
+     */
+    protected SpreadsheetErrorCollector errorCollector;
+
+    /**
+     * The cancellation token, null if the parser cannot be cancelled.
+     */
+    protected CancellationToken cancellation;
+    private int uncheckedRecords;
+
+    /**
+     * The column statistics collector, null if the statistics are not collected.
+     */
+    protected ColumnStatsCollector statistics;
+    private ColumnStatsCollector.Worksheet worksheetStatistics;
+
+    /**
+     * Whether only the record events are emitted, the cells being collected into the record buffer.
+     */
+    protected boolean recordEvents;
+    private Object[] recordValues = new Object[16];
+    private int recordWidth;
+    private boolean recordCollected;
+
+    /* *************************************
+     * The position after the last completed record.
+     * *********************************** */
+    private int positionWorksheet = -1;
+    private int positionRow = -1;
+    private long positionRecords;
+    private long positionOffset = -1;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpreadsheetParser configure(final String option, final Object value) {
+        if (OPTION_ROW_FILTER.equals(option)) {
+            if (null != value && !(value instanceof RowFilter)) {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+            this.rowMatcher = null != value ? ((RowFilter) value).newMatcher() : null;
+        } else if (OPTION_STRING_CACHE.equals(option)) {
+            if (value instanceof StringCache) {
+                this.stringCache = (StringCache) value;
+            } else if (null == value || value instanceof Boolean) {
+                this.stringCache = Boolean.TRUE.equals(value) ? new StringCache() : null;
+            } else {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+        } else if (OPTION_ERROR_COLLECTOR.equals(option)) {
+            if (null != value && !(value instanceof SpreadsheetErrorCollector)) {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+            this.errorCollector = (SpreadsheetErrorCollector) value;
+        } else if (OPTION_RECORD_EVENTS.equals(option)) {
+            if (null != value && !(value instanceof Boolean)) {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+            this.recordEvents = Boolean.TRUE.equals(value);
+        } else if (OPTION_STATISTICS.equals(option)) {
+            if (null != value && !(value instanceof ColumnStatsCollector)) {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+            this.statistics = (ColumnStatsCollector) value;
+        } else if (OPTION_CANCELLATION.equals(option) || OPTION_DEADLINE.equals(option)) {
+            this.cancellation = CancellationToken.valueOf(option, value);
+        } else if (OPTION_POSITION.equals(option)) {
+            if (START_WORKBOOK != this.eventType) {
+                throw new IllegalStateException("option '" + option + "' must be configured before parsing");
+            }
+            if (value instanceof SpreadsheetPosition) {
+                this.resumePosition = (SpreadsheetPosition) value;
+            } else if (value instanceof String) {
+                this.resumePosition = SpreadsheetPosition.parse((String) value);
+            } else if (null == value) {
+                this.resumePosition = null;
+            } else {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+        }
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -58,6 +162,38 @@ public abstract class AbstractSpreadsheetParser implements SpreadsheetParser {
         return this.worksheetName;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getRawValue() {
+        return getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRecordWidth() {
+        final int st = this.eventType;
+        if (START_RECORD != st && END_RECORD != st) {
+            throw new IllegalStateException("getRecordWidth() called in illegal state");
+        }
+        return this.recordEvents ? this.recordWidth : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getRecordValue(final int col) {
+        final int st = this.eventType;
+        if (START_RECORD != st && END_RECORD != st) {
+            throw new IllegalStateException("getRecordValue() called in illegal state");
+        }
+        return 0 <= col && col < this.recordWidth ? this.recordValues[col] : null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -80,7 +216,190 @@ public abstract class AbstractSpreadsheetParser implements SpreadsheetParser {
                 throw new IllegalStateException("Error processing input source. The input stream is not complete.");
             }
         }
-        return this.eventType = doNext();
+        final int event;
+        try {
+            if (this.recordCollected) {
+                // the engine is already at the end of the collected record.
+                this.recordCollected = false;
+                event = this.eventType = END_RECORD;
+            } else {
+                event = this.eventType = nextEvent();
+            }
+            if (END_RECORD == event) {
+                countRecord();
+            } else if (START_WORKSHEET == event) {
+                checkCancelled();
+            }
+        } catch (final SpreadsheetCancelledException ex) {
+            try {
+                close();
+            } catch (final RuntimeException ignore) {
+                // the cancellation is reported.
+            }
+            this.eventType = EOF;
+            throw ex;
+        }
+        if (null != this.statistics) {
+            collectStatistics(event);
+        }
+        if (END_RECORD == event) {
+            markRecordEnd(getRow());
+        } else if (START_WORKSHEET == event) {
+            markWorksheetStart();
+        }
+        return event;
+    }
+
+    /**
+     * Moves the position to the start of the current worksheet (to the resume position in the resumed worksheet).
+     * Engines call this method from their push-mode loop before the handler is notified of the worksheet.
+     */
+    protected void markWorksheetStart() {
+        final SpreadsheetPosition resume = this.resumePosition;
+        this.positionWorksheet = this.worksheetIndex;
+        if (null != resume && resume.getWorksheetIndex() == this.worksheetIndex) {
+            this.positionRow = resume.getRow();
+            this.positionRecords = resume.getRecords();
+            this.positionOffset = resume.getOffset();
+        } else {
+            this.positionRow = -1;
+            this.positionRecords = 0;
+            this.positionOffset = getRecordOffset();
+        }
+    }
+
+    /**
+     * Moves the position after a completed record of the current worksheet. Engines call this method from their
+     * push-mode loop before the handler is notified of the end of the record, next to {@link #countRecord()}.
+     *
+     * @param row the row of the completed record
+     */
+    protected void markRecordEnd(final int row) {
+        this.positionRow = row;
+        this.positionRecords++;
+        this.positionOffset = getRecordOffset();
+    }
+
+    /**
+     * Feeds the column statistics collector with the decoded cells of an event.
+     */
+    private void collectStatistics(final int event) {
+        if (START_WORKSHEET == event) {
+            this.worksheetStatistics = this.statistics.startWorksheet(this.worksheetIndex, this.worksheetName);
+            return;
+        }
+        final ColumnStatsCollector.Worksheet worksheet = this.worksheetStatistics;
+        if (null == worksheet) {
+            return;
+        }
+        if (END_CELL == event) {
+            worksheet.accept(getCol(), getValue());
+        } else if (END_RECORD == event) {
+            for (int col = 0; this.recordEvents && col < this.recordWidth; col++) {
+                worksheet.accept(col, this.recordValues[col]);
+            }
+            worksheet.endRow();
+        } else if (END_WORKSHEET == event) {
+            worksheet.end();
+            this.worksheetStatistics = null;
+        }
+    }
+
+    /**
+     * Parses the next event, a record is collected up to its END_RECORD in record events mode.
+     */
+    private int nextEvent() {
+        final int event = doNext();
+        if (START_RECORD != event || !this.recordEvents) {
+            return event;
+        }
+        Arrays.fill(this.recordValues, 0, this.recordWidth, null);
+        this.recordWidth = 0;
+        this.eventType = START_RECORD;
+        doCollectRecord();
+        if (END_RECORD != this.eventType) {
+            // broken stream.
+            return this.eventType;
+        }
+        this.recordCollected = true;
+        return START_RECORD;
+    }
+
+    /**
+     * Collects the cells of the record started by the current START_RECORD event into the record buffer
+     * ({@link #addRecordValue(int, Object)}) and moves to the END_RECORD event of the record.
+     * <p>This implementation reads the cell events of {@link #doNext()}, engines holding the whole record
+     * override this method.</p>
+     *
+     * @throws SpreadsheetException if parsing error
+     */
+    protected void doCollectRecord() throws SpreadsheetException {
+        int event;
+        while (EOF != (event = this.eventType = doNext()) && END_RECORD != event) {
+            if (END_CELL == event) {
+                addRecordValue(getCol(), getValue());
+            }
+        }
+    }
+
+    /**
+     * Adds a cell value of the collected record.
+     *
+     * @param col   the cell column index
+     * @param value the cell value
+     */
+    protected void addRecordValue(final int col, final Object value) {
+        if (col >= this.recordValues.length) {
+            this.recordValues = Arrays.copyOf(this.recordValues, Math.max(col + 1, this.recordValues.length << 1));
+        }
+        this.recordValues[col] = value;
+        this.recordWidth = Math.max(this.recordWidth, col + 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpreadsheetPosition getPosition() {
+        if (0 > this.positionWorksheet) {
+            return null != this.resumePosition ? this.resumePosition : SpreadsheetPosition.START;
+        }
+        return new SpreadsheetPosition(this.positionWorksheet, this.positionRow, this.positionRecords, this.positionOffset);
+    }
+
+    /**
+     * Checks the cancellation token, a cancelled parser is closed (releasing its resources) by {@link #next()}.
+     *
+     * @throws SpreadsheetCancelledException if the parser is cancelled
+     */
+    protected void checkCancelled() throws SpreadsheetCancelledException {
+        final CancellationToken token = this.cancellation;
+        if (null != token) {
+            uncheckedRecords = 0;
+            token.check();
+        }
+    }
+
+    /**
+     * Counts a completed or skipped record, the cancellation token is checked every
+     * {@link CancellationToken#CHECK_INTERVAL} records. Engines call this method in the loops that skip
+     * records without emitting events.
+     *
+     * @throws SpreadsheetCancelledException if the parser is cancelled
+     */
+    protected void countRecord() throws SpreadsheetCancelledException {
+        if (null != cancellation && CancellationToken.CHECK_INTERVAL <= ++uncheckedRecords) {
+            checkCancelled();
+        }
+    }
+
+    /**
+     * Returns the byte offset of the next record, only seekable formats override this method.
+     *
+     * @return the byte offset or -1 if the format is not seekable
+     */
+    protected long getRecordOffset() {
+        return -1;
     }
 
     /**
@@ -108,6 +427,13 @@ public abstract class AbstractSpreadsheetParser implements SpreadsheetParser {
                     values.add(value);
                 }
             } else if (END_RECORD == event) {
+                for (int col = 0; this.recordEvents && col < this.recordWidth; col++) {
+                    final Object value = this.recordValues[col];
+                    if (null != value) {
+                        fillNull(values, col - values.size());
+                        values.add(value);
+                    }
+                }
                 if (!ignoreEmptyRecord || !values.isEmpty()) {
                     noMoreRecord = false;
                     break;
@@ -120,6 +446,105 @@ public abstract class AbstractSpreadsheetParser implements SpreadsheetParser {
         return noMoreRecord ? null : values.toArray(new Object[values.size()]);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parse(final RowHandler handler) throws SpreadsheetException {
+        if (START_WORKBOOK != this.eventType) {
+            throw new IllegalStateException("parse() called in illegal state");
+        }
+        try {
+            doParse(null != this.statistics ? new StatisticsRowHandler(handler, this.statistics) : handler);
+        } catch (final SpreadsheetCancelledException ex) {
+            try {
+                close();
+            } catch (final RuntimeException ignore) {
+                // the cancellation is reported.
+            }
+            this.eventType = EOF;
+            throw ex;
+        } catch (final RuntimeException ex) {
+            this.eventType = EOF;
+            throw ex;
+        }
+    }
+
+    /**
+     * Parses the workbook in push mode, engines override this method with a loop over their records
+     * (calling {@link #markWorksheetStart()} per worksheet, {@link #markRecordEnd(int)} and {@link #countRecord()}
+     * per record), this implementation replays the pull events.
+     *
+     * @param handler the row handler
+     * @throws SpreadsheetException if parsing error
+     */
+    protected void doParse(final RowHandler handler) throws SpreadsheetException {
+        while (hasNext()) {
+            final int event = next();
+            if (END_CELL == event) {
+                handler.onCell(getCol(), getValue());
+            } else if (START_RECORD == event) {
+                handler.onRow(getRow());
+            } else if (END_RECORD == event) {
+                handler.endRow(getRow());
+            } else if (START_WORKSHEET == event) {
+                handler.startWorksheet(getWorksheetIndex(), getWorksheetName());
+            } else if (END_WORKSHEET == event) {
+                handler.endWorksheet(getWorksheetIndex());
+            }
+        }
+    }
+
+    /**
+     * Feeds the column statistics collector with the cells of the push mode.
+     */
+    private static final class StatisticsRowHandler implements RowHandler {
+        private final RowHandler delegate;
+        private final ColumnStatsCollector statistics;
+        private ColumnStatsCollector.Worksheet worksheet;
+
+        private StatisticsRowHandler(final RowHandler delegate, final ColumnStatsCollector statistics) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+            worksheet = statistics.startWorksheet(worksheetIndex, worksheetName);
+            delegate.startWorksheet(worksheetIndex, worksheetName);
+        }
+
+        @Override
+        public void onRow(final int row) {
+            delegate.onRow(row);
+        }
+
+        @Override
+        public void onCell(final int col, final Object value) {
+            if (null != worksheet) {
+                worksheet.accept(col, value);
+            }
+            delegate.onCell(col, value);
+        }
+
+        @Override
+        public void endRow(final int row) {
+            if (null != worksheet) {
+                worksheet.endRow();
+            }
+            delegate.endRow(row);
+        }
+
+        @Override
+        public void endWorksheet(final int worksheetIndex) {
+            if (null != worksheet) {
+                worksheet.end();
+                worksheet = null;
+            }
+            delegate.endWorksheet(worksheetIndex);
+        }
+    }
+
     private void fillNull(final List<?> values, final int count) {
         for (int i = 0; i < count; i++) {
             values.add(null);
@@ -26,6 +26,23 @@ public abstract class AbstractSpreadsheetWriter implements SpreadsheetWriter {
      */
     protected int unnamedCount = 1;
 
+    /**
+     * The cancellation token, null if the writer cannot be cancelled.
+     */
+    protected CancellationToken cancellation;
+    private int uncheckedRecords;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpreadsheetWriter configure(final String option, final Object value) {
+        if (OPTION_CANCELLATION.equals(option) || OPTION_DEADLINE.equals(option)) {
+            this.cancellation = CancellationToken.valueOf(option, value);
+        }
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -81,8 +98,49 @@ public abstract class AbstractSpreadsheetWriter implements SpreadsheetWriter {
      */
     @Override
     public AbstractSpreadsheetWriter next() throws SpreadsheetException {
+        countRecord();
         this.row++;
         this.col = 0;
         return this;
     }
+
+    /**
+     * Counts a written record, the cancellation token is checked every {@link CancellationToken#CHECK_INTERVAL} records.
+     *
+     * @throws SpreadsheetCancelledException if the writer is cancelled
+     */
+    protected void countRecord() throws SpreadsheetCancelledException {
+        if (null != cancellation && CancellationToken.CHECK_INTERVAL <= ++uncheckedRecords) {
+            checkCancelled();
+        }
+    }
+
+    /**
+     * Checks the cancellation token, a cancelled writer is {@link #abort() aborted}.
+     *
+     * @throws SpreadsheetCancelledException if the writer is cancelled
+     */
+    protected void checkCancelled() throws SpreadsheetCancelledException {
+        final CancellationToken token = this.cancellation;
+        if (null == token) {
+            return;
+        }
+        uncheckedRecords = 0;
+        try {
+            token.check();
+        } catch (final SpreadsheetCancelledException ex) {
+            try {
+                abort();
+            } catch (final RuntimeException ignore) {
+                // the cancellation is reported.
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Releases the resources (temp files, output) of a cancelled writer without completing the output.
+     */
+    protected void abort() {
+    }
 }
@@ -0,0 +1,121 @@
+package com.github.nomou.spreadsheet;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation token with an optional deadline, shared by parsers and writers.
+ *
+ * <p>A parser or writer configured with a token ({@link SpreadsheetConfigurable#OPTION_CANCELLATION}) checks it
+ * every {@link #CHECK_INTERVAL} records and at worksheet boundaries. Once the token is cancelled, its deadline
+ * passed, or the working thread is interrupted, the parser/writer releases its resources (zip, POIFS, temp files)
+ * and throws a {@link SpreadsheetCancelledException}:</p>
+ * <pre>
+ * final CancellationToken token = CancellationToken.withTimeout(30, TimeUnit.SECONDS);
+ * parser.configure(SpreadsheetParser.OPTION_CANCELLATION, token);
+ * ...
+ * token.cancel(); // from any thread
+ * </pre>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class CancellationToken {
+    /**
+     * The number of records between two checks.
+     */
+    public static final int CHECK_INTERVAL = 256;
+
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a token without deadline.
+     */
+    public CancellationToken() {
+        this.deadlineNanos = 0;
+        this.hasDeadline = false;
+    }
+
+    private CancellationToken(final long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Creates a token cancelled after the given timeout.
+     *
+     * @param timeout the timeout
+     * @param unit    the timeout unit
+     * @return the token
+     */
+    public static CancellationToken withTimeout(final long timeout, final TimeUnit unit) {
+        return new CancellationToken(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Creates a token cancelled at the given wall-clock time.
+     *
+     * @param deadlineMillis the deadline in milliseconds since the epoch
+     * @return the token
+     */
+    public static CancellationToken withDeadline(final long deadlineMillis) {
+        return withTimeout(deadlineMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels this token, the parsers and writers using it stop at their next check.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns true if this token is cancelled or its deadline passed.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled || (hasDeadline && 0 <= System.nanoTime() - deadlineNanos);
+    }
+
+    /**
+     * Throws if this token is cancelled, its deadline passed or the current thread is interrupted.
+     *
+     * @throws SpreadsheetCancelledException if cancelled
+     */
+    public void check() throws SpreadsheetCancelledException {
+        if (cancelled) {
+            throw new SpreadsheetCancelledException("cancelled");
+        }
+        if (hasDeadline && 0 <= System.nanoTime() - deadlineNanos) {
+            throw new SpreadsheetCancelledException("deadline exceeded");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SpreadsheetCancelledException("interrupted");
+        }
+    }
+
+    /**
+     * Converts an option value to a token.
+     *
+     * @param option the option name
+     * @param value  the option value: a token, a deadline ({@link Date} or epoch millis {@link Number}) or null
+     * @return the token or null
+     */
+    static CancellationToken valueOf(final String option, final Object value) {
+        if (null == value || value instanceof CancellationToken) {
+            return (CancellationToken) value;
+        }
+        if (SpreadsheetConfigurable.OPTION_DEADLINE.equals(option)) {
+            if (value instanceof Date) {
+                return withDeadline(((Date) value).getTime());
+            }
+            if (value instanceof Number) {
+                return withDeadline(((Number) value).longValue());
+            }
+        }
+        throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+    }
+}
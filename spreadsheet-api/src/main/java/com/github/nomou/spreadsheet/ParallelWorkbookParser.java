@@ -0,0 +1,514 @@
+package com.github.nomou.spreadsheet;
+
+import com.github.nomou.spreadsheet.util.StringCache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses the worksheets of a workbook concurrently.
+ *
+ * <p>Each worksheet is parsed by its own {@link SplittableSpreadsheetParser#createWorksheetParser(int) worksheet
+ * parser} on an executor, the records are delivered to a {@link Handler}:</p>
+ * <ul>
+ * <li>{@link #parse(Handler)}: as soon as parsed, from the worker threads (the calls of a worksheet are made by
+ * one thread, the worksheets are handled concurrently so the handler must be thread-safe);</li>
+ * <li>{@link #parseOrdered(Handler)}: from the calling thread, merged in worksheet order. The worksheets ahead
+ * are parsed into bounded buffers.</li>
+ * </ul>
+ * <pre>
+ * final SpreadsheetParser parser = new OpenXMLSpreadsheetParserFactory().create(in);
+ * new ParallelWorkbookParser(parser)
+ *         .configure(SpreadsheetParser.OPTION_STRING_CACHE, true)
+ *         .parse(new ParallelWorkbookParser.Handler() { ... });
+ * parser.close();
+ * </pre>
+ *
+ * <p>The options are applied to each worksheet parser: a row filter gets a matcher per worksheet. The string
+ * caches and error collectors are not thread-safe, so a string cache instance gets an empty {@link
+ * StringCache#copy() copy} per worksheet (its metrics are not updated), and an error collector instance gets a
+ * collector of the same capacity per worksheet, merged into it in worksheet order when the parse completes. A
+ * parser that cannot be split (csv, jxl engine, encrypted workbook) is parsed sequentially on the calling
+ * thread with the options as-is. The first failure stops the other worksheets and is thrown. The parser is not
+ * closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class ParallelWorkbookParser {
+    private static final int BATCH_SIZE = 256;
+
+    private final SpreadsheetParser parser;
+    private final Map<String, Object> options = new LinkedHashMap<String, Object>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor;
+    private int bufferedBatches = 16;
+
+    /**
+     * Creates a parallel parser of the given workbook parser.
+     *
+     * @param parser the workbook parser, not started
+     */
+    public ParallelWorkbookParser(final SpreadsheetParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Handler of the parsed records.
+     */
+    public interface Handler {
+
+        /**
+         * Called when a worksheet starts.
+         *
+         * @param worksheetIndex the worksheet index
+         * @param worksheetName  the worksheet name
+         */
+        void startWorksheet(final int worksheetIndex, final String worksheetName);
+
+        /**
+         * Called for each record of a worksheet.
+         *
+         * @param worksheetIndex the worksheet index
+         * @param row            the row of the record
+         * @param values         the values of the record (null for empty cells)
+         */
+        void record(final int worksheetIndex, final int row, final Object[] values);
+
+        /**
+         * Called when a worksheet ends.
+         *
+         * @param worksheetIndex the worksheet index
+         */
+        void endWorksheet(final int worksheetIndex);
+
+    }
+
+    /**
+     * Sets an option applied to each worksheet parser, see {@link SpreadsheetParser#configure(String, Object)}.
+     *
+     * @param option the option name
+     * @param value  the option value
+     * @return this parser
+     */
+    public ParallelWorkbookParser configure(final String option, final Object value) {
+        options.put(option, value);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of worksheets parsed concurrently, defaults to the number of processors.
+     *
+     * @param parallelism the number of worksheets parsed concurrently
+     * @return this parser
+     */
+    public ParallelWorkbookParser setParallelism(final int parallelism) {
+        if (1 > parallelism) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the executor running the worksheet parsers, a daemon thread pool of parallelism threads is created
+     * (and shut down) by each parse if not set. The given executor is not shut down.
+     *
+     * @param executor the executor
+     * @return this parser
+     */
+    public ParallelWorkbookParser setExecutor(final ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the number of record batches (256 records each) buffered per worksheet by {@link #parseOrdered(Handler)}.
+     *
+     * @param bufferedBatches the number of buffered batches
+     * @return this parser
+     */
+    public ParallelWorkbookParser setBufferedBatches(final int bufferedBatches) {
+        if (1 > bufferedBatches) {
+            throw new IllegalArgumentException("buffered batches must be positive: " + bufferedBatches);
+        }
+        this.bufferedBatches = bufferedBatches;
+        return this;
+    }
+
+    /**
+     * Returns true if the worksheets of the parser are parsed concurrently.
+     *
+     * @return true if the parser can be split
+     */
+    public boolean isParallel() {
+        return parser instanceof SplittableSpreadsheetParser && ((SplittableSpreadsheetParser) parser).isSplittable();
+    }
+
+    /**
+     * Parses all worksheets concurrently, the handler is called from the worker threads.
+     *
+     * @param handler the thread-safe handler
+     * @throws SpreadsheetException if a parsing error occurs
+     */
+    public void parse(final Handler handler) throws SpreadsheetException {
+        if (!isParallel()) {
+            parseSequentially(handler);
+            return;
+        }
+        final SplittableSpreadsheetParser splittable = (SplittableSpreadsheetParser) parser;
+        final int worksheets = splittable.getNumberOfWorksheets();
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final ExecutorService executor = null != this.executor ? this.executor : createExecutor(Math.min(parallelism, worksheets));
+        final List<Future<?>> futures = new ArrayList<Future<?>>(worksheets);
+        final SpreadsheetErrorCollector[] errors = new SpreadsheetErrorCollector[worksheets];
+        try {
+            for (int i = 0; i < worksheets; i++) {
+                final SpreadsheetParser worksheetParser = createWorksheetParser(splittable, i, errors);
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (!aborted.get()) {
+                                parseWorksheet(worksheetParser, handler, aborted);
+                            }
+                        } catch (final RuntimeException ex) {
+                            aborted.set(true);
+                            throw ex;
+                        } catch (final Error ex) {
+                            aborted.set(true);
+                            throw ex;
+                        } finally {
+                            worksheetParser.close();
+                        }
+                    }
+                }));
+            }
+            RuntimeException error = null;
+            for (final Future<?> future : futures) {
+                try {
+                    await(future);
+                } catch (final RuntimeException ex) {
+                    error = null != error ? error : ex;
+                }
+            }
+            if (null != error) {
+                throw error;
+            }
+            mergeErrors(errors);
+        } finally {
+            aborted.set(true);
+            if (null == this.executor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parses all worksheets concurrently, the handler is called from the calling thread in worksheet order.
+     *
+     * @param handler the handler
+     * @throws SpreadsheetException if a parsing error occurs
+     */
+    public void parseOrdered(final Handler handler) throws SpreadsheetException {
+        if (!isParallel()) {
+            parseSequentially(handler);
+            return;
+        }
+        final SplittableSpreadsheetParser splittable = (SplittableSpreadsheetParser) parser;
+        final int worksheets = splittable.getNumberOfWorksheets();
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final ExecutorService executor = null != this.executor ? this.executor : createExecutor(Math.max(1, Math.min(parallelism, worksheets) - 1));
+        final BufferedWorksheet[] tasks = new BufferedWorksheet[worksheets];
+        final SpreadsheetErrorCollector[] errors = new SpreadsheetErrorCollector[worksheets];
+        try {
+            int submitted = 0;
+            for (int i = 0; i < worksheets; i++) {
+                // the calling thread handles worksheet i, the next (parallelism - 1) worksheets are read ahead.
+                while (submitted < worksheets && submitted < i + parallelism) {
+                    tasks[submitted] = new BufferedWorksheet(createWorksheetParser(splittable, submitted, errors), bufferedBatches, aborted);
+                    if (submitted > i) {
+                        executor.submit(tasks[submitted]);
+                    }
+                    submitted++;
+                }
+                tasks[i].replay(handler);
+                tasks[i] = null;
+            }
+            mergeErrors(errors);
+        } finally {
+            aborted.set(true);
+            for (final BufferedWorksheet task : tasks) {
+                if (null != task) {
+                    task.abandon();
+                }
+            }
+            if (null == this.executor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private void parseSequentially(final Handler handler) {
+        for (final Map.Entry<String, Object> option : options.entrySet()) {
+            parser.configure(option.getKey(), option.getValue());
+        }
+        parseWorksheet(parser, handler, new AtomicBoolean());
+    }
+
+    /**
+     * Creates a configured worksheet parser, the string cache and error collector instances are replaced by
+     * instances of the worksheet.
+     */
+    private SpreadsheetParser createWorksheetParser(final SplittableSpreadsheetParser splittable, final int worksheetIndex,
+                                                    final SpreadsheetErrorCollector[] errors) {
+        final SpreadsheetParser worksheetParser = splittable.createWorksheetParser(worksheetIndex);
+        for (final Map.Entry<String, Object> option : options.entrySet()) {
+            Object value = option.getValue();
+            if (value instanceof StringCache) {
+                value = ((StringCache) value).copy();
+            } else if (value instanceof SpreadsheetErrorCollector) {
+                value = errors[worksheetIndex] = new SpreadsheetErrorCollector(((SpreadsheetErrorCollector) value).getCapacity());
+            }
+            worksheetParser.configure(option.getKey(), value);
+        }
+        return worksheetParser;
+    }
+
+    /**
+     * Merges the errors of the worksheets into the configured error collector.
+     */
+    private void mergeErrors(final SpreadsheetErrorCollector[] errors) {
+        final Object collector = options.get(SpreadsheetParser.OPTION_ERROR_COLLECTOR);
+        for (final SpreadsheetErrorCollector worksheetErrors : errors) {
+            if (null != worksheetErrors) {
+                ((SpreadsheetErrorCollector) collector).addAll(worksheetErrors);
+            }
+        }
+    }
+
+    /**
+     * Reads the events of a parser and calls the handler.
+     */
+    private static void parseWorksheet(final SpreadsheetParser parser, final Handler handler, final AtomicBoolean aborted) {
+        final List<Object> values = new ArrayList<Object>();
+        while (parser.hasNext() && !aborted.get()) {
+            final int event = parser.next();
+            if (SpreadsheetParser.START_WORKSHEET == event) {
+                handler.startWorksheet(parser.getWorksheetIndex(), parser.getWorksheetName());
+            } else if (SpreadsheetParser.START_RECORD == event) {
+                values.clear();
+            } else if (SpreadsheetParser.END_CELL == event) {
+                final int col = parser.getCol();
+                while (values.size() < col) {
+                    values.add(null);
+                }
+                values.add(parser.getValue());
+            } else if (SpreadsheetParser.END_RECORD == event) {
+                // record events mode: the cells are in the record buffer of the parser.
+                final int width = parser.getRecordWidth();
+                for (int col = 0; col < width; col++) {
+                    values.add(parser.getRecordValue(col));
+                }
+                handler.record(parser.getWorksheetIndex(), parser.getRow(), values.toArray());
+            } else if (SpreadsheetParser.END_WORKSHEET == event) {
+                handler.endWorksheet(parser.getWorksheetIndex());
+            }
+        }
+    }
+
+    private static void await(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SpreadsheetException(cause);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SpreadsheetCancelledException("interrupted");
+        }
+    }
+
+    private static ExecutorService createExecutor(final int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "spreadsheet-worksheet-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * A worksheet parsed ahead into a bounded buffer, or parsed by the calling thread if no worker claimed it.
+     */
+    private static class BufferedWorksheet implements Runnable, Handler {
+        private static final Object END = new Object();
+
+        private final SpreadsheetParser parser;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean aborted;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private List<Object[]> batch = new ArrayList<Object[]>(BATCH_SIZE);
+        private int[] rows = new int[BATCH_SIZE];
+        private String worksheetName;
+        private int worksheetIndex = -1;
+
+        private BufferedWorksheet(final SpreadsheetParser parser, final int capacity, final AtomicBoolean aborted) {
+            this.parser = parser;
+            this.queue = new ArrayBlockingQueue<Object>(capacity);
+            this.aborted = aborted;
+        }
+
+        /**
+         * Parses the worksheet into the buffer (worker thread).
+         */
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            Object last = END;
+            try {
+                parseWorksheet(parser, this, aborted);
+                flush();
+            } catch (final RuntimeException ex) {
+                last = ex;
+            } catch (final Error ex) {
+                last = ex;
+            } finally {
+                parser.close();
+                put(last);
+            }
+        }
+
+        /**
+         * Delivers the worksheet to the handler (calling thread).
+         */
+        void replay(final Handler handler) {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    parseWorksheet(parser, handler, aborted);
+                } finally {
+                    parser.close();
+                }
+                return;
+            }
+            while (true) {
+                final Object item;
+                try {
+                    item = queue.take();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SpreadsheetCancelledException("interrupted");
+                }
+                if (END == item) {
+                    return;
+                } else if (item instanceof RuntimeException) {
+                    throw (RuntimeException) item;
+                } else if (item instanceof Error) {
+                    throw (Error) item;
+                } else if (item instanceof String) {
+                    handler.startWorksheet(worksheetIndex, (String) item);
+                } else if (item instanceof Integer) {
+                    handler.endWorksheet((Integer) item);
+                } else {
+                    final Batch b = (Batch) item;
+                    for (int i = 0; i < b.records.size(); i++) {
+                        handler.record(worksheetIndex, b.rows[i], b.records.get(i));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Closes the parser if it was never claimed.
+         */
+        void abandon() {
+            if (claimed.compareAndSet(false, true)) {
+                parser.close();
+            }
+        }
+
+        @Override
+        public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+            this.worksheetIndex = worksheetIndex;
+            this.worksheetName = worksheetName;
+            put(null != worksheetName ? worksheetName : "");
+        }
+
+        @Override
+        public void record(final int worksheetIndex, final int row, final Object[] values) {
+            rows[batch.size()] = row;
+            batch.add(values);
+            if (BATCH_SIZE == batch.size()) {
+                flush();
+            }
+        }
+
+        @Override
+        public void endWorksheet(final int worksheetIndex) {
+            flush();
+            put(worksheetIndex);
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                put(new Batch(batch, rows));
+                batch = new ArrayList<Object[]>(BATCH_SIZE);
+                rows = new int[BATCH_SIZE];
+            }
+        }
+
+        private void put(final Object item) {
+            try {
+                while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    if (aborted.get()) {
+                        return;
+                    }
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "worksheet " + worksheetIndex + " " + worksheetName;
+        }
+    }
+
+    /**
+     * A batch of buffered records.
+     */
+    private static class Batch {
+        private final List<Object[]> records;
+        private final int[] rows;
+
+        private Batch(final List<Object[]> records, final int[] rows) {
+            this.records = records;
+            this.rows = rows;
+        }
+    }
+}
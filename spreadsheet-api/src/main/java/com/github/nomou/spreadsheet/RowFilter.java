@@ -0,0 +1,361 @@
+package com.github.nomou.spreadsheet;
+
+import com.github.nomou.spreadsheet.util.NumberParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Row predicates evaluated by the parser engines before a row is materialized.
+ *
+ * <p>All predicates must match (AND), a missing cell is evaluated as null. Rows that do not match
+ * produce no events at all, the engines stop decoding a row as soon as one predicate fails and skip
+ * to the next row.</p>
+ * <pre>
+ * final RowFilter filter = new RowFilter().eq(2, "ACTIVE").notNull(0).between(5, 100, null);
+ * parser.configure(SpreadsheetParser.OPTION_ROW_FILTER, filter);
+ * </pre>
+ *
+ * <p>Comparison rules: numeric bounds compare numbers (plain or scientific decimal text is parsed, -0.0 equals 0.0),
+ * date bounds compare dates, anything else compares text.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class RowFilter {
+    private final List<Predicate> predicates = new ArrayList<Predicate>();
+    private int[] columns = new int[0];
+
+    /**
+     * Matches rows whose cell equals the given value.
+     *
+     * @param col   the column index
+     * @param value the expected value
+     * @return this filter
+     */
+    public RowFilter eq(final int col, final Object value) {
+        return add(new Predicate(col) {
+            @Override
+            boolean test(final Object cell) {
+                return 0 == compare(cell, value, true);
+            }
+        });
+    }
+
+    /**
+     * Matches rows whose cell equals one of the given values.
+     *
+     * @param col    the column index
+     * @param values the expected values
+     * @return this filter
+     */
+    public RowFilter in(final int col, final Object... values) {
+        return in(col, Arrays.asList(values));
+    }
+
+    /**
+     * Matches rows whose cell equals one of the given values.
+     *
+     * @param col    the column index
+     * @param values the expected values
+     * @return this filter
+     */
+    public RowFilter in(final int col, final Collection<?> values) {
+        final Set<String> texts = new HashSet<String>();
+        final Set<Double> numbers = new HashSet<Double>();
+        for (final Object value : values) {
+            if (value instanceof Number) {
+                numbers.add(normalize(((Number) value).doubleValue()));
+            } else if (null != value) {
+                texts.add(asText(value));
+            }
+        }
+        final boolean allowNull = values.contains(null);
+        return add(new Predicate(col) {
+            @Override
+            boolean test(final Object cell) {
+                if (isNull(cell)) {
+                    return allowNull;
+                }
+                if (!numbers.isEmpty()) {
+                    final double d = asNumber(cell);
+                    if (!Double.isNaN(d) && numbers.contains(normalize(d))) {
+                        return true;
+                    }
+                }
+                return !texts.isEmpty() && texts.contains(asText(cell));
+            }
+        });
+    }
+
+    /**
+     * Matches rows whose cell is in the given range, bounds are inclusive, a null bound is unbounded.
+     *
+     * @param col the column index
+     * @param min the lower bound or null
+     * @param max the upper bound or null
+     * @return this filter
+     */
+    public RowFilter between(final int col, final Object min, final Object max) {
+        return add(new Predicate(col) {
+            @Override
+            boolean test(final Object cell) {
+                if (isNull(cell)) {
+                    return false;
+                }
+                if (null != min) {
+                    final int c = compare(cell, min, false);
+                    if (Integer.MIN_VALUE == c || 0 > c) {
+                        return false;
+                    }
+                }
+                if (null != max) {
+                    final int c = compare(cell, max, false);
+                    return Integer.MIN_VALUE != c && 0 >= c;
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Matches rows whose cell is not empty.
+     *
+     * @param col the column index
+     * @return this filter
+     */
+    public RowFilter notNull(final int col) {
+        return add(new Predicate(col) {
+            @Override
+            boolean test(final Object cell) {
+                return !isNull(cell);
+            }
+        });
+    }
+
+    /**
+     * Gets the referenced columns.
+     *
+     * @return the sorted referenced column indexes
+     */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * Evaluates the filter against a materialized row.
+     *
+     * @param row the row cells
+     * @return true if the row matches
+     */
+    public boolean test(final Object[] row) {
+        for (final Predicate predicate : predicates) {
+            if (!predicate.test(null != row && predicate.col < row.length ? row[predicate.col] : null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates an incremental matcher, each parser owns its matcher (matchers are not thread-safe).
+     *
+     * @return the matcher
+     */
+    public Matcher newMatcher() {
+        return new Matcher(this);
+    }
+
+    private RowFilter add(final Predicate predicate) {
+        if (0 > predicate.col) {
+            throw new IllegalArgumentException("illegal column: " + predicate.col);
+        }
+        predicates.add(predicate);
+        if (0 > Arrays.binarySearch(columns, predicate.col)) {
+            final int[] newColumns = Arrays.copyOf(columns, columns.length + 1);
+            newColumns[columns.length] = predicate.col;
+            Arrays.sort(newColumns);
+            columns = newColumns;
+        }
+        return this;
+    }
+
+    /* *************************************
+     *           Engine-side API
+     * *********************************** */
+
+    /**
+     * Incremental row evaluation fed by the engines cell by cell.
+     *
+     * <pre>
+     * matcher.reset();                                  // row opened
+     * if (matcher.isReferenced(col) &amp;&amp; !matcher.accept(col, value)) { skip row }
+     * if (col &gt;= matcher.getMaxColumn()) { all referenced cells seen, stop evaluating }
+     * if (!matcher.complete()) { skip row }             // row closed, missing cells are null
+     * </pre>
+     */
+    public static class Matcher {
+        private final Predicate[][] byColumn;
+        private final int[] columns;
+        private final boolean[] seen;
+        private final int maxColumn;
+
+        Matcher(final RowFilter filter) {
+            this.columns = filter.columns.clone();
+            this.maxColumn = 0 < columns.length ? columns[columns.length - 1] : -1;
+            this.byColumn = new Predicate[maxColumn + 1][];
+            for (final int col : columns) {
+                final List<Predicate> list = new ArrayList<Predicate>();
+                for (final Predicate predicate : filter.predicates) {
+                    if (col == predicate.col) {
+                        list.add(predicate);
+                    }
+                }
+                byColumn[col] = list.toArray(new Predicate[list.size()]);
+            }
+            this.seen = new boolean[maxColumn + 1];
+        }
+
+        /**
+         * Resets the matcher for a new row.
+         */
+        public void reset() {
+            Arrays.fill(seen, false);
+        }
+
+        /**
+         * Returns true if predicates reference the given column.
+         *
+         * @param col the column index
+         * @return true if referenced
+         */
+        public boolean isReferenced(final int col) {
+            return 0 <= col && col <= maxColumn && null != byColumn[col];
+        }
+
+        /**
+         * Gets the highest referenced column, once a row passed this column only {@link #complete()} remains.
+         *
+         * @return the highest referenced column index
+         */
+        public int getMaxColumn() {
+            return maxColumn;
+        }
+
+        /**
+         * Evaluates a cell of the current row.
+         *
+         * @param col   the column index
+         * @param value the cell value
+         * @return false if the row is rejected
+         */
+        public boolean accept(final int col, final Object value) {
+            if (!isReferenced(col)) {
+                return true;
+            }
+            seen[col] = true;
+            for (final Predicate predicate : byColumn[col]) {
+                if (!predicate.test(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Evaluates the referenced cells that were not seen in the current row as null.
+         *
+         * @return false if the row is rejected
+         */
+        public boolean complete() {
+            for (final int col : columns) {
+                if (!seen[col] && !accept(col, null)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /* *************************************
+     *
+     * *********************************** */
+
+    private abstract static class Predicate {
+        final int col;
+
+        Predicate(final int col) {
+            this.col = col;
+        }
+
+        abstract boolean test(final Object cell);
+    }
+
+    static boolean isNull(final Object value) {
+        return null == value || (value instanceof String && ((String) value).isEmpty());
+    }
+
+    /**
+     * Compares a cell value with a predicate operand.
+     *
+     * @return the comparison result or Integer.MIN_VALUE if the values are not comparable
+     */
+    static int compare(final Object cell, final Object operand, final boolean equality) {
+        if (isNull(cell) || null == operand) {
+            return isNull(cell) && null == operand ? 0 : Integer.MIN_VALUE;
+        }
+        if (operand instanceof Number) {
+            final double d = asNumber(cell);
+            return Double.isNaN(d) ? Integer.MIN_VALUE : Double.compare(normalize(d), normalize(((Number) operand).doubleValue()));
+        }
+        if (operand instanceof Date || operand instanceof Calendar) {
+            final long time = operand instanceof Date ? ((Date) operand).getTime() : ((Calendar) operand).getTimeInMillis();
+            if (cell instanceof Date) {
+                return Long.compare(((Date) cell).getTime(), time);
+            }
+            return cell instanceof Calendar ? Long.compare(((Calendar) cell).getTimeInMillis(), time) : Integer.MIN_VALUE;
+        }
+        if (operand instanceof Boolean) {
+            final String text = asText(cell);
+            return Boolean.parseBoolean(text) == (Boolean) operand && ("true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text)) ? 0 : Integer.MIN_VALUE;
+        }
+        final String text = asText(cell);
+        final int c = text.compareTo(asText(operand));
+        return equality && 0 != c ? Integer.MIN_VALUE : c;
+    }
+
+    static double asNumber(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            // no exception per non-numeric cell.
+            final Number number = NumberParser.parseNumber(((String) value).trim());
+            return null != number ? number.doubleValue() : Double.NaN;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Returns 0.0 for -0.0, the keys of the number sets and {@link Double#compare(double, double)} distinguish them.
+     */
+    private static double normalize(final double d) {
+        return 0 == d ? 0.0 : d;
+    }
+
+    static String asText(final Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            final double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1E15) {
+                return Long.toString((long) d);
+            }
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.nomou.spreadsheet;
+
+/**
+ * Handler of the push parsing mode, see {@link SpreadsheetParser#parse(RowHandler)}.
+ *
+ * <p>The calls of a workbook are: startWorksheet, then for each record onRow, onCell for each cell (in
+ * column order, null for empty cells) and endRow, then endWorksheet.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public interface RowHandler {
+
+    /**
+     * Called when a worksheet starts.
+     *
+     * @param worksheetIndex the worksheet index
+     * @param worksheetName  the worksheet name
+     */
+    void startWorksheet(final int worksheetIndex, final String worksheetName);
+
+    /**
+     * Called when a record(row) starts.
+     *
+     * @param row the row index
+     */
+    void onRow(final int row);
+
+    /**
+     * Called for each cell of the current record.
+     *
+     * @param col   the cell column index
+     * @param value the decoded cell value (String, Double, Boolean, Date) or null
+     */
+    void onCell(final int col, final Object value);
+
+    /**
+     * Called when a record(row) ends.
+     *
+     * @param row the row index
+     */
+    void endRow(final int row);
+
+    /**
+     * Called when a worksheet ends.
+     *
+     * @param worksheetIndex the worksheet index
+     */
+    void endWorksheet(final int worksheetIndex);
+
+}
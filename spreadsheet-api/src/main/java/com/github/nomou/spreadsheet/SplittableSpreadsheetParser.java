@@ -0,0 +1,35 @@
+package com.github.nomou.spreadsheet;
+
+/**
+ * A parser able to create independent parsers of its worksheets.
+ *
+ * <p>A worksheet parser emits START_WORKBOOK, the events of one worksheet (with the worksheet index of the
+ * workbook) and END_WORKBOOK. It shares the read-only workbook state of this parser (xlsx: package, shared
+ * strings and styles; xls: POIFS, SST and formats) and reads its own worksheet stream, so the worksheet parsers
+ * of a workbook can be used concurrently, by one thread each. This parser must not be iterated while its
+ * worksheet parsers are in use, and must be closed after them.</p>
+ *
+ * @author vacoor
+ * @see ParallelWorkbookParser
+ * @since 1.1
+ */
+public interface SplittableSpreadsheetParser extends SpreadsheetParser {
+
+    /**
+     * Returns true if the worksheets can be split, false if the workbook must be parsed sequentially
+     * (eg: encrypted workbook, parsing already started).
+     *
+     * @return true if the worksheets can be split
+     */
+    boolean isSplittable();
+
+    /**
+     * Creates a parser of the given worksheet, not configured (the options of this parser are not inherited).
+     *
+     * @param worksheetIndex the worksheet index
+     * @return the worksheet parser
+     * @throws SpreadsheetException if the worksheet cannot be read
+     */
+    SpreadsheetParser createWorksheetParser(final int worksheetIndex) throws SpreadsheetException;
+
+}
@@ -0,0 +1,15 @@
+package com.github.nomou.spreadsheet;
+
+/**
+ * Thrown when a parse or a write is stopped by its {@link CancellationToken}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class SpreadsheetCancelledException extends SpreadsheetException {
+    private static final long serialVersionUID = 1L;
+
+    public SpreadsheetCancelledException(final String message) {
+        super(message);
+    }
+}
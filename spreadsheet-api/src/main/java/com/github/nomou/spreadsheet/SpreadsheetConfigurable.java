@@ -7,6 +7,20 @@ package com.github.nomou.spreadsheet;
  * @since 1.0
  */
 public interface SpreadsheetConfigurable<T> {
+    /**
+     * Cancellation option, value: {@link CancellationToken}.
+     *
+     * @since 1.1
+     */
+    String OPTION_CANCELLATION = "cancellation";
+
+    /**
+     * Deadline option, value: {@link java.util.Date} or epoch millis ({@link Number}), shortcut for a
+     * {@link CancellationToken#withDeadline(long) deadline token}.
+     *
+     * @since 1.1
+     */
+    String OPTION_DEADLINE = "deadline";
 
     /**
      * configure option.
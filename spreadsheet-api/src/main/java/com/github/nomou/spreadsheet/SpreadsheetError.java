@@ -0,0 +1,106 @@
+package com.github.nomou.spreadsheet;
+
+/**
+ * A malformed cell or record skipped by a lenient parser.
+ *
+ * <p>Error records are pre-allocated and reused by the {@link SpreadsheetErrorCollector}, they are not
+ * exceptions (no stack trace is captured), copy the values if an error must outlive the collector.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class SpreadsheetError {
+    /**
+     * The reason of an error.
+     */
+    public enum Reason {
+        /**
+         * The cell type is unknown.
+         */
+        UNEXPECTED_TYPE,
+
+        /**
+         * The shared string index is not a valid index.
+         */
+        INVALID_SHARED_STRING,
+
+        /**
+         * The cell style index is not a valid index.
+         */
+        INVALID_STYLE,
+
+        /**
+         * The numeric cell value is not a number.
+         */
+        INVALID_NUMBER,
+
+        /**
+         * A quoted field is not terminated.
+         */
+        UNTERMINATED_QUOTE,
+
+        /**
+         * A field exceeds the max field length.
+         */
+        FIELD_TOO_LONG,
+
+        /**
+         * A record is malformed (eg: a formula without its cached result).
+         */
+        MALFORMED_RECORD
+    }
+
+    int worksheetIndex;
+    int row;
+    int col;
+    String rawText;
+    Reason reason;
+
+    SpreadsheetError() {
+    }
+
+    /**
+     * Gets the worksheet index.
+     *
+     * @return the worksheet index
+     */
+    public int getWorksheetIndex() {
+        return worksheetIndex;
+    }
+
+    /**
+     * Gets the row index, the line number for csv.
+     *
+     * @return the row index
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column index.
+     *
+     * @return the column index or -1 if the error is not a cell error
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Gets the raw text of the malformed cell.
+     *
+     * @return the raw text or null
+     */
+    public String getRawText() {
+        return rawText;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return reason + " at worksheet " + worksheetIndex + ", row " + row + ", col " + col + ": " + rawText;
+    }
+}
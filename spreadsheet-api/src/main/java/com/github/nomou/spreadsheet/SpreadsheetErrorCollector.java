@@ -0,0 +1,146 @@
+package com.github.nomou.spreadsheet;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Bounded collector of the errors skipped by a lenient parser.
+ *
+ * <p>Configuring a collector ({@link SpreadsheetParser#OPTION_ERROR_COLLECTOR}) switches the parser to the
+ * lenient mode: a malformed cell is recorded and parsed as null (a malformed csv field is recorded and
+ * closed) instead of aborting the parse. The parsers validate the raw values instead of catching exceptions,
+ * so an error costs no exception construction.</p>
+ * <pre>
+ * final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(1000);
+ * parser.configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors);
+ * ...
+ * if (0 &lt; errors.getErrorCount()) {
+ *     log.warn("{} malformed cells, first: {}", errors.getErrorCount(), errors.getErrors());
+ * }
+ * </pre>
+ *
+ * <p>The error records are allocated upfront, once the collector is full the next errors are only counted.
+ * This class is not thread-safe, use one collector per parser.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class SpreadsheetErrorCollector {
+    private final SpreadsheetError[] errors;
+    private int size;
+    private long errorCount;
+
+    /**
+     * Creates a collector.
+     *
+     * @param capacity the max number of recorded errors
+     */
+    public SpreadsheetErrorCollector(final int capacity) {
+        if (0 > capacity) {
+            throw new IllegalArgumentException("illegal capacity: " + capacity);
+        }
+        this.errors = new SpreadsheetError[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.errors[i] = new SpreadsheetError();
+        }
+    }
+
+    /**
+     * Records an error.
+     *
+     * @param worksheetIndex the worksheet index
+     * @param row            the row index
+     * @param col            the column index or -1
+     * @param rawText        the raw text
+     * @param reason         the reason
+     */
+    public void add(final int worksheetIndex, final int row, final int col, final String rawText, final SpreadsheetError.Reason reason) {
+        errorCount++;
+        if (size < errors.length) {
+            final SpreadsheetError error = errors[size++];
+            error.worksheetIndex = worksheetIndex;
+            error.row = row;
+            error.col = col;
+            error.rawText = rawText;
+            error.reason = reason;
+        }
+    }
+
+    /**
+     * Records the errors of another collector, the errors it did not record are only counted.
+     *
+     * @param other the collector
+     */
+    public void addAll(final SpreadsheetErrorCollector other) {
+        final long count = errorCount + other.errorCount;
+        for (int i = 0; i < other.size; i++) {
+            final SpreadsheetError error = other.errors[i];
+            add(error.worksheetIndex, error.row, error.col, error.rawText, error.reason);
+        }
+        this.errorCount = count;
+    }
+
+    /**
+     * Gets the max number of recorded errors.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return errors.length;
+    }
+
+    /**
+     * Gets the recorded errors (a live view, at most capacity errors).
+     *
+     * @return the recorded errors
+     */
+    public List<SpreadsheetError> getErrors() {
+        return new AbstractList<SpreadsheetError>() {
+            @Override
+            public SpreadsheetError get(final int index) {
+                if (0 > index || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return errors[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of errors, including the errors that were not recorded.
+     *
+     * @return the number of errors
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets the number of errors that were not recorded because the collector was full.
+     *
+     * @return the number of dropped errors
+     */
+    public long getDroppedCount() {
+        return errorCount - size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == errorCount;
+    }
+
+    /**
+     * Removes all errors, the error records are reused.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            errors[i].rawText = null;
+        }
+        size = 0;
+        errorCount = 0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.nomou.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Spreadsheet metadata returned by {@link Spreadsheet#probe(java.io.File)}: worksheet names, used ranges and
+ * record estimates, read without parsing the cells.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class SpreadsheetMetadata {
+    private final List<WorksheetMetadata> worksheets;
+
+    public SpreadsheetMetadata(final List<WorksheetMetadata> worksheets) {
+        this.worksheets = Collections.unmodifiableList(new ArrayList<WorksheetMetadata>(worksheets));
+    }
+
+    /**
+     * Gets the number of worksheets.
+     *
+     * @return the number of worksheets
+     */
+    public int getNumberOfWorksheets() {
+        return worksheets.size();
+    }
+
+    /**
+     * Gets the metadata of the worksheet at the given index.
+     *
+     * @param index the worksheet index
+     * @return the worksheet metadata
+     */
+    public WorksheetMetadata getWorksheet(final int index) {
+        return worksheets.get(index);
+    }
+
+    /**
+     * Gets the metadata of all worksheets.
+     *
+     * @return the worksheets metadata
+     */
+    public List<WorksheetMetadata> getWorksheets() {
+        return worksheets;
+    }
+
+    @Override
+    public String toString() {
+        return "SpreadsheetMetadata " + worksheets;
+    }
+
+    /**
+     * Worksheet metadata.
+     *
+     * <p>The used range (0-based, -1 if unknown) is the range declared by the file (xlsx &lt;dimension&gt;,
+     * xls DIMENSIONS record). The number of records is exact for small csv files and scanned worksheets,
+     * otherwise estimated from the used range or from a sample of the worksheet.</p>
+     */
+    public static final class WorksheetMetadata {
+        private final String name;
+        private final int firstRow;
+        private final int lastRow;
+        private final int firstColumn;
+        private final int lastColumn;
+        private final long records;
+        private final boolean exact;
+
+        public WorksheetMetadata(final String name, final int firstRow, final int lastRow, final int firstColumn,
+                                 final int lastColumn, final long records, final boolean exact) {
+            this.name = name;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.firstColumn = firstColumn;
+            this.lastColumn = lastColumn;
+            this.records = records;
+            this.exact = exact;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getFirstRow() {
+            return firstRow;
+        }
+
+        public int getLastRow() {
+            return lastRow;
+        }
+
+        public int getFirstColumn() {
+            return firstColumn;
+        }
+
+        public int getLastColumn() {
+            return lastColumn;
+        }
+
+        /**
+         * Gets the (estimated) number of records.
+         *
+         * @return the number of records
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Returns true if {@link #getRecords()} is exact, false if it is an estimate.
+         *
+         * @return true if exact
+         */
+        public boolean isExact() {
+            return exact;
+        }
+
+        @Override
+        public String toString() {
+            return name + " {rows: " + firstRow + ".." + lastRow + ", columns: " + firstColumn + ".." + lastColumn
+                    + ", records: " + (exact ? "" : "~") + records + "}";
+        }
+    }
+}
@@ -5,6 +5,10 @@ import java.util.NoSuchElementException;
 /**
  * Spreadsheet parser definition.
  *
+ * <p>The methods tagged {@code @since 1.1} were added to this interface in 1.1, a breaking change for the parsers
+ * implementing it directly: they must implement the new methods or extend {@link AbstractSpreadsheetParser},
+ * which implements them.</p>
+ *
  * @author vacoor
  * @since 1.0
  */
@@ -54,6 +58,52 @@ public interface SpreadsheetParser extends SpreadsheetConfigurable<SpreadsheetPa
      */
     int EOF = -1;
 
+    /**
+     * Row filter option, value: {@link RowFilter}.
+     *
+     * @since 1.1
+     */
+    String OPTION_ROW_FILTER = "row_filter";
+
+    /**
+     * String deduplication option, value: {@link com.github.nomou.spreadsheet.util.StringCache} or {@link Boolean}.
+     *
+     * @since 1.1
+     */
+    String OPTION_STRING_CACHE = "string_cache";
+
+    /**
+     * Resume position option, value: {@link SpreadsheetPosition} or its token, must be configured before the first event.
+     *
+     * @since 1.1
+     */
+    String OPTION_POSITION = "position";
+
+    /**
+     * Lenient mode option, value: {@link SpreadsheetErrorCollector}, malformed cells are collected instead of thrown.
+     * <p>The engines decoding the cell values on demand may only check a cell when its value is requested, see the
+     * engine documentation.</p>
+     *
+     * @since 1.1
+     */
+    String OPTION_ERROR_COLLECTOR = "error_collector";
+
+    /**
+     * Record events option, value: {@link Boolean}, only START_RECORD/END_RECORD are emitted for the records,
+     * the cells are read by {@link #getRecordValue(int)}.
+     *
+     * @since 1.1
+     */
+    String OPTION_RECORD_EVENTS = "record_events";
+
+    /**
+     * Column statistics option, value: {@link com.github.nomou.spreadsheet.schema.ColumnStatsCollector}, the decoded
+     * cells are collected and the statistics of a worksheet are produced at its END_WORKSHEET event.
+     *
+     * @since 1.1
+     */
+    String OPTION_STATISTICS = "statistics";
+
 
     /**
      * Returns an integer code that indicates the type of the event the cursor is pointing to.
@@ -114,6 +164,39 @@ public interface SpreadsheetParser extends SpreadsheetConfigurable<SpreadsheetPa
      */
     Object getValue();
 
+    /**
+     * Returns the raw (not decoded) cell value of the parse event, eg: the text of a xlsx cell
+     * (the shared string index of a shared string cell).
+     * <p>Engines without a raw representation return the decoded value.</p>
+     *
+     * @return the raw cell value or null
+     * @throws java.lang.IllegalStateException if this state is not a valid cell state.
+     * @since 1.1
+     */
+    Object getRawValue();
+
+    /**
+     * Returns the number of columns (the last column + 1) of the current record in record events mode.
+     *
+     * @return the number of columns of the record, -1 if the record events mode is disabled
+     * @throws java.lang.IllegalStateException if this state is not a valid record state.
+     * @see #OPTION_RECORD_EVENTS
+     * @since 1.1
+     */
+    int getRecordWidth();
+
+    /**
+     * Returns the value of the given column of the current record in record events mode.
+     * <p>The values are held in a buffer reused by the next record.</p>
+     *
+     * @param col the column index
+     * @return the cell value or null
+     * @throws java.lang.IllegalStateException if this state is not a valid record state.
+     * @see #OPTION_RECORD_EVENTS
+     * @since 1.1
+     */
+    Object getRecordValue(final int col);
+
     /**
      * Returns true if there are more parsing events and false if there are no more events.
      * This method will return false if the current state of the SpreadsheetParser is END_WORKBOOK.
@@ -159,6 +242,29 @@ public interface SpreadsheetParser extends SpreadsheetConfigurable<SpreadsheetPa
      */
     Object[] nextRecord(final boolean ignoreEmptyRecord) throws SpreadsheetException;
 
+    /**
+     * Parses the whole workbook in push mode: the engine reads its records in its own loop and calls the handler,
+     * without the per cell events of {@link #next()}.
+     * <p>Must be called before the first event, the parser is at END_WORKBOOK when this method returns.
+     * The position is updated before the handler is notified of each completed record, so
+     * {@link #getPosition()} called from {@link RowHandler#endRow(int)} includes that record.</p>
+     *
+     * @param handler the row handler
+     * @throws IllegalStateException if the parsing already started
+     * @throws SpreadsheetException  if there is an error processing the underlying input source
+     * @since 1.1
+     */
+    void parse(final RowHandler handler) throws SpreadsheetException;
+
+    /**
+     * Returns the position after the last completed record, the position can be used to resume parsing later.
+     *
+     * @return the current position
+     * @see #OPTION_POSITION
+     * @since 1.1
+     */
+    SpreadsheetPosition getPosition();
+
     /**
      * Frees any resources associated with this Reader.  This method does not close the underlying input source.
      *
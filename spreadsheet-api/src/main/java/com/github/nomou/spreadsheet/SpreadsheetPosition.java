@@ -0,0 +1,132 @@
+package com.github.nomou.spreadsheet;
+
+import java.io.Serializable;
+
+/**
+ * Opaque parser position, used to checkpoint and resume long imports.
+ *
+ * <p>A position points after the last completed record, a parser configured with
+ * {@link SpreadsheetParser#OPTION_POSITION} skips forward to it as cheaply as the format allows
+ * (a direct seek for csv, skipping worksheet parts and rows without decoding cells for xlsx/xls)
+ * and emits the worksheet of the position followed by the next record:</p>
+ * <pre>
+ * String token = ...; // SpreadsheetPosition#toToken() saved with the last committed batch
+ * final SpreadsheetParser parser = factory.create(in);
+ * parser.configure(SpreadsheetParser.OPTION_POSITION, token);
+ * while (null != (values = parser.nextRecord(true))) {
+ *     ...
+ *     token = parser.getPosition().toToken();
+ * }
+ * </pre>
+ *
+ * <p>A position is only meaningful for the same input and the same parser options.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class SpreadsheetPosition implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final String TOKEN_PREFIX = "p1.";
+
+    /**
+     * The position before the first record of the first worksheet.
+     */
+    public static final SpreadsheetPosition START = new SpreadsheetPosition(0, -1, 0, -1);
+
+    private final int worksheetIndex;
+    private final int row;
+    private final long records;
+    private final long offset;
+
+    /**
+     * Creates a position.
+     *
+     * @param worksheetIndex the worksheet index
+     * @param row            the row of the last completed record or -1 if no record completed
+     * @param records        the number of records completed in the worksheet
+     * @param offset         the byte offset of the next record or -1 if the format is not seekable
+     */
+    public SpreadsheetPosition(final int worksheetIndex, final int row, final long records, final long offset) {
+        this.worksheetIndex = worksheetIndex;
+        this.row = row;
+        this.records = records;
+        this.offset = offset;
+    }
+
+    public int getWorksheetIndex() {
+        return worksheetIndex;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Encodes this position as a compact string token.
+     *
+     * @return the token
+     */
+    public String toToken() {
+        return TOKEN_PREFIX + Integer.toString(worksheetIndex, Character.MAX_RADIX)
+                + '.' + Integer.toString(row, Character.MAX_RADIX)
+                + '.' + Long.toString(records, Character.MAX_RADIX)
+                + '.' + Long.toString(offset, Character.MAX_RADIX);
+    }
+
+    /**
+     * Decodes a position token.
+     *
+     * @param token the token created by {@link #toToken()}
+     * @return the position
+     * @throws IllegalArgumentException if the token is invalid
+     */
+    public static SpreadsheetPosition parse(final String token) {
+        final String[] parts = null != token && token.startsWith(TOKEN_PREFIX) ? token.substring(TOKEN_PREFIX.length()).split("\\.") : null;
+        if (null == parts || 4 != parts.length) {
+            throw new IllegalArgumentException("illegal position token: " + token);
+        }
+        try {
+            return new SpreadsheetPosition(
+                    Integer.parseInt(parts[0], Character.MAX_RADIX), Integer.parseInt(parts[1], Character.MAX_RADIX),
+                    Long.parseLong(parts[2], Character.MAX_RADIX), Long.parseLong(parts[3], Character.MAX_RADIX)
+            );
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("illegal position token: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SpreadsheetPosition)) {
+            return false;
+        }
+        final SpreadsheetPosition that = (SpreadsheetPosition) o;
+        return worksheetIndex == that.worksheetIndex && row == that.row && records == that.records && offset == that.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = worksheetIndex;
+        result = 31 * result + row;
+        result = 31 * result + (int) (records ^ (records >>> 32));
+        result = 31 * result + (int) (offset ^ (offset >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SpreadsheetPosition{worksheet=" + worksheetIndex + ", row=" + row + ", records=" + records + ", offset=" + offset + '}';
+    }
+}
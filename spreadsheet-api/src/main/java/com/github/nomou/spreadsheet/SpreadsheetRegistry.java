@@ -0,0 +1,550 @@
+package com.github.nomou.spreadsheet;
+
+import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+import com.github.nomou.spreadsheet.spi.SpreadsheetProber;
+import com.github.nomou.spreadsheet.spi.SpreadsheetWriterFactory;
+import com.github.nomou.spreadsheet.util.SpreadsheetUtils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+/**
+ * Spreadsheet parser/writer factory registry.
+ *
+ * <p>A registry is bound to a class loader ({@link #getInstance()} uses the context class loader of the current
+ * thread), the factories declared by the {@link ServiceLoader} files of that class loader are only loaded on
+ * the first lookup. Factories can also be registered programmatically, with a priority: for a given format the
+ * factory with the highest priority is used first, a registered factory replaces a factory of the same class:</p>
+ * <pre>
+ * SpreadsheetRegistry.getInstance()
+ *         .registerParserFactory(new LegacySpreadsheetParserFactory(LegacySpreadsheetParserFactory.ENGINE_HSSF));
+ * System.out.println(SpreadsheetRegistry.getInstance()); // the resolved factories
+ * </pre>
+ *
+ * <p>The registries are cached per class loader, a container unloading a class loader should
+ * {@link #release(ClassLoader) release} its registry (the loaded factories reference their class loader).</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class SpreadsheetRegistry {
+    /**
+     * The priority of the factories loaded by the {@link ServiceLoader}.
+     */
+    public static final int SERVICE_PRIORITY = 0;
+
+    /**
+     * The default priority of the factories registered programmatically, above the loaded factories.
+     */
+    public static final int REGISTERED_PRIORITY = 10;
+
+    private static final Map<ClassLoader, SpreadsheetRegistry> REGISTRIES = new WeakHashMap<>();
+
+    private static final Comparator<Registration<?>> PRIORITY_COMPARATOR = new Comparator<Registration<?>>() {
+        @Override
+        public int compare(final Registration<?> r1, final Registration<?> r2) {
+            if (r1.priority != r2.priority) {
+                return r1.priority > r2.priority ? -1 : 1;
+            }
+            return r1.sequence < r2.sequence ? -1 : (r1.sequence == r2.sequence ? 0 : 1);
+        }
+    };
+
+    private final WeakReference<ClassLoader> classLoader;
+    private final List<Registration<SpreadsheetParserFactory>> parserFactories = new ArrayList<>();
+    private final List<Registration<SpreadsheetWriterFactory>> writerFactories = new ArrayList<>();
+    private boolean loaded;
+    private long sequence;
+
+    /**
+     * Creates a registry loading the factories of the given class loader.
+     *
+     * @param classLoader the class loader, null to load no factory
+     */
+    public SpreadsheetRegistry(final ClassLoader classLoader) {
+        this.classLoader = null != classLoader ? new WeakReference<>(classLoader) : null;
+        this.loaded = null == classLoader;
+    }
+
+    /**
+     * Gets the registry of the context class loader of the current thread.
+     *
+     * @return the registry
+     */
+    public static SpreadsheetRegistry getInstance() {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return getInstance(null != contextClassLoader ? contextClassLoader : SpreadsheetRegistry.class.getClassLoader());
+    }
+
+    /**
+     * Gets the registry of the given class loader.
+     *
+     * @param classLoader the class loader
+     * @return the registry
+     */
+    public static SpreadsheetRegistry getInstance(final ClassLoader classLoader) {
+        synchronized (REGISTRIES) {
+            SpreadsheetRegistry registry = REGISTRIES.get(classLoader);
+            if (null == registry) {
+                registry = new SpreadsheetRegistry(classLoader);
+                REGISTRIES.put(classLoader, registry);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Releases the registry of the given class loader.
+     *
+     * @param classLoader the class loader
+     */
+    public static void release(final ClassLoader classLoader) {
+        synchronized (REGISTRIES) {
+            REGISTRIES.remove(classLoader);
+        }
+    }
+
+    /**
+     * Registers a parser factory with the {@link #REGISTERED_PRIORITY default priority}.
+     *
+     * @param factory the parser factory
+     * @return this registry
+     */
+    public SpreadsheetRegistry registerParserFactory(final SpreadsheetParserFactory factory) {
+        return registerParserFactory(factory, REGISTERED_PRIORITY);
+    }
+
+    /**
+     * Registers a parser factory, it replaces the registered factory of the same class.
+     *
+     * @param factory  the parser factory
+     * @param priority the priority, the highest first
+     * @return this registry
+     */
+    public synchronized SpreadsheetRegistry registerParserFactory(final SpreadsheetParserFactory factory, final int priority) {
+        ensureLoaded();
+        register(parserFactories, factory, priority);
+        return this;
+    }
+
+    /**
+     * Registers a writer factory with the {@link #REGISTERED_PRIORITY default priority}.
+     *
+     * @param factory the writer factory
+     * @return this registry
+     */
+    public SpreadsheetRegistry registerWriterFactory(final SpreadsheetWriterFactory factory) {
+        return registerWriterFactory(factory, REGISTERED_PRIORITY);
+    }
+
+    /**
+     * Registers a writer factory, it replaces the registered factory of the same class.
+     *
+     * @param factory  the writer factory
+     * @param priority the priority, the highest first
+     * @return this registry
+     */
+    public synchronized SpreadsheetRegistry registerWriterFactory(final SpreadsheetWriterFactory factory, final int priority) {
+        ensureLoaded();
+        register(writerFactories, factory, priority);
+        return this;
+    }
+
+    /**
+     * Unregisters the parser and writer factories of the given class.
+     *
+     * @param factoryClass the factory class
+     * @return true if a factory was unregistered
+     */
+    public synchronized boolean unregister(final Class<?> factoryClass) {
+        ensureLoaded();
+        return remove(parserFactories, factoryClass) | remove(writerFactories, factoryClass);
+    }
+
+    /**
+     * Gets the parser factories supporting the given extension, the first is the resolved one.
+     *
+     * @param extension the extension
+     * @return the parser factories in priority order
+     */
+    public synchronized List<SpreadsheetParserFactory> getParserFactories(final String extension) {
+        ensureLoaded();
+        final List<SpreadsheetParserFactory> factories = new ArrayList<>();
+        for (final Registration<SpreadsheetParserFactory> registration : parserFactories) {
+            if (supports(registration.factory.getSupportedFormats(), extension)) {
+                factories.add(registration.factory);
+            }
+        }
+        return factories;
+    }
+
+    /**
+     * Gets the writer factories supporting the given extension, the first is the resolved one.
+     *
+     * @param extension the extension
+     * @return the writer factories in priority order
+     */
+    public synchronized List<SpreadsheetWriterFactory> getWriterFactories(final String extension) {
+        ensureLoaded();
+        final List<SpreadsheetWriterFactory> factories = new ArrayList<>();
+        for (final Registration<SpreadsheetWriterFactory> registration : writerFactories) {
+            if (supports(registration.factory.getSupportedFormats(), extension)) {
+                factories.add(registration.factory);
+            }
+        }
+        return factories;
+    }
+
+    /**
+     * Get a spreadsheet writer factory that supports a given extension.
+     *
+     * @param extension the extension
+     * @return the spreadsheet writer factory
+     */
+    public SpreadsheetWriterFactory getWriterFactory(final String extension) {
+        final List<SpreadsheetWriterFactory> factories = getWriterFactories(extension);
+        if (factories.isEmpty()) {
+            throw new IllegalStateException("No suite SpreadsheetWriterFactory found for " + extension);
+        }
+        return factories.get(0);
+    }
+
+    /**
+     * Get a spreadsheet parser factory that supports a given extensions.
+     *
+     * <p>if 'extensions' is not specified, the returned factory will support all supported formats.</p>
+     *
+     * @param extensions the extensions
+     * @return the spreadsheet parser factory
+     */
+    public SpreadsheetParserFactory getParserFactory(final String... extensions) {
+        final List<Spreadsheet.Format> formats = new ArrayList<>();
+        final Map<byte[], List<SpreadsheetParserFactory>> factoriesMap = getParserFactoriesMap(formats, extensions);
+        if (factoriesMap.isEmpty()) {
+            throw new IllegalStateException("No suite SpreadsheetParserFactory found for " + Arrays.toString(extensions));
+        }
+        return new MixedSpreadsheetParserFactory(formats.toArray(new Spreadsheet.Format[formats.size()]), factoriesMap);
+    }
+
+    /**
+     * Probes the metadata of a spreadsheet file, see {@link Spreadsheet#probe(File)}.
+     *
+     * @param file the spreadsheet file
+     * @return the metadata
+     * @throws SpreadsheetException if the file cannot be read or is not supported
+     */
+    public SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        final Map<byte[], List<SpreadsheetParserFactory>> factoriesMap = getParserFactoriesMap(new ArrayList<Spreadsheet.Format>());
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            final List<SpreadsheetParserFactory> factories = SpreadsheetUtils.matches(in, factoriesMap);
+            if (null == factories || factories.isEmpty()) {
+                throw new SpreadsheetException("file type error: " + file);
+            }
+            SpreadsheetException lastError = null;
+            for (final SpreadsheetParserFactory factory : factories) {
+                if (factory instanceof SpreadsheetProber) {
+                    try {
+                        final SpreadsheetMetadata metadata = ((SpreadsheetProber) factory).probe(file);
+                        if (null != metadata) {
+                            return metadata;
+                        }
+                    } catch (final SpreadsheetException ex) {
+                        lastError = ex;
+                    }
+                }
+            }
+            for (final SpreadsheetParserFactory factory : factories) {
+                try {
+                    return scan(factory.create(in));
+                } catch (final SpreadsheetException ex) {
+                    lastError = ex;
+                }
+            }
+            throw null != lastError ? lastError : new SpreadsheetException("not supported");
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        } finally {
+            if (null != in) {
+                try {
+                    in.close();
+                } catch (final IOException ignore) {
+                    // ignore.
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the resolved factories of each extension.
+     *
+     * @return the description of this registry
+     */
+    @Override
+    public synchronized String toString() {
+        ensureLoaded();
+        final Map<String, List<String>> parsers = new LinkedHashMap<>();
+        for (final Registration<SpreadsheetParserFactory> registration : parserFactories) {
+            describe(parsers, registration);
+        }
+        final Map<String, List<String>> writers = new LinkedHashMap<>();
+        for (final Registration<SpreadsheetWriterFactory> registration : writerFactories) {
+            describe(writers, registration);
+        }
+        return "SpreadsheetRegistry {parsers: " + parsers + ", writers: " + writers + "}";
+    }
+
+    /* ************************************
+     *
+     * ********************************** */
+
+    private synchronized Map<byte[], List<SpreadsheetParserFactory>> getParserFactoriesMap(final List<Spreadsheet.Format> formats, final String... extensions) {
+        ensureLoaded();
+        // header bytes are compared by value, the factories of a same header stay in priority order.
+        final Map<byte[], List<SpreadsheetParserFactory>> factoriesMap = new LinkedHashMap<>();
+        for (final Registration<SpreadsheetParserFactory> registration : parserFactories) {
+            for (final Spreadsheet.Format format : registration.factory.getSupportedFormats()) {
+                if (0 < extensions.length && !supports(format, extensions)) {
+                    continue;
+                }
+                if (!formats.contains(format)) {
+                    formats.add(format);
+                }
+                byte[] header = format.getHeader();
+                for (final byte[] key : factoriesMap.keySet()) {
+                    if (Arrays.equals(key, header)) {
+                        header = key;
+                        break;
+                    }
+                }
+                List<SpreadsheetParserFactory> factories = factoriesMap.get(header);
+                if (null == factories) {
+                    factories = new ArrayList<>();
+                    factoriesMap.put(header, factories);
+                }
+                if (!factories.contains(registration.factory)) {
+                    factories.add(registration.factory);
+                }
+            }
+        }
+        return factoriesMap;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        final ClassLoader loader = classLoader.get();
+        if (null == loader) {
+            return;
+        }
+        for (final SpreadsheetParserFactory factory : ServiceLoader.load(SpreadsheetParserFactory.class, loader)) {
+            if (!contains(parserFactories, factory.getClass())) {
+                register(parserFactories, factory, SERVICE_PRIORITY);
+            }
+        }
+        for (final SpreadsheetWriterFactory factory : ServiceLoader.load(SpreadsheetWriterFactory.class, loader)) {
+            if (!contains(writerFactories, factory.getClass())) {
+                register(writerFactories, factory, SERVICE_PRIORITY);
+            }
+        }
+    }
+
+    private <T> void register(final List<Registration<T>> registrations, final T factory, final int priority) {
+        if (null == factory) {
+            throw new IllegalArgumentException("factory must not be null");
+        }
+        remove(registrations, factory.getClass());
+        registrations.add(new Registration<>(factory, priority, sequence++));
+        Collections.sort(registrations, PRIORITY_COMPARATOR);
+    }
+
+    private static <T> boolean contains(final List<Registration<T>> registrations, final Class<?> factoryClass) {
+        for (final Registration<T> registration : registrations) {
+            if (registration.factory.getClass() == factoryClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> boolean remove(final List<Registration<T>> registrations, final Class<?> factoryClass) {
+        boolean removed = false;
+        for (final Iterator<Registration<T>> it = registrations.iterator(); it.hasNext(); ) {
+            if (it.next().factory.getClass() == factoryClass) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean supports(final Spreadsheet.Format[] formats, final String extension) {
+        for (final Spreadsheet.Format format : formats) {
+            if (supports(format, extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean supports(final Spreadsheet.Format format, final String... extensions) {
+        for (final String supported : format.getExtensions()) {
+            for (final String extension : extensions) {
+                if (supported.equalsIgnoreCase(extension)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void describe(final Map<String, List<String>> descriptions, final Registration<?> registration) {
+        final Spreadsheet.Format[] formats = registration.factory instanceof SpreadsheetParserFactory
+                ? ((SpreadsheetParserFactory) registration.factory).getSupportedFormats()
+                : ((SpreadsheetWriterFactory) registration.factory).getSupportedFormats();
+        for (final Spreadsheet.Format format : formats) {
+            for (final String extension : format.getExtensions()) {
+                List<String> factories = descriptions.get(extension.toLowerCase());
+                if (null == factories) {
+                    factories = new ArrayList<>();
+                    descriptions.put(extension.toLowerCase(), factories);
+                }
+                factories.add(registration.factory + "(" + registration.priority + ")");
+            }
+        }
+    }
+
+    private static SpreadsheetMetadata scan(final SpreadsheetParser parser) throws SpreadsheetException {
+        final List<SpreadsheetMetadata.WorksheetMetadata> worksheets = new ArrayList<>();
+        try {
+            String name = null;
+            int firstRow = -1;
+            int lastRow = -1;
+            int lastColumn = -1;
+            long records = 0;
+            while (parser.hasNext()) {
+                final int event = parser.next();
+                if (SpreadsheetParser.START_WORKSHEET == event) {
+                    name = parser.getWorksheetName();
+                    firstRow = -1;
+                    lastRow = -1;
+                    lastColumn = -1;
+                    records = 0;
+                } else if (SpreadsheetParser.START_RECORD == event) {
+                    firstRow = 0 > firstRow ? parser.getRow() : firstRow;
+                    lastRow = parser.getRow();
+                    records++;
+                } else if (SpreadsheetParser.START_CELL == event) {
+                    lastColumn = Math.max(lastColumn, parser.getCol());
+                } else if (SpreadsheetParser.END_WORKSHEET == event) {
+                    worksheets.add(new SpreadsheetMetadata.WorksheetMetadata(name, firstRow, lastRow, 0 > lastColumn ? -1 : 0, lastColumn, records, true));
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return new SpreadsheetMetadata(worksheets);
+    }
+
+    /**
+     * Factory registration.
+     */
+    private static class Registration<T> {
+        private final T factory;
+        private final int priority;
+        private final long sequence;
+
+        private Registration(final T factory, final int priority, final long sequence) {
+            this.factory = factory;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    /* *****************************************
+     *
+     * *************************************** */
+
+    /**
+     * Mixed spreadsheet parser factory.
+     */
+    private static class MixedSpreadsheetParserFactory implements SpreadsheetParserFactory {
+        private final Spreadsheet.Format[] formats;
+        private final Map<byte[], List<SpreadsheetParserFactory>> factoriesMap;
+
+        private MixedSpreadsheetParserFactory(final Spreadsheet.Format[] formats,
+                                              final Map<byte[], List<SpreadsheetParserFactory>> factories) {
+            this.formats = formats;
+            this.factoriesMap = factories;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Spreadsheet.Format[] getSupportedFormats() {
+            return formats;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SpreadsheetParser create(final InputStream in) throws SpreadsheetException {
+            try {
+                List<SpreadsheetParserFactory> factories = SpreadsheetUtils.matches(in, factoriesMap);
+                if (null != factories) {
+                    if (factories.isEmpty()) {
+                        throw new SpreadsheetException("file type error");
+                    }
+
+                    SpreadsheetException lastError = null;
+                    for (final SpreadsheetParserFactory factory : factories) {
+                        try {
+                            return factory.create(in);
+                        } catch (final SpreadsheetException ex) {
+                            lastError = ex;
+                        }
+                    }
+
+                    throw lastError;
+                } else {
+                    // unsupported 'mark' method, try first factory.
+                    for (final List<SpreadsheetParserFactory> tryFactories : factoriesMap.values()) {
+                        for (final SpreadsheetParserFactory tryFactory : tryFactories) {
+                            try {
+                                return tryFactory.create(in);
+                            } catch (final SpreadsheetException ex) {
+                                // 'in.markSupported()' always 'false'
+                                if (!in.markSupported()) {
+                                    throw new SpreadsheetException("input must be available markSupported,you can do like this 'new BufferedInputStream(new FileInputStream(\"/xxxx\"))'");
+                                }
+                            }
+                        }
+                    }
+
+                    throw new SpreadsheetException("not supported");
+                }
+            } catch (IOException e) {
+                throw new SpreadsheetException(e);
+            }
+        }
+    }
+}
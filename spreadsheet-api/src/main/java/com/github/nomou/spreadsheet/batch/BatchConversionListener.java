@@ -0,0 +1,21 @@
+package com.github.nomou.spreadsheet.batch;
+
+/**
+ * Batch conversion progress callback.
+ *
+ * <p>Callbacks are invoked from worker threads, implementations must be thread-safe.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public interface BatchConversionListener {
+
+    /**
+     * Invoked when a file has been converted or has failed.
+     *
+     * @param result the file result
+     * @param stats  the aggregate statistics at this point
+     */
+    void onCompleted(final ConversionResult result, final BatchStats stats);
+
+}
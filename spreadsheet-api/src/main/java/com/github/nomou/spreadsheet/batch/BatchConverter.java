@@ -0,0 +1,517 @@
+package com.github.nomou.spreadsheet.batch;
+
+import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetCancelledException;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+import com.github.nomou.spreadsheet.spi.SpreadsheetWriterFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts many spreadsheet files concurrently.
+ *
+ * <p>Each file is converted by an independent parser/writer pair located through
+ * {@link Spreadsheet#getParserFactory(String...)} and {@link Spreadsheet#getWriterFactory(String)}.
+ * A failing file never affects the other files of the batch, its partial output is removed and
+ * the failure is reported through {@link ConversionResult} and {@link BatchStats#getFailures()}.</p>
+ *
+ * <p>A file is written to a temporary file of the target directory, renamed to the target once converted, so an
+ * existing target is only replaced by a complete conversion. The tasks whose target is a source of the batch or
+ * the target of another task are rejected (reported as failures, not converted).</p>
+ *
+ * <p>Tasks run on virtual threads when the runtime provides them (Java 21+), otherwise on a bounded
+ * platform thread pool. The number of files in flight and the total size of in-flight source files
+ * are bounded, so submitting a directory of 10k+ files does not open 10k+ workbooks at once.</p>
+ *
+ * <pre>
+ * final BatchStats stats = new BatchConverter()
+ *         .setMaxInFlightFiles(16)
+ *         .setListener(listener)
+ *         .convertDirectory(new File("in"), new File("out"), "xlsx");
+ * </pre>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class BatchConverter {
+    /**
+     * The default number of files in flight.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_FILES = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * The default total size of in-flight source files.
+     */
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 512L * 1024 * 1024;
+
+    private static final int KB = 1024;
+
+    private String[] sourceExtensions = new String[0];
+    private int maxInFlightFiles = DEFAULT_MAX_IN_FLIGHT_FILES;
+    private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+    private int platformThreads = Runtime.getRuntime().availableProcessors();
+    private boolean useVirtualThreads = true;
+    private boolean firstWorksheetOnly;
+    private ExecutorService executor;
+    private BatchConversionListener listener;
+    private final Map<String, Object> parserOptions = new LinkedHashMap<String, Object>();
+    private final Map<String, Object> writerOptions = new LinkedHashMap<String, Object>();
+
+    /**
+     * Restricts the source formats, all registered formats are accepted by default.
+     *
+     * @param extensions the source extensions, eg: xls, xlsx
+     * @return this converter
+     */
+    public BatchConverter setSourceExtensions(final String... extensions) {
+        this.sourceExtensions = null != extensions ? extensions : new String[0];
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of files converted at the same time.
+     *
+     * @param maxInFlightFiles the number of files
+     * @return this converter
+     */
+    public BatchConverter setMaxInFlightFiles(final int maxInFlightFiles) {
+        if (1 > maxInFlightFiles) {
+            throw new IllegalArgumentException("maxInFlightFiles must be positive: " + maxInFlightFiles);
+        }
+        this.maxInFlightFiles = maxInFlightFiles;
+        return this;
+    }
+
+    /**
+     * Sets the maximum total size of source files converted at the same time.
+     *
+     * <p>A single file larger than the limit is still converted, alone.</p>
+     *
+     * @param maxInFlightBytes the size in bytes
+     * @return this converter
+     */
+    public BatchConverter setMaxInFlightBytes(final long maxInFlightBytes) {
+        if (KB > maxInFlightBytes) {
+            throw new IllegalArgumentException("maxInFlightBytes must be at least 1KB: " + maxInFlightBytes);
+        }
+        this.maxInFlightBytes = maxInFlightBytes;
+        return this;
+    }
+
+    /**
+     * Sets the size of the platform thread pool used when virtual threads are unavailable or disabled.
+     *
+     * @param platformThreads the number of threads
+     * @return this converter
+     */
+    public BatchConverter setPlatformThreads(final int platformThreads) {
+        if (1 > platformThreads) {
+            throw new IllegalArgumentException("platformThreads must be positive: " + platformThreads);
+        }
+        this.platformThreads = platformThreads;
+        return this;
+    }
+
+    /**
+     * Sets whether the tasks run on virtual threads when the runtime provides them (Java 21+), true by default.
+     *
+     * @param useVirtualThreads false to always use the platform thread pool
+     * @return this converter
+     * @see #setPlatformThreads(int)
+     */
+    public BatchConverter setUseVirtualThreads(final boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+        return this;
+    }
+
+    /**
+     * Only converts the first worksheet, required when the target format holds a single worksheet (eg: csv):
+     * otherwise a source of several worksheets fails at its second worksheet.
+     *
+     * @param firstWorksheetOnly true if only the first worksheet is converted
+     * @return this converter
+     */
+    public BatchConverter setFirstWorksheetOnly(final boolean firstWorksheetOnly) {
+        this.firstWorksheetOnly = firstWorksheetOnly;
+        return this;
+    }
+
+    /**
+     * Uses the given executor instead of a converter managed one, the executor is not shut down by the converter.
+     *
+     * @param executor the executor
+     * @return this converter
+     */
+    public BatchConverter setExecutor(final ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified of each completed or failed file.
+     *
+     * @param listener the listener, called from the worker threads
+     * @return this converter
+     */
+    public BatchConverter setListener(final BatchConversionListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Sets an option applied to every parser, see {@link SpreadsheetParser#configure(String, Object)}.
+     *
+     * @param option the option name
+     * @param value  the option value
+     * @return this converter
+     */
+    public BatchConverter setParserOption(final String option, final Object value) {
+        this.parserOptions.put(option, value);
+        return this;
+    }
+
+    /**
+     * Sets an option applied to every writer, see {@link SpreadsheetWriter#configure(String, Object)}.
+     *
+     * @param option the option name
+     * @param value  the option value
+     * @return this converter
+     */
+    public BatchConverter setWriterOption(final String option, final Object value) {
+        this.writerOptions.put(option, value);
+        return this;
+    }
+
+    /**
+     * Converts all files of the source directory into the target directory.
+     *
+     * @param sourceDir       the source directory
+     * @param targetDir       the target directory
+     * @param targetExtension the target format extension
+     * @return the batch statistics
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public BatchStats convertDirectory(final File sourceDir, final File targetDir, final String targetExtension) throws InterruptedException {
+        final File[] files = sourceDir.listFiles();
+        if (null == files) {
+            throw new IllegalArgumentException("not a directory: " + sourceDir);
+        }
+        if (!targetDir.isDirectory() && !targetDir.mkdirs()) {
+            throw new IllegalArgumentException("can not create directory: " + targetDir);
+        }
+
+        final List<ConversionTask> tasks = new ArrayList<ConversionTask>(files.length);
+        for (final File file : files) {
+            if (file.isFile() && isAccepted(file)) {
+                final String name = file.getName();
+                final int i = name.lastIndexOf('.');
+                final String baseName = 0 < i ? name.substring(0, i) : name;
+                tasks.add(new ConversionTask(file, new File(targetDir, baseName + '.' + targetExtension), targetExtension));
+            }
+        }
+        return convert(tasks);
+    }
+
+    /**
+     * Converts the given files, blocks until all files are finished.
+     *
+     * @param tasks the conversion tasks
+     * @return the batch statistics
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public BatchStats convert(final Collection<ConversionTask> tasks) throws InterruptedException {
+        final BatchStats stats = new BatchStats(tasks.size());
+        final boolean managed = null == this.executor;
+        final ExecutorService executor = managed ? createExecutor() : this.executor;
+
+        final Map<File, Integer> targets = new HashMap<File, Integer>();
+        final Set<File> sources = new HashSet<File>();
+        for (final ConversionTask task : tasks) {
+            final File target = canonicalFile(task.getTarget());
+            final Integer count = targets.get(target);
+            targets.put(target, null != count ? count + 1 : 1);
+            sources.add(canonicalFile(task.getSource()));
+        }
+
+        final Semaphore files = new Semaphore(maxInFlightFiles);
+        final int capacityKb = (int) Math.min(Integer.MAX_VALUE, maxInFlightBytes / KB);
+        final Semaphore kilobytes = new Semaphore(capacityKb);
+        try {
+            for (final ConversionTask task : tasks) {
+                final File target = canonicalFile(task.getTarget());
+                final String rejected = sources.contains(target) ? "target is a source file of the batch: "
+                        : 1 < targets.get(target) ? "target is shared by several tasks: " : null;
+                if (null != rejected) {
+                    final Exception error = new IllegalArgumentException(rejected + task.getTarget());
+                    complete(new ConversionResult(task, error, 0, 0, task.getSource().length(), 0), stats);
+                    continue;
+                }
+                final int weight = (int) Math.max(1, Math.min(capacityKb, task.getSource().length() / KB));
+                files.acquire();
+                try {
+                    kilobytes.acquire(weight);
+                } catch (final InterruptedException e) {
+                    files.release();
+                    throw e;
+                }
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                complete(convertFile(task), stats);
+                            } finally {
+                                kilobytes.release(weight);
+                                files.release();
+                            }
+                        }
+                    });
+                } catch (final RuntimeException e) {
+                    kilobytes.release(weight);
+                    files.release();
+                    throw e;
+                }
+            }
+
+            // wait for all in-flight tasks.
+            files.acquire(maxInFlightFiles);
+            files.release(maxInFlightFiles);
+        } finally {
+            if (managed) {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            stats.finish();
+        }
+        return stats;
+    }
+
+    /**
+     * Converts a single file, never throws.
+     *
+     * @param task the task
+     * @return the result
+     */
+    ConversionResult convertFile(final ConversionTask task) {
+        final long start = System.nanoTime();
+        final File source = task.getSource();
+        final File target = task.getTarget();
+        final long[] counters = new long[2];
+
+        InputStream in = null;
+        OutputStream out = null;
+        File temp = null;
+        SpreadsheetParser parser = null;
+        SpreadsheetWriter writer = null;
+        Throwable error = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(source));
+            parser = Spreadsheet.getParserFactory(sourceExtensions).create(in);
+            for (final Map.Entry<String, Object> option : parserOptions.entrySet()) {
+                parser.configure(option.getKey(), option.getValue());
+            }
+
+            final SpreadsheetWriterFactory writerFactory = Spreadsheet.getWriterFactory(task.getTargetExtension());
+            temp = File.createTempFile(target.getName() + '.', ".tmp", target.getAbsoluteFile().getParentFile());
+            out = new BufferedOutputStream(new FileOutputStream(temp));
+            writer = writerFactory.create(out);
+            for (final Map.Entry<String, Object> option : writerOptions.entrySet()) {
+                writer.configure(option.getKey(), option.getValue());
+            }
+
+            transfer(parser, writer, counters);
+            final SpreadsheetWriter w = writer;
+            writer = null;
+            w.close();
+            closeQuietly(out);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            temp = null;
+        } catch (final Exception e) {
+            error = e;
+        } catch (final LinkageError e) {
+            // missing optional engine dependencies.
+            error = e;
+        } finally {
+            if (null != writer) {
+                closeQuietly(writer);
+            }
+            if (null != parser) {
+                closeQuietly(parser);
+            }
+            closeQuietly(out);
+            closeQuietly(in);
+        }
+
+        // only the partial output of this task is removed, the target is untouched.
+        if (null != temp && temp.exists() && !temp.delete()) {
+            temp.deleteOnExit();
+        }
+        return new ConversionResult(task, error, counters[0], counters[1], source.length(), System.nanoTime() - start);
+    }
+
+    /**
+     * Copies all records of the parser to the writer.
+     *
+     * @param parser   the parser
+     * @param writer   the writer
+     * @param counters the rows/cells counters
+     */
+    void transfer(final SpreadsheetParser parser, final SpreadsheetWriter writer, final long[] counters) {
+        final List<Object> values = new ArrayList<Object>();
+        boolean skip = false;
+        int worksheets = 0;
+        while (parser.hasNext()) {
+            final int event = parser.next();
+            if (SpreadsheetParser.START_WORKSHEET == event) {
+                skip = firstWorksheetOnly && 0 < worksheets;
+                if (!skip) {
+                    startWorksheet(writer, parser.getWorksheetName(), worksheets);
+                }
+                worksheets++;
+            } else if (skip) {
+                // ignore.
+            } else if (SpreadsheetParser.END_CELL == event) {
+                final int col = parser.getCol();
+                final Object value = parser.getValue();
+                if (null != value) {
+                    while (values.size() < col) {
+                        values.add(null);
+                    }
+                    values.add(value);
+                    counters[1]++;
+                }
+            } else if (SpreadsheetParser.END_RECORD == event) {
+                writer.write((Object) values.toArray()).next();
+                values.clear();
+                counters[0]++;
+            }
+        }
+    }
+
+    /**
+     * Starts a worksheet of the target, a target format holding a single worksheet (eg: csv) rejects the next ones.
+     */
+    private static void startWorksheet(final SpreadsheetWriter writer, final String worksheetName, final int worksheets) {
+        try {
+            writer.start(worksheetName);
+        } catch (final SpreadsheetException e) {
+            if (1 > worksheets || e instanceof SpreadsheetCancelledException) {
+                throw e;
+            }
+            throw new SpreadsheetException("can not write the worksheet '" + worksheetName + "', the target format "
+                    + "may hold a single worksheet (see setFirstWorksheetOnly): " + e.getMessage(), e);
+        }
+    }
+
+    private void complete(final ConversionResult result, final BatchStats stats) {
+        stats.record(result);
+        final BatchConversionListener l = this.listener;
+        if (null != l) {
+            try {
+                l.onCompleted(result, stats);
+            } catch (final RuntimeException ignore) {
+                // listener errors must not break the batch.
+            }
+        }
+    }
+
+    private boolean isAccepted(final File file) {
+        if (1 > sourceExtensions.length) {
+            return true;
+        }
+        final String ext = ConversionTask.extensionOf(file);
+        for (final String accepted : sourceExtensions) {
+            if (accepted.equalsIgnoreCase(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if available, otherwise a fixed platform thread pool.
+     *
+     * @return the executor
+     */
+    ExecutorService createExecutor() {
+        if (useVirtualThreads) {
+            try {
+                final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (final Exception ignore) {
+                // Java < 21, fallback to platform threads.
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "spreadsheet-batch-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static File canonicalFile(final File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (final IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static void closeQuietly(final SpreadsheetParser parser) {
+        try {
+            parser.close();
+        } catch (final RuntimeException ignore) {
+            // ignore.
+        }
+    }
+
+    private static void closeQuietly(final SpreadsheetWriter writer) {
+        try {
+            writer.close();
+        } catch (final RuntimeException ignore) {
+            // ignore.
+        }
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        try {
+            if (null != closeable) {
+                closeable.close();
+            }
+        } catch (final IOException ignore) {
+            // ignore.
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.nomou.spreadsheet.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregate statistics of a batch conversion, safe to read while the batch is running.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class BatchStats {
+    private final long total;
+    private final long startNanos;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong cells = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final List<ConversionResult> failures = Collections.synchronizedList(new ArrayList<ConversionResult>());
+    private volatile long endNanos = -1;
+
+    BatchStats(final long total) {
+        this.total = total;
+        this.startNanos = System.nanoTime();
+    }
+
+    void record(final ConversionResult result) {
+        rows.addAndGet(result.getRows());
+        cells.addAndGet(result.getCells());
+        bytes.addAndGet(result.getBytes());
+        if (!result.isSuccess()) {
+            failed.incrementAndGet();
+            failures.add(result);
+        }
+        completed.incrementAndGet();
+    }
+
+    void finish() {
+        this.endNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the number of submitted files.
+     *
+     * @return the number of files
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the number of finished (succeeded or failed) files.
+     *
+     * @return the number of finished files
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getCells() {
+        return cells.get();
+    }
+
+    /**
+     * Gets the total size of the finished source files.
+     *
+     * @return the size in bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Gets the failed conversions.
+     *
+     * @return the failed results
+     */
+    public List<ConversionResult> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<ConversionResult>(failures);
+        }
+    }
+
+    /**
+     * Gets the wall-clock time since the batch started (or the batch duration once finished).
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        final long end = 0 > endNanos ? System.nanoTime() : endNanos;
+        return (end - startNanos) / 1000000L;
+    }
+
+    public double getFilesPerSecond() {
+        return perSecond(getCompleted());
+    }
+
+    public double getRowsPerSecond() {
+        return perSecond(getRows());
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(getBytes());
+    }
+
+    private double perSecond(final long count) {
+        final long millis = getElapsedMillis();
+        return 0 < millis ? count * 1000D / millis : 0D;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchStats {completed=" + getCompleted() + "/" + total + ", failed=" + getFailed()
+                + ", rows=" + getRows() + ", cells=" + getCells() + ", elapsed=" + getElapsedMillis() + "ms"
+                + ", rows/s=" + (long) getRowsPerSecond() + "}";
+    }
+}
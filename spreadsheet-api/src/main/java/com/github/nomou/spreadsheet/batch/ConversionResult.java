@@ -0,0 +1,85 @@
+package com.github.nomou.spreadsheet.batch;
+
+/**
+ * The outcome of a single {@link ConversionTask}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class ConversionResult {
+    private final ConversionTask task;
+    private final Throwable error;
+    private final long rows;
+    private final long cells;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    ConversionResult(final ConversionTask task, final Throwable error,
+                     final long rows, final long cells, final long bytes, final long elapsedNanos) {
+        this.task = task;
+        this.error = error;
+        this.rows = rows;
+        this.cells = cells;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public ConversionTask getTask() {
+        return task;
+    }
+
+    /**
+     * Returns true if the file was converted.
+     *
+     * @return true if succeeded
+     */
+    public boolean isSuccess() {
+        return null == error;
+    }
+
+    /**
+     * Gets the failure cause.
+     *
+     * @return the failure cause or null if succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Gets the number of records written (partial count if failed).
+     *
+     * @return the number of records
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of cells written (partial count if failed).
+     *
+     * @return the number of cells
+     */
+    public long getCells() {
+        return cells;
+    }
+
+    /**
+     * Gets the size of the source file.
+     *
+     * @return the source size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionResult {" + task + ", success=" + isSuccess() + ", rows=" + rows + ", cells=" + cells
+                + ", elapsed=" + (elapsedNanos / 1000000L) + "ms" + (null != error ? ", error=" + error : "") + "}";
+    }
+}
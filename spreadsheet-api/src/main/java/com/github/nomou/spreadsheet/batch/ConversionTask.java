@@ -0,0 +1,84 @@
+package com.github.nomou.spreadsheet.batch;
+
+import java.io.File;
+
+/**
+ * A single file conversion: source spreadsheet to target spreadsheet.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class ConversionTask {
+    /**
+     * The source spreadsheet file.
+     */
+    private final File source;
+
+    /**
+     * The target spreadsheet file.
+     */
+    private final File target;
+
+    /**
+     * The target format extension, eg: xlsx, csv.
+     */
+    private final String targetExtension;
+
+    /**
+     * Creates a conversion task, the target format is derived from the target file extension.
+     *
+     * @param source the source file
+     * @param target the target file
+     */
+    public ConversionTask(final File source, final File target) {
+        this(source, target, extensionOf(target));
+    }
+
+    /**
+     * Creates a conversion task.
+     *
+     * @param source          the source file
+     * @param target          the target file
+     * @param targetExtension the target format extension
+     */
+    public ConversionTask(final File source, final File target, final String targetExtension) {
+        if (null == source || null == target) {
+            throw new IllegalArgumentException("source and target must not be null");
+        }
+        if (null == targetExtension || targetExtension.isEmpty()) {
+            throw new IllegalArgumentException("target extension is unknown: " + target);
+        }
+        this.source = source;
+        this.target = target;
+        this.targetExtension = targetExtension.toLowerCase();
+    }
+
+    public File getSource() {
+        return source;
+    }
+
+    public File getTarget() {
+        return target;
+    }
+
+    public String getTargetExtension() {
+        return targetExtension;
+    }
+
+    /**
+     * Gets the lower-case extension of the given file.
+     *
+     * @param file the file
+     * @return the extension or null if the file has no extension
+     */
+    static String extensionOf(final File file) {
+        final String name = file.getName();
+        final int i = name.lastIndexOf('.');
+        return 0 < i && i < name.length() - 1 ? name.substring(i + 1).toLowerCase() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionTask {" + source + " -> " + target + "}";
+    }
+}
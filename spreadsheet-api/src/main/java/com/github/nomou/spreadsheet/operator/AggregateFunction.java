@@ -0,0 +1,34 @@
+package com.github.nomou.spreadsheet.operator;
+
+/**
+ * Aggregate function of an {@link Aggregator}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public enum AggregateFunction {
+    /**
+     * The number of rows (or the number of non-null values of a column), written as {@link Long}.
+     */
+    COUNT,
+
+    /**
+     * The sum of the numeric values, written as {@link Double}, null if the group has no numeric value.
+     */
+    SUM,
+
+    /**
+     * The minimum numeric value, null if the group has no numeric value.
+     */
+    MIN,
+
+    /**
+     * The maximum numeric value, null if the group has no numeric value.
+     */
+    MAX,
+
+    /**
+     * The average of the numeric values, null if the group has no numeric value.
+     */
+    AVG
+}
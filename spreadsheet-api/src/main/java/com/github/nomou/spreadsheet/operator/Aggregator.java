@@ -0,0 +1,472 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming group-by aggregation operator.
+ *
+ * <p>The records of the parser are grouped by the values of the group-by columns and the aggregates of each
+ * group are written as one row (the group-by values followed by the aggregates) to the writer:</p>
+ * <pre>
+ * // region, product, sum(amount), avg(amount), count
+ * final long groups = new Aggregator()
+ *         .groupBy(0, 1)
+ *         .sum(4).avg(4).count()
+ *         .setHeader(true)
+ *         .aggregate(parser, writer);
+ * </pre>
+ *
+ * <p>Only the group-by and aggregated columns are decoded. The groups live in an open-addressing hash table
+ * and the accumulators in primitive arrays indexed by group (no boxing per row). When the number of groups
+ * reaches {@link #setMaxGroupsInMemory(int) max groups in memory} the partial aggregates are spilled to
+ * hash-partitioned temp files and the partitions are merged one by one at the end. A partition holding more
+ * groups than the max groups in memory is spilled again into partitions of a rehashed key, so the memory
+ * footprint is bounded by the max groups in memory.</p>
+ *
+ * <p>Key values are normalized (integral numbers are grouped and written as {@link Long}, empty strings as null).
+ * Non-numeric values are ignored by the numeric aggregates, which are null for a group without numeric value
+ * (so an all-blank group is not summed as 0). The groups are written in the order of their
+ * first occurrence, or partition by partition if the aggregates were spilled. The parser and the writer are
+ * not closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class Aggregator {
+    /**
+     * The default max number of groups in memory.
+     */
+    public static final int DEFAULT_MAX_GROUPS_IN_MEMORY = 1 << 20;
+
+    private int[] groupBy = new int[0];
+    private final List<Measure> measures = new ArrayList<Measure>();
+    private boolean header;
+    private String worksheetName;
+    private int maxGroupsInMemory = DEFAULT_MAX_GROUPS_IN_MEMORY;
+    private int partitions = 16;
+    private File spillDirectory;
+
+    private int spillCount;
+
+    /**
+     * Sets the group-by columns, all records are aggregated into one group if no column is given.
+     *
+     * @param columns the column indexes
+     * @return this aggregator
+     */
+    public Aggregator groupBy(final int... columns) {
+        for (final int col : columns) {
+            if (0 > col) {
+                throw new IllegalArgumentException("illegal column: " + col);
+            }
+        }
+        this.groupBy = columns.clone();
+        return this;
+    }
+
+    /**
+     * Adds the number of records of each group.
+     *
+     * @return this aggregator
+     */
+    public Aggregator count() {
+        measures.add(new Measure(AggregateFunction.COUNT, -1));
+        return this;
+    }
+
+    public Aggregator count(final int col) {
+        return aggregate(AggregateFunction.COUNT, col);
+    }
+
+    public Aggregator sum(final int col) {
+        return aggregate(AggregateFunction.SUM, col);
+    }
+
+    public Aggregator min(final int col) {
+        return aggregate(AggregateFunction.MIN, col);
+    }
+
+    public Aggregator max(final int col) {
+        return aggregate(AggregateFunction.MAX, col);
+    }
+
+    public Aggregator avg(final int col) {
+        return aggregate(AggregateFunction.AVG, col);
+    }
+
+    /**
+     * Adds an aggregate.
+     *
+     * @param function the aggregate function
+     * @param col      the aggregated column
+     * @return this aggregator
+     */
+    public Aggregator aggregate(final AggregateFunction function, final int col) {
+        if (null == function || 0 > col) {
+            throw new IllegalArgumentException("illegal aggregate: " + function + "(" + col + ")");
+        }
+        measures.add(new Measure(function, col));
+        return this;
+    }
+
+    /**
+     * Sets whether the first record of each worksheet is a header, the output then starts with a header row
+     * (eg: "region", "sum(amount)").
+     *
+     * @param header true if the first record is a header
+     * @return this aggregator
+     */
+    public Aggregator setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the name of the output worksheet, defaults to the name of the first input worksheet.
+     *
+     * @param worksheetName the worksheet name
+     * @return this aggregator
+     */
+    public Aggregator setWorksheetName(final String worksheetName) {
+        this.worksheetName = worksheetName;
+        return this;
+    }
+
+    /**
+     * Sets the max number of groups held in memory before spilling to disk.
+     *
+     * @param maxGroupsInMemory the max number of groups
+     * @return this aggregator
+     */
+    public Aggregator setMaxGroupsInMemory(final int maxGroupsInMemory) {
+        if (1 > maxGroupsInMemory) {
+            throw new IllegalArgumentException("max groups in memory must be positive: " + maxGroupsInMemory);
+        }
+        this.maxGroupsInMemory = maxGroupsInMemory;
+        return this;
+    }
+
+    /**
+     * Sets the number of spill partitions (rounded up to a power of two).
+     *
+     * @param partitions the number of partitions
+     * @return this aggregator
+     */
+    public Aggregator setPartitions(final int partitions) {
+        if (1 > partitions) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        this.partitions = Math.max(1, Integer.highestOneBit(partitions - 1) << 1);
+        return this;
+    }
+
+    /**
+     * Sets the directory of the spill files, defaults to the system temp directory.
+     *
+     * @param spillDirectory the directory
+     * @return this aggregator
+     */
+    public Aggregator setSpillDirectory(final File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Gets the number of times the groups were spilled to disk by the last aggregation.
+     *
+     * @return the spill count
+     */
+    public int getSpillCount() {
+        return spillCount;
+    }
+
+    /**
+     * Aggregates the records of the parser and writes the groups to the writer.
+     *
+     * @param parser the parser
+     * @param writer the writer
+     * @return the number of groups
+     * @throws SpreadsheetException if a parsing, writing or spilling error occurs
+     */
+    public long aggregate(final SpreadsheetParser parser, final SpreadsheetWriter writer) throws SpreadsheetException {
+        if (measures.isEmpty()) {
+            throw new IllegalStateException("no aggregate");
+        }
+        final int[] groupBy = this.groupBy;
+        final Measure[] measures = this.measures.toArray(new Measure[0]);
+        final RecordReader reader = new RecordReader(parser, header, referencedColumns(groupBy, measures));
+        final GroupTable table = new GroupTable(Math.min(maxGroupsInMemory, 1 << 12));
+        for (final Measure measure : measures) {
+            measure.reset(Math.min(maxGroupsInMemory, 1 << 12));
+        }
+
+        spillCount = 0;
+        PartitionFiles spill = null;
+        try {
+            Object[] record;
+            while (null != (record = reader.next())) {
+                final int hash = GroupTable.hash(record, groupBy);
+                int group = table.find(record, groupBy, hash);
+                if (0 > group) {
+                    if (table.size() >= maxGroupsInMemory) {
+                        if (null == spill) {
+                            spill = new PartitionFiles("spreadsheet-agg-", partitions, spillDirectory);
+                        }
+                        spill(spill, 0, table, measures);
+                        spillCount++;
+                        table.clear();
+                    }
+                    group = table.add(record, groupBy, hash);
+                    for (final Measure measure : measures) {
+                        measure.add(group);
+                    }
+                }
+                for (final Measure measure : measures) {
+                    measure.accumulate(group, 0 > measure.col ? null : record[measure.col]);
+                }
+            }
+
+            final String name = null != worksheetName ? worksheetName : reader.getWorksheetName();
+            if (null != name) {
+                writer.start(name);
+            } else {
+                writer.start();
+            }
+            if (header) {
+                writeHeader(writer, reader, groupBy, measures);
+            }
+            if (null == spill) {
+                return writeGroups(writer, table, measures);
+            }
+
+            spill(spill, 0, table, measures);
+            spill.finish();
+            return merge(spill, 0, table, measures, writer);
+        } catch (final IOException ex) {
+            throw new SpreadsheetException("aggregate spill failed: " + ex.getMessage(), ex);
+        } finally {
+            if (null != spill) {
+                spill.delete();
+            }
+        }
+    }
+
+    private static int[] referencedColumns(final int[] groupBy, final Measure[] measures) {
+        final int[] columns = Arrays.copyOf(groupBy, groupBy.length + measures.length);
+        for (int i = 0; i < measures.length; i++) {
+            columns[groupBy.length + i] = Math.max(0, measures[i].col);
+        }
+        return columns;
+    }
+
+    private static void writeHeader(final SpreadsheetWriter writer, final RecordReader reader, final int[] groupBy, final Measure[] measures) {
+        for (final int col : groupBy) {
+            writer.write(reader.getColumnName(col));
+        }
+        for (final Measure measure : measures) {
+            final String fn = measure.function.name().toLowerCase();
+            writer.write(0 > measure.col ? fn : fn + '(' + reader.getColumnName(measure.col) + ')');
+        }
+        writer.next();
+    }
+
+    private static long writeGroups(final SpreadsheetWriter writer, final GroupTable table, final Measure[] measures) {
+        final int size = table.size();
+        for (int group = 0; group < size; group++) {
+            for (final Object value : table.getKey(group)) {
+                writer.write(value);
+            }
+            for (final Measure measure : measures) {
+                writer.write(measure.result(group));
+            }
+            writer.next();
+        }
+        return size;
+    }
+
+    /**
+     * An aggregate and its per-group accumulators.
+     */
+    private static class Measure {
+        private final AggregateFunction function;
+        private final int col;
+        private long[] counts;
+        private double[] values;
+
+        private Measure(final AggregateFunction function, final int col) {
+            this.function = function;
+            this.col = col;
+        }
+
+        private void reset(final int capacity) {
+            this.counts = new long[capacity];
+            this.values = AggregateFunction.COUNT != function ? new double[capacity] : null;
+        }
+
+        private void add(final int group) {
+            if (group == counts.length) {
+                counts = Arrays.copyOf(counts, group << 1);
+                if (null != values) {
+                    values = Arrays.copyOf(values, group << 1);
+                }
+            }
+            counts[group] = 0;
+            if (null != values) {
+                values[group] = 0D;
+            }
+        }
+
+        private void accumulate(final int group, final Object value) {
+            if (AggregateFunction.COUNT == function) {
+                if (0 > col || null != Values.normalize(value)) {
+                    counts[group]++;
+                }
+                return;
+            }
+            final double d = Values.toDouble(value);
+            if (!Double.isNaN(d)) {
+                combine(group, 1, d);
+            }
+        }
+
+        /**
+         * Combines a (partial) aggregate into the accumulator of the group.
+         */
+        private void combine(final int group, final long count, final double value) {
+            if (AggregateFunction.COUNT == function) {
+                counts[group] += count;
+                return;
+            }
+            if (0 == count) {
+                return;
+            }
+            final long n = counts[group];
+            counts[group] = n + count;
+            if (AggregateFunction.MIN == function) {
+                values[group] = 0 == n ? value : Math.min(values[group], value);
+            } else if (AggregateFunction.MAX == function) {
+                values[group] = 0 == n ? value : Math.max(values[group], value);
+            } else {
+                values[group] += value;
+            }
+        }
+
+        private Object result(final int group) {
+            final long n = counts[group];
+            switch (function) {
+                case COUNT:
+                    return n;
+                case AVG:
+                    return 0 < n ? (Object) (values[group] / n) : null;
+                default:
+                    return 0 < n ? (Object) values[group] : null;
+            }
+        }
+    }
+
+    /**
+     * Spills the partial aggregates of the groups to their partitions.
+     *
+     * @param level the re-partitioning level of the spill files
+     */
+    private static void spill(final PartitionFiles spill, final int level, final GroupTable table, final Measure[] measures) throws IOException {
+        final int size = table.size();
+        for (int group = 0; group < size; group++) {
+            final DataOutputStream out = spill.out(spill.partitionOf(PartitionFiles.rehash(table.getHash(group), level)));
+            out.writeBoolean(true);
+            RowCodec.writeRow(out, table.getKey(group));
+            for (final Measure measure : measures) {
+                out.writeLong(measure.counts[group]);
+                out.writeDouble(null != measure.values ? measure.values[group] : 0D);
+            }
+        }
+    }
+
+    /**
+     * Merges the partitions of spill files of the given level and writes their groups.
+     *
+     * @return the number of groups
+     */
+    private long merge(final PartitionFiles spill, final int level, final GroupTable table, final Measure[] measures,
+                       final SpreadsheetWriter writer) throws IOException {
+        long groups = 0;
+        for (int p = 0; p < spill.size(); p++) {
+            final PartitionFiles overflow = mergePartition(spill, p, level, table, measures);
+            if (null == overflow) {
+                groups += writeGroups(writer, table, measures);
+                continue;
+            }
+            try {
+                groups += merge(overflow, level + 1, table, measures, writer);
+            } finally {
+                overflow.delete();
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Merges the partial aggregates of a partition, the groups exceeding the max groups in memory are spilled
+     * to the partitions of the next level.
+     *
+     * @return the spill files of the next level or null if the partition fits in memory
+     */
+    private PartitionFiles mergePartition(final PartitionFiles spill, final int partition, final int level,
+                                          final GroupTable table, final Measure[] measures) throws IOException {
+        table.clear();
+        PartitionFiles overflow = null;
+        boolean merged = false;
+        final DataInputStream in = spill.open(partition);
+        try {
+            while (in.readBoolean()) {
+                final Object[] key = RowCodec.readRow(in);
+                final int hash = GroupTable.hash(key);
+                int group = table.find(key, hash);
+                if (0 > group) {
+                    if (table.size() >= maxGroupsInMemory) {
+                        if (null == overflow) {
+                            if (PartitionFiles.MAX_LEVEL <= level) {
+                                throw new IOException("more than " + maxGroupsInMemory + " groups share the hash partition after "
+                                        + level + " re-partitions, increase the max groups in memory");
+                            }
+                            overflow = new PartitionFiles("spreadsheet-agg-", partitions, spillDirectory);
+                        }
+                        spill(overflow, level + 1, table, measures);
+                        spillCount++;
+                        table.clear();
+                    }
+                    group = table.add(key, hash);
+                    for (final Measure measure : measures) {
+                        measure.add(group);
+                    }
+                }
+                for (final Measure measure : measures) {
+                    measure.combine(group, in.readLong(), in.readDouble());
+                }
+            }
+            if (null != overflow) {
+                spill(overflow, level + 1, table, measures);
+                overflow.finish();
+                table.clear();
+            }
+            merged = true;
+        } finally {
+            in.close();
+            if (!merged && null != overflow) {
+                overflow.delete();
+            }
+        }
+        spill.delete(partition);
+        return overflow;
+    }
+}
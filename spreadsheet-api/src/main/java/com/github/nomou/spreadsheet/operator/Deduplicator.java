@@ -0,0 +1,203 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Streaming duplicate record detection operator.
+ *
+ * <p>A 128-bit fingerprint of the selected columns (or of the whole record) is computed for each record and
+ * added to a fingerprint set: the first occurrences are written to the writer, or only the duplicates if
+ * {@link #setReportDuplicates(boolean) report duplicates} is set:</p>
+ * <pre>
+ * final Deduplicator dedup = new Deduplicator()
+ *         .setColumns(0, 3)                    // order id, line number
+ *         .setHeader(true)
+ *         .setExpectedRecords(30000000)
+ *         .setDiskBacked(true);
+ * dedup.dedup(parser, writer);
+ * System.out.println(dedup.getDuplicateCount() + " duplicates");
+ * </pre>
+ *
+ * <p>Only the fingerprints are kept (16 bytes per slot in an open-addressing table sized from the expected
+ * records), never the records. The table is a heap long array, or in the disk-backed mode memory-mapped
+ * segments of a temp file so a huge import does not need the heap. Distinct records may collide with a
+ * probability around n&sup2;/2<sup>129</sup>, negligible for billions of records.</p>
+ *
+ * <p>Values are normalized as the keys of the other operators (integral numbers are equal whatever their type,
+ * empty strings are null), trailing empty cells are ignored when whole records are compared. The parser and the
+ * writer are not closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class Deduplicator {
+    private int[] columns;
+    private boolean header;
+    private String worksheetName;
+    private boolean reportDuplicates;
+    private long expectedRecords = 1 << 16;
+    private boolean diskBacked;
+    private File spillDirectory;
+
+    private long duplicateCount;
+    private long distinctCount;
+
+    /**
+     * Sets the compared columns, whole records are compared by default.
+     *
+     * @param columns the column indexes
+     * @return this deduplicator
+     */
+    public Deduplicator setColumns(final int... columns) {
+        for (final int col : columns) {
+            if (0 > col) {
+                throw new IllegalArgumentException("illegal column: " + col);
+            }
+        }
+        this.columns = 0 < columns.length ? columns.clone() : null;
+        return this;
+    }
+
+    /**
+     * Sets whether the first record of each worksheet is a header, the output then starts with the header.
+     *
+     * @param header true if the first record is a header
+     * @return this deduplicator
+     */
+    public Deduplicator setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the name of the output worksheet, defaults to the name of the first input worksheet.
+     *
+     * @param worksheetName the worksheet name
+     * @return this deduplicator
+     */
+    public Deduplicator setWorksheetName(final String worksheetName) {
+        this.worksheetName = worksheetName;
+        return this;
+    }
+
+    /**
+     * Sets whether only the duplicate records are written instead of the first occurrences.
+     *
+     * @param reportDuplicates true to write the duplicates
+     * @return this deduplicator
+     */
+    public Deduplicator setReportDuplicates(final boolean reportDuplicates) {
+        this.reportDuplicates = reportDuplicates;
+        return this;
+    }
+
+    /**
+     * Sets the expected number of distinct records, the fingerprint table is sized upfront so it does not grow.
+     *
+     * @param expectedRecords the expected number of records
+     * @return this deduplicator
+     */
+    public Deduplicator setExpectedRecords(final long expectedRecords) {
+        this.expectedRecords = Math.max(1, expectedRecords);
+        return this;
+    }
+
+    /**
+     * Sets whether the fingerprint table is stored in a memory-mapped temp file instead of the heap.
+     *
+     * @param diskBacked true for the disk-backed mode
+     * @return this deduplicator
+     */
+    public Deduplicator setDiskBacked(final boolean diskBacked) {
+        this.diskBacked = diskBacked;
+        return this;
+    }
+
+    /**
+     * Sets the directory of the disk-backed table, defaults to the system temp directory.
+     *
+     * @param spillDirectory the directory
+     * @return this deduplicator
+     */
+    public Deduplicator setSpillDirectory(final File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Gets the number of duplicate records found by the last run.
+     *
+     * @return the number of duplicates
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Gets the number of distinct records found by the last run.
+     *
+     * @return the number of distinct records
+     */
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    /**
+     * Reads the records of the parser and writes the first occurrences (or the duplicates) to the writer.
+     *
+     * @param parser the parser
+     * @param writer the writer
+     * @return the number of written records
+     * @throws SpreadsheetException if a parsing or writing error occurs
+     */
+    public long dedup(final SpreadsheetParser parser, final SpreadsheetWriter writer) throws SpreadsheetException {
+        final RecordReader reader = new RecordReader(parser, header, null);
+        final Fingerprints fingerprints = new Fingerprints();
+        final long[] fingerprint = new long[2];
+        LongPairSet set = null;
+
+        duplicateCount = 0;
+        distinctCount = 0;
+        try {
+            set = new LongPairSet(expectedRecords, diskBacked, spillDirectory);
+            Object[] record = reader.next();
+            final String name = null != worksheetName ? worksheetName : reader.getWorksheetName();
+            if (null != name) {
+                writer.start(name);
+            } else {
+                writer.start();
+            }
+            final String[] headerNames = reader.getHeader();
+            if (null != headerNames) {
+                writer.write((Object) headerNames).next();
+            }
+
+            long count = 0;
+            for (; null != record; record = reader.next()) {
+                fingerprints.fingerprint(record, columns, fingerprint);
+                final boolean duplicate = !set.add(fingerprint[0], fingerprint[1]);
+                if (duplicate) {
+                    duplicateCount++;
+                } else {
+                    distinctCount++;
+                }
+                if (duplicate == reportDuplicates) {
+                    writer.write((Object) record).next();
+                    count++;
+                }
+            }
+            return count;
+        } catch (final IOException ex) {
+            throw new SpreadsheetException("fingerprint set failed: " + ex.getMessage(), ex);
+        } finally {
+            if (null != set) {
+                set.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.nomou.spreadsheet.operator;
+
+/**
+ * Receives the row changes found by a {@link Differ}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public interface DiffListener {
+
+    /**
+     * Called for a record of the new input whose key is not in the old input.
+     *
+     * @param record the new record
+     */
+    void inserted(Object[] record);
+
+    /**
+     * Called for a record of the old input whose key is not in the new input.
+     *
+     * @param record the old record
+     */
+    void deleted(Object[] record);
+
+    /**
+     * Called for a record whose compared columns differ between the inputs.
+     *
+     * @param oldRecord the old record
+     * @param newRecord the new record
+     * @param columns   the indexes of the changed columns (ascending)
+     */
+    void changed(Object[] oldRecord, Object[] newRecord, int[] columns);
+}
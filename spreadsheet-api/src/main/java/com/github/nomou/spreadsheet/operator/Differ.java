@@ -0,0 +1,654 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Streaming diff operator, reports the inserted, deleted and changed records between two versions of a spreadsheet.
+ *
+ * <p>The records of both inputs are matched by their key columns: the old input is read first and only a
+ * fingerprint of each record is kept in memory, then the new input is streamed against these fingerprints and
+ * the changes are reported to a {@link DiffListener}:</p>
+ * <pre>
+ * final Differ differ = new Differ()
+ *         .setKeys(0)                          // customer id
+ *         .setHeader(true);
+ * differ.diff(yesterdayParser, todayParser, new DiffListener() {
+ *     public void inserted(Object[] record) { ... }
+ *     public void deleted(Object[] record) { ... }
+ *     public void changed(Object[] oldRecord, Object[] newRecord, int[] columns) { ... }
+ * });
+ * System.out.println(differ.getChangedCount() + " changed records");
+ * </pre>
+ *
+ * <p>The memory holds a 128-bit key fingerprint, a 64-bit record fingerprint and a file offset per old record
+ * (about 64 bytes), the old records themselves are appended to a temp file and only read back for the changed
+ * and the deleted records. Records with equal fingerprints are unchanged without comparing their values. If the
+ * old input has more than {@link #setMaxEntries(int) max entries} records both inputs are hash-partitioned by key
+ * to temp files and diffed partition by partition (the changes are then reported partition by partition instead
+ * of in the input order). A partition whose old records still exceed the max entries is partitioned again by a
+ * rehashed key, so the memory footprint is bounded by the max entries.</p>
+ *
+ * <p>Values are normalized as the keys of the other operators (integral numbers are equal whatever their type,
+ * empty strings are null), trailing empty cells are ignored when whole records are compared. The keys should be
+ * unique: the first old record of a key is matched with the first new record of the key, the other records of
+ * the key are reported as deleted or inserted. The deleted records are reported after the new input is read.
+ * The parsers are not closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class Differ {
+    /**
+     * The default max number of old records whose fingerprints are held in memory.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 21;
+
+    private int[] keys;
+    private int[] columns;
+    private boolean header;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private int partitions = 16;
+    private File spillDirectory;
+
+    private final Fingerprints fingerprints = new Fingerprints();
+    private final long[] fingerprint = new long[2];
+    private int[] changed = new int[16];
+
+    private long insertedCount;
+    private long deletedCount;
+    private long changedCount;
+    private long unchangedCount;
+    private boolean spilled;
+
+    /**
+     * Sets the key columns matching the records of both inputs.
+     *
+     * @param keys the key column indexes
+     * @return this differ
+     */
+    public Differ setKeys(final int... keys) {
+        if (1 > keys.length) {
+            throw new IllegalArgumentException("no key columns");
+        }
+        checkColumns(keys);
+        this.keys = keys.clone();
+        return this;
+    }
+
+    /**
+     * Sets the compared columns, whole records are compared by default.
+     *
+     * @param columns the column indexes
+     * @return this differ
+     */
+    public Differ setColumns(final int... columns) {
+        checkColumns(columns);
+        if (1 > columns.length) {
+            this.columns = null;
+            return this;
+        }
+        final int[] sorted = columns.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (0 == i || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        this.columns = Arrays.copyOf(sorted, n);
+        return this;
+    }
+
+    /**
+     * Sets whether the first record of each worksheet is a header, the headers are not compared.
+     *
+     * @param header true if the first record is a header
+     * @return this differ
+     */
+    public Differ setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the max number of old records whose fingerprints are held in memory before partitioning to disk.
+     *
+     * @param maxEntries the max number of records
+     * @return this differ
+     */
+    public Differ setMaxEntries(final int maxEntries) {
+        if (1 > maxEntries) {
+            throw new IllegalArgumentException("illegal max entries: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * Sets the number of spill partitions (rounded up to a power of two).
+     *
+     * @param partitions the number of partitions
+     * @return this differ
+     */
+    public Differ setPartitions(final int partitions) {
+        if (1 > partitions) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        this.partitions = Math.max(1, Integer.highestOneBit(partitions - 1) << 1);
+        return this;
+    }
+
+    /**
+     * Sets the directory of the temp files, defaults to the system temp directory.
+     *
+     * @param spillDirectory the directory
+     * @return this differ
+     */
+    public Differ setSpillDirectory(final File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Gets the number of inserted records found by the last diff.
+     *
+     * @return the number of inserted records
+     */
+    public long getInsertedCount() {
+        return insertedCount;
+    }
+
+    /**
+     * Gets the number of deleted records found by the last diff.
+     *
+     * @return the number of deleted records
+     */
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * Gets the number of changed records found by the last diff.
+     *
+     * @return the number of changed records
+     */
+    public long getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Gets the number of unchanged records found by the last diff.
+     *
+     * @return the number of unchanged records
+     */
+    public long getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Returns true if the last diff was partitioned to disk.
+     *
+     * @return true if spilled
+     */
+    public boolean isSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Compares the records of the inputs and reports the changes to the listener.
+     *
+     * @param oldParser the parser of the old version
+     * @param newParser the parser of the new version
+     * @param listener  the listener
+     * @throws SpreadsheetException if a parsing or spilling error occurs
+     */
+    public void diff(final SpreadsheetParser oldParser, final SpreadsheetParser newParser, final DiffListener listener) throws SpreadsheetException {
+        if (null == keys) {
+            throw new IllegalStateException("no key columns");
+        }
+        Run run = null;
+        PartitionFiles oldSpill = null;
+        PartitionFiles newSpill = null;
+
+        insertedCount = 0;
+        deletedCount = 0;
+        changedCount = 0;
+        unchangedCount = 0;
+        spilled = false;
+        try {
+            // fingerprint the old records.
+            run = new Run();
+            final RecordReader oldReader = new RecordReader(oldParser, header, null);
+            Object[] record;
+            while (null != (record = oldReader.next())) {
+                if (null != oldSpill) {
+                    spill(oldSpill, 0, record);
+                } else {
+                    run.add(record);
+                    if (run.size >= maxEntries) {
+                        oldSpill = new PartitionFiles("spreadsheet-diff-", partitions, spillDirectory);
+                        run.spill(oldSpill, 0);
+                        run.close();
+                        run = null;
+                    }
+                }
+            }
+            spilled = null != oldSpill;
+
+            // stream the new records.
+            final RecordReader newReader = new RecordReader(newParser, header, null);
+            while (null != (record = newReader.next())) {
+                if (null == oldSpill) {
+                    run.probe(record, listener);
+                } else {
+                    if (null == newSpill) {
+                        newSpill = new PartitionFiles("spreadsheet-diff-", partitions, spillDirectory);
+                    }
+                    spill(newSpill, 0, record);
+                }
+            }
+            if (null == oldSpill) {
+                run.finish(listener);
+                return;
+            }
+
+            // diff partition by partition.
+            oldSpill.finish();
+            if (null != newSpill) {
+                newSpill.finish();
+            }
+            diffPartitions(oldSpill, newSpill, 0, listener);
+        } catch (final IOException ex) {
+            throw new SpreadsheetException("diff spill failed: " + ex.getMessage(), ex);
+        } finally {
+            if (null != run) {
+                run.close();
+            }
+            if (null != oldSpill) {
+                oldSpill.delete();
+            }
+            if (null != newSpill) {
+                newSpill.delete();
+            }
+        }
+    }
+
+    /**
+     * Diffs the partitions of spill files of the given level.
+     *
+     * @param newSpill the spill files of the new records or null if the new input is empty
+     */
+    private void diffPartitions(final PartitionFiles oldSpill, final PartitionFiles newSpill, final int level,
+                                final DiffListener listener) throws IOException {
+        for (int p = 0; p < oldSpill.size(); p++) {
+            Run run = null;
+            PartitionFiles oldOverflow = null;
+            PartitionFiles newOverflow = null;
+            try {
+                run = new Run();
+                DataInputStream in = oldSpill.open(p);
+                try {
+                    while (in.readBoolean()) {
+                        final Object[] row = RowCodec.readRow(in);
+                        if (null != oldOverflow) {
+                            spill(oldOverflow, level + 1, row);
+                            continue;
+                        }
+                        run.add(row);
+                        if (run.size >= maxEntries) {
+                            if (PartitionFiles.MAX_LEVEL <= level) {
+                                throw new IOException("the old records of a hash partition exceed " + maxEntries + " entries after "
+                                        + level + " re-partitions (too many records per key), increase the max entries");
+                            }
+                            oldOverflow = new PartitionFiles("spreadsheet-diff-", partitions, spillDirectory);
+                            run.spill(oldOverflow, level + 1);
+                            run.close();
+                            run = null;
+                        }
+                    }
+                } finally {
+                    in.close();
+                }
+                oldSpill.delete(p);
+                if (null == oldOverflow) {
+                    if (null != newSpill) {
+                        in = newSpill.open(p);
+                        try {
+                            while (in.readBoolean()) {
+                                run.probe(RowCodec.readRow(in), listener);
+                            }
+                        } finally {
+                            in.close();
+                        }
+                        newSpill.delete(p);
+                    }
+                    run.finish(listener);
+                    continue;
+                }
+
+                // the old partition does not fit in memory, both partitions are partitioned again.
+                oldOverflow.finish();
+                if (null != newSpill) {
+                    newOverflow = new PartitionFiles("spreadsheet-diff-", partitions, spillDirectory);
+                    in = newSpill.open(p);
+                    try {
+                        while (in.readBoolean()) {
+                            spill(newOverflow, level + 1, RowCodec.readRow(in));
+                        }
+                    } finally {
+                        in.close();
+                    }
+                    newSpill.delete(p);
+                    newOverflow.finish();
+                }
+                diffPartitions(oldOverflow, newOverflow, level + 1, listener);
+            } finally {
+                if (null != run) {
+                    run.close();
+                }
+                if (null != oldOverflow) {
+                    oldOverflow.delete();
+                }
+                if (null != newOverflow) {
+                    newOverflow.delete();
+                }
+            }
+        }
+    }
+
+    private void spill(final PartitionFiles spill, final int level, final Object[] record) throws IOException {
+        fingerprints.fingerprint(record, keys, fingerprint);
+        final DataOutputStream out = spill.out(spill.partitionOf(PartitionFiles.rehash((int) (fingerprint[0] >>> 32), level)));
+        out.writeBoolean(true);
+        RowCodec.writeRow(out, record);
+    }
+
+    /**
+     * Gets the compared columns whose values differ.
+     *
+     * @return the changed column indexes
+     */
+    private int[] changedColumns(final Object[] oldRecord, final Object[] newRecord) {
+        int n = 0;
+        if (null != columns) {
+            for (final int col : columns) {
+                n = addIfChanged(oldRecord, newRecord, col, n);
+            }
+        } else {
+            final int width = Math.max(oldRecord.length, newRecord.length);
+            for (int col = 0; col < width; col++) {
+                n = addIfChanged(oldRecord, newRecord, col, n);
+            }
+        }
+        return Arrays.copyOf(changed, n);
+    }
+
+    private int addIfChanged(final Object[] oldRecord, final Object[] newRecord, final int col, final int n) {
+        final Object a = Values.normalize(col < oldRecord.length ? oldRecord[col] : null);
+        final Object b = Values.normalize(col < newRecord.length ? newRecord[col] : null);
+        if (Values.equals(a, b)) {
+            return n;
+        }
+        if (n == changed.length) {
+            changed = Arrays.copyOf(changed, n << 1);
+        }
+        changed[n] = col;
+        return n + 1;
+    }
+
+    private static void checkColumns(final int[] columns) {
+        for (final int col : columns) {
+            if (0 > col) {
+                throw new IllegalArgumentException("illegal column: " + col);
+            }
+        }
+    }
+
+    /**
+     * The fingerprints of a set of old records (the whole old input or a partition) and their temp file.
+     */
+    private final class Run {
+        private final KeyTable table = new KeyTable(1 << 12);
+        private final RowFile rows;
+        private long[] hashes = new long[1 << 10];
+        private long[] offsets = new long[1 << 10];
+        private long[] matched = new long[1 << 4];
+        private int size;
+
+        private Run() throws IOException {
+            this.rows = new RowFile(spillDirectory);
+        }
+
+        private void add(final Object[] record) throws IOException {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size << 1);
+                offsets = Arrays.copyOf(offsets, size << 1);
+                matched = Arrays.copyOf(matched, size >>> 5);
+            }
+            fingerprints.fingerprint(record, keys, fingerprint);
+            if (0 > table.get(fingerprint[0], fingerprint[1])) {
+                table.put(fingerprint[0], fingerprint[1], size);
+            }
+            fingerprints.fingerprint(record, columns, fingerprint);
+            hashes[size] = fingerprint[0];
+            offsets[size] = rows.append(record);
+            size++;
+        }
+
+        private void probe(final Object[] record, final DiffListener listener) throws IOException {
+            fingerprints.fingerprint(record, keys, fingerprint);
+            final int id = table.get(fingerprint[0], fingerprint[1]);
+            if (0 > id || isMatched(id)) {
+                insertedCount++;
+                listener.inserted(record);
+                return;
+            }
+            matched[id >>> 6] |= 1L << id;
+
+            fingerprints.fingerprint(record, columns, fingerprint);
+            if (fingerprint[0] == hashes[id]) {
+                unchangedCount++;
+                return;
+            }
+            final Object[] oldRecord = rows.read(offsets[id]);
+            final int[] columns = changedColumns(oldRecord, record);
+            if (1 > columns.length) {
+                unchangedCount++;
+                return;
+            }
+            changedCount++;
+            listener.changed(oldRecord, record, columns);
+        }
+
+        /**
+         * Reports the unmatched old records as deleted.
+         */
+        private void finish(final DiffListener listener) throws IOException {
+            final DataInputStream in = rows.scan();
+            try {
+                for (int id = 0; id < size; id++) {
+                    final int length = in.readInt();
+                    if (isMatched(id)) {
+                        in.skipBytes(length);
+                        continue;
+                    }
+                    deletedCount++;
+                    listener.deleted(RowCodec.readRow(in));
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * Moves the old records to the spill partitions of the given level.
+         */
+        private void spill(final PartitionFiles spill, final int level) throws IOException {
+            final DataInputStream in = rows.scan();
+            try {
+                for (int id = 0; id < size; id++) {
+                    in.readInt();
+                    Differ.this.spill(spill, level, RowCodec.readRow(in));
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        private boolean isMatched(final int id) {
+            return 0 != (matched[id >>> 6] & (1L << id));
+        }
+
+        private void close() {
+            rows.delete();
+        }
+    }
+
+    /**
+     * Open-addressing table of the key fingerprints (long pairs) to record ids.
+     */
+    private static class KeyTable {
+        private long[] keys;
+        private int[] ids;
+        private int mask;
+        private int size;
+
+        private KeyTable(final int capacity) {
+            this.keys = new long[capacity << 1];
+            this.ids = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int get(final long h1, final long h2) {
+            for (int slot = (int) h2 & mask; 0 != ids[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot << 1] == h1 && keys[(slot << 1) + 1] == h2) {
+                    return ids[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        private void put(final long h1, final long h2, final int id) {
+            int slot = (int) h2 & mask;
+            while (0 != ids[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot << 1] = h1;
+            keys[(slot << 1) + 1] = h2;
+            ids[slot] = id + 1;
+            if (++size > (ids.length >> 2) * 3) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            final long[] oldKeys = this.keys;
+            final int[] oldIds = this.ids;
+            this.keys = new long[oldKeys.length << 1];
+            this.ids = new int[oldIds.length << 1];
+            this.mask = ids.length - 1;
+            this.size = 0;
+            for (int slot = 0; slot < oldIds.length; slot++) {
+                if (0 != oldIds[slot]) {
+                    put(oldKeys[slot << 1], oldKeys[(slot << 1) + 1], oldIds[slot] - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Append-only temp file of length-prefixed encoded records, read back by offset or sequentially.
+     */
+    private static class RowFile {
+        private final File path;
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        private final DataOutputStream encoder = new DataOutputStream(encoded);
+        private RandomAccessFile reader;
+        private byte[] buffer = new byte[256];
+        private long length;
+
+        private RowFile(final File directory) throws IOException {
+            this.path = File.createTempFile("spreadsheet-diff-", ".rows", directory);
+            try {
+                this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+            } catch (final IOException ex) {
+                delete(path);
+                throw ex;
+            }
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @return the offset of the record
+         */
+        private long append(final Object[] record) throws IOException {
+            encoded.reset();
+            RowCodec.writeRow(encoder, record);
+            out.writeInt(encoded.size());
+            encoded.writeTo(out);
+            final long offset = length;
+            length += 4 + encoded.size();
+            return offset;
+        }
+
+        private Object[] read(final long offset) throws IOException {
+            out.flush();
+            if (null == reader) {
+                reader = new RandomAccessFile(path, "r");
+            }
+            reader.seek(offset);
+            final int length = reader.readInt();
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(length, buffer.length << 1)];
+            }
+            reader.readFully(buffer, 0, length);
+            return RowCodec.readRow(new DataInputStream(new ByteArrayInputStream(buffer, 0, length)));
+        }
+
+        /**
+         * Opens the file for a sequential read, each record is prefixed with its length.
+         */
+        private DataInputStream scan() throws IOException {
+            out.flush();
+            return new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+        }
+
+        private void delete() {
+            try {
+                out.close();
+            } catch (final IOException ignore) {
+                // ignore.
+            }
+            if (null != reader) {
+                try {
+                    reader.close();
+                } catch (final IOException ignore) {
+                    // ignore.
+                }
+            }
+            delete(path);
+        }
+
+        private static void delete(final File path) {
+            if (path.exists() && !path.delete()) {
+                path.deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 128-bit fingerprints of row values (MurmurHash3 x64 128 over a tagged binary encoding of the values).
+ *
+ * <p>The values are normalized as the keys of the other operators (integral numbers are equal whatever their type,
+ * empty strings are null), so the same row read from csv or xlsx gets the same fingerprint for integral numbers.
+ * The encoding buffer is reused across rows.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class Fingerprints {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    /**
+     * Fingerprints the given columns of a row (or the whole row if columns is null).
+     *
+     * @param row     the row
+     * @param columns the columns or null
+     * @param out     the fingerprint (2 longs)
+     */
+    void fingerprint(final Object[] row, final int[] columns, final long[] out) {
+        length = 0;
+        if (null != columns) {
+            for (final int col : columns) {
+                encode(col < row.length ? row[col] : null);
+            }
+        } else {
+            // trailing nulls are ignored, so sparse rows of different widths are equal.
+            int width = row.length;
+            while (0 < width && null == Values.normalize(row[width - 1])) {
+                width--;
+            }
+            for (int i = 0; i < width; i++) {
+                encode(row[i]);
+            }
+        }
+        hash128(buffer, length, out);
+    }
+
+    private void encode(final Object value) {
+        final Object v = Values.normalize(value);
+        if (null == v) {
+            putByte(0);
+        } else if (v instanceof Long) {
+            putByte(1);
+            putLong((Long) v);
+        } else if (v instanceof Double || v instanceof Float) {
+            putByte(2);
+            putLong(Double.doubleToLongBits(((Number) v).doubleValue()));
+        } else if (v instanceof Boolean) {
+            putByte((Boolean) v ? 3 : 4);
+        } else if (v instanceof Date || v instanceof Calendar) {
+            putByte(5);
+            putLong(v instanceof Date ? ((Date) v).getTime() : ((Calendar) v).getTimeInMillis());
+        } else {
+            final String text = v.toString();
+            putByte(6);
+            final int len = text.length();
+            putLong(len);
+            ensureCapacity(length + (len << 1));
+            for (int i = 0; i < len; i++) {
+                final char c = text.charAt(i);
+                buffer[length++] = (byte) c;
+                buffer[length++] = (byte) (c >>> 8);
+            }
+        }
+    }
+
+    private void putByte(final int b) {
+        ensureCapacity(length + 1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void putLong(final long v) {
+        ensureCapacity(length + 8);
+        for (int i = 0; i < 8; i++) {
+            buffer[length++] = (byte) (v >>> (i << 3));
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+        }
+    }
+
+    /**
+     * MurmurHash3 x64 128 (seed 0).
+     *
+     * @param data the bytes
+     * @param len  the number of bytes
+     * @param out  the hash (2 longs)
+     */
+    static void hash128(final byte[] data, final int len, final long[] out) {
+        long h1 = 0;
+        long h2 = 0;
+        final int blocks = len >>> 4;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i << 4);
+            long k2 = getLong(data, (i << 4) + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        final int tail = blocks << 4;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = len - tail - 1; 0 <= i; i--) {
+            final long b = data[tail + i] & 0xFFL;
+            if (8 <= i) {
+                k2 ^= b << ((i - 8) << 3);
+            } else {
+                k1 ^= b << (i << 3);
+            }
+        }
+        if (8 < len - tail) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        if (0 < len - tail) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+
+        h1 ^= len;
+        h2 ^= len;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        out[0] = h1;
+        out[1] = h2;
+    }
+
+    private static long getLong(final byte[] data, final int off) {
+        long v = 0;
+        for (int i = 7; 0 <= i; i--) {
+            v = (v << 8) | (data[off + i] & 0xFFL);
+        }
+        return v;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table that maps composite row keys to dense group ids (0, 1, 2...).
+ *
+ * <p>The slots are a primitive int array (group id + 1, 0 for an empty slot) probed linearly, the hash
+ * and the normalized key of each group are stored by group id, so the callers keep their per-group
+ * state in parallel primitive arrays indexed by the group id. Lookups do not allocate, a key array
+ * is only created when a group is added.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class GroupTable {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] slots;
+    private int[] hashes;
+    private Object[][] keys;
+    private int mask;
+    private int size;
+
+    GroupTable(final int expectedSize) {
+        final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) - 1) << 2);
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.hashes = new int[capacity >> 1];
+        this.keys = new Object[capacity >> 1][];
+    }
+
+    /**
+     * Hashes the key columns of a row.
+     *
+     * @param row     the row
+     * @param columns the key columns
+     * @return the hash
+     */
+    static int hash(final Object[] row, final int[] columns) {
+        int h = 1;
+        for (final int col : columns) {
+            h = 31 * h + Values.hash(Values.normalize(col < row.length ? row[col] : null));
+        }
+        return mix(h);
+    }
+
+    /**
+     * Hashes a normalized key.
+     *
+     * @param key the key
+     * @return the hash
+     */
+    static int hash(final Object[] key) {
+        int h = 1;
+        for (final Object value : key) {
+            h = 31 * h + Values.hash(value);
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the group of the key columns of a row.
+     *
+     * @param row     the row
+     * @param columns the key columns
+     * @param hash    the hash of the key columns
+     * @return the group id or -1 if not found
+     */
+    int find(final Object[] row, final int[] columns, final int hash) {
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final int group = slots[i] - 1;
+            if (0 > group) {
+                return -1;
+            }
+            if (hash == hashes[group] && keyEquals(keys[group], row, columns)) {
+                return group;
+            }
+        }
+    }
+
+    /**
+     * Finds the group of a normalized key.
+     *
+     * @param key  the key
+     * @param hash the hash of the key
+     * @return the group id or -1 if not found
+     */
+    int find(final Object[] key, final int hash) {
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final int group = slots[i] - 1;
+            if (0 > group) {
+                return -1;
+            }
+            if (hash == hashes[group] && Arrays.equals(keys[group], key)) {
+                return group;
+            }
+        }
+    }
+
+    /**
+     * Adds a group for the key columns of a row, the key must not be present.
+     *
+     * @param row     the row
+     * @param columns the key columns
+     * @param hash    the hash of the key columns
+     * @return the new group id
+     */
+    int add(final Object[] row, final int[] columns, final int hash) {
+        final Object[] key = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            final int col = columns[i];
+            key[i] = Values.normalize(col < row.length ? row[col] : null);
+        }
+        return add(key, hash);
+    }
+
+    /**
+     * Adds a group for a normalized key, the key must not be present.
+     *
+     * @param key  the key
+     * @param hash the hash of the key
+     * @return the new group id
+     */
+    int add(final Object[] key, final int hash) {
+        if (size == hashes.length) {
+            rehash(slots.length << 1);
+        }
+        final int group = size++;
+        hashes[group] = hash;
+        keys[group] = key;
+        insert(group, hash);
+        return group;
+    }
+
+    private void insert(final int group, final int hash) {
+        int i = hash & mask;
+        while (0 != slots[i]) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = group + 1;
+    }
+
+    private void rehash(final int capacity) {
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.hashes = Arrays.copyOf(hashes, capacity >> 1);
+        this.keys = Arrays.copyOf(keys, capacity >> 1);
+        for (int group = 0; group < size; group++) {
+            insert(group, hashes[group]);
+        }
+    }
+
+    private static boolean keyEquals(final Object[] key, final Object[] row, final int[] columns) {
+        for (int i = 0; i < columns.length; i++) {
+            final int col = columns[i];
+            if (!Values.equals(key[i], Values.normalize(col < row.length ? row[col] : null))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the normalized key of a group.
+     *
+     * @param group the group id
+     * @return the key
+     */
+    Object[] getKey(final int group) {
+        return keys[group];
+    }
+
+    /**
+     * Gets the hash of a group.
+     *
+     * @param group the group id
+     * @return the hash
+     */
+    int getHash(final int group) {
+        return hashes[group];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all groups, the slot array is kept.
+     */
+    void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.nomou.spreadsheet.operator;
+
+/**
+ * Join type of a {@link Joiner}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public enum JoinType {
+    /**
+     * Only the records with a matching lookup record are written.
+     */
+    INNER,
+
+    /**
+     * All the records are written, the lookup columns are null if there is no matching lookup record.
+     */
+    LEFT
+}
@@ -0,0 +1,495 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Hash join operator, enriches the records of an input with the columns of a lookup spreadsheet.
+ *
+ * <p>The lookup records are indexed by their key columns, then the input records are streamed through the
+ * index and each input record is written followed by the columns of its matching lookup record(s):</p>
+ * <pre>
+ * // orders (customer id in column 1) enriched with the customer master (customer id in column 0)
+ * final long records = new Joiner()
+ *         .on(new int[]{1}, new int[]{0})
+ *         .setLookupColumns(2, 3)             // customer name, customer region
+ *         .setJoinType(JoinType.LEFT)
+ *         .setHeader(true)
+ *         .join(ordersParser, customersParser, writer);
+ * </pre>
+ *
+ * <p>The lookup side should be the smaller input. Its records are stored in an encoded byte arena chained per
+ * key (primitive row ids, no object per record) and looked up through an open-addressing key table. If the
+ * encoded lookup records exceed {@link #setMaxLookupBytes(long) max lookup bytes} both inputs are hash-partitioned
+ * to temp files and joined partition by partition (the output is then written partition by partition instead of
+ * in the input order). A partition whose lookup records still exceed the max lookup bytes is partitioned again by
+ * a rehashed key, so the memory footprint is bounded by the max lookup bytes.</p>
+ *
+ * <p>Key values are normalized (integral numbers match whatever their type, empty strings are null), null keys
+ * never match. An input record matching several lookup records is written once per match. The input columns
+ * are padded to the width of the input header (or of the first input record), a wider input record keeps all
+ * its columns and its lookup columns follow them (past the header columns). The lookup columns default to all
+ * non-key lookup columns. The parsers and the writer are not closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class Joiner {
+    /**
+     * The default max number of bytes of the in-memory lookup records.
+     */
+    public static final long DEFAULT_MAX_LOOKUP_BYTES = 64L << 20;
+
+    private int[] inputKeys;
+    private int[] lookupKeys;
+    private int[] lookupColumns;
+    private JoinType joinType = JoinType.INNER;
+    private boolean header;
+    private String worksheetName;
+    private long maxLookupBytes = DEFAULT_MAX_LOOKUP_BYTES;
+    private int partitions = 16;
+    private File spillDirectory;
+
+    private boolean spilled;
+
+    /**
+     * Sets the key columns.
+     *
+     * @param inputKeys  the key columns of the input
+     * @param lookupKeys the key columns of the lookup
+     * @return this joiner
+     */
+    public Joiner on(final int[] inputKeys, final int[] lookupKeys) {
+        if (null == inputKeys || null == lookupKeys || 1 > inputKeys.length || inputKeys.length != lookupKeys.length) {
+            throw new IllegalArgumentException("illegal join keys: " + Arrays.toString(inputKeys) + " = " + Arrays.toString(lookupKeys));
+        }
+        checkColumns(inputKeys);
+        checkColumns(lookupKeys);
+        this.inputKeys = inputKeys.clone();
+        this.lookupKeys = lookupKeys.clone();
+        return this;
+    }
+
+    /**
+     * Sets the lookup columns appended to the input columns, defaults to all non-key lookup columns.
+     *
+     * @param columns the lookup column indexes
+     * @return this joiner
+     */
+    public Joiner setLookupColumns(final int... columns) {
+        checkColumns(columns);
+        this.lookupColumns = columns.clone();
+        return this;
+    }
+
+    public Joiner setJoinType(final JoinType joinType) {
+        this.joinType = null != joinType ? joinType : JoinType.INNER;
+        return this;
+    }
+
+    /**
+     * Sets whether the first record of each worksheet is a header, the output then starts with a header row.
+     *
+     * @param header true if the first record is a header
+     * @return this joiner
+     */
+    public Joiner setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the name of the output worksheet, defaults to the name of the first input worksheet.
+     *
+     * @param worksheetName the worksheet name
+     * @return this joiner
+     */
+    public Joiner setWorksheetName(final String worksheetName) {
+        this.worksheetName = worksheetName;
+        return this;
+    }
+
+    /**
+     * Sets the max number of bytes of the encoded lookup records held in memory before partitioning to disk.
+     *
+     * @param maxLookupBytes the max number of bytes
+     * @return this joiner
+     */
+    public Joiner setMaxLookupBytes(final long maxLookupBytes) {
+        if (1 > maxLookupBytes || Integer.MAX_VALUE < maxLookupBytes) {
+            throw new IllegalArgumentException("illegal max lookup bytes: " + maxLookupBytes);
+        }
+        this.maxLookupBytes = maxLookupBytes;
+        return this;
+    }
+
+    /**
+     * Sets the number of spill partitions (rounded up to a power of two).
+     *
+     * @param partitions the number of partitions
+     * @return this joiner
+     */
+    public Joiner setPartitions(final int partitions) {
+        if (1 > partitions) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        this.partitions = Math.max(1, Integer.highestOneBit(partitions - 1) << 1);
+        return this;
+    }
+
+    /**
+     * Sets the directory of the spill files, defaults to the system temp directory.
+     *
+     * @param spillDirectory the directory
+     * @return this joiner
+     */
+    public Joiner setSpillDirectory(final File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Returns true if the last join was partitioned to disk.
+     *
+     * @return true if spilled
+     */
+    public boolean isSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Joins the records of the input with the lookup records and writes the joined records to the writer.
+     *
+     * @param input  the input parser (the larger input, streamed)
+     * @param lookup the lookup parser (the smaller input, indexed)
+     * @param writer the writer
+     * @return the number of written records
+     * @throws SpreadsheetException if a parsing, writing or spilling error occurs
+     */
+    public long join(final SpreadsheetParser input, final SpreadsheetParser lookup, final SpreadsheetWriter writer) throws SpreadsheetException {
+        if (null == inputKeys) {
+            throw new IllegalStateException("no join keys");
+        }
+        final int[] inputKeys = this.inputKeys;
+        final int[] lookupKeys = this.lookupKeys;
+        final Index index = new Index();
+        PartitionFiles lookupSpill = null;
+        PartitionFiles inputSpill = null;
+
+        spilled = false;
+        try {
+            // build.
+            final RecordReader lookupReader = new RecordReader(lookup, header, null);
+            int lookupWidth = 0;
+            Object[] record;
+            while (null != (record = lookupReader.next())) {
+                lookupWidth = Math.max(lookupWidth, record.length);
+                if (hasNullKey(record, lookupKeys)) {
+                    continue;
+                }
+                final int hash = GroupTable.hash(record, lookupKeys);
+                if (null != lookupSpill) {
+                    spill(lookupSpill, 0, hash, record);
+                } else {
+                    index.add(record, lookupKeys, hash);
+                    if (index.store.getBytes() > maxLookupBytes) {
+                        lookupSpill = new PartitionFiles("spreadsheet-join-", partitions, spillDirectory);
+                        index.spill(lookupSpill, 0);
+                        index.clear();
+                    }
+                }
+            }
+            spilled = null != lookupSpill;
+            final int[] payload = null != lookupColumns ? lookupColumns : payloadColumns(lookupWidth, lookupKeys);
+
+            // probe.
+            final RecordReader inputReader = new RecordReader(input, header, null);
+            final Object[] first = inputReader.next();
+            final String[] inputHeader = inputReader.getHeader();
+            final int inputWidth = null != inputHeader ? inputHeader.length : null != first ? first.length : 0;
+            final String name = null != worksheetName ? worksheetName : inputReader.getWorksheetName();
+            if (null != name) {
+                writer.start(name);
+            } else {
+                writer.start();
+            }
+            if (header) {
+                writeHeader(writer, inputReader, inputWidth, lookupReader, payload);
+            }
+
+            final Object[] out = new Object[inputWidth + payload.length];
+            long count = 0;
+            record = first;
+            while (null != record) {
+                if (null == lookupSpill || hasNullKey(record, inputKeys)) {
+                    count += probe(index, record, inputKeys, payload, inputWidth, out, writer);
+                } else {
+                    if (null == inputSpill) {
+                        inputSpill = new PartitionFiles("spreadsheet-join-", partitions, spillDirectory);
+                    }
+                    spill(inputSpill, 0, GroupTable.hash(record, inputKeys), record);
+                }
+                record = inputReader.next();
+            }
+            if (null == lookupSpill) {
+                return count;
+            }
+
+            // join partition by partition.
+            lookupSpill.finish();
+            if (null == inputSpill) {
+                return count;
+            }
+            inputSpill.finish();
+            return count + joinPartitions(lookupSpill, inputSpill, 0, index, payload, inputWidth, out, writer);
+        } catch (final IOException ex) {
+            throw new SpreadsheetException("join spill failed: " + ex.getMessage(), ex);
+        } finally {
+            if (null != lookupSpill) {
+                lookupSpill.delete();
+            }
+            if (null != inputSpill) {
+                inputSpill.delete();
+            }
+        }
+    }
+
+    /**
+     * Joins the partitions of spill files of the given level.
+     *
+     * @return the number of written records
+     */
+    private long joinPartitions(final PartitionFiles lookupSpill, final PartitionFiles inputSpill, final int level,
+                                final Index index, final int[] payload, final int inputWidth, final Object[] out,
+                                final SpreadsheetWriter writer) throws IOException {
+        long count = 0;
+        for (int p = 0; p < lookupSpill.size(); p++) {
+            PartitionFiles lookupOverflow = null;
+            PartitionFiles inputOverflow = null;
+            try {
+                lookupOverflow = buildPartition(lookupSpill, p, level, index);
+                if (null == lookupOverflow) {
+                    final DataInputStream in = inputSpill.open(p);
+                    try {
+                        while (in.readBoolean()) {
+                            count += probe(index, RowCodec.readRow(in), inputKeys, payload, inputWidth, out, writer);
+                        }
+                    } finally {
+                        in.close();
+                    }
+                    inputSpill.delete(p);
+                    continue;
+                }
+
+                // the lookup partition does not fit in memory, both partitions are partitioned again.
+                inputOverflow = new PartitionFiles("spreadsheet-join-", partitions, spillDirectory);
+                final DataInputStream in = inputSpill.open(p);
+                try {
+                    while (in.readBoolean()) {
+                        final Object[] row = RowCodec.readRow(in);
+                        spill(inputOverflow, level + 1, GroupTable.hash(row, inputKeys), row);
+                    }
+                } finally {
+                    in.close();
+                }
+                inputSpill.delete(p);
+                inputOverflow.finish();
+                count += joinPartitions(lookupOverflow, inputOverflow, level + 1, index, payload, inputWidth, out, writer);
+            } finally {
+                if (null != lookupOverflow) {
+                    lookupOverflow.delete();
+                }
+                if (null != inputOverflow) {
+                    inputOverflow.delete();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Indexes the lookup records of a partition, the records exceeding the max lookup bytes are spilled to the
+     * partitions of the next level.
+     *
+     * @return the spill files of the next level or null if the partition is indexed in memory
+     */
+    private PartitionFiles buildPartition(final PartitionFiles lookupSpill, final int partition, final int level,
+                                          final Index index) throws IOException {
+        index.clear();
+        PartitionFiles overflow = null;
+        boolean built = false;
+        final DataInputStream in = lookupSpill.open(partition);
+        try {
+            while (in.readBoolean()) {
+                final Object[] row = RowCodec.readRow(in);
+                final int hash = GroupTable.hash(row, lookupKeys);
+                if (null != overflow) {
+                    spill(overflow, level + 1, hash, row);
+                    continue;
+                }
+                index.add(row, lookupKeys, hash);
+                if (index.store.getBytes() > maxLookupBytes) {
+                    if (PartitionFiles.MAX_LEVEL <= level) {
+                        throw new IOException("the lookup records of a hash partition exceed " + maxLookupBytes + " bytes after "
+                                + level + " re-partitions (too many records per key), increase the max lookup bytes");
+                    }
+                    overflow = new PartitionFiles("spreadsheet-join-", partitions, spillDirectory);
+                    index.spill(overflow, level + 1);
+                    index.clear();
+                }
+            }
+            if (null != overflow) {
+                overflow.finish();
+            }
+            built = true;
+        } finally {
+            in.close();
+            if (!built && null != overflow) {
+                overflow.delete();
+            }
+        }
+        lookupSpill.delete(partition);
+        return overflow;
+    }
+
+    /**
+     * Writes the joined records of an input record.
+     *
+     * @param buffer the output buffer of the input width, a record wider than the input width gets its own
+     * @return the number of written records
+     */
+    private long probe(final Index index, final Object[] record, final int[] inputKeys, final int[] payload,
+                       final int inputWidth, final Object[] buffer, final SpreadsheetWriter writer) {
+        final int width = Math.max(record.length, inputWidth);
+        final Object[] out = width == inputWidth ? buffer : new Object[width + payload.length];
+        System.arraycopy(record, 0, out, 0, record.length);
+        Arrays.fill(out, record.length, out.length, null);
+
+        final int group = hasNullKey(record, inputKeys) ? -1 : index.table.find(record, inputKeys, GroupTable.hash(record, inputKeys));
+        if (0 > group) {
+            if (JoinType.LEFT == joinType) {
+                writer.write((Object) out).next();
+                return 1;
+            }
+            return 0;
+        }
+        long count = 0;
+        for (int id = index.heads[group]; 0 <= id; id = index.next[id]) {
+            final Object[] row = index.store.get(id);
+            for (int i = 0; i < payload.length; i++) {
+                final int col = payload[i];
+                out[width + i] = col < row.length ? row[col] : null;
+            }
+            writer.write((Object) out).next();
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeHeader(final SpreadsheetWriter writer, final RecordReader inputReader, final int inputWidth,
+                                    final RecordReader lookupReader, final int[] payload) {
+        for (int col = 0; col < inputWidth; col++) {
+            writer.write(inputReader.getColumnName(col));
+        }
+        for (final int col : payload) {
+            writer.write(lookupReader.getColumnName(col));
+        }
+        writer.next();
+    }
+
+    private static void spill(final PartitionFiles spill, final int level, final int hash, final Object[] record) throws IOException {
+        final DataOutputStream out = spill.out(spill.partitionOf(PartitionFiles.rehash(hash, level)));
+        out.writeBoolean(true);
+        RowCodec.writeRow(out, record);
+    }
+
+    private static int[] payloadColumns(final int width, final int[] keys) {
+        final boolean[] key = new boolean[width];
+        int n = width;
+        for (final int col : keys) {
+            if (col < width && !key[col]) {
+                key[col] = true;
+                n--;
+            }
+        }
+        final int[] columns = new int[n];
+        for (int col = 0, i = 0; col < width; col++) {
+            if (!key[col]) {
+                columns[i++] = col;
+            }
+        }
+        return columns;
+    }
+
+    private static boolean hasNullKey(final Object[] record, final int[] keys) {
+        for (final int col : keys) {
+            if (col >= record.length || null == Values.normalize(record[col])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkColumns(final int[] columns) {
+        for (final int col : columns) {
+            if (0 > col) {
+                throw new IllegalArgumentException("illegal column: " + col);
+            }
+        }
+    }
+
+    /**
+     * In-memory lookup index: key table and encoded records chained per key in insertion order.
+     */
+    private static class Index {
+        private final GroupTable table = new GroupTable(1 << 12);
+        private final RowStore store = new RowStore();
+        private int[] heads = new int[1 << 12];
+        private int[] tails = new int[1 << 12];
+        private int[] next = new int[1 << 12];
+
+        private void add(final Object[] record, final int[] keys, final int hash) {
+            final int id = store.add(record);
+            if (id == next.length) {
+                next = Arrays.copyOf(next, id << 1);
+            }
+            next[id] = -1;
+
+            int group = table.find(record, keys, hash);
+            if (0 > group) {
+                group = table.add(record, keys, hash);
+                if (group == heads.length) {
+                    heads = Arrays.copyOf(heads, group << 1);
+                    tails = Arrays.copyOf(tails, group << 1);
+                }
+                heads[group] = id;
+            } else {
+                next[tails[group]] = id;
+            }
+            tails[group] = id;
+        }
+
+        private void spill(final PartitionFiles spill, final int level) throws IOException {
+            final int groups = table.size();
+            for (int group = 0; group < groups; group++) {
+                final DataOutputStream out = spill.out(spill.partitionOf(PartitionFiles.rehash(table.getHash(group), level)));
+                for (int id = heads[group]; 0 <= id; id = next[id]) {
+                    out.writeBoolean(true);
+                    RowCodec.writeRow(out, store.get(id));
+                }
+            }
+        }
+
+        private void clear() {
+            table.clear();
+            store.clear();
+        }
+    }
+}
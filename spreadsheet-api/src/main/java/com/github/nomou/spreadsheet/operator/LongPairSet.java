@@ -0,0 +1,200 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Open-addressing hash set of 128-bit values (long pairs), 16 bytes per slot.
+ *
+ * <p>The slots are either a heap long array or, in the disk-backed mode, memory-mapped segments of a temp file
+ * (off-heap, paged by the operating system). The table doubles when it is 3/4 full. The (0, 0) pair is reserved
+ * for empty slots, it is stored as (0, 1).</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class LongPairSet {
+    private static final int SEGMENT_SHIFT = 23;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    private final File directory;
+    private final boolean mapped;
+
+    private long[] table;
+    private LongBuffer[] segments;
+    private RandomAccessFile file;
+    private File path;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a set.
+     *
+     * @param expectedSize the expected number of values
+     * @param mapped       true to store the slots in a memory-mapped temp file
+     * @param directory    the directory of the temp file or null for the system temp directory
+     * @throws IOException if the temp file cannot be created
+     */
+    LongPairSet(final long expectedSize, final boolean mapped, final File directory) throws IOException {
+        this.mapped = mapped;
+        this.directory = directory;
+        final long slots = Math.max(16, Long.highestOneBit(Math.max(1, expectedSize * 4 / 3)) << 1);
+        allocate((int) Math.min(1 << 30, slots));
+    }
+
+    private void allocate(final int capacity) throws IOException {
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        if (!mapped) {
+            if (capacity > (Integer.MAX_VALUE >> 1)) {
+                throw new OutOfMemoryError("fingerprint set exceeds the max heap array size, use the disk-backed mode");
+            }
+            this.table = new long[capacity << 1];
+            return;
+        }
+        final File path = File.createTempFile("spreadsheet-dedup-", ".set", directory);
+        final RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            final long bytes = (long) capacity << 4;
+            file.setLength(bytes);
+            final int segmentBytes = (1 << SEGMENT_SHIFT) << 4;
+            final LongBuffer[] segments = new LongBuffer[(int) ((bytes + segmentBytes - 1) / segmentBytes)];
+            for (int i = 0; i < segments.length; i++) {
+                final long pos = (long) i * segmentBytes;
+                segments[i] = file.getChannel().map(FileChannel.MapMode.READ_WRITE, pos, Math.min(segmentBytes, bytes - pos)).asLongBuffer();
+            }
+            this.segments = segments;
+            this.file = file;
+            this.path = path;
+        } catch (final IOException ex) {
+            file.close();
+            if (!path.delete()) {
+                path.deleteOnExit();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param h1 the high long
+     * @param h2 the low long
+     * @return true if the value was added, false if it was already present
+     * @throws IOException if the disk-backed table cannot grow
+     */
+    boolean add(final long h1, long h2) throws IOException {
+        if (0 == h1 && 0 == h2) {
+            h2 = 1;
+        }
+        int slot = (int) (h1 ^ (h1 >>> 32)) & mask;
+        while (true) {
+            final long k1 = get(slot, 0);
+            final long k2 = get(slot, 1);
+            if (0 == k1 && 0 == k2) {
+                break;
+            }
+            if (k1 == h1 && k2 == h2) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        set(slot, h1, h2);
+        if (++size > (capacity >> 2) * 3) {
+            grow();
+        }
+        return true;
+    }
+
+    private long get(final int slot, final int i) {
+        if (null != table) {
+            return table[(slot << 1) + i];
+        }
+        return segments[slot >>> SEGMENT_SHIFT].get(((slot & SEGMENT_MASK) << 1) + i);
+    }
+
+    private void set(final int slot, final long h1, final long h2) {
+        if (null != table) {
+            table[slot << 1] = h1;
+            table[(slot << 1) + 1] = h2;
+        } else {
+            final LongBuffer segment = segments[slot >>> SEGMENT_SHIFT];
+            final int i = (slot & SEGMENT_MASK) << 1;
+            segment.put(i, h1);
+            segment.put(i + 1, h2);
+        }
+    }
+
+    private void grow() throws IOException {
+        if (capacity >= 1 << 30) {
+            throw new IllegalStateException("fingerprint set is full");
+        }
+        final int oldCapacity = this.capacity;
+        final long[] oldTable = this.table;
+        final LongBuffer[] oldSegments = this.segments;
+        final RandomAccessFile oldFile = this.file;
+        final File oldPath = this.path;
+        allocate(oldCapacity << 1);
+        size = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            final long h1;
+            final long h2;
+            if (null != oldTable) {
+                h1 = oldTable[slot << 1];
+                h2 = oldTable[(slot << 1) + 1];
+            } else {
+                final LongBuffer segment = oldSegments[slot >>> SEGMENT_SHIFT];
+                h1 = segment.get((slot & SEGMENT_MASK) << 1);
+                h2 = segment.get(((slot & SEGMENT_MASK) << 1) + 1);
+            }
+            if (0 != h1 || 0 != h2) {
+                add(h1, h2);
+            }
+        }
+        release(oldFile, oldPath);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of bytes of the slots.
+     *
+     * @return the number of bytes
+     */
+    long getBytes() {
+        return (long) capacity << 4;
+    }
+
+    /**
+     * Releases the table and deletes the temp file of the disk-backed mode.
+     */
+    void close() {
+        final RandomAccessFile file = this.file;
+        final File path = this.path;
+        this.table = null;
+        this.segments = null;
+        this.file = null;
+        this.path = null;
+        release(file, path);
+    }
+
+    private static void release(final RandomAccessFile file, final File path) {
+        if (null != file) {
+            try {
+                file.close();
+            } catch (final IOException ignore) {
+                // ignore.
+            }
+        }
+        // the mapping is released by the garbage collector, the file may not be deletable before (Windows).
+        if (null != path && !path.delete()) {
+            path.deleteOnExit();
+        }
+    }
+}
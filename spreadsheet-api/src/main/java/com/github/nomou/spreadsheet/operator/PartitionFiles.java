@@ -0,0 +1,154 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Hash-partitioned temp files, used by the operators to spill state that does not fit in memory.
+ *
+ * <p>Each entry is prefixed with a true marker and a partition ends with a false marker:</p>
+ * <pre>
+ * final DataOutputStream out = files.out(files.partitionOf(hash));
+ * out.writeBoolean(true);
+ * RowCodec.writeRow(out, row);
+ * ...
+ * files.finish();
+ * final DataInputStream in = files.open(p);
+ * while (in.readBoolean()) {
+ *     row = RowCodec.readRow(in);
+ * }
+ * </pre>
+ *
+ * <p>A partition that still does not fit in memory when it is read back is re-partitioned into new partition
+ * files by the hash {@link #rehash(int, int) rehashed} for the next level, up to {@link #MAX_LEVEL} levels.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class PartitionFiles {
+    /**
+     * The max re-partitioning level, the keys of a partition still too large at this level share their hash.
+     */
+    static final int MAX_LEVEL = 8;
+
+    private final File[] files;
+    private final DataOutputStream[] outs;
+    private final int shift;
+
+    /**
+     * Creates the partition files.
+     *
+     * @param prefix     the temp file prefix
+     * @param partitions the number of partitions (a power of two)
+     * @param directory  the temp directory or null for the system temp directory
+     * @throws IOException if an I/O error occurs
+     */
+    PartitionFiles(final String prefix, final int partitions, final File directory) throws IOException {
+        this.files = new File[partitions];
+        this.outs = new DataOutputStream[partitions];
+        this.shift = 32 - Integer.numberOfTrailingZeros(partitions);
+        try {
+            for (int p = 0; p < partitions; p++) {
+                files[p] = File.createTempFile(prefix, ".spill", directory);
+                outs[p] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[p])));
+            }
+        } catch (final IOException ex) {
+            delete();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the partition of a hash, the high bits pick the partition (the hash tables probe with the low bits).
+     *
+     * @param hash the hash
+     * @return the partition
+     */
+    int partitionOf(final int hash) {
+        return 32 == shift ? 0 : hash >>> shift;
+    }
+
+    /**
+     * Rehashes a hash for a re-partitioning level with a seed per level, so the keys of an oversized partition
+     * are spread over the partitions of the next level.
+     *
+     * @param hash  the hash
+     * @param level the re-partitioning level, 0 for the first spill (the hash is unchanged)
+     * @return the hash of the level
+     */
+    static int rehash(final int hash, final int level) {
+        if (0 == level) {
+            return hash;
+        }
+        // the 32-bit finalizer of MurmurHash3.
+        int h = hash ^ (level * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    DataOutputStream out(final int partition) {
+        return outs[partition];
+    }
+
+    /**
+     * Ends all partitions, no entry can be written after.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void finish() throws IOException {
+        for (int p = 0; p < outs.length; p++) {
+            if (null != outs[p]) {
+                outs[p].writeBoolean(false);
+                outs[p].close();
+                outs[p] = null;
+            }
+        }
+    }
+
+    DataInputStream open(final int partition) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(files[partition])));
+    }
+
+    int size() {
+        return files.length;
+    }
+
+    /**
+     * Deletes a partition file.
+     *
+     * @param partition the partition
+     */
+    void delete(final int partition) {
+        final File file = files[partition];
+        if (null != file && file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Closes and deletes all partition files.
+     */
+    void delete() {
+        for (int p = 0; p < files.length; p++) {
+            if (null != outs[p]) {
+                try {
+                    outs[p].close();
+                } catch (final IOException ignore) {
+                    // ignore.
+                }
+                outs[p] = null;
+            }
+            delete(p);
+        }
+    }
+}
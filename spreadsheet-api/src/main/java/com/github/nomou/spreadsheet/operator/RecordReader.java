@@ -0,0 +1,159 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the records of all worksheets from the parser events.
+ *
+ * <p>If columns are given only the values of these columns are decoded (the other cells are skipped
+ * without calling {@link SpreadsheetParser#getValue()}) and the same array is reused for each record,
+ * otherwise a new array holding the whole record is returned.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class RecordReader {
+    private final SpreadsheetParser parser;
+    private final boolean header;
+    private final boolean[] referenced;
+    private final Object[] record;
+    private final List<Object> values = new ArrayList<Object>();
+
+    private String worksheetName;
+    private String[] headerNames;
+    private boolean headerPending;
+    private long records;
+
+    /**
+     * Creates a reader.
+     *
+     * @param parser  the parser
+     * @param header  true if the first record of each worksheet is a header
+     * @param columns the columns to read or null to read whole records
+     */
+    RecordReader(final SpreadsheetParser parser, final boolean header, final int[] columns) {
+        this.parser = parser;
+        this.header = header;
+        if (null != columns) {
+            int max = -1;
+            for (final int col : columns) {
+                max = Math.max(max, col);
+            }
+            this.referenced = new boolean[max + 1];
+            for (final int col : columns) {
+                this.referenced[col] = true;
+            }
+            this.record = new Object[max + 1];
+        } else {
+            this.referenced = null;
+            this.record = null;
+        }
+    }
+
+    /**
+     * Reads the next data record.
+     *
+     * @return the record or null if there are no more records
+     */
+    Object[] next() {
+        final SpreadsheetParser parser = this.parser;
+        final boolean[] referenced = this.referenced;
+        boolean started = false;
+        while (parser.hasNext()) {
+            final int event = parser.next();
+            if (SpreadsheetParser.START_WORKSHEET == event) {
+                if (null == worksheetName) {
+                    worksheetName = parser.getWorksheetName();
+                }
+                headerPending = header;
+            } else if (SpreadsheetParser.START_RECORD == event) {
+                started = true;
+                if (null != record) {
+                    Arrays.fill(record, null);
+                }
+                values.clear();
+            } else if (SpreadsheetParser.END_CELL == event && started) {
+                final int col = parser.getCol();
+                if (headerPending || null == referenced) {
+                    final Object value = parser.getValue();
+                    while (values.size() < col) {
+                        values.add(null);
+                    }
+                    values.add(value);
+                }
+                if (null != referenced && col < referenced.length && referenced[col]) {
+                    record[col] = parser.getValue();
+                }
+            } else if (SpreadsheetParser.END_RECORD == event && started) {
+                started = false;
+                // record events mode: the cells are in the record buffer of the parser.
+                final int width = parser.getRecordWidth();
+                for (int col = 0; col < width; col++) {
+                    if (headerPending || null == referenced) {
+                        values.add(parser.getRecordValue(col));
+                    }
+                    if (null != referenced && col < referenced.length && referenced[col]) {
+                        record[col] = parser.getRecordValue(col);
+                    }
+                }
+                if (headerPending) {
+                    headerPending = false;
+                    if (null == headerNames) {
+                        headerNames = new String[values.size()];
+                        for (int i = 0; i < headerNames.length; i++) {
+                            final Object name = values.get(i);
+                            headerNames[i] = null != name ? name.toString() : null;
+                        }
+                    }
+                    continue;
+                }
+                records++;
+                return null != record ? record : values.toArray();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the name of the first worksheet.
+     *
+     * @return the worksheet name or null if no worksheet was reached
+     */
+    String getWorksheetName() {
+        return worksheetName;
+    }
+
+    /**
+     * Gets the name of the given column from the header of the first worksheet.
+     *
+     * @param col the column index
+     * @return the header name or a generated name (eg: "col3") if there is no header
+     */
+    String getColumnName(final int col) {
+        final String[] names = this.headerNames;
+        final String name = null != names && col < names.length ? names[col] : null;
+        return null != name ? name : "col" + col;
+    }
+
+    /**
+     * Gets the header of the first worksheet.
+     *
+     * @return the header names or null if there is no header
+     */
+    String[] getHeader() {
+        return headerNames;
+    }
+
+    /**
+     * Gets the number of data records read.
+     *
+     * @return the number of records
+     */
+    long getRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Compact binary encoding of cell values, used by the operators to spill rows to temp files.
+ *
+ * <p>Each value is a one byte tag followed by its payload, strings are written as UTF-8
+ * with a variable-length size so short cells cost a few bytes.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class RowCodec {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DATE = 6;
+    private static final int DECIMAL = 7;
+
+    private RowCodec() {
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param out the output
+     * @param row the row
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeRow(final DataOutput out, final Object[] row) throws IOException {
+        writeVarInt(out, row.length);
+        for (final Object value : row) {
+            writeValue(out, value);
+        }
+    }
+
+    /**
+     * Reads a row.
+     *
+     * @param in the input
+     * @return the row
+     * @throws IOException if an I/O error occurs
+     */
+    static Object[] readRow(final DataInput in) throws IOException {
+        final Object[] row = new Object[readVarInt(in)];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = readValue(in);
+        }
+        return row;
+    }
+
+    /**
+     * Converts the values of a row in place to the types read back by {@link #readRow(DataInput)}, so the rows
+     * that are not spilled have the same types as the spilled rows.
+     *
+     * @param row the row
+     * @return the row
+     */
+    static Object[] normalizeRow(final Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            row[i] = normalizeValue(row[i]);
+        }
+        return row;
+    }
+
+    /**
+     * Converts a value to the type read back by {@link #readValue(DataInput)}: integral numbers become
+     * {@link Long}, other numbers {@link Double} (or {@link BigDecimal} for big numbers), calendars {@link Date}
+     * and unknown values their string.
+     *
+     * @param value the value
+     * @return the value of the decoded type
+     */
+    static Object normalizeValue(final Object value) {
+        if (null == value || value instanceof String || value instanceof Long || value instanceof Double
+                || value instanceof Boolean || value instanceof BigDecimal) {
+            return value;
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Date) {
+            return value.getClass() == Date.class ? value : new Date(((Date) value).getTime());
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTime();
+        }
+        return value.toString();
+    }
+
+    /**
+     * Writes a value.
+     *
+     * @param out   the output
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeValue(final DataOutput out, final Object value) throws IOException {
+        if (null == value) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            out.writeByte(DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof Number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Calendar) {
+            out.writeByte(DATE);
+            out.writeLong(((Calendar) value).getTimeInMillis());
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Reads a value.
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if an I/O error occurs
+     */
+    static Object readValue(final DataInput in) throws IOException {
+        final int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case DATE:
+                return new Date(in.readLong());
+            case DECIMAL:
+                return new BigDecimal(readString(in));
+            default:
+                throw new IOException("illegal value tag: " + tag);
+        }
+    }
+
+    private static void writeString(final DataOutput out, final String text) throws IOException {
+        final byte[] bytes = text.getBytes(UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    static void writeVarInt(final DataOutput out, int value) throws IOException {
+        while (0 != (value & ~0x7F)) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(final DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (0 == (b & 0x80)) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+}
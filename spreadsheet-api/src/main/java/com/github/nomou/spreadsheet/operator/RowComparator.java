@@ -0,0 +1,31 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.util.Comparator;
+
+/**
+ * Compares rows by one or more columns with the typed value order of {@link Values#compare(Object, Object)}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class RowComparator implements Comparator<Object[]> {
+    private final int[] columns;
+    private final boolean[] descending;
+
+    RowComparator(final int[] columns, final boolean[] descending) {
+        this.columns = columns;
+        this.descending = descending;
+    }
+
+    @Override
+    public int compare(final Object[] a, final Object[] b) {
+        for (int i = 0; i < columns.length; i++) {
+            final int col = columns[i];
+            final int c = Values.compare(col < a.length ? a[col] : null, col < b.length ? b[col] : null);
+            if (0 != c) {
+                return descending[i] ? -c : c;
+            }
+        }
+        return 0;
+    }
+}
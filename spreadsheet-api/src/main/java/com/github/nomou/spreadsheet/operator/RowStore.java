@@ -0,0 +1,117 @@
+package com.github.nomou.spreadsheet.operator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Append-only row store: the rows are encoded with the {@link RowCodec} into one growable byte array and
+ * addressed by dense row ids, so a million of rows cost a few large arrays instead of millions of objects.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class RowStore {
+    private byte[] bytes = new byte[1 << 12];
+    private int length;
+    private int[] offsets = new int[1 << 8];
+    private int size;
+
+    private final DataOutputStream out = new DataOutputStream(new OutputStream() {
+        @Override
+        public void write(final int b) {
+            ensureCapacity(length + 1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            ensureCapacity(length + len);
+            System.arraycopy(b, off, bytes, length, len);
+            length += len;
+        }
+    });
+
+    private int readPos;
+    private final DataInputStream in = new DataInputStream(new InputStream() {
+        @Override
+        public int read() {
+            return readPos < length ? bytes[readPos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            final int n = Math.min(len, length - readPos);
+            if (0 >= n) {
+                return -1;
+            }
+            System.arraycopy(bytes, readPos, b, off, n);
+            readPos += n;
+            return n;
+        }
+    });
+
+    /**
+     * Appends a row.
+     *
+     * @param row the row
+     * @return the row id
+     */
+    int add(final Object[] row) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size << 1);
+        }
+        offsets[size] = length;
+        try {
+            RowCodec.writeRow(out, row);
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return size++;
+    }
+
+    /**
+     * Reads a row.
+     *
+     * @param id the row id
+     * @return the row
+     */
+    Object[] get(final int id) {
+        readPos = offsets[id];
+        try {
+            return RowCodec.readRow(in);
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (0 > capacity) {
+            throw new OutOfMemoryError("row store exceeds 2GB");
+        }
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length + (bytes.length >> 1)));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of bytes used by the encoded rows.
+     *
+     * @return the number of bytes
+     */
+    long getBytes() {
+        return length;
+    }
+
+    void clear() {
+        length = 0;
+        size = 0;
+    }
+}
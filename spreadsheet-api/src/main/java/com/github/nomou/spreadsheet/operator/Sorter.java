@@ -0,0 +1,460 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * External merge sort operator.
+ *
+ * <p>The records of the parser are sorted by the order-by columns and written to the writer:</p>
+ * <pre>
+ * final long records = new Sorter()
+ *         .orderBy(2)                // region
+ *         .orderBy(5, true)          // amount desc
+ *         .setHeader(true)
+ *         .setRunSize(500000)
+ *         .setParallelism(4)
+ *         .sort(parser, writer);
+ * </pre>
+ *
+ * <p>The records are buffered in runs of {@link #setRunSize(int) run size} records, each full run is sorted in
+ * memory and spilled to a temp file in a compact binary form, then the runs are k-way merged into the writer
+ * (in several passes if there are more than {@link #setMergeFactor(int) merge factor} runs). With a parallelism
+ * greater than 1 the runs are sorted and spilled by worker threads while the parser fills the next run, at most
+ * parallelism + 1 runs are held in memory. Input that fits in one run is never spilled.</p>
+ *
+ * <p>Values are compared by type: nulls and empty strings first, then booleans, numbers (by value), dates and
+ * strings. The sort is stable. The values are written with the types of the spilled values whether the input
+ * is spilled or not: integral numbers as {@link Long}, other numbers as {@link Double} (or
+ * {@link java.math.BigDecimal}), calendars as {@link java.util.Date}. The parser and the writer are not closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class Sorter {
+    /**
+     * The default number of records of a run.
+     */
+    public static final int DEFAULT_RUN_SIZE = 100000;
+
+    private final List<Integer> orderBy = new ArrayList<Integer>();
+    private final List<Boolean> descending = new ArrayList<Boolean>();
+    private boolean header;
+    private String worksheetName;
+    private int runSize = DEFAULT_RUN_SIZE;
+    private int parallelism = 1;
+    private int mergeFactor = 64;
+    private File spillDirectory;
+
+    private int runCount;
+
+    /**
+     * Adds an ascending order-by column.
+     *
+     * @param col the column index
+     * @return this sorter
+     */
+    public Sorter orderBy(final int col) {
+        return orderBy(col, false);
+    }
+
+    /**
+     * Adds an order-by column.
+     *
+     * @param col        the column index
+     * @param descending true if descending
+     * @return this sorter
+     */
+    public Sorter orderBy(final int col, final boolean descending) {
+        if (0 > col) {
+            throw new IllegalArgumentException("illegal column: " + col);
+        }
+        this.orderBy.add(col);
+        this.descending.add(descending);
+        return this;
+    }
+
+    /**
+     * Sets whether the first record of each worksheet is a header, the header of the first worksheet is written first.
+     *
+     * @param header true if the first record is a header
+     * @return this sorter
+     */
+    public Sorter setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the name of the output worksheet, defaults to the name of the first input worksheet.
+     *
+     * @param worksheetName the worksheet name
+     * @return this sorter
+     */
+    public Sorter setWorksheetName(final String worksheetName) {
+        this.worksheetName = worksheetName;
+        return this;
+    }
+
+    /**
+     * Sets the number of records sorted in memory per run.
+     *
+     * @param runSize the number of records
+     * @return this sorter
+     */
+    public Sorter setRunSize(final int runSize) {
+        if (1 > runSize) {
+            throw new IllegalArgumentException("run size must be positive: " + runSize);
+        }
+        this.runSize = runSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads sorting and spilling the runs.
+     *
+     * @param parallelism the number of threads
+     * @return this sorter
+     */
+    public Sorter setParallelism(final int parallelism) {
+        if (1 > parallelism) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the max number of runs merged at once.
+     *
+     * @param mergeFactor the number of runs
+     * @return this sorter
+     */
+    public Sorter setMergeFactor(final int mergeFactor) {
+        if (2 > mergeFactor) {
+            throw new IllegalArgumentException("merge factor must be greater than 1: " + mergeFactor);
+        }
+        this.mergeFactor = mergeFactor;
+        return this;
+    }
+
+    /**
+     * Sets the directory of the run files, defaults to the system temp directory.
+     *
+     * @param spillDirectory the directory
+     * @return this sorter
+     */
+    public Sorter setSpillDirectory(final File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Gets the number of runs spilled by the last sort.
+     *
+     * @return the number of runs
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Sorts the records of the parser and writes them to the writer.
+     *
+     * @param parser the parser
+     * @param writer the writer
+     * @return the number of records
+     * @throws SpreadsheetException if a parsing, writing or spilling error occurs
+     */
+    public long sort(final SpreadsheetParser parser, final SpreadsheetWriter writer) throws SpreadsheetException {
+        if (orderBy.isEmpty()) {
+            throw new IllegalStateException("no order-by column");
+        }
+        final int[] columns = new int[orderBy.size()];
+        final boolean[] desc = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = orderBy.get(i);
+            desc[i] = descending.get(i);
+        }
+        final RowComparator comparator = new RowComparator(columns, desc);
+        final RecordReader reader = new RecordReader(parser, header, null);
+        final ExecutorService executor = 1 < parallelism ? createExecutor(parallelism) : null;
+        final LinkedList<Future<Run>> pending = new LinkedList<Future<Run>>();
+        final List<Run> runs = new ArrayList<Run>();
+
+        runCount = 0;
+        try {
+            Object[][] buffer = new Object[Math.min(runSize, 1024)][];
+            int size = 0;
+            Object[] record;
+            while (null != (record = reader.next())) {
+                if (size == buffer.length) {
+                    if (size < runSize) {
+                        buffer = Arrays.copyOf(buffer, Math.min(runSize, size << 1));
+                    } else {
+                        final Object[][] rows = buffer;
+                        final Callable<Run> spill = new Callable<Run>() {
+                            @Override
+                            public Run call() throws IOException {
+                                Arrays.sort(rows, comparator);
+                                return Run.write(rows, rows.length, spillDirectory);
+                            }
+                        };
+                        if (null != executor) {
+                            while (pending.size() >= parallelism) {
+                                runs.add(await(pending.removeFirst()));
+                            }
+                            pending.add(executor.submit(spill));
+                        } else {
+                            runs.add(spill.call());
+                        }
+                        buffer = new Object[runSize][];
+                        size = 0;
+                    }
+                }
+                buffer[size++] = RowCodec.normalizeRow(record);
+            }
+            while (!pending.isEmpty()) {
+                runs.add(await(pending.removeFirst()));
+            }
+            Arrays.sort(buffer, 0, size, comparator);
+
+            final String name = null != worksheetName ? worksheetName : reader.getWorksheetName();
+            if (null != name) {
+                writer.start(name);
+            } else {
+                writer.start();
+            }
+            final String[] headerNames = reader.getHeader();
+            if (null != headerNames) {
+                writer.write((Object) headerNames).next();
+            }
+            if (runs.isEmpty()) {
+                for (int i = 0; i < size; i++) {
+                    writer.write((Object) buffer[i]).next();
+                }
+                return size;
+            }
+            if (0 < size) {
+                runs.add(Run.write(buffer, size, spillDirectory));
+            }
+            buffer = null;
+            runCount = runs.size();
+            while (runs.size() > mergeFactor) {
+                mergePass(runs, comparator);
+            }
+            return merge(runs, comparator, writer, null);
+        } catch (final IOException ex) {
+            throw new SpreadsheetException("sort spill failed: " + ex.getMessage(), ex);
+        } catch (final Exception ex) {
+            if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            throw new SpreadsheetException(ex);
+        } finally {
+            if (null != executor) {
+                executor.shutdownNow();
+            }
+            for (final Future<Run> future : pending) {
+                if (!future.cancel(true)) {
+                    try {
+                        future.get().delete();
+                    } catch (final Exception ignore) {
+                        // the run was not written.
+                    }
+                }
+            }
+            for (final Run run : runs) {
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Merges the runs by groups of merge factor runs into new (consecutive) runs.
+     */
+    private void mergePass(final List<Run> runs, final RowComparator comparator) throws IOException {
+        final List<Run> merged = new ArrayList<Run>();
+        try {
+            for (int i = 0; i < runs.size(); i += mergeFactor) {
+                final List<Run> group = runs.subList(i, Math.min(runs.size(), i + mergeFactor));
+                final File file = File.createTempFile("spreadsheet-sort-", ".run", spillDirectory);
+                final Run run = new Run(file);
+                merged.add(run);
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+                try {
+                    run.count = merge(group, comparator, null, out);
+                } finally {
+                    out.close();
+                }
+                for (final Run r : group) {
+                    r.delete();
+                }
+            }
+        } catch (final IOException ex) {
+            for (final Run run : merged) {
+                run.delete();
+            }
+            throw ex;
+        }
+        runs.clear();
+        runs.addAll(merged);
+    }
+
+    /**
+     * K-way merges the runs to the writer or to the output.
+     */
+    private static long merge(final List<Run> runs, final RowComparator comparator,
+                              final SpreadsheetWriter writer, final DataOutputStream out) throws IOException {
+        final PriorityQueue<RunCursor> queue = new PriorityQueue<RunCursor>(runs.size());
+        final List<RunCursor> cursors = new ArrayList<RunCursor>(runs.size());
+        long count = 0;
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                final RunCursor cursor = new RunCursor(runs.get(i), i, comparator);
+                cursors.add(cursor);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            RunCursor cursor;
+            while (null != (cursor = queue.poll())) {
+                if (null != writer) {
+                    writer.write((Object) cursor.row).next();
+                } else {
+                    RowCodec.writeRow(out, cursor.row);
+                }
+                count++;
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            return count;
+        } finally {
+            for (final RunCursor c : cursors) {
+                c.close();
+            }
+        }
+    }
+
+    private static Run await(final Future<Run> future) throws Exception {
+        try {
+            return future.get();
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new SpreadsheetException(cause);
+        }
+    }
+
+    private static ExecutorService createExecutor(final int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "spreadsheet-sort-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * A sorted run file.
+     */
+    private static class Run {
+        private final File file;
+        private long count;
+
+        private Run(final File file) {
+            this.file = file;
+        }
+
+        private static Run write(final Object[][] rows, final int size, final File directory) throws IOException {
+            final Run run = new Run(File.createTempFile("spreadsheet-sort-", ".run", directory));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run.file), 1 << 16));
+            try {
+                for (int i = 0; i < size; i++) {
+                    RowCodec.writeRow(out, rows[i]);
+                }
+            } catch (final IOException ex) {
+                out.close();
+                run.delete();
+                throw ex;
+            }
+            out.close();
+            run.count = size;
+            return run;
+        }
+
+        private void delete() {
+            if (file.exists() && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Reads a run during the merge, ties are broken by run index so the merge is stable.
+     */
+    private static class RunCursor implements Comparable<RunCursor> {
+        private final int index;
+        private final RowComparator comparator;
+        private DataInputStream in;
+        private long remaining;
+        private Object[] row;
+
+        private RunCursor(final Run run, final int index, final RowComparator comparator) throws IOException {
+            this.index = index;
+            this.comparator = comparator;
+            this.remaining = run.count;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), 1 << 16));
+        }
+
+        private boolean advance() throws IOException {
+            if (0 >= remaining) {
+                row = null;
+                close();
+                return false;
+            }
+            remaining--;
+            row = RowCodec.readRow(in);
+            return true;
+        }
+
+        @Override
+        public int compareTo(final RunCursor o) {
+            final int c = comparator.compare(row, o.row);
+            return 0 != c ? c : (index < o.index ? -1 : 1);
+        }
+
+        private void close() throws IOException {
+            if (null != in) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.util.NumberParser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Cell value normalization, conversion and comparison helpers shared by the operators.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class Values {
+    private static final double MAX_EXACT_INTEGER = 9007199254740992D;
+
+    private Values() {
+    }
+
+    /**
+     * Normalizes a key value: integral numbers become {@link Long} (so 1, 1L and 1.0D are equal keys),
+     * other numbers become {@link Double}, empty strings become null.
+     */
+    static Object normalize(final Object value) {
+        if (value instanceof Long || value instanceof String && 0 < ((String) value).length()) {
+            return value;
+        }
+        if (value instanceof Number && !(value instanceof BigInteger || value instanceof BigDecimal)) {
+            final Number number = (Number) value;
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return number.longValue();
+            }
+            final double d = number.doubleValue();
+            return d == Math.rint(d) && Math.abs(d) <= MAX_EXACT_INTEGER ? (Object) (long) d : (Object) d;
+        }
+        return value instanceof String ? null : value;
+    }
+
+    /**
+     * Hashes a normalized value.
+     */
+    static int hash(final Object value) {
+        return null != value ? value.hashCode() : 0;
+    }
+
+    /**
+     * Returns true if the normalized values are equal.
+     */
+    static boolean equals(final Object a, final Object b) {
+        return a == b || (null != a && a.equals(b));
+    }
+
+    /**
+     * Converts a cell value to a double.
+     *
+     * @return the double value or NaN if the value is not numeric
+     */
+    static double toDouble(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            final String text = ((String) value).trim();
+            if (isDecimal(text)) {
+                try {
+                    return NumberParser.parseDouble(text);
+                } catch (final NumberFormatException ignore) {
+                    // fall through.
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Returns true if the text is a plain or scientific decimal number (cheap pre-check before parsing).
+     */
+    private static boolean isDecimal(final String text) {
+        final int len = text.length();
+        int i = 0 < len && ('-' == text.charAt(0) || '+' == text.charAt(0)) ? 1 : 0;
+        boolean digits = false;
+        for (; i < len; i++) {
+            final char c = text.charAt(i);
+            if ('0' <= c && '9' >= c) {
+                digits = true;
+            } else if ('.' != c && 'e' != c && 'E' != c && '-' != c && '+' != c) {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * Compares two cell values: nulls (and empty strings) first, then booleans, numbers, dates and strings.
+     * Values of the same kind are compared naturally (numbers by value, whatever their type).
+     */
+    static int compare(final Object a, final Object b) {
+        final int ka = kindOf(a);
+        final int kb = kindOf(b);
+        if (ka != kb) {
+            return ka < kb ? -1 : 1;
+        }
+        switch (ka) {
+            case 0:
+                return 0;
+            case 1:
+                return Boolean.compare((Boolean) a, (Boolean) b);
+            case 2:
+                if (a instanceof Long && b instanceof Long) {
+                    return Long.compare((Long) a, (Long) b);
+                }
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            case 3:
+                return Long.compare(toMillis(a), toMillis(b));
+            default:
+                return a.toString().compareTo(b.toString());
+        }
+    }
+
+    private static int kindOf(final Object value) {
+        if (null == value || (value instanceof String && 0 == ((String) value).length())) {
+            return 0;
+        }
+        if (value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof Number) {
+            return 2;
+        }
+        return value instanceof Date || value instanceof Calendar ? 3 : 4;
+    }
+
+    private static long toMillis(final Object date) {
+        return date instanceof Date ? ((Date) date).getTime() : ((Calendar) date).getTimeInMillis();
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.nomou.spreadsheet.schema;
+
+/**
+ * Inferred schema of a single column.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class ColumnSchema {
+    private final int index;
+    private final String name;
+    private final ColumnType type;
+    private final boolean nullable;
+    private final String dateFormat;
+    private final long samples;
+    private final long nulls;
+
+    ColumnSchema(final int index, final String name, final ColumnType type, final boolean nullable,
+                 final String dateFormat, final long samples, final long nulls) {
+        this.index = index;
+        this.name = name;
+        this.type = type;
+        this.nullable = nullable;
+        this.dateFormat = dateFormat;
+        this.samples = samples;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Gets the zero-based column index.
+     *
+     * @return the column index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the column name, the header cell text if the sheet has a header, otherwise the column letters (A, B, ...).
+     *
+     * @return the column name
+     */
+    public String getName() {
+        return name;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    /**
+     * Returns true if empty cells were sampled in the column.
+     *
+     * @return true if the column is nullable
+     */
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * Gets the {@link java.text.SimpleDateFormat} pattern of text dates.
+     *
+     * @return the pattern or null if the sampled dates were native date cells
+     */
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    /**
+     * Gets the number of sampled cells (including empty cells).
+     *
+     * @return the number of sampled cells
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getNulls() {
+        return nulls;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + type + (null != dateFormat ? "(" + dateFormat + ")" : "") + (nullable ? " NULL" : " NOT NULL");
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.nomou.spreadsheet.schema;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * The statistics of a worksheet column, collected during parsing by a {@link ColumnStatsCollector}.
+ *
+ * <p>The values are classified as {@link ColumnValues} does for the schema inference: the blank texts are nulls,
+ * the boolean and numeric texts are booleans and numbers, the other texts (trimmed) are measured by their length.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class ColumnStats {
+    private final int column;
+    private final String name;
+    private final long count;
+    private final long nullCount;
+    private final long distinctCount;
+    private final long booleanCount;
+    private final long numberCount;
+    private final double min;
+    private final double max;
+    private final long dateCount;
+    private final long minDate;
+    private final long maxDate;
+    private final long textCount;
+    private final int minLength;
+    private final int maxLength;
+    private final long[] lengthHistogram;
+
+    ColumnStats(final int column, final String name, final long count, final long nullCount, final long distinctCount,
+                final long booleanCount, final long numberCount, final double min, final double max,
+                final long dateCount, final long minDate, final long maxDate,
+                final long textCount, final int minLength, final int maxLength, final long[] lengthHistogram) {
+        this.column = column;
+        this.name = name;
+        this.count = count;
+        this.nullCount = nullCount;
+        this.distinctCount = distinctCount;
+        this.booleanCount = booleanCount;
+        this.numberCount = numberCount;
+        this.min = min;
+        this.max = max;
+        this.dateCount = dateCount;
+        this.minDate = minDate;
+        this.maxDate = maxDate;
+        this.textCount = textCount;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.lengthHistogram = lengthHistogram;
+    }
+
+    /**
+     * Gets the column index.
+     *
+     * @return the column index
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the header name of the column.
+     *
+     * @return the name or null if the collector has no header
+     * @see ColumnStatsCollector#setHeader(boolean)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of rows (the header excluded).
+     *
+     * @return the number of rows
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of null cells, including the cells missing from the rows.
+     *
+     * @return the number of null cells
+     */
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * Gets the estimated number of distinct non-null values (HyperLogLog).
+     *
+     * @return the estimated number of distinct values
+     * @see ColumnStatsCollector#ColumnStatsCollector(int)
+     */
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public long getBooleanCount() {
+        return booleanCount;
+    }
+
+    public long getNumberCount() {
+        return numberCount;
+    }
+
+    /**
+     * Gets the minimum of the numbers.
+     *
+     * @return the minimum or NaN if the column has no number
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the maximum of the numbers.
+     *
+     * @return the maximum or NaN if the column has no number
+     */
+    public double getMax() {
+        return max;
+    }
+
+    public long getDateCount() {
+        return dateCount;
+    }
+
+    /**
+     * Gets the earliest date.
+     *
+     * @return the earliest date or null if the column has no date
+     */
+    public Date getMinDate() {
+        return 0 < dateCount ? new Date(minDate) : null;
+    }
+
+    /**
+     * Gets the latest date.
+     *
+     * @return the latest date or null if the column has no date
+     */
+    public Date getMaxDate() {
+        return 0 < dateCount ? new Date(maxDate) : null;
+    }
+
+    public long getTextCount() {
+        return textCount;
+    }
+
+    /**
+     * Gets the minimum length of the texts.
+     *
+     * @return the minimum length or -1 if the column has no text
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Gets the maximum length of the texts.
+     *
+     * @return the maximum length or -1 if the column has no text
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Gets the histogram of the text lengths, bucket i (1 to 31) counts the lengths in [2^(i-1), 2^i).
+     *
+     * @return the 32 buckets
+     */
+    public long[] getLengthHistogram() {
+        return lengthHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats{column=" + column + ", name=" + name + ", count=" + count + ", nulls=" + nullCount
+                + ", distinct=" + distinctCount + ", booleans=" + booleanCount
+                + ", numbers=" + numberCount + (0 < numberCount ? " [" + min + ", " + max + "]" : "")
+                + ", dates=" + dateCount + (0 < dateCount ? " [" + getMinDate() + ", " + getMaxDate() + "]" : "")
+                + ", texts=" + textCount + (0 < textCount ? " [" + minLength + ", " + maxLength + "] " + Arrays.toString(lengthHistogram) : "")
+                + "}";
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.nomou.spreadsheet.schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the {@link ColumnStats} of the worksheets while they are parsed, instead of a second scan.
+ *
+ * <p>The parser configured with a collector (see {@link com.github.nomou.spreadsheet.SpreadsheetParser#OPTION_STATISTICS})
+ * feeds it with the decoded cells of the emitted rows (the rows rejected by the row filter are not counted), the
+ * statistics of a worksheet are available from its END_WORKSHEET event (or
+ * {@link com.github.nomou.spreadsheet.RowHandler#endWorksheet(int)}):</p>
+ * <pre>
+ * final ColumnStatsCollector statistics = new ColumnStatsCollector().setHeader(true);
+ * parser.configure(SpreadsheetParser.OPTION_STATISTICS, statistics);
+ * ... // parse
+ * for (final ColumnStats column : statistics.getStats(0)) {
+ *     System.out.println(column.getName() + ": " + column.getNullCount() + ", " + column.getDistinctCount());
+ * }
+ * </pre>
+ * <p>Each column holds a HyperLogLog sketch of 2^precision bytes (the standard error of the distinct count is
+ * 1.04 / sqrt(2^precision)). The worksheets may be collected concurrently by the worksheet parsers of a
+ * {@link com.github.nomou.spreadsheet.ParallelWorkbookParser}, a worksheet is fed by one thread.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class ColumnStatsCollector {
+    /**
+     * The default precision: 4096 registers, 1.6% standard error.
+     */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private boolean header;
+    private final Map<Integer, List<ColumnStats>> stats = new HashMap<Integer, List<ColumnStats>>();
+
+    /**
+     * Creates a collector of the {@link #DEFAULT_PRECISION default precision}.
+     */
+    public ColumnStatsCollector() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates a collector.
+     *
+     * @param precision the HyperLogLog precision (4 to 16)
+     */
+    public ColumnStatsCollector(final int precision) {
+        if (4 > precision || 16 < precision) {
+            throw new IllegalArgumentException("precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Sets whether the first row of each worksheet is a header row, the header names the columns and is not
+     * counted.
+     *
+     * @param header true if the first row is a header
+     * @return this collector
+     */
+    public ColumnStatsCollector setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Gets the statistics of a worksheet.
+     *
+     * @param worksheetIndex the worksheet index
+     * @return the statistics of the columns or null if the end of the worksheet is not reached
+     */
+    public synchronized List<ColumnStats> getStats(final int worksheetIndex) {
+        return stats.get(worksheetIndex);
+    }
+
+    /**
+     * Starts collecting a worksheet, called by the parsers.
+     *
+     * @param worksheetIndex the worksheet index
+     * @param worksheetName  the worksheet name
+     * @return the worksheet statistics to feed
+     */
+    public Worksheet startWorksheet(final int worksheetIndex, final String worksheetName) {
+        return new Worksheet(worksheetIndex, worksheetName);
+    }
+
+    private synchronized void complete(final int worksheetIndex, final List<ColumnStats> columns) {
+        stats.put(worksheetIndex, columns);
+    }
+
+    /**
+     * The statistics of a worksheet being parsed, fed by one parser.
+     */
+    public final class Worksheet {
+        private final int worksheetIndex;
+        private final String worksheetName;
+        private ColumnStatsTracker[] trackers = new ColumnStatsTracker[16];
+        private String[] names;
+        private int width;
+        private long rows;
+        private boolean headerPending = header;
+
+        private Worksheet(final int worksheetIndex, final String worksheetName) {
+            this.worksheetIndex = worksheetIndex;
+            this.worksheetName = worksheetName;
+            this.names = header ? new String[16] : null;
+        }
+
+        /**
+         * Accumulates a decoded cell of the current row.
+         *
+         * @param col   the column index
+         * @param value the cell value
+         */
+        public void accept(final int col, final Object value) {
+            if (0 > col) {
+                return;
+            }
+            if (headerPending) {
+                if (col >= names.length) {
+                    names = Arrays.copyOf(names, Math.max(col + 1, names.length << 1));
+                }
+                names[col] = ColumnValues.isNull(value) ? null : value.toString().trim();
+                width = Math.max(width, col + 1);
+                return;
+            }
+            if (col >= trackers.length) {
+                trackers = Arrays.copyOf(trackers, Math.max(col + 1, trackers.length << 1));
+            }
+            ColumnStatsTracker tracker = trackers[col];
+            if (null == tracker) {
+                tracker = trackers[col] = new ColumnStatsTracker(precision);
+            }
+            tracker.accept(value);
+            width = Math.max(width, col + 1);
+        }
+
+        /**
+         * Ends the current row.
+         */
+        public void endRow() {
+            if (headerPending) {
+                headerPending = false;
+            } else {
+                rows++;
+            }
+        }
+
+        /**
+         * Ends the worksheet, the statistics are available from {@link ColumnStatsCollector#getStats(int)}.
+         *
+         * @return the statistics of the columns
+         */
+        public List<ColumnStats> end() {
+            final List<ColumnStats> columns = new ArrayList<ColumnStats>(width);
+            for (int col = 0; col < width; col++) {
+                ColumnStatsTracker tracker = col < trackers.length ? trackers[col] : null;
+                tracker = null != tracker ? tracker : new ColumnStatsTracker(4);
+                columns.add(tracker.toStats(col, null != names && col < names.length ? names[col] : null, rows));
+            }
+            final List<ColumnStats> stats = Collections.unmodifiableList(columns);
+            complete(worksheetIndex, stats);
+            return stats;
+        }
+
+        public int getWorksheetIndex() {
+            return worksheetIndex;
+        }
+
+        public String getWorksheetName() {
+            return worksheetName;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.nomou.spreadsheet.schema;
+
+import com.github.nomou.spreadsheet.util.NumberParser;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Accumulates the non-null values of a column into primitive counters and a {@link HyperLogLog} sketch.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class ColumnStatsTracker {
+    private static final long DATE_SALT = 0x2545F4914F6CDD1DL;
+    private static final long TRUE_HASH = HyperLogLog.mix(0x1B873593L);
+    private static final long FALSE_HASH = HyperLogLog.mix(0xCC9E2D51L);
+
+    private final HyperLogLog distinct;
+    private long values;
+    private long booleans;
+    private long numbers;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long dates;
+    private long minDate = Long.MAX_VALUE;
+    private long maxDate = Long.MIN_VALUE;
+    private long texts;
+    private int minLength = Integer.MAX_VALUE;
+    private int maxLength = -1;
+    private final long[] lengthHistogram = new long[32];
+
+    ColumnStatsTracker(final int precision) {
+        this.distinct = new HyperLogLog(precision);
+    }
+
+    /**
+     * Accumulates a cell value.
+     *
+     * @param value the cell value
+     */
+    void accept(final Object value) {
+        if (ColumnValues.isNull(value)) {
+            return;
+        }
+        values++;
+        if (value instanceof Number) {
+            acceptNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            acceptBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            acceptDate(((Date) value).getTime());
+        } else if (value instanceof Calendar) {
+            acceptDate(((Calendar) value).getTimeInMillis());
+        } else {
+            acceptText(value.toString().trim());
+        }
+    }
+
+    private void acceptNumber(final double number) {
+        numbers++;
+        min = Math.min(min, number);
+        max = Math.max(max, number);
+        // -0.0 and 0.0 are the same value.
+        distinct.add(HyperLogLog.mix(Double.doubleToLongBits(0 == number ? 0 : number)));
+    }
+
+    private void acceptBoolean(final boolean bool) {
+        booleans++;
+        distinct.add(bool ? TRUE_HASH : FALSE_HASH);
+    }
+
+    private void acceptDate(final long millis) {
+        dates++;
+        minDate = Math.min(minDate, millis);
+        maxDate = Math.max(maxDate, millis);
+        distinct.add(HyperLogLog.mix(millis ^ DATE_SALT));
+    }
+
+    private void acceptText(final String text) {
+        if (ColumnValues.isBoolean(text)) {
+            acceptBoolean(Boolean.parseBoolean(text));
+            return;
+        }
+        final Number number = NumberParser.parseNumber(text);
+        if (null != number) {
+            acceptNumber(number.doubleValue());
+            return;
+        }
+        final int length = text.length();
+        texts++;
+        minLength = Math.min(minLength, length);
+        maxLength = Math.max(maxLength, length);
+        lengthHistogram[32 - Integer.numberOfLeadingZeros(length)]++;
+        distinct.add(HyperLogLog.hash(text));
+    }
+
+    /**
+     * Builds the statistics of the column.
+     *
+     * @param column the column index
+     * @param name   the header name or null
+     * @param rows   the number of rows
+     * @return the statistics
+     */
+    ColumnStats toStats(final int column, final String name, final long rows) {
+        final boolean hasNumber = 0 < numbers;
+        final boolean hasText = 0 < texts;
+        return new ColumnStats(column, name, rows, rows - values, Math.min(values, distinct.estimate()),
+                booleans, numbers, hasNumber ? min : Double.NaN, hasNumber ? max : Double.NaN,
+                dates, minDate, maxDate,
+                texts, hasText ? minLength : -1, hasText ? maxLength : -1, lengthHistogram.clone());
+    }
+}
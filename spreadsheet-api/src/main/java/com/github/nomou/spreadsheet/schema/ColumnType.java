@@ -0,0 +1,34 @@
+package com.github.nomou.spreadsheet.schema;
+
+/**
+ * Inferred column value type.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public enum ColumnType {
+    /**
+     * Integral numbers, bound as {@link Long}.
+     */
+    INTEGER,
+
+    /**
+     * Decimal numbers, bound as {@link Double}.
+     */
+    DECIMAL,
+
+    /**
+     * Dates, bound as {@link java.util.Date}.
+     */
+    DATE,
+
+    /**
+     * Booleans, bound as {@link Boolean}.
+     */
+    BOOLEAN,
+
+    /**
+     * Anything else, bound as {@link String}.
+     */
+    STRING
+}
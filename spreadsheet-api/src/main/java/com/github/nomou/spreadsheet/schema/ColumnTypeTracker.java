@@ -0,0 +1,118 @@
+package com.github.nomou.spreadsheet.schema;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Accumulates the sampled values of a column and resolves its {@link ColumnSchema}.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+class ColumnTypeTracker {
+    private static final int ALL_DATE_PATTERNS = (1 << ColumnValues.DATE_PATTERNS.length) - 1;
+
+    private long samples;
+    private long nulls;
+    private long booleans;
+    private long integers;
+    private long decimals;
+    private long dates;
+    private long textDates;
+    private long strings;
+
+    /**
+     * The date patterns matching all text dates seen so far, bit i is {@link ColumnValues#DATE_PATTERNS}[i].
+     */
+    private int datePatterns = ALL_DATE_PATTERNS;
+
+    /**
+     * Accumulates a sampled cell value.
+     *
+     * @param value the cell value
+     */
+    void accept(final Object value) {
+        samples++;
+        if (ColumnValues.isNull(value)) {
+            nulls++;
+        } else if (value instanceof Boolean) {
+            booleans++;
+        } else if (value instanceof Date || value instanceof Calendar) {
+            dates++;
+        } else if (value instanceof Number) {
+            if (ColumnValues.isIntegral((Number) value)) {
+                integers++;
+            } else {
+                decimals++;
+            }
+        } else {
+            acceptText(value.toString().trim());
+        }
+    }
+
+    /**
+     * Accumulates the given number of missing cells (cells absent from short rows).
+     *
+     * @param count the number of missing cells
+     */
+    void acceptMissing(final long count) {
+        samples += count;
+        nulls += count;
+    }
+
+    private void acceptText(final String text) {
+        if (ColumnValues.isBoolean(text)) {
+            booleans++;
+        } else if (ColumnValues.isInteger(text)) {
+            integers++;
+        } else if (ColumnValues.isDecimal(text)) {
+            decimals++;
+        } else if (0 != datePatterns && ColumnValues.maybeDate(text)) {
+            int matched = 0;
+            for (int i = 0; i < ColumnValues.DATE_PATTERNS.length; i++) {
+                final int bit = 1 << i;
+                if (0 != (datePatterns & bit) && null != ColumnValues.parseDate(text, ColumnValues.DATE_PATTERNS[i])) {
+                    matched |= bit;
+                }
+            }
+            if (0 != matched) {
+                datePatterns = matched;
+                textDates++;
+            } else {
+                strings++;
+            }
+        } else {
+            strings++;
+        }
+    }
+
+    /**
+     * Resolves the column schema from the accumulated values.
+     *
+     * @param index the column index
+     * @param name  the column name
+     * @return the column schema
+     */
+    ColumnSchema resolve(final int index, final String name) {
+        final long values = samples - nulls;
+        final boolean nullable = 0 < nulls;
+
+        ColumnType type = ColumnType.STRING;
+        String dateFormat = null;
+        if (0 == values || 0 < strings) {
+            type = ColumnType.STRING;
+        } else if (booleans == values) {
+            type = ColumnType.BOOLEAN;
+        } else if (integers == values) {
+            type = ColumnType.INTEGER;
+        } else if (integers + decimals == values) {
+            type = ColumnType.DECIMAL;
+        } else if (dates + textDates == values && (0 == textDates || 0 != datePatterns)) {
+            type = ColumnType.DATE;
+            if (0 < textDates) {
+                dateFormat = ColumnValues.DATE_PATTERNS[Integer.numberOfTrailingZeros(datePatterns)];
+            }
+        }
+        return new ColumnSchema(index, name, type, nullable, dateFormat, samples, nulls);
+    }
+}
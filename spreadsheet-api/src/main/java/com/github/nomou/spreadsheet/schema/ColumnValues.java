@@ -0,0 +1,159 @@
+package com.github.nomou.spreadsheet.schema;
+
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cell value classification and conversion helpers.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class ColumnValues {
+    /**
+     * The text date patterns tried during inference, in order of preference.
+     */
+    static final String[] DATE_PATTERNS = {
+            "yyyy-MM-dd",
+            "yyyy/MM/dd",
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyy/MM/dd HH:mm:ss",
+            "yyyy-MM-dd HH:mm",
+            "yyyy/MM/dd HH:mm",
+            "yyyy-MM-dd'T'HH:mm:ss",
+            "yyyy-MM-dd HH:mm:ss.SSS",
+            "dd/MM/yyyy",
+            "MM/dd/yyyy",
+            "dd.MM.yyyy",
+            "dd-MM-yyyy"
+    };
+
+    /**
+     * Max absolute value of a double that is exactly representable as an integer.
+     */
+    private static final double MAX_EXACT_INTEGER = 9007199254740992D;
+
+    private static final ThreadLocal<Map<String, DateFormat>> DATE_FORMATS = new ThreadLocal<Map<String, DateFormat>>() {
+        @Override
+        protected Map<String, DateFormat> initialValue() {
+            return new HashMap<String, DateFormat>();
+        }
+    };
+
+    private ColumnValues() {
+    }
+
+    static boolean isNull(final Object value) {
+        return null == value || (value instanceof String && ((String) value).trim().isEmpty());
+    }
+
+    static boolean isBoolean(final String text) {
+        return "true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text);
+    }
+
+    /**
+     * Returns true if the given number holds an integral value.
+     */
+    static boolean isIntegral(final Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return true;
+        }
+        final double d = number.doubleValue();
+        return !Double.isInfinite(d) && !Double.isNaN(d) && d == Math.rint(d) && Math.abs(d) <= MAX_EXACT_INTEGER;
+    }
+
+    /**
+     * Returns true if the text is an optionally signed decimal integer that fits in a long.
+     */
+    static boolean isInteger(final String text) {
+        final int len = text.length();
+        int i = 0 < len && ('-' == text.charAt(0) || '+' == text.charAt(0)) ? 1 : 0;
+        if (i >= len || 18 < len - i) {
+            return false;
+        }
+        for (; i < len; i++) {
+            final char c = text.charAt(i);
+            if ('0' > c || '9' < c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the text is a plain or scientific decimal number (eg: -1.5, .5, 1e10).
+     */
+    static boolean isDecimal(final String text) {
+        final int len = text.length();
+        int i = 0 < len && ('-' == text.charAt(0) || '+' == text.charAt(0)) ? 1 : 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; i < len; i++) {
+            final char c = text.charAt(i);
+            if ('0' <= c && '9' >= c) {
+                digits++;
+            } else if ('.' == c && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (0 == digits) {
+            return false;
+        }
+        if (i < len && ('e' == text.charAt(i) || 'E' == text.charAt(i))) {
+            i++;
+            if (i < len && ('-' == text.charAt(i) || '+' == text.charAt(i))) {
+                i++;
+            }
+            final int start = i;
+            while (i < len && '0' <= text.charAt(i) && '9' >= text.charAt(i)) {
+                i++;
+            }
+            if (start == i) {
+                return false;
+            }
+        }
+        return i == len;
+    }
+
+    /**
+     * Returns true if the text may be a date (cheap pre-check before the date formats are tried).
+     */
+    static boolean maybeDate(final String text) {
+        final int len = text.length();
+        return 8 <= len && 23 >= len && Character.isDigit(text.charAt(0)) && Character.isDigit(text.charAt(len - 1));
+    }
+
+    /**
+     * Strictly parses the given text with the given pattern.
+     *
+     * @return the date or null if the text does not match the pattern
+     */
+    static Date parseDate(final String text, final String pattern) {
+        final Map<String, DateFormat> formats = DATE_FORMATS.get();
+        DateFormat format = formats.get(pattern);
+        if (null == format) {
+            format = new SimpleDateFormat(pattern);
+            format.setLenient(false);
+            formats.put(pattern, format);
+        }
+        final ParsePosition pos = new ParsePosition(0);
+        final Date date = format.parse(text, pos);
+        return null != date && pos.getIndex() == text.length() ? date : null;
+    }
+
+    /**
+     * Formats a number the way a user expects to see it in a text column (no trailing '.0').
+     */
+    static String toText(final Object value) {
+        if (value instanceof Number && isIntegral((Number) value)) {
+            return Long.toString(((Number) value).longValue());
+        }
+        return String.valueOf(value);
+    }
+}
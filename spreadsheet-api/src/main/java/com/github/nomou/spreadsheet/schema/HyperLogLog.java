@@ -0,0 +1,74 @@
+package com.github.nomou.spreadsheet.schema;
+
+/**
+ * HyperLogLog distinct count sketch of 64-bit hashes (2^precision one-byte registers).
+ *
+ * @author vacoor
+ * @see <a href="http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf">HyperLogLog</a>
+ * @since 1.1
+ */
+final class HyperLogLog {
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog(final int precision) {
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds a well-mixed 64-bit hash.
+     *
+     * @param hash the hash
+     */
+    void add(final long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        // the rank of the first 1-bit of the remaining bits, bounded by the sentinel bit.
+        final byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Estimates the number of distinct hashes, linear counting is used for the small cardinalities.
+     *
+     * @return the estimate
+     */
+    long estimate() {
+        final double m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (final byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (0 == register) {
+                zeros++;
+            }
+        }
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (2.5 * m >= estimate && 0 < zeros) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3.
+     */
+    static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    static long hash(final CharSequence text) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return mix(h ^ text.length());
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.nomou.spreadsheet.schema;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sampling-based worksheet schema inference.
+ *
+ * <p>The first {@link #setHeadRows(int) head rows} are always sampled, then:</p>
+ * <ul>
+ * <li>{@link Sampling#RESERVOIR}: a uniform reservoir sample of the remaining rows (suited for csv, the whole
+ * stream is scanned up to {@link #setMaxScanRows(long) max scan rows})</li>
+ * <li>{@link Sampling#STRIDE}: every n-th remaining row, the scan stops as soon as the sample is full
+ * (suited for xlsx/xls where rows are usually homogeneous)</li>
+ * </ul>
+ * <p>Only the first worksheet reached by the parser is sampled, the parser is not closed.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class SchemaInferrer {
+    /**
+     * Row sampling strategy.
+     */
+    public enum Sampling {
+        RESERVOIR, STRIDE
+    }
+
+    private boolean header;
+    private int headRows = 100;
+    private int sampleSize = 1000;
+    private int stride = 10;
+    private long maxScanRows = Long.MAX_VALUE;
+    private long seed = 0x5DEECE66DL;
+    private Sampling sampling = Sampling.RESERVOIR;
+
+    /**
+     * Sets whether the first non-empty row is a header row.
+     *
+     * @param header true if the first row is a header
+     * @return this inferrer
+     */
+    public SchemaInferrer setHeader(final boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Sets the number of leading data rows that are always sampled.
+     *
+     * @param headRows the number of rows
+     * @return this inferrer
+     */
+    public SchemaInferrer setHeadRows(final int headRows) {
+        this.headRows = Math.max(0, headRows);
+        return this;
+    }
+
+    /**
+     * Sets the number of rows sampled after the head rows.
+     *
+     * @param sampleSize the number of rows
+     * @return this inferrer
+     */
+    public SchemaInferrer setSampleSize(final int sampleSize) {
+        this.sampleSize = Math.max(0, sampleSize);
+        return this;
+    }
+
+    /**
+     * Sets the row stride of {@link Sampling#STRIDE}.
+     *
+     * @param stride the stride
+     * @return this inferrer
+     */
+    public SchemaInferrer setStride(final int stride) {
+        if (1 > stride) {
+            throw new IllegalArgumentException("stride must be positive: " + stride);
+        }
+        this.stride = stride;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of data rows scanned.
+     *
+     * @param maxScanRows the number of rows
+     * @return this inferrer
+     */
+    public SchemaInferrer setMaxScanRows(final long maxScanRows) {
+        this.maxScanRows = 0 < maxScanRows ? maxScanRows : Long.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * Sets the random seed of {@link Sampling#RESERVOIR}, the same seed gives the same sample.
+     *
+     * @param seed the seed
+     * @return this inferrer
+     */
+    public SchemaInferrer setSeed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the sampling strategy of the rows after the head rows, defaults to {@link Sampling#RESERVOIR}.
+     *
+     * @param sampling the sampling strategy, null for the default
+     * @return this inferrer
+     */
+    public SchemaInferrer setSampling(final Sampling sampling) {
+        this.sampling = null != sampling ? sampling : Sampling.RESERVOIR;
+        return this;
+    }
+
+    /**
+     * Infers the schema of the first worksheet reached by the parser.
+     *
+     * @param parser the parser
+     * @return the schema
+     * @throws SpreadsheetException if a parsing error occurs
+     */
+    public SpreadsheetSchema infer(final SpreadsheetParser parser) throws SpreadsheetException {
+        final Random random = new Random(seed);
+        final List<ColumnTypeTracker> trackers = new ArrayList<ColumnTypeTracker>();
+        final Object[][] reservoir = Sampling.RESERVOIR == sampling ? new Object[sampleSize][] : null;
+        final List<Object> values = new ArrayList<Object>();
+        final long[] accepted = new long[1];
+
+        String[] names = null;
+        boolean inWorksheet = SpreadsheetParser.START_WORKSHEET == parser.getEventType()
+                || SpreadsheetParser.END_RECORD == parser.getEventType();
+        long scanned = 0;
+        long strided = 0;
+        long reservoirSeen = 0;
+        while (parser.hasNext() && scanned < maxScanRows) {
+            final int event = parser.next();
+            if (SpreadsheetParser.START_WORKSHEET == event) {
+                inWorksheet = true;
+            } else if (SpreadsheetParser.END_WORKSHEET == event) {
+                if (inWorksheet) {
+                    break;
+                }
+            } else if (SpreadsheetParser.END_CELL == event) {
+                final Object value = parser.getValue();
+                if (!ColumnValues.isNull(value)) {
+                    final int col = parser.getCol();
+                    while (values.size() < col) {
+                        values.add(null);
+                    }
+                    values.add(value);
+                }
+            } else if (SpreadsheetParser.END_RECORD == event) {
+                if (values.isEmpty()) {
+                    continue;
+                }
+                final Object[] row = values.toArray();
+                values.clear();
+
+                if (header && null == names) {
+                    names = new String[row.length];
+                    for (int i = 0; i < row.length; i++) {
+                        names[i] = null != row[i] ? ColumnValues.toText(row[i]).trim() : null;
+                    }
+                    continue;
+                }
+
+                final long n = scanned++;
+                if (n < headRows) {
+                    sample(trackers, row, accepted);
+                } else if (Sampling.STRIDE == sampling) {
+                    if (0 == (n - headRows) % stride) {
+                        sample(trackers, row, accepted);
+                        if (++strided >= sampleSize) {
+                            break;
+                        }
+                    }
+                } else if (0 < sampleSize) {
+                    final long seen = reservoirSeen++;
+                    if (seen < sampleSize) {
+                        reservoir[(int) seen] = row;
+                    } else {
+                        final long j = (long) (random.nextDouble() * (seen + 1));
+                        if (j < sampleSize) {
+                            reservoir[(int) j] = row;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (null != reservoir) {
+            for (int i = 0; i < reservoir.length && i < reservoirSeen; i++) {
+                sample(trackers, reservoir[i], accepted);
+            }
+        }
+
+        final int columnCount = Math.max(trackers.size(), null != names ? names.length : 0);
+        final ColumnSchema[] columns = new ColumnSchema[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            final ColumnTypeTracker tracker = i < trackers.size() ? trackers.get(i) : new ColumnTypeTracker();
+            if (i >= trackers.size()) {
+                tracker.acceptMissing(accepted[0]);
+            }
+            final String name = null != names && i < names.length && null != names[i] && !names[i].isEmpty() ? names[i] : columnName(i);
+            columns[i] = tracker.resolve(i, name);
+        }
+        return new SpreadsheetSchema(columns, header, accepted[0]);
+    }
+
+    private void sample(final List<ColumnTypeTracker> trackers, final Object[] row, final long[] accepted) {
+        while (trackers.size() < row.length) {
+            final ColumnTypeTracker tracker = new ColumnTypeTracker();
+            // the column was missing in all previous rows.
+            tracker.acceptMissing(accepted[0]);
+            trackers.add(tracker);
+        }
+        for (int i = 0; i < trackers.size(); i++) {
+            if (i < row.length) {
+                trackers.get(i).accept(row[i]);
+            } else {
+                trackers.get(i).acceptMissing(1);
+            }
+        }
+        accepted[0]++;
+    }
+
+    /**
+     * Converts a zero-based column index to the Excel column name (0 = A, 26 = AA).
+     *
+     * @param index the column index
+     * @return the column name
+     */
+    static String columnName(final int index) {
+        final StringBuilder buff = new StringBuilder(4);
+        for (int i = index + 1; 0 < i; i = (i - 1) / 26) {
+            buff.append((char) ('A' + (i - 1) % 26));
+        }
+        return buff.reverse().toString();
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.nomou.spreadsheet.schema;
+
+import com.github.nomou.spreadsheet.IllegalFormatException;
+import com.github.nomou.spreadsheet.util.NumberParser;
+import com.github.nomou.spreadsheet.util.SpreadsheetRecord;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Inferred worksheet schema.
+ *
+ * <p>A schema is immutable and may be shared by threads, it converts the raw cell values of a record
+ * to the inferred column types so that the full parse never has to guess:</p>
+ * <pre>
+ * final SpreadsheetSchema schema = new SchemaInferrer().setHeader(true).infer(sampleParser);
+ * ...
+ * final SpreadsheetRecord record = schema.bind(parser.nextRecord(true));
+ * final Date created = record.getDate(schema.indexOf("created"));
+ * </pre>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class SpreadsheetSchema {
+    private final ColumnSchema[] columns;
+    private final boolean header;
+    private final long sampledRows;
+
+    SpreadsheetSchema(final ColumnSchema[] columns, final boolean header, final long sampledRows) {
+        this.columns = columns;
+        this.header = header;
+        this.sampledRows = sampledRows;
+    }
+
+    /**
+     * Gets the columns schema.
+     *
+     * @return the columns
+     */
+    public List<ColumnSchema> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Gets the column schema of the given index.
+     *
+     * @param index the column index
+     * @return the column schema
+     */
+    public ColumnSchema getColumn(final int index) {
+        return columns[index];
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Returns true if the first row was a header row.
+     *
+     * @return true if the worksheet has a header
+     */
+    public boolean hasHeader() {
+        return header;
+    }
+
+    /**
+     * Gets the number of sampled data rows (excluding the header).
+     *
+     * @return the number of sampled rows
+     */
+    public long getSampledRows() {
+        return sampledRows;
+    }
+
+    /**
+     * Gets the index of the column with the given name.
+     *
+     * @param name the column name
+     * @return the column index or -1 if not found
+     */
+    public int indexOf(final String name) {
+        for (final ColumnSchema column : columns) {
+            if (column.getName().equals(name)) {
+                return column.getIndex();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Converts the raw cell values of a record to the column types.
+     *
+     * @param values the raw cell values
+     * @return the typed values or null if the values is null
+     * @throws IllegalFormatException if a value does not match its column type
+     */
+    public Object[] convert(final Object[] values) throws IllegalFormatException {
+        if (null == values) {
+            return null;
+        }
+        final Object[] typed = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            typed[i] = i < columns.length ? convert(columns[i], values[i]) : values[i];
+        }
+        return typed;
+    }
+
+    /**
+     * Converts the raw cell values of a record and wraps them for typed access.
+     *
+     * @param values the raw cell values
+     * @return the typed record
+     * @throws IllegalFormatException if a value does not match its column type
+     */
+    public SpreadsheetRecord bind(final Object[] values) throws IllegalFormatException {
+        return SpreadsheetRecord.wrap(convert(values));
+    }
+
+    /**
+     * Converts a raw cell value to the type of the given column.
+     *
+     * @param column the column schema
+     * @param value  the raw value
+     * @return the typed value
+     * @throws IllegalFormatException if the value does not match the column type
+     */
+    public static Object convert(final ColumnSchema column, final Object value) throws IllegalFormatException {
+        if (ColumnValues.isNull(value)) {
+            return null;
+        }
+        final ColumnType type = column.getType();
+        final String text = value instanceof String ? ((String) value).trim() : null;
+        if (ColumnType.STRING == type) {
+            return ColumnValues.toText(value);
+        } else if (ColumnType.INTEGER == type) {
+            if (value instanceof Number && ColumnValues.isIntegral((Number) value)) {
+                return ((Number) value).longValue();
+            }
+            if (null != text && ColumnValues.isInteger(text)) {
+                return NumberParser.parseLong(text);
+            }
+        } else if (ColumnType.DECIMAL == type) {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            if (null != text && ColumnValues.isDecimal(text)) {
+                return NumberParser.parseDouble(text);
+            }
+        } else if (ColumnType.BOOLEAN == type) {
+            if (value instanceof Boolean) {
+                return value;
+            }
+            if (null != text && ColumnValues.isBoolean(text)) {
+                return Boolean.valueOf(text);
+            }
+        } else if (ColumnType.DATE == type) {
+            if (value instanceof Date) {
+                return value;
+            }
+            if (value instanceof Calendar) {
+                return ((Calendar) value).getTime();
+            }
+            final Date date = null != text && null != column.getDateFormat() ? ColumnValues.parseDate(text, column.getDateFormat()) : null;
+            if (null != date) {
+                return date;
+            }
+        }
+        throw new IllegalFormatException("column '" + column.getName() + "' value '" + value + "' is not a " + type);
+    }
+
+    @Override
+    public String toString() {
+        return "SpreadsheetSchema " + Arrays.toString(columns);
+    }
+}
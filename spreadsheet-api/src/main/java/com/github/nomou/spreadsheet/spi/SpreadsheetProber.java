@@ -0,0 +1,28 @@
+package com.github.nomou.spreadsheet.spi;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+
+import java.io.File;
+
+/**
+ * Fast metadata probe, optionally implemented by a {@link SpreadsheetParserFactory}.
+ *
+ * <p>A probe reads only the structural parts of the file (workbook part, worksheet headers, record counts
+ * samples), its cost does not depend on the size of the file.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public interface SpreadsheetProber {
+
+    /**
+     * Probes the metadata of the given file.
+     *
+     * @param file the file
+     * @return the metadata or null if the file cannot be probed quickly (the caller then scans it)
+     * @throws SpreadsheetException if the file is not of a supported format
+     */
+    SpreadsheetMetadata probe(final File file) throws SpreadsheetException;
+
+}
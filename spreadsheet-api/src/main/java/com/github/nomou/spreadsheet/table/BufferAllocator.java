@@ -0,0 +1,100 @@
+package com.github.nomou.spreadsheet.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Allocator of the off-heap buffers of a table: direct buffers, or regions memory-mapped from a temp file
+ * (paged by the operating system, not bounded by the direct memory limit of the JVM).
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class BufferAllocator {
+    private final File directory;
+    private final boolean mapped;
+    private RandomAccessFile file;
+    private File path;
+    private long fileLength;
+    private long allocated;
+
+    /**
+     * Creates an allocator.
+     *
+     * @param mapped    true to map the buffers from a temp file
+     * @param directory the directory of the temp file or null for the system temp directory
+     */
+    BufferAllocator(final boolean mapped, final File directory) {
+        this.mapped = mapped;
+        this.directory = directory;
+    }
+
+    /**
+     * Allocates a zeroed buffer in the native byte order.
+     *
+     * @param bytes the buffer size
+     * @return the buffer
+     * @throws IOException if the temp file cannot grow
+     */
+    ByteBuffer allocate(final int bytes) throws IOException {
+        final ByteBuffer buffer;
+        if (!mapped) {
+            buffer = ByteBuffer.allocateDirect(bytes);
+        } else {
+            if (null == file) {
+                path = File.createTempFile("spreadsheet-table-", ".bin", directory);
+                file = new RandomAccessFile(path, "rw");
+            }
+            final long pos = fileLength;
+            fileLength += bytes;
+            file.setLength(fileLength);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, pos, bytes);
+        }
+        allocated += bytes;
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Releases a buffer (the memory is freed by the garbage collector, the space of the temp file is not reused).
+     *
+     * @param buffer the buffer
+     */
+    void free(final ByteBuffer buffer) {
+        allocated -= buffer.capacity();
+    }
+
+    /**
+     * Gets the number of bytes of the live buffers.
+     *
+     * @return the number of bytes
+     */
+    long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Closes and deletes the temp file.
+     */
+    void close() {
+        final RandomAccessFile file = this.file;
+        final File path = this.path;
+        this.file = null;
+        this.path = null;
+        this.allocated = 0;
+        if (null != file) {
+            try {
+                file.close();
+            } catch (final IOException ignore) {
+                // ignore.
+            }
+        }
+        // the mapping is released by the garbage collector, the file may not be deletable before (Windows).
+        if (null != path && !path.delete()) {
+            path.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.github.nomou.spreadsheet.table;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.schema.ColumnType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Off-heap, column-oriented, random access table of the records of a worksheet.
+ *
+ * <pre>
+ * final SheetTable table = SheetTable.load(parser);
+ * for (int row = 0; row &lt; table.getRowCount(); row++) {
+ *     if (!table.isNull(row, 2) &amp;&amp; 0 &gt; table.getDouble(row, 2)) {
+ *         System.out.println("negative amount at row " + table.getSourceRow(row));
+ *     }
+ * }
+ * table.close();
+ * </pre>
+ *
+ * <p>The cells are stored per column in segments of 16K rows outside of the heap (direct buffers, or memory-mapped
+ * from a temp file if a directory is given): each segment has a null bitmap and fixed-width slots of the type of its
+ * values (8 bytes for numbers and dates, 4 bytes for strings, 1 byte for booleans). The strings are encoded by a
+ * dictionary shared by the columns, its bytes and hash table are off-heap too. The heap holds a few objects per
+ * segment whatever the size of the worksheet.</p>
+ *
+ * <p>The rows are the records of the worksheet in parsing order (0-based), {@link #getSourceRow(int)} gives their row
+ * in the worksheet. Values are stored as {@link Double} (decimal numbers, floats), {@link Long} (integral types),
+ * {@link Date}, {@link Boolean} or {@link String} (anything else, by its string representation). The table is
+ * immutable once loaded and can be read by concurrent threads.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class SheetTable implements Closeable {
+    private final BufferAllocator allocator;
+    private final StringDictionary dictionary;
+    private final List<TableColumn> columns = new ArrayList<TableColumn>();
+    private ByteBuffer[] sourceRows = new ByteBuffer[16];
+    private String worksheetName;
+    private int rowCount;
+    private boolean closed;
+
+    private SheetTable(final BufferAllocator allocator) throws IOException {
+        this.allocator = allocator;
+        this.dictionary = new StringDictionary(allocator);
+    }
+
+    /**
+     * Loads the first worksheet reached by the parser into direct buffers.
+     *
+     * @param parser the parser
+     * @return the table
+     * @throws SpreadsheetException if a parsing error occurs
+     */
+    public static SheetTable load(final SpreadsheetParser parser) throws SpreadsheetException {
+        return load(parser, -1, false, null);
+    }
+
+    /**
+     * Loads a worksheet.
+     *
+     * @param parser         the parser, the parsing stops after the worksheet (the parser is not closed)
+     * @param worksheetIndex the worksheet index, -1 for the first worksheet reached
+     * @param mapped         true to store the table in a memory-mapped temp file instead of direct buffers
+     *                       (not bounded by -XX:MaxDirectMemorySize)
+     * @param directory      the directory of the temp file or null for the system temp directory
+     * @return the table
+     * @throws SpreadsheetException if a parsing error occurs or the table cannot be allocated
+     */
+    public static SheetTable load(final SpreadsheetParser parser, final int worksheetIndex, final boolean mapped, final File directory) throws SpreadsheetException {
+        final BufferAllocator allocator = new BufferAllocator(mapped, directory);
+        try {
+            final SheetTable table = new SheetTable(allocator);
+            table.read(parser, worksheetIndex);
+            return table;
+        } catch (final IOException ex) {
+            allocator.close();
+            throw new SpreadsheetException(ex);
+        } catch (final RuntimeException ex) {
+            allocator.close();
+            throw ex;
+        } catch (final Error ex) {
+            allocator.close();
+            throw ex;
+        }
+    }
+
+    private void read(final SpreadsheetParser parser, final int worksheetIndex) throws IOException {
+        boolean loading = false;
+        while (parser.hasNext()) {
+            final int event = parser.next();
+            if (SpreadsheetParser.START_WORKSHEET == event) {
+                loading = 0 > worksheetIndex || worksheetIndex == parser.getWorksheetIndex();
+                if (loading) {
+                    this.worksheetName = parser.getWorksheetName();
+                }
+            } else if (!loading) {
+                continue;
+            } else if (SpreadsheetParser.START_RECORD == event) {
+                setSourceRow(rowCount, parser.getRow());
+            } else if (SpreadsheetParser.END_CELL == event) {
+                set(rowCount, parser.getCol(), parser.getValue());
+            } else if (SpreadsheetParser.END_RECORD == event) {
+                // record events mode: the cells are in the record buffer of the parser.
+                final int width = parser.getRecordWidth();
+                for (int col = 0; col < width; col++) {
+                    set(rowCount, col, parser.getRecordValue(col));
+                }
+                rowCount++;
+            } else if (SpreadsheetParser.END_WORKSHEET == event) {
+                return;
+            }
+        }
+    }
+
+    private void set(final int row, final int col, final Object value) throws IOException {
+        if (null == value) {
+            return;
+        }
+        while (columns.size() <= col) {
+            columns.add(new TableColumn());
+        }
+        final TableColumn column = columns.get(col);
+        if (value instanceof Double || value instanceof Float) {
+            column.set(row, TableColumn.DOUBLE, Double.doubleToRawLongBits(((Number) value).doubleValue()), allocator);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            column.set(row, TableColumn.LONG, ((Number) value).longValue(), allocator);
+        } else if (value instanceof Date) {
+            column.set(row, TableColumn.DATE, ((Date) value).getTime(), allocator);
+        } else if (value instanceof Boolean) {
+            column.set(row, TableColumn.BOOLEAN, (Boolean) value ? 1 : 0, allocator);
+        } else {
+            column.set(row, TableColumn.STRING, dictionary.add(value.toString()), allocator);
+        }
+    }
+
+    private void setSourceRow(final int row, final int sourceRow) throws IOException {
+        final int index = row >>> TableColumn.SEGMENT_SHIFT;
+        if (index >= sourceRows.length) {
+            sourceRows = Arrays.copyOf(sourceRows, sourceRows.length << 1);
+        }
+        if (null == sourceRows[index]) {
+            sourceRows[index] = allocator.allocate(TableColumn.SEGMENT_ROWS << 2);
+        }
+        sourceRows[index].putInt((row & TableColumn.SEGMENT_MASK) << 2, sourceRow);
+    }
+
+    /**
+     * Gets the name of the loaded worksheet.
+     *
+     * @return the worksheet name or null if no worksheet was reached
+     */
+    public String getWorksheetName() {
+        return worksheetName;
+    }
+
+    /**
+     * Gets the number of rows (records).
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of columns (the last column holding a value + 1).
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Gets the row in the worksheet of a table row.
+     *
+     * @param row the table row
+     * @return the worksheet row
+     */
+    public int getSourceRow(final int row) {
+        checkRow(row);
+        return sourceRows[row >>> TableColumn.SEGMENT_SHIFT].getInt((row & TableColumn.SEGMENT_MASK) << 2);
+    }
+
+    /**
+     * Gets the value of a cell.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the value (Double, Long, Date, Boolean or String) or null if the cell is empty
+     */
+    public Object get(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.NULL == type) {
+            return null;
+        }
+        final long bits = column.getBits(row);
+        if (TableColumn.DOUBLE == type) {
+            return Double.longBitsToDouble(bits);
+        } else if (TableColumn.LONG == type) {
+            return bits;
+        } else if (TableColumn.DATE == type) {
+            return new Date(bits);
+        } else if (TableColumn.BOOLEAN == type) {
+            return 0 != bits;
+        }
+        return dictionary.get((int) bits);
+    }
+
+    /**
+     * Returns true if a cell is empty.
+     *
+     * @param row the row
+     * @param col the column
+     * @return true if the cell is empty
+     */
+    public boolean isNull(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        return null == column || TableColumn.NULL == column.getType(row);
+    }
+
+    /**
+     * Gets the type of a cell.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the cell type (INTEGER for Long values, DECIMAL for Double values) or null if the cell is empty
+     */
+    public ColumnType getType(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.LONG == type) {
+            return ColumnType.INTEGER;
+        } else if (TableColumn.DOUBLE == type) {
+            return ColumnType.DECIMAL;
+        } else if (TableColumn.DATE == type) {
+            return ColumnType.DATE;
+        } else if (TableColumn.BOOLEAN == type) {
+            return ColumnType.BOOLEAN;
+        }
+        return TableColumn.STRING == type ? ColumnType.STRING : null;
+    }
+
+    /**
+     * Gets the numeric value of a cell.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the value, 0 if the cell is empty
+     * @throws IllegalStateException if the cell is not a number
+     */
+    public double getDouble(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.DOUBLE == type) {
+            return Double.longBitsToDouble(column.getBits(row));
+        } else if (TableColumn.LONG == type) {
+            return column.getBits(row);
+        } else if (TableColumn.NULL == type) {
+            return 0;
+        }
+        throw new IllegalStateException("cell (" + row + ", " + col + ") is not a number");
+    }
+
+    /**
+     * Gets the integral value of a cell, decimal numbers are truncated.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the value, 0 if the cell is empty
+     * @throws IllegalStateException if the cell is not a number
+     */
+    public long getLong(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.LONG == type) {
+            return column.getBits(row);
+        } else if (TableColumn.DOUBLE == type) {
+            return (long) Double.longBitsToDouble(column.getBits(row));
+        } else if (TableColumn.NULL == type) {
+            return 0;
+        }
+        throw new IllegalStateException("cell (" + row + ", " + col + ") is not a number");
+    }
+
+    /**
+     * Gets the boolean value of a cell.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the value, false if the cell is empty
+     * @throws IllegalStateException if the cell is not a boolean
+     */
+    public boolean getBoolean(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.BOOLEAN == type) {
+            return 0 != column.getBits(row);
+        } else if (TableColumn.NULL == type) {
+            return false;
+        }
+        throw new IllegalStateException("cell (" + row + ", " + col + ") is not a boolean");
+    }
+
+    /**
+     * Gets the date value of a cell.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the value or null if the cell is empty
+     * @throws IllegalStateException if the cell is not a date
+     */
+    public Date getDate(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.DATE == type) {
+            return new Date(column.getBits(row));
+        } else if (TableColumn.NULL == type) {
+            return null;
+        }
+        throw new IllegalStateException("cell (" + row + ", " + col + ") is not a date");
+    }
+
+    /**
+     * Gets the string value of a cell, the string representation of the value for other types.
+     *
+     * @param row the row
+     * @param col the column
+     * @return the value or null if the cell is empty
+     */
+    public String getString(final int row, final int col) {
+        final TableColumn column = column(row, col);
+        final byte type = null != column ? column.getType(row) : TableColumn.NULL;
+        if (TableColumn.STRING == type) {
+            return dictionary.get((int) column.getBits(row));
+        }
+        return TableColumn.NULL != type ? String.valueOf(get(row, col)) : null;
+    }
+
+    /**
+     * Gets the number of distinct strings of the dictionary.
+     *
+     * @return the number of distinct strings
+     */
+    public int getDistinctStrings() {
+        return dictionary.size();
+    }
+
+    /**
+     * Gets the number of off-heap bytes held by the table.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryUsage() {
+        return allocator.getAllocated();
+    }
+
+    /**
+     * Releases the table, the direct buffers or mappings are freed by the garbage collector.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.columns.clear();
+        this.sourceRows = null;
+        this.rowCount = 0;
+        allocator.close();
+    }
+
+    private TableColumn column(final int row, final int col) {
+        checkRow(row);
+        if (0 > col || col >= columns.size()) {
+            throw new IndexOutOfBoundsException("column: " + col + ", columns: " + columns.size());
+        }
+        return columns.get(col);
+    }
+
+    private void checkRow(final int row) {
+        if (closed) {
+            throw new IllegalStateException("table closed");
+        }
+        if (0 > row || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row: " + row + ", rows: " + rowCount);
+        }
+    }
+}
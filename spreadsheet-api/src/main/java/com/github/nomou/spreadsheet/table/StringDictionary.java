@@ -0,0 +1,159 @@
+package com.github.nomou.spreadsheet.table;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap string dictionary: each distinct string is stored once as UTF-8 bytes and identified by a dense code.
+ *
+ * <p>The bytes are appended to 1MB data buffers, the entries (address, length and hash of each code, 16 bytes)
+ * to entry buffers, and the codes are found by an open-addressing hash table of ints, all off-heap.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class StringDictionary {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int DATA_BYTES = 1 << 20;
+    private static final int ENTRY_SHIFT = 16;
+    private static final int ENTRY_MASK = (1 << ENTRY_SHIFT) - 1;
+    private static final int ENTRY_BYTES = 16;
+
+    private final BufferAllocator allocator;
+    private final List<ByteBuffer> data = new ArrayList<ByteBuffer>();
+    private final List<ByteBuffer> entries = new ArrayList<ByteBuffer>();
+    private int dataPosition = DATA_BYTES;
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    StringDictionary(final BufferAllocator allocator) throws IOException {
+        this.allocator = allocator;
+        allocateTable(1 << 10);
+    }
+
+    /**
+     * Gets the code of a string, adding the string if absent.
+     *
+     * @param value the string
+     * @return the code
+     * @throws IOException if the buffers cannot be allocated
+     */
+    int add(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        final int hash = hash(value);
+        int slot = hash & mask;
+        int stored;
+        while (0 != (stored = table.getInt(slot << 2))) {
+            final int code = stored - 1;
+            if (hash == entries.get(code >>> ENTRY_SHIFT).getInt(((code & ENTRY_MASK) * ENTRY_BYTES) + 12) && equals(code, bytes)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        final int code = size++;
+        final long address = append(bytes);
+        if (0 == (code & ENTRY_MASK)) {
+            entries.add(allocator.allocate((1 << ENTRY_SHIFT) * ENTRY_BYTES));
+        }
+        final ByteBuffer entry = entries.get(code >>> ENTRY_SHIFT);
+        final int offset = (code & ENTRY_MASK) * ENTRY_BYTES;
+        entry.putLong(offset, address);
+        entry.putInt(offset + 8, bytes.length);
+        entry.putInt(offset + 12, hash);
+        table.putInt(slot << 2, code + 1);
+        if (size > ((mask + 1) >> 2) * 3) {
+            allocateTable((mask + 1) << 1);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the string of a code.
+     *
+     * @param code the code
+     * @return the string
+     */
+    String get(final int code) {
+        final ByteBuffer entry = entries.get(code >>> ENTRY_SHIFT);
+        final int offset = (code & ENTRY_MASK) * ENTRY_BYTES;
+        final long address = entry.getLong(offset);
+        final byte[] bytes = new byte[entry.getInt(offset + 8)];
+        final ByteBuffer buffer = data.get((int) (address >>> 32)).duplicate();
+        buffer.position((int) address);
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Gets the number of distinct strings.
+     *
+     * @return the number of strings
+     */
+    int size() {
+        return size;
+    }
+
+    private boolean equals(final int code, final byte[] bytes) {
+        final ByteBuffer entry = entries.get(code >>> ENTRY_SHIFT);
+        final int offset = (code & ENTRY_MASK) * ENTRY_BYTES;
+        if (bytes.length != entry.getInt(offset + 8)) {
+            return false;
+        }
+        final long address = entry.getLong(offset);
+        final ByteBuffer buffer = data.get((int) (address >>> 32));
+        final int start = (int) address;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the bytes of a string to the data buffers, a string does not span buffers.
+     *
+     * @return the address: buffer index (high int), offset (low int)
+     */
+    private long append(final byte[] bytes) throws IOException {
+        if (dataPosition + bytes.length > DATA_BYTES || data.isEmpty()) {
+            data.add(allocator.allocate(Math.max(DATA_BYTES, bytes.length)));
+            dataPosition = 0;
+        }
+        final int index = data.size() - 1;
+        final ByteBuffer buffer = data.get(index).duplicate();
+        buffer.position(dataPosition);
+        buffer.put(bytes);
+        final long address = ((long) index << 32) | dataPosition;
+        // a string larger than a data buffer fills its own buffer.
+        dataPosition += bytes.length;
+        return address;
+    }
+
+    private void allocateTable(final int capacity) throws IOException {
+        final ByteBuffer old = this.table;
+        this.table = allocator.allocate(capacity << 2);
+        this.mask = capacity - 1;
+        if (null != old) {
+            for (int code = 0; code < size; code++) {
+                final int hash = entries.get(code >>> ENTRY_SHIFT).getInt(((code & ENTRY_MASK) * ENTRY_BYTES) + 12);
+                int slot = hash & mask;
+                while (0 != table.getInt(slot << 2)) {
+                    slot = (slot + 1) & mask;
+                }
+                table.putInt(slot << 2, code + 1);
+            }
+            allocator.free(old);
+        }
+    }
+
+    private static int hash(final String value) {
+        final int h = value.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
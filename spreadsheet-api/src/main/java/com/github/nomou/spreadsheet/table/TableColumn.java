@@ -0,0 +1,145 @@
+package com.github.nomou.spreadsheet.table;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Off-heap column of a table, stored in segments of {@link #SEGMENT_ROWS} rows.
+ *
+ * <p>A segment starts with a null bitmap (a set bit marks a value) followed by fixed-width slots of the type of its
+ * values: 8 bytes for numbers and dates, 4 bytes for dictionary codes, 1 byte for booleans. A segment holding
+ * several types is converted to tagged slots (1 byte tag + 8 bytes). A segment without values is not allocated.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class TableColumn {
+    static final int SEGMENT_SHIFT = 14;
+    static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+    static final int SEGMENT_MASK = SEGMENT_ROWS - 1;
+    private static final int BITMAP_BYTES = SEGMENT_ROWS >>> 3;
+
+    /* *************************
+     * Cell types (slot tags).
+     * *********************** */
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte DATE = 3;
+    static final byte BOOLEAN = 4;
+    static final byte STRING = 5;
+    private static final byte MIXED = 6;
+
+    private ByteBuffer[] segments = new ByteBuffer[16];
+    private byte[] types = new byte[16];
+
+    /**
+     * Sets the value of a row, the rows are set in ascending order.
+     *
+     * @param row       the row
+     * @param type      the cell type
+     * @param bits      the value bits (long value, double bits, date millis, dictionary code, 0/1)
+     * @param allocator the buffer allocator
+     * @throws IOException if the buffers cannot be allocated
+     */
+    void set(final int row, final byte type, final long bits, final BufferAllocator allocator) throws IOException {
+        final int index = row >>> SEGMENT_SHIFT;
+        if (index >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(index + 1, segments.length << 1));
+            types = Arrays.copyOf(types, segments.length);
+        }
+        ByteBuffer segment = segments[index];
+        final byte segmentType = types[index];
+        if (NULL == segmentType) {
+            segment = segments[index] = allocator.allocate(BITMAP_BYTES + (SEGMENT_ROWS * width(type)));
+            types[index] = type;
+        } else if (type != segmentType && MIXED != segmentType) {
+            segment = segments[index] = toMixed(segment, segmentType, allocator);
+            types[index] = MIXED;
+        }
+
+        final int i = row & SEGMENT_MASK;
+        segment.put(i >>> 3, (byte) (segment.get(i >>> 3) | (1 << (i & 7))));
+        write(segment, types[index], i, type, bits);
+    }
+
+    /**
+     * Gets the cell type of a row.
+     *
+     * @param row the row
+     * @return the cell type, {@link #NULL} if the cell is empty
+     */
+    byte getType(final int row) {
+        final int index = row >>> SEGMENT_SHIFT;
+        final byte segmentType = index < types.length ? types[index] : NULL;
+        if (NULL == segmentType) {
+            return NULL;
+        }
+        final ByteBuffer segment = segments[index];
+        final int i = row & SEGMENT_MASK;
+        if (0 == (segment.get(i >>> 3) & (1 << (i & 7)))) {
+            return NULL;
+        }
+        return MIXED != segmentType ? segmentType : segment.get(BITMAP_BYTES + i * 9);
+    }
+
+    /**
+     * Gets the value bits of a row (see {@link #set(int, byte, long, BufferAllocator)}), 0 if the cell is empty.
+     *
+     * @param row the row
+     * @return the value bits
+     */
+    long getBits(final int row) {
+        final int index = row >>> SEGMENT_SHIFT;
+        final byte segmentType = index < types.length ? types[index] : NULL;
+        return NULL != segmentType ? read(segments[index], segmentType, row & SEGMENT_MASK) : 0;
+    }
+
+    private static ByteBuffer toMixed(final ByteBuffer segment, final byte segmentType, final BufferAllocator allocator) throws IOException {
+        final ByteBuffer mixed = allocator.allocate(BITMAP_BYTES + SEGMENT_ROWS * 9);
+        for (int b = 0; b < BITMAP_BYTES; b++) {
+            final byte bitmap = segment.get(b);
+            mixed.put(b, bitmap);
+            for (int bit = 0; bit < 8 && 0 != bitmap; bit++) {
+                if (0 != (bitmap & (1 << bit))) {
+                    final int i = (b << 3) | bit;
+                    write(mixed, MIXED, i, segmentType, read(segment, segmentType, i));
+                }
+            }
+        }
+        allocator.free(segment);
+        return mixed;
+    }
+
+    private static void write(final ByteBuffer segment, final byte segmentType, final int i, final byte type, final long bits) {
+        if (LONG == segmentType || DOUBLE == segmentType || DATE == segmentType) {
+            segment.putLong(BITMAP_BYTES + (i << 3), bits);
+        } else if (STRING == segmentType) {
+            segment.putInt(BITMAP_BYTES + (i << 2), (int) bits);
+        } else if (BOOLEAN == segmentType) {
+            segment.put(BITMAP_BYTES + i, (byte) bits);
+        } else {
+            segment.put(BITMAP_BYTES + i * 9, type);
+            segment.putLong(BITMAP_BYTES + i * 9 + 1, bits);
+        }
+    }
+
+    private static long read(final ByteBuffer segment, final byte segmentType, final int i) {
+        if (LONG == segmentType || DOUBLE == segmentType || DATE == segmentType) {
+            return segment.getLong(BITMAP_BYTES + (i << 3));
+        } else if (STRING == segmentType) {
+            return segment.getInt(BITMAP_BYTES + (i << 2));
+        } else if (BOOLEAN == segmentType) {
+            return segment.get(BITMAP_BYTES + i);
+        }
+        return segment.getLong(BITMAP_BYTES + i * 9 + 1);
+    }
+
+    private static int width(final byte type) {
+        if (STRING == type) {
+            return 4;
+        }
+        return BOOLEAN == type ? 1 : 8;
+    }
+}
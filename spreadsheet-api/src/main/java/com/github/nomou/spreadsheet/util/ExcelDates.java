@@ -0,0 +1,118 @@
+package com.github.nomou.spreadsheet.util;
+
+import java.util.TimeZone;
+
+/**
+ * Excel serial date conversions, without Calendar (no allocation per value).
+ *
+ * <p>An Excel date is a number of days since the epoch of the workbook (1900 or 1904 date system), the fraction
+ * is the time of the day. The 1900 date system counts the non-existent 1900-02-29 (serial 60), the serials
+ * before it are shifted by one day, as Apache POI does. The results match
+ * {@code DateUtil.getJavaDate(serial, date1904, zone)} of Apache POI:</p>
+ * <pre>
+ * final Date date = new Date(ExcelDates.toMillis(43831.5, false, zone));   // 2020-01-01 12:00 in the zone
+ * // java 8+
+ * final LocalDate localDate = LocalDate.ofEpochDay(ExcelDates.toEpochDay(43831.5, false));
+ * final LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC)
+ *         .plus(ExcelDates.toUtcMillis(43831.5, false), ChronoUnit.MILLIS);
+ * </pre>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class ExcelDates {
+    /**
+     * The number of milliseconds of a day.
+     */
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * The epoch day of 1899-12-31, the day 0 of the 1900 date system.
+     */
+    private static final int EPOCH_DAY_1900 = -25568;
+
+    /**
+     * The epoch day of 1904-01-01, the day 0 of the 1904 date system.
+     */
+    private static final int EPOCH_DAY_1904 = -24107;
+
+    /**
+     * The first serial after the non-existent 1900-02-29.
+     */
+    private static final int MARCH_1_1900 = 61;
+
+    private ExcelDates() {
+    }
+
+    /**
+     * Returns true if the serial is a valid Excel date (not negative).
+     *
+     * @param serial the serial
+     * @return true if valid
+     */
+    public static boolean isValid(final double serial) {
+        return serial > -Double.MIN_VALUE;
+    }
+
+    /**
+     * Converts a serial to the number of days since 1970-01-01 (the time of the day is ignored).
+     *
+     * @param serial   the serial
+     * @param date1904 true for the 1904 date system
+     * @return the epoch day
+     */
+    public static int toEpochDay(final double serial, final boolean date1904) {
+        final long millis = toUtcMillis(serial, date1904);
+        final long day = millis / DAY_MILLIS;
+        return (int) (0 > millis && day * DAY_MILLIS != millis ? day - 1 : day);
+    }
+
+    /**
+     * Converts a serial to the milliseconds since 1970-01-01T00:00:00Z of its date and time read in UTC,
+     * the time of the day is rounded to the millisecond.
+     *
+     * @param serial   the serial
+     * @param date1904 true for the 1904 date system
+     * @return the milliseconds of the date and time in UTC
+     */
+    public static long toUtcMillis(final double serial, final boolean date1904) {
+        final int wholeDays = (int) Math.floor(serial);
+        final int millisOfDay = (int) ((serial - wholeDays) * DAY_MILLIS + 0.5);
+        final int epochDay;
+        if (date1904) {
+            epochDay = EPOCH_DAY_1904 + wholeDays;
+        } else {
+            epochDay = EPOCH_DAY_1900 + wholeDays - (MARCH_1_1900 > wholeDays ? 0 : 1);
+        }
+        return epochDay * DAY_MILLIS + millisOfDay;
+    }
+
+    /**
+     * Converts a serial to the milliseconds since 1970-01-01T00:00:00Z of its date and time in a time zone
+     * (the value of a {@link java.util.Date}).
+     *
+     * @param serial   the serial
+     * @param date1904 true for the 1904 date system
+     * @param zone     the time zone
+     * @return the milliseconds
+     */
+    public static long toMillis(final double serial, final boolean date1904, final TimeZone zone) {
+        return toZoneMillis(toUtcMillis(serial, date1904), zone);
+    }
+
+    /**
+     * Converts the milliseconds of a date and time read in UTC to the milliseconds of the same date and time in a
+     * time zone. A date and time skipped by a daylight saving transition is moved forward by the transition.
+     *
+     * @param utcMillis the milliseconds of the date and time in UTC
+     * @param zone      the time zone
+     * @return the milliseconds
+     */
+    public static long toZoneMillis(final long utcMillis, final TimeZone zone) {
+        final int offset = zone.getOffset(utcMillis - zone.getRawOffset());
+        final long millis = utcMillis - offset;
+        final int actual = zone.getOffset(millis);
+        // a date and time skipped by a transition has no offset, it is read with the offset before the transition.
+        return actual == offset ? millis : utcMillis - actual;
+    }
+}
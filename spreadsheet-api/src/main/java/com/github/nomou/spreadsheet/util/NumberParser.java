@@ -0,0 +1,486 @@
+package com.github.nomou.spreadsheet.util;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+
+/**
+ * Number parsing on char and byte ranges (eg: the internal buffers of the engines), without creating a String.
+ *
+ * <p>{@link #parseDouble(CharSequence, int, int)} returns the same value as {@link Double#parseDouble(String)}:
+ * a plain or scientific decimal of at most 19 significant digits is converted by the Clinger fast path or the
+ * Eisel-Lemire algorithm, the other texts (more digits, NaN, Infinity, hexadecimal, type suffix, whitespace)
+ * fall back to {@link Double#parseDouble(String)}. {@link #parseNumber(CharSequence, int, int)} returns a
+ * {@link Long} for the integers so they never go through double:</p>
+ * <pre>
+ * final Number number = NumberParser.parseNumber(buf, start, end);    // Long, Double or null if not a number
+ * final double d = NumberParser.parseDouble("1.5e-3");
+ * final long l = NumberParser.parseLong(bytes, 0, bytes.length);      // ASCII bytes
+ * </pre>
+ *
+ * @author vacoor
+ * @see <a href="https://arxiv.org/abs/2101.11408">Number Parsing at a Gigabyte per Second</a>
+ * @since 1.1
+ */
+public final class NumberParser {
+    /**
+     * The smallest and the largest power of ten of a non-zero finite double.
+     */
+    private static final int MIN_POWER = -342;
+    private static final int MAX_POWER = 308;
+
+    /**
+     * The most significant digits of an unsigned 64-bit mantissa.
+     */
+    private static final int MAX_DIGITS = 19;
+
+    private static final int NOT_A_NUMBER = 0;
+    private static final int INTEGER = 1;
+    private static final int DECIMAL = 2;
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * The exact powers of ten of the Clinger fast path.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The 128-bit approximations (high, low) of the powers of five from 5^-342 to 5^308.
+     */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parses a decimal integer, as {@link Long#parseLong(String)}.
+     *
+     * @param text the text
+     * @return the value
+     * @throws NumberFormatException if the text is not an integer or out of the range of long
+     */
+    public static long parseLong(final CharSequence text) throws NumberFormatException {
+        return parseLong(text, null, null, 0, text.length());
+    }
+
+    /**
+     * Parses a decimal integer of a char range, as {@link Long#parseLong(String)}.
+     *
+     * @param text  the text
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the value
+     * @throws NumberFormatException if the range is not an integer or out of the range of long
+     */
+    public static long parseLong(final CharSequence text, final int start, final int end) throws NumberFormatException {
+        return parseLong(text, null, null, start, end);
+    }
+
+    /**
+     * Parses a decimal integer of a char range, as {@link Long#parseLong(String)}.
+     *
+     * @param chars the chars
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the value
+     * @throws NumberFormatException if the range is not an integer or out of the range of long
+     */
+    public static long parseLong(final char[] chars, final int start, final int end) throws NumberFormatException {
+        return parseLong(null, chars, null, start, end);
+    }
+
+    /**
+     * Parses a decimal integer of an ASCII byte range, as {@link Long#parseLong(String)}.
+     *
+     * @param bytes the bytes
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the value
+     * @throws NumberFormatException if the range is not an integer or out of the range of long
+     */
+    public static long parseLong(final byte[] bytes, final int start, final int end) throws NumberFormatException {
+        return parseLong(null, null, bytes, start, end);
+    }
+
+    /**
+     * Parses a floating point number, as {@link Double#parseDouble(String)}.
+     *
+     * @param text the text
+     * @return the value
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static double parseDouble(final CharSequence text) throws NumberFormatException {
+        return parseDouble(text, null, null, 0, text.length());
+    }
+
+    /**
+     * Parses a floating point number of a char range, as {@link Double#parseDouble(String)}.
+     *
+     * @param text  the text
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the value
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parseDouble(final CharSequence text, final int start, final int end) throws NumberFormatException {
+        return parseDouble(text, null, null, start, end);
+    }
+
+    /**
+     * Parses a floating point number of a char range, as {@link Double#parseDouble(String)}.
+     *
+     * @param chars the chars
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the value
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parseDouble(final char[] chars, final int start, final int end) throws NumberFormatException {
+        return parseDouble(null, chars, null, start, end);
+    }
+
+    /**
+     * Parses a floating point number of an ASCII byte range, as {@link Double#parseDouble(String)}.
+     *
+     * @param bytes the bytes
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return the value
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parseDouble(final byte[] bytes, final int start, final int end) throws NumberFormatException {
+        return parseDouble(null, null, bytes, start, end);
+    }
+
+    /**
+     * Parses a plain or scientific decimal number (eg: 12, -1.5, .5, 1e10).
+     *
+     * @param text the text
+     * @return a {@link Long} if the text is an integer in the range of long, a {@link Double} if it is another
+     * decimal number, null if it is not a number
+     */
+    public static Number parseNumber(final CharSequence text) {
+        return parseNumber(text, null, null, 0, text.length());
+    }
+
+    /**
+     * Parses a plain or scientific decimal number of a char range (eg: 12, -1.5, .5, 1e10).
+     *
+     * @param text  the text
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return a {@link Long} if the range is an integer in the range of long, a {@link Double} if it is another
+     * decimal number, null if it is not a number
+     */
+    public static Number parseNumber(final CharSequence text, final int start, final int end) {
+        return parseNumber(text, null, null, start, end);
+    }
+
+    /**
+     * Parses a plain or scientific decimal number of a char range (eg: 12, -1.5, .5, 1e10).
+     *
+     * @param chars the chars
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return a {@link Long} if the range is an integer in the range of long, a {@link Double} if it is another
+     * decimal number, null if it is not a number
+     */
+    public static Number parseNumber(final char[] chars, final int start, final int end) {
+        return parseNumber(null, chars, null, start, end);
+    }
+
+    /**
+     * Parses a plain or scientific decimal number of an ASCII byte range (eg: 12, -1.5, .5, 1e10).
+     *
+     * @param bytes the bytes
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     * @return a {@link Long} if the range is an integer in the range of long, a {@link Double} if it is another
+     * decimal number, null if it is not a number
+     */
+    public static Number parseNumber(final byte[] bytes, final int start, final int end) {
+        return parseNumber(null, null, bytes, start, end);
+    }
+
+    /* *****************************************************
+     *  the text, the chars or the bytes (the others are null).
+     * *************************************************** */
+
+    private static Number parseNumber(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        final int kind = classify(text, chars, bytes, start, end);
+        if (INTEGER == kind) {
+            try {
+                return parseLong(text, chars, bytes, start, end);
+            } catch (final NumberFormatException overflow) {
+                return parseDouble(text, chars, bytes, start, end);
+            }
+        }
+        return DECIMAL == kind ? (Number) parseDouble(text, chars, bytes, start, end) : null;
+    }
+
+    private static long parseLong(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        int i = start;
+        final int first = i < end ? charAt(text, chars, bytes, i) : -1;
+        final boolean negative = '-' == first;
+        if (negative || '+' == first) {
+            i++;
+        }
+        if (i >= end) {
+            throw formatError(text, chars, bytes, start, end);
+        }
+        // accumulates negatively, as Long.parseLong, the range of negative values is larger.
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            final int digit = charAt(text, chars, bytes, i) - '0';
+            if (0 > digit || 9 < digit || result < multiplyMin) {
+                throw formatError(text, chars, bytes, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw formatError(text, chars, bytes, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static double parseDouble(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        int i = start;
+        final int first = i < end ? charAt(text, chars, bytes, i) : -1;
+        final boolean negative = '-' == first;
+        if (negative || '+' == first) {
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            final int c = charAt(text, chars, bytes, i);
+            if ('0' <= c && '9' >= c) {
+                digits++;
+                if (0 != mantissa || '0' != c) {
+                    if (MAX_DIGITS <= significant++) {
+                        return fallback(text, chars, bytes, start, end);
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (dot) {
+                    exponent--;
+                }
+            } else if ('.' == c && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (0 == digits) {
+            return fallback(text, chars, bytes, start, end);
+        }
+        if (i < end && ('e' == charAt(text, chars, bytes, i) || 'E' == charAt(text, chars, bytes, i))) {
+            i++;
+            final int sign = i < end ? charAt(text, chars, bytes, i) : -1;
+            if ('-' == sign || '+' == sign) {
+                i++;
+            }
+            final int from = i;
+            int explicit = 0;
+            for (int c; i < end && '0' <= (c = charAt(text, chars, bytes, i)) && '9' >= c; i++) {
+                // the larger exponents are zero or infinity anyway.
+                explicit = 100000 > explicit ? explicit * 10 + (c - '0') : explicit;
+            }
+            if (from == i) {
+                return fallback(text, chars, bytes, start, end);
+            }
+            exponent += '-' == sign ? -explicit : explicit;
+        }
+        if (i != end) {
+            return fallback(text, chars, bytes, start, end);
+        }
+        final double value = toDouble(mantissa, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the kind of the plain or scientific decimal number of the range.
+     *
+     * @return {@link #INTEGER}, {@link #DECIMAL} or {@link #NOT_A_NUMBER}
+     */
+    private static int classify(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        int i = start;
+        if (i < end && ('-' == charAt(text, chars, bytes, i) || '+' == charAt(text, chars, bytes, i))) {
+            i++;
+        }
+        int digits = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            final int c = charAt(text, chars, bytes, i);
+            if ('0' <= c && '9' >= c) {
+                digits++;
+            } else if ('.' == c && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (0 == digits) {
+            return NOT_A_NUMBER;
+        }
+        if (i == end) {
+            return dot ? DECIMAL : INTEGER;
+        }
+        final int c = charAt(text, chars, bytes, i++);
+        if ('e' != c && 'E' != c) {
+            return NOT_A_NUMBER;
+        }
+        if (i < end && ('-' == charAt(text, chars, bytes, i) || '+' == charAt(text, chars, bytes, i))) {
+            i++;
+        }
+        final int from = i;
+        while (i < end && '0' <= charAt(text, chars, bytes, i) && '9' >= charAt(text, chars, bytes, i)) {
+            i++;
+        }
+        return from < i && i == end ? DECIMAL : NOT_A_NUMBER;
+    }
+
+    private static int charAt(final CharSequence text, final char[] chars, final byte[] bytes, final int index) {
+        if (null != bytes) {
+            return bytes[index] & 0xFF;
+        }
+        return null != chars ? chars[index] : text.charAt(index);
+    }
+
+    private static double fallback(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        return Double.parseDouble(toString(text, chars, bytes, start, end));
+    }
+
+    private static NumberFormatException formatError(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        return new NumberFormatException("For input string: \"" + toString(text, chars, bytes, start, end) + "\"");
+    }
+
+    private static String toString(final CharSequence text, final char[] chars, final byte[] bytes, final int start, final int end) {
+        if (null != bytes) {
+            return new String(bytes, start, end - start, ISO_8859_1);
+        }
+        return null != chars ? new String(chars, start, end - start) : text.subSequence(start, end).toString();
+    }
+
+    /* *****************************************************
+     *  decimal to binary.
+     * *************************************************** */
+
+    /**
+     * Converts w * 10^q to the nearest double (ties to even).
+     *
+     * @param w the unsigned decimal mantissa, at most 19 digits
+     * @param q the decimal exponent
+     * @return the double
+     */
+    private static double toDouble(final long w, final int q) {
+        if (0 == w || MIN_POWER > q) {
+            return 0;
+        }
+        if (MAX_POWER < q) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // Clinger: both operands are exact, so is the rounding of the single operation.
+        if (-22 <= q && 22 >= q && 0 <= w && (1L << 53) >= w) {
+            return 0 > q ? w / POWERS_OF_TEN[-q] : w * POWERS_OF_TEN[q];
+        }
+
+        // Eisel-Lemire: the truncated 128-bit product of the normalized mantissa and 5^q is always sufficient.
+        final int lz = Long.numberOfLeadingZeros(w);
+        final long v = w << lz;
+        final int index = (q - MIN_POWER) << 1;
+        long high = multiplyHigh(v, POWERS_OF_FIVE[index]);
+        long low = v * POWERS_OF_FIVE[index];
+        if (0x1FFL == (high & 0x1FFL)) {
+            final long carry = multiplyHigh(v, POWERS_OF_FIVE[index + 1]);
+            low += carry;
+            if (isUnsignedLess(low, carry)) {
+                high++;
+            }
+        }
+        final int upperBit = (int) (high >>> 63);
+        final int shift = upperBit + 9;
+        long mantissa = high >>> shift;
+        int power2 = ((217706 * q) >> 16) + 63 + upperBit - lz + 1023;
+
+        if (0 >= power2) {
+            // subnormal.
+            if (64 <= -power2 + 1) {
+                return 0;
+            }
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = (1L << 52) > mantissa ? 0 : 1;
+            return Double.longBitsToDouble(mantissa | ((long) power2 << 52));
+        }
+        // exactly halfway between two doubles, rounds to even (only possible for small powers).
+        if ((0 == low || 1 == low) && -4 <= q && 23 >= q && 1 == (mantissa & 3) && (mantissa << shift) == high) {
+            mantissa &= ~1L;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if ((2L << 52) <= mantissa) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        if (0x7FF <= power2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.longBitsToDouble(mantissa | ((long) power2 << 52));
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product.
+     */
+    private static long multiplyHigh(final long x, final long y) {
+        final long x0 = x & 0xFFFFFFFFL;
+        final long x1 = x >>> 32;
+        final long y0 = y & 0xFFFFFFFFL;
+        final long y1 = y >>> 32;
+        final long p01 = x0 * y1;
+        final long p10 = x1 * y0;
+        final long middle = ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+        return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+
+    private static boolean isUnsignedLess(final long a, final long b) {
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+    }
+
+    /**
+     * Computes the 128-bit approximations of the powers of five: the truncated 5^q for the positive powers, the
+     * truncated 2^b / 5^-q + 1 for the negative powers.
+     */
+    private static long[] powersOfFive() {
+        final long[] powers = new long[(MAX_POWER - MIN_POWER + 1) << 1];
+        final BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+            BigInteger power;
+            if (0 > q) {
+                final BigInteger divisor = five.pow(-q);
+                final int z = divisor.bitLength();
+                final int b = -27 <= q ? z + 127 : 2 * z + 128;
+                power = BigInteger.ONE.shiftLeft(b).divide(divisor).add(BigInteger.ONE);
+            } else {
+                power = five.pow(q);
+                power = power.shiftLeft(Math.max(0, 128 - power.bitLength()));
+            }
+            power = power.shiftRight(Math.max(0, power.bitLength() - 128));
+            final int index = (q - MIN_POWER) << 1;
+            powers[index] = power.shiftRight(64).longValue();
+            powers[index + 1] = power.longValue();
+        }
+        return powers;
+    }
+}
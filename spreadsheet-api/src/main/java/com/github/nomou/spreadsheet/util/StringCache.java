@@ -0,0 +1,249 @@
+package com.github.nomou.spreadsheet.util;
+
+import java.util.Arrays;
+
+/**
+ * Bounded string deduplication cache for repeated cell values.
+ *
+ * <p>The characters of a cell are hashed before a {@link String} is created, a cached equal string is
+ * returned as the canonical instance, so rows retained by the caller share the same strings.</p>
+ * <pre>
+ * final StringCache cache = new StringCache(4096, 64).columns(3, 5);
+ * parser.configure(SpreadsheetParser.OPTION_STRING_CACHE, cache);
+ * ...
+ * System.out.println(cache.getHitRate());
+ * </pre>
+ *
+ * <p>The cache is a two-way set associative table: a miss replaces the older entry of its set, so a
+ * cache never grows beyond its capacity and never degrades on high-cardinality columns. Strings longer
+ * than the max length are never cached. This class is not thread-safe, use one cache per parser.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class StringCache {
+    /**
+     * The default number of cached strings.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The default max length of a cached string.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 64;
+
+    private final String[] table;
+    private final int[] hashes;
+    private final int mask;
+    private final int maxLength;
+
+    /**
+     * The cached columns, null if all columns are cached.
+     */
+    private boolean[] columns;
+
+    /**
+     * The next entry to replace in each set.
+     */
+    private final boolean[] victims;
+
+    private int size;
+    private long lookups;
+    private long hits;
+
+    public StringCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity  the max number of cached strings (rounded up to a power of two)
+     * @param maxLength the max length of a cached string
+     */
+    public StringCache(final int capacity, final int maxLength) {
+        if (2 > capacity || 1 > maxLength) {
+            throw new IllegalArgumentException("illegal capacity " + capacity + " or max length " + maxLength);
+        }
+        final int n = Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new String[n];
+        this.hashes = new int[n];
+        this.victims = new boolean[n >> 1];
+        this.mask = (n >> 1) - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Restricts the cache to the given columns, all columns are cached by default.
+     *
+     * @param columns the column indexes
+     * @return this cache
+     */
+    public StringCache columns(final int... columns) {
+        int max = -1;
+        for (final int col : columns) {
+            if (0 > col) {
+                throw new IllegalArgumentException("illegal column: " + col);
+            }
+            max = Math.max(max, col);
+        }
+        final boolean[] enabled = new boolean[max + 1];
+        for (final int col : columns) {
+            enabled[col] = true;
+        }
+        this.columns = enabled;
+        return this;
+    }
+
+    /**
+     * Creates an empty cache of the same capacity, max length and columns, eg: a cache per worksheet parser.
+     *
+     * @return the new cache
+     */
+    public StringCache copy() {
+        final StringCache copy = new StringCache(table.length, maxLength);
+        copy.columns = this.columns;
+        return copy;
+    }
+
+    /**
+     * Returns true if the values of the given column are cached.
+     *
+     * @param col the column index
+     * @return true if cached
+     */
+    public boolean isEnabled(final int col) {
+        final boolean[] enabled = this.columns;
+        return null == enabled || (0 <= col && col < enabled.length && enabled[col]);
+    }
+
+    /**
+     * Gets the canonical string of the given characters.
+     *
+     * @param chars the characters
+     * @return the canonical string
+     */
+    public String get(final CharSequence chars) {
+        final int len = chars.length();
+        if (0 == len) {
+            return "";
+        }
+        if (len > maxLength) {
+            return chars.toString();
+        }
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + chars.charAt(i);
+        }
+        lookups++;
+
+        final int set = (h ^ (h >>> 16)) & mask;
+        final int i = set << 1;
+        if (h == hashes[i] && contentEquals(table[i], chars)) {
+            hits++;
+            return table[i];
+        }
+        if (h == hashes[i + 1] && contentEquals(table[i + 1], chars)) {
+            hits++;
+            return table[i + 1];
+        }
+        final String s = chars.toString();
+        put(set, h, s);
+        return s;
+    }
+
+    /**
+     * Gets the canonical instance of the given string.
+     *
+     * @param s the string
+     * @return the canonical string or null if the string is null
+     */
+    public String get(final String s) {
+        return null != s ? get((CharSequence) s) : null;
+    }
+
+    /**
+     * Gets the canonical string of the given column value, the string is returned as-is if the column is not cached.
+     *
+     * @param col the column index
+     * @param s   the string
+     * @return the canonical string
+     */
+    public String get(final int col, final String s) {
+        return null != s && isEnabled(col) ? get((CharSequence) s) : s;
+    }
+
+    private void put(final int set, final int h, final String s) {
+        final int i = set << 1;
+        final int slot;
+        if (null == table[i]) {
+            slot = i;
+        } else if (null == table[i + 1]) {
+            slot = i + 1;
+        } else {
+            slot = victims[set] ? i + 1 : i;
+            victims[set] = !victims[set];
+            size--;
+        }
+        table[slot] = s;
+        hashes[slot] = h;
+        size++;
+    }
+
+    private static boolean contentEquals(final String s, final CharSequence chars) {
+        return null != s && s.contentEquals(chars);
+    }
+
+    /**
+     * Gets the number of lookups (cacheable values).
+     *
+     * @return the number of lookups
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * Gets the number of lookups that returned a cached string.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the hit rate.
+     *
+     * @return the hit rate in [0, 1]
+     */
+    public double getHitRate() {
+        return 0 < lookups ? (double) hits / lookups : 0D;
+    }
+
+    /**
+     * Gets the number of cached strings.
+     *
+     * @return the number of cached strings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all cached strings and resets the metrics.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+        Arrays.fill(hashes, 0);
+        Arrays.fill(victims, false);
+        size = 0;
+        lookups = 0;
+        hits = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StringCache{size=" + size + ", lookups=" + lookups + ", hits=" + hits + ", hitRate=" + getHitRate() + '}';
+    }
+}
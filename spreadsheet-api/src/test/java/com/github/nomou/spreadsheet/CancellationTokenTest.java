@@ -0,0 +1,109 @@
+package com.github.nomou.spreadsheet;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Cancellation tokens, the deadline option and the parser cancellation.
+ */
+public class CancellationTokenTest {
+
+    @Test
+    public void testCancel() {
+        final CancellationToken token = new CancellationToken();
+        assertFalse(token.isCancelled());
+        token.check();
+        token.cancel();
+        assertTrue(token.isCancelled());
+        try {
+            token.check();
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            assertEquals("cancelled", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeadline() {
+        assertFalse(CancellationToken.withTimeout(1, TimeUnit.HOURS).isCancelled());
+        final CancellationToken past = CancellationToken.withDeadline(System.currentTimeMillis() - 1000);
+        assertTrue(past.isCancelled());
+        try {
+            past.check();
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            assertEquals("deadline exceeded", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testValueOf() {
+        final CancellationToken token = new CancellationToken();
+        assertSame(token, CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_CANCELLATION, token));
+        assertNull(CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, null));
+
+        final long past = System.currentTimeMillis() - 1000;
+        final long future = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        assertTrue(CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, past).isCancelled());
+        assertTrue(CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, new Date(past)).isCancelled());
+        assertFalse(CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, future).isCancelled());
+        assertFalse(CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, (double) future).isCancelled());
+        // any number is an epoch millis deadline, an int one is long past.
+        assertTrue(CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, 1000).isCancelled());
+    }
+
+    @Test
+    public void testIllegalValue() {
+        try {
+            CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_DEADLINE, "tomorrow");
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+        try {
+            CancellationToken.valueOf(SpreadsheetConfigurable.OPTION_CANCELLATION, 1000L);
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testCancelledParser() {
+        final CancellationToken token = new CancellationToken();
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(new Object[]{1}, new Object[]{2});
+        parser.configure(SpreadsheetParser.OPTION_CANCELLATION, token);
+        assertEquals(SpreadsheetParser.START_WORKBOOK, parser.getEventType());
+        token.cancel();
+        try {
+            parser.next();
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            assertEquals("cancelled", expected.getMessage());
+        }
+        assertEquals(SpreadsheetParser.EOF, parser.getEventType());
+    }
+
+    @Test
+    public void testDeadlineParser() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(new Object[]{1});
+        parser.configure(SpreadsheetParser.OPTION_DEADLINE, System.currentTimeMillis() - 1000);
+        try {
+            while (SpreadsheetParser.EOF != parser.next()) {
+                // parse.
+            }
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            assertEquals("deadline exceeded", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.nomou.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parser of in-memory worksheets, null cells are absent (as the sparse cells of xlsx).
+ */
+public class MemorySpreadsheetParser extends AbstractSpreadsheetParser {
+    private final List<Object[][]> worksheets = new ArrayList<Object[][]>();
+    private int row = -1;
+    private int col = -1;
+
+    public MemorySpreadsheetParser(final Object[][]... worksheets) {
+        this.worksheets.addAll(Arrays.asList(worksheets));
+        this.eventType = START_WORKBOOK;
+    }
+
+    /**
+     * Creates a single worksheet parser of the given rows.
+     */
+    public static MemorySpreadsheetParser of(final Object[]... rows) {
+        return new MemorySpreadsheetParser(new Object[][][]{rows});
+    }
+
+    @Override
+    public int getNumberOfWorksheets() {
+        return worksheets.size();
+    }
+
+    @Override
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public int getCol() {
+        return col;
+    }
+
+    @Override
+    public Object getValue() {
+        return worksheets.get(worksheetIndex)[row][col];
+    }
+
+    @Override
+    protected int doNext() throws SpreadsheetException {
+        final int st = this.eventType;
+        if (START_WORKBOOK == st) {
+            worksheetIndex = 0;
+            return startWorksheet();
+        } else if (START_WORKSHEET == st || END_RECORD == st) {
+            row++;
+            col = -1;
+            return row < worksheets.get(worksheetIndex).length ? START_RECORD : END_WORKSHEET;
+        } else if (START_RECORD == st || END_CELL == st) {
+            final Object[] values = worksheets.get(worksheetIndex)[row];
+            do {
+                col++;
+            } while (col < values.length && null == values[col]);
+            if (col < values.length) {
+                return START_CELL;
+            }
+            col = -1;
+            return END_RECORD;
+        } else if (START_CELL == st) {
+            return END_CELL;
+        } else if (END_WORKSHEET == st) {
+            worksheetIndex++;
+            return startWorksheet();
+        }
+        return EOF;
+    }
+
+    private int startWorksheet() {
+        if (worksheetIndex >= worksheets.size()) {
+            return END_WORKBOOK;
+        }
+        worksheetName = "sheet" + (worksheetIndex + 1);
+        row = -1;
+        return START_WORKSHEET;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.nomou.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A writer of in-memory worksheets, null cells are kept as null.
+ */
+public class MemorySpreadsheetWriter extends AbstractSpreadsheetWriter {
+    private final Map<String, List<List<Object>>> worksheets = new LinkedHashMap<String, List<List<Object>>>();
+    private List<List<Object>> rows;
+    private List<Object> current;
+    private boolean closed;
+
+    @Override
+    public SpreadsheetWriter start(final String worksheetName) {
+        rows = new ArrayList<List<Object>>();
+        current = null;
+        worksheets.put(worksheetName, rows);
+        return this;
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Boolean bool) {
+        return add(bool);
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Number number) {
+        return add(number);
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Date date) {
+        return add(date);
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Date date, final String pattern) {
+        return add(date);
+    }
+
+    @Override
+    public SpreadsheetWriter write(final String text) {
+        return add(text);
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Object obj) {
+        return null == obj ? add(null) : super.write(obj);
+    }
+
+    @Override
+    public AbstractSpreadsheetWriter next() {
+        if (null == current) {
+            rows.add(new ArrayList<Object>());
+        }
+        current = null;
+        return super.next();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private SpreadsheetWriter add(final Object value) {
+        if (null == current) {
+            current = new ArrayList<Object>();
+            rows.add(current);
+        }
+        current.add(value);
+        return this;
+    }
+
+    /**
+     * Gets the rows of the last started worksheet.
+     */
+    public List<List<Object>> getRows() {
+        return rows;
+    }
+
+    public Map<String, List<List<Object>>> getWorksheets() {
+        return worksheets;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.nomou.spreadsheet;
+
+import com.github.nomou.spreadsheet.util.StringCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The options of the worksheets parsed concurrently by the {@link ParallelWorkbookParser}.
+ */
+public class ParallelWorksheetsTest {
+    private static final int WORKSHEETS = 8;
+    private static final int ROWS = 20000;
+
+    @Test
+    public void testStringCacheAndErrorCollectorPerWorksheet() {
+        for (int run = 0; run < 5; run++) {
+            final StringCache cache = new StringCache(64, 8);
+            final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(WORKSHEETS * ROWS / 10);
+            final AtomicInteger records = new AtomicInteger();
+            final List<String> mismatches = Collections.synchronizedList(new ArrayList<String>());
+            new ParallelWorkbookParser(new Workbook(-1))
+                    .setParallelism(WORKSHEETS)
+                    .configure(SpreadsheetParser.OPTION_STRING_CACHE, cache)
+                    .configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors)
+                    .parse(new Handler() {
+                        @Override
+                        public void record(final int worksheetIndex, final int row, final Object[] values) {
+                            records.incrementAndGet();
+                            if (!text(worksheetIndex, row).equals(values[0])) {
+                                mismatches.add(worksheetIndex + ":" + row + " " + values[0]);
+                            }
+                        }
+                    });
+            assertEquals(WORKSHEETS * ROWS, records.get());
+            assertEquals(Collections.<String>emptyList(), mismatches);
+            // the configured cache is only the template of the worksheet caches.
+            assertEquals(0, cache.size());
+            assertEquals(WORKSHEETS * ROWS / 10, errors.getErrorCount());
+            assertEquals(WORKSHEETS * ROWS / 10, errors.getErrors().size());
+            // merged in worksheet order.
+            for (int i = 0; i < errors.getErrors().size(); i++) {
+                final SpreadsheetError error = errors.getErrors().get(i);
+                assertEquals(i / (ROWS / 10), error.getWorksheetIndex());
+                assertEquals(i % (ROWS / 10) * 10, error.getRow());
+                assertEquals(SpreadsheetError.Reason.INVALID_NUMBER, error.getReason());
+            }
+        }
+    }
+
+    @Test
+    public void testMergedErrorsBeyondCapacityAreCounted() {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        new ParallelWorkbookParser(new Workbook(-1))
+                .configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors)
+                .parseOrdered(new Handler());
+        assertEquals(WORKSHEETS * ROWS / 10, errors.getErrorCount());
+        assertEquals(10, errors.getErrors().size());
+        assertEquals(WORKSHEETS * ROWS / 10 - 10, errors.getDroppedCount());
+        assertEquals(0, errors.getErrors().get(9).getWorksheetIndex());
+    }
+
+    @Test
+    public void testRecordEvents() {
+        for (final boolean ordered : new boolean[]{false, true}) {
+            final AtomicInteger records = new AtomicInteger();
+            final Handler handler = new Handler() {
+                @Override
+                public void record(final int worksheetIndex, final int row, final Object[] values) {
+                    assertEquals(3, values.length);
+                    assertEquals(text(worksheetIndex, row), values[0]);
+                    assertNull(values[1]);
+                    assertEquals(row, values[2]);
+                    records.incrementAndGet();
+                }
+            };
+            final ParallelWorkbookParser parallel = new ParallelWorkbookParser(new Workbook(-1))
+                    .configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+            assertTrue(parallel.isParallel());
+            if (ordered) {
+                parallel.parseOrdered(handler);
+            } else {
+                parallel.parse(handler);
+            }
+            assertEquals(WORKSHEETS * ROWS, records.get());
+        }
+    }
+
+    private static String text(final int worksheetIndex, final int row) {
+        return "s" + worksheetIndex + "r" + row % 100;
+    }
+
+    private static class Handler implements ParallelWorkbookParser.Handler {
+
+        @Override
+        public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+        }
+
+        @Override
+        public void record(final int worksheetIndex, final int row, final Object[] values) {
+        }
+
+        @Override
+        public void endWorksheet(final int worksheetIndex) {
+        }
+    }
+
+    /**
+     * A workbook of generated worksheets: a cached text cell, an error cell every 10 rows (else absent) and the
+     * row, or a worksheet of the workbook.
+     */
+    private static class Workbook extends AbstractSpreadsheetParser implements SplittableSpreadsheetParser {
+        private final int worksheet;
+        private int row = -1;
+        private int col = -1;
+
+        private Workbook(final int worksheet) {
+            this.worksheet = worksheet;
+            this.eventType = START_WORKBOOK;
+        }
+
+        @Override
+        public boolean isSplittable() {
+            return 0 > worksheet;
+        }
+
+        @Override
+        public SpreadsheetParser createWorksheetParser(final int worksheetIndex) {
+            return new Workbook(worksheetIndex);
+        }
+
+        @Override
+        public int getNumberOfWorksheets() {
+            return WORKSHEETS;
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public int getCol() {
+            return col;
+        }
+
+        @Override
+        public Object getValue() {
+            if (0 == col) {
+                final String text = text(worksheetIndex, row);
+                return null != stringCache ? stringCache.get(new StringBuilder(text)) : text;
+            } else if (1 == col) {
+                if (null != errorCollector) {
+                    errorCollector.add(worksheetIndex, row, col, "#N/A", SpreadsheetError.Reason.INVALID_NUMBER);
+                }
+                return null;
+            }
+            return row;
+        }
+
+        @Override
+        protected int doNext() throws SpreadsheetException {
+            final int st = this.eventType;
+            if (START_WORKBOOK == st) {
+                worksheetIndex = Math.max(0, worksheet);
+                worksheetName = "sheet" + (worksheetIndex + 1);
+                row = -1;
+                return START_WORKSHEET;
+            } else if (START_WORKSHEET == st || END_RECORD == st) {
+                row++;
+                col = -1;
+                return row < ROWS ? START_RECORD : END_WORKSHEET;
+            } else if (START_RECORD == st || END_CELL == st) {
+                col++;
+                if (1 == col && 0 != row % 10) {
+                    col++;
+                }
+                if (col < 3) {
+                    return START_CELL;
+                }
+                col = -1;
+                return END_RECORD;
+            } else if (START_CELL == st) {
+                return END_CELL;
+            } else if (END_WORKSHEET == st && 0 > worksheet && worksheetIndex + 1 < WORKSHEETS) {
+                worksheetIndex++;
+                worksheetName = "sheet" + (worksheetIndex + 1);
+                row = -1;
+                return START_WORKSHEET;
+            }
+            return END_WORKBOOK == st ? EOF : END_WORKBOOK;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
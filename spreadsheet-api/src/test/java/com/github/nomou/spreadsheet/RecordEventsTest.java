@@ -0,0 +1,136 @@
+package com.github.nomou.spreadsheet;
+
+import com.github.nomou.spreadsheet.schema.ColumnStats;
+import com.github.nomou.spreadsheet.schema.ColumnStatsCollector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * The record events mode collecting the cells of a record into the record buffer.
+ */
+public class RecordEventsTest {
+    private static final Object[][] ROWS = {
+            {"id", "name", "score"},
+            {1, "a", 2.5},
+            {2, null, 3},
+            {3}
+    };
+
+    @Test
+    public void testOnlyRecordEvents() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        final List<Integer> events = new ArrayList<Integer>();
+        final List<String> records = new ArrayList<String>();
+        while (parser.hasNext()) {
+            final int event = parser.next();
+            events.add(event);
+            if (SpreadsheetParser.END_RECORD == event) {
+                final Object[] values = new Object[parser.getRecordWidth()];
+                for (int col = 0; col < values.length; col++) {
+                    values[col] = parser.getRecordValue(col);
+                }
+                records.add(parser.getRow() + ":" + Arrays.toString(values));
+            }
+        }
+        assertEquals(Arrays.asList(SpreadsheetParser.START_WORKSHEET,
+                SpreadsheetParser.START_RECORD, SpreadsheetParser.END_RECORD,
+                SpreadsheetParser.START_RECORD, SpreadsheetParser.END_RECORD,
+                SpreadsheetParser.START_RECORD, SpreadsheetParser.END_RECORD,
+                SpreadsheetParser.START_RECORD, SpreadsheetParser.END_RECORD,
+                SpreadsheetParser.END_WORKSHEET, SpreadsheetParser.END_WORKBOOK), events);
+        assertEquals(Arrays.asList("0:[id, name, score]", "1:[1, a, 2.5]", "2:[2, null, 3]", "3:[3]"), records);
+    }
+
+    @Test
+    public void testRecordAvailableAtStartRecord() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        assertEquals(SpreadsheetParser.START_WORKSHEET, parser.next());
+        assertEquals(SpreadsheetParser.START_RECORD, parser.next());
+        assertEquals(3, parser.getRecordWidth());
+        assertEquals("score", parser.getRecordValue(2));
+        assertNull(parser.getRecordValue(3));
+        assertNull(parser.getRecordValue(-1));
+    }
+
+    @Test
+    public void testBufferIsCleared() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        for (int i = 0; i < 4; i++) {
+            parser.nextRecord(false);
+        }
+        assertEquals(1, parser.getRecordWidth());
+        assertNull(parser.getRecordValue(1));
+    }
+
+    @Test
+    public void testNextRecordMatchesCellEvents() {
+        final SpreadsheetParser cells = MemorySpreadsheetParser.of(ROWS);
+        final SpreadsheetParser records = MemorySpreadsheetParser.of(ROWS);
+        records.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        Object[] expected;
+        do {
+            expected = cells.nextRecord(false);
+            assertArrayEquals(expected, records.nextRecord(false));
+        } while (null != expected);
+    }
+
+    @Test
+    public void testDisabled() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.next();
+        assertEquals(SpreadsheetParser.START_RECORD, parser.next());
+        assertEquals(-1, parser.getRecordWidth());
+        assertEquals(SpreadsheetParser.START_CELL, parser.next());
+    }
+
+    @Test
+    public void testIllegalState() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        try {
+            parser.getRecordWidth();
+            fail();
+        } catch (final IllegalStateException expected) {
+            // expected.
+        }
+        try {
+            parser.getRecordValue(0);
+            fail();
+        } catch (final IllegalStateException expected) {
+            // expected.
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalOption() {
+        MemorySpreadsheetParser.of(ROWS).configure(SpreadsheetParser.OPTION_RECORD_EVENTS, "true");
+    }
+
+    @Test
+    public void testStatistics() {
+        final ColumnStatsCollector statistics = new ColumnStatsCollector().setHeader(true);
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        parser.configure(SpreadsheetParser.OPTION_STATISTICS, statistics);
+        while (parser.hasNext()) {
+            parser.next();
+        }
+        final List<ColumnStats> columns = statistics.getStats(0);
+        assertEquals(3, columns.size());
+        assertEquals("name", columns.get(1).getName());
+        assertEquals(3, columns.get(1).getCount());
+        assertEquals(2, columns.get(1).getNullCount());
+        assertEquals(2, columns.get(2).getNumberCount());
+    }
+}
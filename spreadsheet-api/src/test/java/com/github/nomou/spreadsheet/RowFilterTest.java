@@ -0,0 +1,104 @@
+package com.github.nomou.spreadsheet;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Row filter predicates and the incremental matcher.
+ */
+public class RowFilterTest {
+
+    @Test
+    public void testNumericOperandParsesText() {
+        final RowFilter filter = new RowFilter().eq(0, 10);
+        assertTrue(filter.test(new Object[]{10L}));
+        assertTrue(filter.test(new Object[]{" 10.0 "}));
+        assertTrue(filter.test(new Object[]{"1e1"}));
+        assertFalse(filter.test(new Object[]{"ten"}));
+        assertFalse(filter.test(new Object[]{"10x"}));
+        assertFalse(filter.test(new Object[]{null}));
+        assertFalse(filter.test(new Object[0]));
+    }
+
+    @Test
+    public void testNonNumericTextIsNotANumber() {
+        assertTrue(Double.isNaN(RowFilter.asNumber("abc")));
+        assertTrue(Double.isNaN(RowFilter.asNumber("")));
+        assertTrue(Double.isNaN(RowFilter.asNumber(Boolean.TRUE)));
+        assertEquals(-2.5, RowFilter.asNumber("-2.5"), 0);
+        assertEquals(3, RowFilter.asNumber(3), 0);
+    }
+
+    @Test
+    public void testNegativeZeroEqualsZero() {
+        assertTrue(new RowFilter().in(0, 0).test(new Object[]{-0.0}));
+        assertTrue(new RowFilter().in(0, -0.0).test(new Object[]{0L}));
+        assertTrue(new RowFilter().in(0, 0).test(new Object[]{"-0"}));
+        assertTrue(new RowFilter().eq(0, 0).test(new Object[]{-0.0}));
+        assertTrue(new RowFilter().between(0, 0, 1).test(new Object[]{-0.0}));
+    }
+
+    @Test
+    public void testIn() {
+        final RowFilter filter = new RowFilter().in(1, Arrays.asList(1, 2.5, "x"));
+        assertTrue(filter.test(new Object[]{null, 1}));
+        assertTrue(filter.test(new Object[]{null, "2.5"}));
+        assertTrue(filter.test(new Object[]{null, "x"}));
+        assertFalse(filter.test(new Object[]{null, "y"}));
+        assertFalse(filter.test(new Object[]{null, 3}));
+        assertFalse(filter.test(new Object[]{1}));
+    }
+
+    @Test
+    public void testBetweenAndNotNull() {
+        final RowFilter filter = new RowFilter().between(0, 1, 10).notNull(2);
+        assertTrue(filter.test(new Object[]{1, null, "a"}));
+        assertTrue(filter.test(new Object[]{"10", null, "a"}));
+        assertFalse(filter.test(new Object[]{11, null, "a"}));
+        assertFalse(filter.test(new Object[]{5, null, ""}));
+        assertFalse(filter.test(new Object[]{5}));
+        assertArrayEquals(new int[]{0, 2}, filter.getColumns());
+    }
+
+    @Test
+    public void testDateBounds() {
+        final RowFilter filter = new RowFilter().between(0, new Date(1000), new Date(2000));
+        assertTrue(filter.test(new Object[]{new Date(1500)}));
+        assertFalse(filter.test(new Object[]{new Date(2500)}));
+    }
+
+    @Test
+    public void testMatcher() {
+        final RowFilter.Matcher matcher = new RowFilter().eq(0, "a").notNull(3).newMatcher();
+        assertEquals(3, matcher.getMaxColumn());
+        assertTrue(matcher.isReferenced(0));
+        assertFalse(matcher.isReferenced(1));
+        assertFalse(matcher.isReferenced(4));
+
+        matcher.reset();
+        assertTrue(matcher.accept(0, "a"));
+        assertTrue(matcher.accept(1, "ignored"));
+        // column 3 is missing, evaluated as null.
+        assertFalse(matcher.complete());
+
+        matcher.reset();
+        assertFalse(matcher.accept(0, "b"));
+
+        matcher.reset();
+        assertTrue(matcher.accept(0, "a"));
+        assertTrue(matcher.accept(3, 1));
+        assertTrue(matcher.complete());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalColumn() {
+        new RowFilter().eq(-1, 1);
+    }
+}
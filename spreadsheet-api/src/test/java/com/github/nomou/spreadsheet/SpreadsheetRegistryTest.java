@@ -0,0 +1,144 @@
+package com.github.nomou.spreadsheet;
+
+import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+import com.github.nomou.spreadsheet.spi.SpreadsheetProber;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Registering, resolving and probing with the factories of a registry.
+ */
+public class SpreadsheetRegistryTest {
+    private static final Spreadsheet.Format ZIP = new Spreadsheet.Format("ZIP", new byte[]{'P', 'K'}, "zip");
+    private static final Spreadsheet.Format TEXT = new Spreadsheet.Format("TEXT", new byte[0], "txt");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testProbeWithoutMatchingFactory() throws Exception {
+        final SpreadsheetRegistry registry = newRegistry().registerParserFactory(new MemoryParserFactory(ZIP));
+        try {
+            registry.probe(write("a.txt", "not a zip"));
+            fail();
+        } catch (final SpreadsheetException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("file type error"));
+        }
+    }
+
+    @Test
+    public void testProbeWithoutFactory() throws Exception {
+        try {
+            newRegistry().probe(write("a.txt", "text"));
+            fail();
+        } catch (final SpreadsheetException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("file type error"));
+        }
+    }
+
+    @Test
+    public void testProbeUsesProber() throws Exception {
+        final SpreadsheetMetadata metadata = new SpreadsheetMetadata(Collections.singletonList(
+                new SpreadsheetMetadata.WorksheetMetadata("probed", 0, 9, 0, 1, 10, false)));
+        final SpreadsheetRegistry registry = newRegistry().registerParserFactory(new ProbingParserFactory(metadata));
+        assertSame(metadata, registry.probe(write("a.txt", "text")));
+    }
+
+    @Test
+    public void testProbeScansWithoutProber() throws Exception {
+        final SpreadsheetRegistry registry = newRegistry().registerParserFactory(new MemoryParserFactory(TEXT));
+        final SpreadsheetMetadata metadata = registry.probe(write("a.txt", "text"));
+        assertEquals(1, metadata.getNumberOfWorksheets());
+        assertEquals(3, metadata.getWorksheet(0).getRecords());
+        assertTrue(metadata.getWorksheet(0).isExact());
+    }
+
+    @Test
+    public void testResolvePriority() {
+        final MemoryParserFactory low = new MemoryParserFactory(TEXT);
+        final MemoryParserFactory high = new MemoryParserFactory(TEXT);
+        final SpreadsheetRegistry registry = newRegistry()
+                .registerParserFactory(low, SpreadsheetRegistry.SERVICE_PRIORITY)
+                .registerParserFactory(high, SpreadsheetRegistry.REGISTERED_PRIORITY);
+        assertSame(high, registry.getParserFactories("txt").get(0));
+        assertTrue(registry.getParserFactories("zip").isEmpty());
+    }
+
+    @Test
+    public void testCreateWithoutMatchingFactory() {
+        final SpreadsheetParserFactory factory = newRegistry().registerParserFactory(new MemoryParserFactory(ZIP)).getParserFactory();
+        try {
+            factory.create(new BufferedInputStream(new ByteArrayInputStream("text".getBytes())));
+            fail();
+        } catch (final SpreadsheetException expected) {
+            assertEquals("file type error", expected.getMessage());
+        }
+    }
+
+    /**
+     * Creates a registry without the service factories.
+     */
+    private static SpreadsheetRegistry newRegistry() {
+        return new SpreadsheetRegistry(new URLClassLoader(new URL[0], null));
+    }
+
+    private File write(final String name, final String content) throws IOException {
+        final File file = folder.newFile(name);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static class MemoryParserFactory implements SpreadsheetParserFactory {
+        private final Spreadsheet.Format format;
+
+        MemoryParserFactory(final Spreadsheet.Format format) {
+            this.format = format;
+        }
+
+        @Override
+        public Spreadsheet.Format[] getSupportedFormats() {
+            return new Spreadsheet.Format[]{format};
+        }
+
+        @Override
+        public SpreadsheetParser create(final InputStream in) {
+            return MemorySpreadsheetParser.of(new Object[]{1}, new Object[]{2}, new Object[]{3});
+        }
+    }
+
+    private static class ProbingParserFactory extends MemoryParserFactory implements SpreadsheetProber {
+        private final SpreadsheetMetadata metadata;
+
+        ProbingParserFactory(final SpreadsheetMetadata metadata) {
+            super(TEXT);
+            this.metadata = metadata;
+        }
+
+        @Override
+        public SpreadsheetMetadata probe(final File file) {
+            return metadata;
+        }
+    }
+}
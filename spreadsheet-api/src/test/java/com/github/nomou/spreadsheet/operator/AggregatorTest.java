@@ -0,0 +1,122 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.MemorySpreadsheetWriter;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Group-by aggregation, in memory and spilled.
+ */
+public class AggregatorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAggregateInMemory() throws Exception {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        final long groups = new Aggregator().groupBy(0).sum(1).avg(1).min(1).max(1).count().setHeader(true)
+                .aggregate(MemorySpreadsheetParser.of(
+                        new Object[]{"region", "amount"},
+                        new Object[]{"east", 1},
+                        new Object[]{"west", "2.5"},
+                        new Object[]{"east", 3L},
+                        new Object[]{"east", "n/a"},
+                        new Object[]{"", 4}
+                ), writer);
+        assertEquals(3, groups);
+        final List<List<Object>> rows = writer.getRows();
+        assertEquals(Arrays.<Object>asList("region", "sum(amount)", "avg(amount)", "min(amount)", "max(amount)", "count"), rows.get(0));
+        assertEquals(Arrays.<Object>asList("east", 4D, 2D, 1D, 3D, 3L), rows.get(1));
+        assertEquals(Arrays.<Object>asList("west", 2.5D, 2.5D, 2.5D, 2.5D, 1L), rows.get(2));
+        // empty strings are grouped as null.
+        assertEquals(Arrays.<Object>asList(null, 4D, 4D, 4D, 4D, 1L), rows.get(3));
+    }
+
+    @Test
+    public void testIntegralKeysAreNormalized() throws Exception {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        new Aggregator().groupBy(0).count().aggregate(MemorySpreadsheetParser.of(
+                new Object[]{1}, new Object[]{1L}, new Object[]{1.0D}
+        ), writer);
+        assertEquals(Collections.singletonList(Arrays.<Object>asList(1L, 3L)), writer.getRows());
+    }
+
+    @Test
+    public void testGroupWithoutNumericValue() throws Exception {
+        final Object[][] rows = new Object[200][];
+        for (int i = 0; i < rows.length; i++) {
+            // the "x" groups have no numeric value, the "y" groups sum to 0.
+            final boolean odd = 0 != i / 20 % 2;
+            rows[i] = 0 == i % 2 ? new Object[]{"x" + i % 20, odd ? "n/a" : ""} : new Object[]{"y" + i % 20, odd ? 1 : -1};
+        }
+        final List<String> expected = aggregate(new Aggregator(), rows);
+        assertEquals(20, expected.size());
+        assertEquals("[x0, null, 10, null]", expected.get(0));
+        assertEquals("[y1, 0.0, 10, -1.0]", expected.get(10));
+
+        final Aggregator aggregator = new Aggregator().setMaxGroupsInMemory(4).setPartitions(2).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, aggregate(aggregator, rows));
+        assertTrue(0 < aggregator.getSpillCount());
+    }
+
+    @Test
+    public void testSpillMatchesInMemory() throws Exception {
+        final Object[][] rows = new Object[6000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{"k" + (i % 2000), i % 7};
+        }
+        final List<String> expected = aggregate(new Aggregator(), rows);
+        assertEquals(2000, expected.size());
+
+        final Aggregator aggregator = new Aggregator().setMaxGroupsInMemory(8).setPartitions(4).setSpillDirectory(folder.getRoot());
+        final List<String> spilled = aggregate(aggregator, rows);
+        // the partitions of 2000 groups exceed 8 groups, they are re-partitioned.
+        assertTrue(aggregator.getSpillCount() > 2000 / 8);
+        assertEquals(expected, spilled);
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testCollidingHashesFail() throws Exception {
+        // "Aa" and "BB" have the same hash code, so have all their concatenations.
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 16; i++) {
+            final StringBuilder key = new StringBuilder();
+            for (int b = 0; b < 4; b++) {
+                key.append(0 != (i & (1 << b)) ? "Aa" : "BB");
+            }
+            rows.add(new Object[]{key.toString(), 1});
+        }
+        final Aggregator aggregator = new Aggregator().setMaxGroupsInMemory(4).setPartitions(2).setSpillDirectory(folder.getRoot());
+        try {
+            aggregate(aggregator, rows.toArray(new Object[0][]));
+            fail("colliding groups exceeded the max groups in memory");
+        } catch (final SpreadsheetException expected) {
+            assertTrue(expected.getMessage().contains("share the hash partition"));
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private static List<String> aggregate(final Aggregator aggregator, final Object[][] rows) {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        aggregator.groupBy(0).sum(1).count().min(1).aggregate(MemorySpreadsheetParser.of(rows), writer);
+        final List<String> groups = new ArrayList<String>();
+        for (final List<Object> row : writer.getRows()) {
+            groups.add(row.toString());
+        }
+        Collections.sort(groups);
+        return groups;
+    }
+}
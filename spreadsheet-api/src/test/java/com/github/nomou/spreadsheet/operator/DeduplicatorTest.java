@@ -0,0 +1,82 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.MemorySpreadsheetWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Duplicate record detection, heap and disk-backed.
+ */
+public class DeduplicatorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Object[][] RECORDS = {
+            {"id", "name", "note"},
+            {1, "a", "x"},
+            {1L, "a", "y"},
+            {2, "b"},
+            {2.0D, "b", ""},
+            {1, "a", "x"},
+            {3, null},
+            {3, ""}
+    };
+
+    @Test
+    public void testFirstOccurrences() throws Exception {
+        final Deduplicator dedup = new Deduplicator().setHeader(true);
+        final List<String> rows = dedup(dedup, RECORDS);
+        // integral numbers are equal whatever their type, trailing empty cells and empty strings are ignored.
+        assertEquals(Arrays.asList("[id, name, note]", "[1, a, x]", "[1, a, y]", "[2, b]", "[3]"), rows);
+        assertEquals(4, dedup.getDistinctCount());
+        assertEquals(3, dedup.getDuplicateCount());
+    }
+
+    @Test
+    public void testReportDuplicates() throws Exception {
+        final Deduplicator dedup = new Deduplicator().setHeader(true).setReportDuplicates(true);
+        assertEquals(Arrays.asList("[id, name, note]", "[2.0, b, ]", "[1, a, x]", "[3, ]"), dedup(dedup, RECORDS));
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        final Deduplicator dedup = new Deduplicator().setHeader(true).setColumns(0, 1);
+        assertEquals(Arrays.asList("[id, name, note]", "[1, a, x]", "[2, b]", "[3]"), dedup(dedup, RECORDS));
+        assertEquals(4, dedup.getDuplicateCount());
+    }
+
+    @Test
+    public void testDiskBackedMatchesHeap() throws Exception {
+        final Object[][] records = new Object[20000][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new Object[]{"k" + (i % 7000), (long) (i % 7000)};
+        }
+        // the tables grow beyond the expected records.
+        final Deduplicator heap = new Deduplicator().setExpectedRecords(16);
+        final List<String> expected = dedup(heap, records);
+        final Deduplicator disk = new Deduplicator().setExpectedRecords(16).setDiskBacked(true).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, dedup(disk, records));
+        assertEquals(7000, expected.size());
+        assertEquals(7000, disk.getDistinctCount());
+        assertEquals(13000, disk.getDuplicateCount());
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private static List<String> dedup(final Deduplicator dedup, final Object[][] records) {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        dedup.dedup(MemorySpreadsheetParser.of(records), writer);
+        final List<String> rows = new ArrayList<String>();
+        for (final List<Object> row : writer.getRows()) {
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+}
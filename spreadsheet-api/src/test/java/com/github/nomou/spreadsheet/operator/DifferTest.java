@@ -0,0 +1,237 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Keyed diff of two inputs, in memory and partitioned to disk.
+ */
+public class DifferTest {
+    private static final Object[][] OLD = {
+            {"id", "name", "score"},
+            {1, "a", 10},
+            {2, "b", 20},
+            {3, "c", 30},
+            {4, "d"}
+    };
+    private static final Object[][] NEW = {
+            {"id", "name", "score"},
+            {1L, "a", 10.0},
+            {3, "c", 31},
+            {4, "d", ""},
+            {5, "e", 50},
+            {2, "B", 20}
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDiff() {
+        final Differ differ = new Differ().setKeys(0).setHeader(true);
+        final List<String> changes = diff(differ, OLD, NEW);
+        // integral numbers are equal whatever their type, trailing empty cells and empty strings are ignored.
+        assertEquals(Arrays.asList("~[3, c, 30]>[3, c, 31]@[2]", "+[5, e, 50]", "~[2, b, 20]>[2, B, 20]@[1]"), changes);
+        assertEquals(1, differ.getInsertedCount());
+        assertEquals(0, differ.getDeletedCount());
+        assertEquals(2, differ.getChangedCount());
+        assertEquals(2, differ.getUnchangedCount());
+        assertFalse(differ.isSpilled());
+    }
+
+    @Test
+    public void testDeleted() {
+        final Differ differ = new Differ().setKeys(0).setHeader(true);
+        final List<String> changes = diff(differ, NEW, OLD);
+        assertTrue(changes.contains("-[5, e, 50]"));
+        assertEquals(1, differ.getDeletedCount());
+        assertEquals(0, differ.getInsertedCount());
+        assertEquals(2, differ.getChangedCount());
+    }
+
+    @Test
+    public void testHeaderIsCompared() {
+        final Differ differ = new Differ().setKeys(0);
+        final List<String> changes = diff(differ, new Object[][]{{"id", "name"}}, new Object[][]{{"id", "title"}});
+        assertEquals(Collections.singletonList("~[id, name]>[id, title]@[1]"), changes);
+    }
+
+    @Test
+    public void testColumns() {
+        final Differ differ = new Differ().setKeys(0).setHeader(true).setColumns(2, 2);
+        assertEquals(Collections.singletonList("~[3, c, 30]>[3, c, 31]@[2]"), filter(diff(differ, OLD, NEW), '~'));
+        assertEquals(3, differ.getUnchangedCount());
+    }
+
+    @Test
+    public void testCompositeKeys() {
+        final Object[][] old = {{"x", 1, "a"}, {"x", 2, "b"}, {"y", 1, "c"}};
+        final Object[][] now = {{"y", 1, "c"}, {"x", 2, "B"}, {"y", 2, "d"}};
+        final Differ differ = new Differ().setKeys(0, 1);
+        final List<String> changes = diff(differ, old, now);
+        assertEquals(Arrays.asList("~[x, 2, b]>[x, 2, B]@[2]", "+[y, 2, d]", "-[x, 1, a]"), changes);
+    }
+
+    @Test
+    public void testDuplicateKeys() {
+        final Object[][] old = {{1, "a"}, {1, "b"}};
+        final Object[][] now = {{1, "a"}, {1, "c"}, {1, "d"}};
+        final Differ differ = new Differ().setKeys(0);
+        final List<String> changes = diff(differ, old, now);
+        // the first records of the key are matched, the others are inserted or deleted.
+        assertEquals(Arrays.asList("+[1, c]", "+[1, d]", "-[1, b]"), changes);
+        assertEquals(1, differ.getUnchangedCount());
+    }
+
+    @Test
+    public void testSpillMatchesMemory() {
+        assertSpillMatchesMemory(new Differ().setKeys(0).setMaxEntries(500).setPartitions(5).setSpillDirectory(folder.getRoot()));
+    }
+
+    @Test
+    public void testOversizedPartitionsAreSplit() {
+        // 2500 old records per partition, partitioned again until a partition holds less than 40 records.
+        assertSpillMatchesMemory(new Differ().setKeys(0).setMaxEntries(40).setPartitions(2).setSpillDirectory(folder.getRoot()));
+    }
+
+    @Test
+    public void testTooManyRecordsPerKey() {
+        final Object[][] old = new Object[100][];
+        for (int i = 0; i < old.length; i++) {
+            old[i] = new Object[]{1, i};
+        }
+        try {
+            diff(new Differ().setKeys(0).setMaxEntries(10).setPartitions(2).setSpillDirectory(folder.getRoot()), old, old);
+            fail();
+        } catch (final SpreadsheetException expected) {
+            assertTrue(expected.getMessage().contains("too many records per key"));
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private void assertSpillMatchesMemory(final Differ spilled) {
+        final Object[][] old = new Object[5000][];
+        final Object[][] now = new Object[5000][];
+        for (int i = 0; i < old.length; i++) {
+            old[i] = new Object[]{i, "v" + i, i % 10};
+            // keys shifted by 100: 100 deleted, 100 inserted, every 7th record changed.
+            final int key = i + 100;
+            now[i] = new Object[]{key, "v" + key, 0 == key % 7 ? -1 : key % 10};
+        }
+        final Differ memory = new Differ().setKeys(0);
+        final List<String> expected = diff(memory, old, now);
+        assertFalse(memory.isSpilled());
+
+        final List<String> changes = diff(spilled, old, now);
+        assertTrue(spilled.isSpilled());
+        assertEquals(0, folder.getRoot().list().length);
+
+        Collections.sort(expected);
+        Collections.sort(changes);
+        assertEquals(expected, changes);
+        assertEquals(100, spilled.getInsertedCount());
+        assertEquals(100, spilled.getDeletedCount());
+        assertEquals(memory.getChangedCount(), spilled.getChangedCount());
+        assertEquals(memory.getUnchangedCount(), spilled.getUnchangedCount());
+        assertEquals(4900, spilled.getChangedCount() + spilled.getUnchangedCount());
+    }
+
+    @Test
+    public void testSpillWithEmptyNewInput() {
+        final Object[][] old = new Object[100][];
+        for (int i = 0; i < old.length; i++) {
+            old[i] = new Object[]{i};
+        }
+        final Differ differ = new Differ().setKeys(0).setMaxEntries(10).setSpillDirectory(folder.getRoot());
+        assertEquals(100, diff(differ, old, new Object[0][]).size());
+        assertEquals(100, differ.getDeletedCount());
+        assertTrue(differ.isSpilled());
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testCountsAreReset() {
+        final Differ differ = new Differ().setKeys(0).setHeader(true);
+        diff(differ, OLD, NEW);
+        diff(differ, OLD, OLD);
+        assertEquals(0, differ.getInsertedCount());
+        assertEquals(0, differ.getChangedCount());
+        assertEquals(4, differ.getUnchangedCount());
+    }
+
+    @Test
+    public void testIllegalArguments() {
+        try {
+            new Differ().diff(MemorySpreadsheetParser.of(OLD), MemorySpreadsheetParser.of(NEW), new Recorder());
+            fail();
+        } catch (final IllegalStateException expected) {
+            // expected.
+        }
+        try {
+            new Differ().setKeys();
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+        try {
+            new Differ().setColumns(-1);
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+        try {
+            new Differ().setMaxEntries(0);
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+    }
+
+    private static List<String> diff(final Differ differ, final Object[][] old, final Object[][] now) {
+        final Recorder recorder = new Recorder();
+        differ.diff(MemorySpreadsheetParser.of(old), MemorySpreadsheetParser.of(now), recorder);
+        return recorder.changes;
+    }
+
+    private static List<String> filter(final List<String> changes, final char type) {
+        final List<String> filtered = new ArrayList<String>();
+        for (final String change : changes) {
+            if (type == change.charAt(0)) {
+                filtered.add(change);
+            }
+        }
+        return filtered;
+    }
+
+    private static class Recorder implements DiffListener {
+        final List<String> changes = new ArrayList<String>();
+
+        @Override
+        public void inserted(final Object[] record) {
+            changes.add("+" + Arrays.toString(record));
+        }
+
+        @Override
+        public void deleted(final Object[] record) {
+            changes.add("-" + Arrays.toString(record));
+        }
+
+        @Override
+        public void changed(final Object[] oldRecord, final Object[] newRecord, final int[] columns) {
+            changes.add("~" + Arrays.toString(oldRecord) + ">" + Arrays.toString(newRecord) + "@" + Arrays.toString(columns));
+        }
+    }
+}
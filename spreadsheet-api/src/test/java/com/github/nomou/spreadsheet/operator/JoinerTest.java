@@ -0,0 +1,135 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.MemorySpreadsheetWriter;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Hash join, in memory and partitioned.
+ */
+public class JoinerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Object[][] ORDERS = {
+            {"order", "customer"},
+            {"o1", 1},
+            {"o2", 2},
+            {"o3", 3},
+            {"o4", null},
+            {"o5", 1L}
+    };
+    private static final Object[][] CUSTOMERS = {
+            {"id", "name"},
+            {1, "alice"},
+            {2.0D, "bob"},
+            {2, "bob2"}
+    };
+
+    @Test
+    public void testInnerJoin() throws Exception {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        final Joiner joiner = new Joiner().on(new int[]{1}, new int[]{0}).setHeader(true);
+        final long records = joiner.join(MemorySpreadsheetParser.of(ORDERS), MemorySpreadsheetParser.of(CUSTOMERS), writer);
+        assertEquals(4, records);
+        assertFalse(joiner.isSpilled());
+        // integral numbers match whatever their type, a key matching several records is written once per match.
+        assertEquals(Arrays.asList("[order, customer, name]", "[o1, 1, alice]", "[o2, 2, bob]", "[o2, 2, bob2]", "[o5, 1, alice]"),
+                toStrings(writer));
+    }
+
+    @Test
+    public void testLeftJoin() throws Exception {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        final long records = new Joiner().on(new int[]{1}, new int[]{0}).setJoinType(JoinType.LEFT).setHeader(true)
+                .join(MemorySpreadsheetParser.of(ORDERS), MemorySpreadsheetParser.of(CUSTOMERS), writer);
+        assertEquals(6, records);
+        final List<String> rows = toStrings(writer);
+        assertEquals("[o3, 3, null]", rows.get(4));
+        // null keys never match.
+        assertEquals("[o4, null, null]", rows.get(5));
+        assertEquals("[o5, 1, alice]", rows.get(6));
+    }
+
+    @Test
+    public void testPartitionedJoinMatchesInMemory() throws Exception {
+        final Object[][] lookup = new Object[3000][];
+        for (int i = 0; i < lookup.length; i++) {
+            lookup[i] = new Object[]{i % 1500, "v" + i};
+        }
+        final Object[][] input = new Object[4000][];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = new Object[]{"r" + i, (long) (i % 2000)};
+        }
+        final List<String> expected = join(new Joiner(), input, lookup);
+        // 3000 input records match 2 lookup records, 1000 do not match.
+        assertEquals(3000 * 2 + 1000, expected.size());
+
+        final Joiner joiner = new Joiner().setMaxLookupBytes(2048).setPartitions(2).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, join(joiner, input, lookup));
+        assertTrue(joiner.isSpilled());
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testSkewedKeyFails() throws Exception {
+        final Object[][] lookup = new Object[500][];
+        for (int i = 0; i < lookup.length; i++) {
+            lookup[i] = new Object[]{"same", "v" + i};
+        }
+        final Joiner joiner = new Joiner().setMaxLookupBytes(256).setPartitions(2).setSpillDirectory(folder.getRoot());
+        try {
+            join(joiner, new Object[][]{{"r", "same"}}, lookup);
+            fail("the records of a key exceeded the max lookup bytes");
+        } catch (final SpreadsheetException expected) {
+            assertTrue(expected.getMessage().contains("too many records per key"));
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testRaggedInput() throws Exception {
+        final Object[][] input = {
+                {"o1", 1},
+                {"o2", 2, null, "note"},
+                {"o3", 1, "x"}
+        };
+        final List<String> expected = Arrays.asList("[o1, 1, alice]", "[o2, 2, null, note, bob2]", "[o2, 2, null, note, bob]",
+                "[o3, 1, x, alice]");
+        // the trailing columns of the records wider than the first record are kept, in memory and partitioned.
+        assertEquals(expected, join(new Joiner(), input, CUSTOMERS));
+        final Joiner partitioned = new Joiner().setMaxLookupBytes(32).setPartitions(2).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, join(partitioned, input, CUSTOMERS));
+        assertTrue(partitioned.isSpilled());
+    }
+
+    private static List<String> join(final Joiner joiner, final Object[][] input, final Object[][] lookup) {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        joiner.on(new int[]{1}, new int[]{0}).setJoinType(JoinType.LEFT)
+                .join(MemorySpreadsheetParser.of(input), MemorySpreadsheetParser.of(lookup), writer);
+        final List<String> rows = toStrings(writer);
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static List<String> toStrings(final MemorySpreadsheetWriter writer) {
+        final List<String> rows = new ArrayList<String>();
+        for (final List<Object> row : writer.getRows()) {
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+}
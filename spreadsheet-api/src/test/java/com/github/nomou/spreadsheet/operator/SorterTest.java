@@ -0,0 +1,127 @@
+package com.github.nomou.spreadsheet.operator;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.MemorySpreadsheetWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * External merge sort, in memory and spilled.
+ */
+public class SorterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testValuesOrderedByType() throws Exception {
+        final Date date = new Date(0);
+        final List<String> sorted = sort(new Sorter().orderBy(0), new Object[][]{
+                {"b"}, {2}, {date}, {true}, {""}, {"a"}, {1.5}, {false}, {"10"}
+        });
+        assertEquals(Arrays.asList("[]", "[false]", "[true]", "[1.5]", "[2]", "[" + date + "]", "[10]", "[a]", "[b]"), sorted);
+    }
+
+    @Test
+    public void testDescendingAndStable() throws Exception {
+        final List<String> sorted = sort(new Sorter().orderBy(0, true).setHeader(true), new Object[][]{
+                {"k", "seq"}, {1, "a"}, {2, "b"}, {1, "c"}, {2, "d"}, {1, "e"}
+        });
+        assertEquals(Arrays.asList("[k, seq]", "[2, b]", "[2, d]", "[1, a]", "[1, c]", "[1, e]"), sorted);
+    }
+
+    @Test
+    public void testSpilledRunsMatchInMemory() throws Exception {
+        final Object[][] rows = randomRows(5000);
+        final List<String> expected = sort(new Sorter().orderBy(0).orderBy(1, true), rows);
+
+        final Sorter sorter = new Sorter().orderBy(0).orderBy(1, true)
+                .setRunSize(97).setMergeFactor(3).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, sort(sorter, rows));
+        // several merge passes.
+        assertTrue(sorter.getRunCount() > 9);
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testParallelRunsMatchInMemory() throws Exception {
+        final Object[][] rows = randomRows(5000);
+        final List<String> expected = sort(new Sorter().orderBy(0).orderBy(1, true), rows);
+        final Sorter sorter = new Sorter().orderBy(0).orderBy(1, true)
+                .setRunSize(250).setParallelism(3).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, sort(sorter, rows));
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testSpilledTypesMatchInMemory() throws Exception {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(0);
+        final Object[][] rows = new Object[10][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i, (short) i, 1.5F, (double) i, new BigInteger("12345678901234567890"), calendar, new Date(i), "s", null, true};
+        }
+        final List<String> expected = types(new Sorter().orderBy(0), rows);
+        final Sorter sorter = new Sorter().orderBy(0).setRunSize(3).setSpillDirectory(folder.getRoot());
+        assertEquals(expected, types(sorter, rows));
+        assertTrue(0 < sorter.getRunCount());
+        assertEquals("[Long, Long, Double, Double, BigDecimal, Date, Date, String, null, Boolean]", expected.get(0));
+    }
+
+    @Test
+    public void testSingleRunIsNotSpilled() throws Exception {
+        final Sorter sorter = new Sorter().orderBy(0).setSpillDirectory(folder.getRoot());
+        sort(sorter, randomRows(100));
+        assertEquals(0, sorter.getRunCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoOrderBy() throws Exception {
+        new Sorter().sort(MemorySpreadsheetParser.of(new Object[]{1}), new MemorySpreadsheetWriter());
+    }
+
+    private static Object[][] randomRows(final int n) {
+        final Random random = new Random(42);
+        final Object[][] rows = new Object[n][];
+        for (int i = 0; i < n; i++) {
+            rows[i] = new Object[]{"k" + random.nextInt(50), (long) random.nextInt(1000), i};
+        }
+        return rows;
+    }
+
+    private static List<String> types(final Sorter sorter, final Object[][] rows) {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        sorter.sort(MemorySpreadsheetParser.of(rows), writer);
+        final List<String> types = new ArrayList<String>();
+        for (final List<Object> row : writer.getRows()) {
+            final List<String> names = new ArrayList<String>();
+            for (final Object value : row) {
+                names.add(null != value ? value.getClass().getSimpleName() : null);
+            }
+            types.add(names.toString());
+        }
+        return types;
+    }
+
+    private static List<String> sort(final Sorter sorter, final Object[][] rows) {
+        final MemorySpreadsheetWriter writer = new MemorySpreadsheetWriter();
+        sorter.sort(MemorySpreadsheetParser.of(rows), writer);
+        assertEquals(rows.length, writer.getRows().size());
+        final List<String> sorted = new ArrayList<String>();
+        for (final List<Object> row : writer.getRows()) {
+            sorted.add(row.toString());
+        }
+        return sorted;
+    }
+}
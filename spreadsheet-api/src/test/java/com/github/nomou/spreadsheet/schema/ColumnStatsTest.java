@@ -0,0 +1,219 @@
+package com.github.nomou.spreadsheet.schema;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The column statistics collected while parsing.
+ */
+public class ColumnStatsTest {
+    private static final Date D1 = new Date(1500000000000L);
+    private static final Date D2 = new Date(1600000000000L);
+    private static final Object[][] ROWS = {
+            {"id", " name ", "amount", "paid", "date"},
+            {1, "alice", 2.5, true, D2},
+            {2L, " bob ", "-1.5", "FALSE", D1},
+            {3, "", 10, false},
+            {4, "carol-anne", "  ", "true", D1},
+            {5}
+    };
+
+    @Test
+    public void testCounters() {
+        final List<ColumnStats> columns = collect(new ColumnStatsCollector().setHeader(true), ROWS);
+        assertEquals(5, columns.size());
+
+        final ColumnStats id = columns.get(0);
+        assertEquals(0, id.getColumn());
+        assertEquals("id", id.getName());
+        assertEquals(5, id.getCount());
+        assertEquals(0, id.getNullCount());
+        assertEquals(5, id.getNumberCount());
+        assertEquals(1, id.getMin(), 0);
+        assertEquals(5, id.getMax(), 0);
+        assertEquals(5, id.getDistinctCount());
+
+        // the blank texts are nulls, the missing cells too.
+        final ColumnStats name = columns.get(1);
+        assertEquals("name", name.getName());
+        assertEquals(2, name.getNullCount());
+        assertEquals(3, name.getTextCount());
+        assertEquals(3, name.getMinLength());
+        assertEquals(10, name.getMaxLength());
+        final long[] histogram = new long[32];
+        histogram[2] = 1;
+        histogram[3] = 1;
+        histogram[4] = 1;
+        assertArrayEquals(histogram, name.getLengthHistogram());
+
+        // the numeric texts are numbers.
+        final ColumnStats amount = columns.get(2);
+        assertEquals(3, amount.getNumberCount());
+        assertEquals(0, amount.getTextCount());
+        assertEquals(-1.5, amount.getMin(), 0);
+        assertEquals(10, amount.getMax(), 0);
+        assertEquals(-1, amount.getMinLength());
+
+        final ColumnStats paid = columns.get(3);
+        assertEquals(4, paid.getBooleanCount());
+        assertEquals(2, paid.getDistinctCount());
+        assertTrue(Double.isNaN(paid.getMin()));
+
+        final ColumnStats date = columns.get(4);
+        assertEquals(3, date.getDateCount());
+        assertEquals(D1, date.getMinDate());
+        assertEquals(D2, date.getMaxDate());
+        assertEquals(2, date.getDistinctCount());
+        assertEquals(2, date.getNullCount());
+    }
+
+    @Test
+    public void testWithoutHeader() {
+        final List<ColumnStats> columns = collect(new ColumnStatsCollector(), ROWS);
+        assertNull(columns.get(0).getName());
+        assertEquals(6, columns.get(0).getCount());
+        assertEquals(1, columns.get(0).getTextCount());
+    }
+
+    @Test
+    public void testEqualValuesOfDifferentTypes() {
+        final List<ColumnStats> columns = collect(new ColumnStatsCollector(), new Object[][]{
+                {1}, {1L}, {1.0}, {"1"}, {" 1 "}, {0.0}, {-0.0}, {"x"}, {"x "}, {true}, {"TRUE"}});
+        // 1, 0, "x" and true.
+        assertEquals(4, columns.get(0).getDistinctCount());
+    }
+
+    @Test
+    public void testDistinctEstimate() {
+        final int n = 100000;
+        final Object[][] rows = new Object[n * 2][];
+        for (int i = 0; i < rows.length; i++) {
+            // every value twice, the numbers and the texts hash differently.
+            rows[i] = new Object[]{i % n, "k" + (i % n)};
+        }
+        final List<ColumnStats> columns = collect(new ColumnStatsCollector(), rows);
+        // the standard error is 1.6% at the default precision.
+        assertEquals(n, columns.get(0).getDistinctCount(), n * 0.05);
+        assertEquals(n, columns.get(1).getDistinctCount(), n * 0.05);
+    }
+
+    @Test
+    public void testSmallCardinalities() {
+        final HyperLogLog sketch = new HyperLogLog(12);
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 100; i++) {
+            sketch.add(HyperLogLog.mix(i % 20));
+        }
+        assertEquals(20, sketch.estimate());
+        // the distinct count never exceeds the number of values.
+        assertEquals(2, collect(new ColumnStatsCollector(4), new Object[][]{{"a"}, {"b"}}).get(0).getDistinctCount());
+    }
+
+    @Test
+    public void testPrecision() {
+        for (final int precision : new int[]{3, 17}) {
+            try {
+                new ColumnStatsCollector(precision);
+                fail();
+            } catch (final IllegalArgumentException expected) {
+                // expected.
+            }
+        }
+        final HyperLogLog coarse = new HyperLogLog(4);
+        final HyperLogLog fine = new HyperLogLog(16);
+        for (int i = 0; i < 50000; i++) {
+            coarse.add(HyperLogLog.mix(i));
+            fine.add(HyperLogLog.mix(i));
+        }
+        assertEquals(50000, fine.estimate(), 50000 * 0.02);
+        assertTrue(0 < coarse.estimate());
+    }
+
+    @Test
+    public void testWorksheets() {
+        final ColumnStatsCollector statistics = new ColumnStatsCollector().setHeader(true);
+        final SpreadsheetParser parser = new MemorySpreadsheetParser(ROWS, new Object[][]{{"code"}, {"a"}, {"b"}});
+        parser.configure(SpreadsheetParser.OPTION_STATISTICS, statistics);
+        assertEquals(SpreadsheetParser.START_WORKSHEET, parser.next());
+        while (SpreadsheetParser.END_WORKSHEET != parser.next()) {
+            assertNull(statistics.getStats(0));
+        }
+        assertEquals(5, statistics.getStats(0).size());
+        assertNull(statistics.getStats(1));
+        while (parser.hasNext()) {
+            parser.next();
+        }
+        assertEquals("code", statistics.getStats(1).get(0).getName());
+        assertEquals(2, statistics.getStats(1).get(0).getTextCount());
+    }
+
+    @Test
+    public void testPushModeMatchesPull() {
+        final ColumnStatsCollector pull = new ColumnStatsCollector().setHeader(true);
+        collect(pull, ROWS);
+        final ColumnStatsCollector push = new ColumnStatsCollector().setHeader(true);
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_STATISTICS, push);
+        parser.parse(new RowHandler() {
+            @Override
+            public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+            }
+
+            @Override
+            public void onRow(final int row) {
+            }
+
+            @Override
+            public void onCell(final int col, final Object value) {
+            }
+
+            @Override
+            public void endRow(final int row) {
+            }
+
+            @Override
+            public void endWorksheet(final int worksheetIndex) {
+            }
+        });
+        assertEquals(pull.getStats(0).toString(), push.getStats(0).toString());
+    }
+
+    @Test
+    public void testRecordEventsMatchCellEvents() {
+        final ColumnStatsCollector cells = new ColumnStatsCollector().setHeader(true);
+        collect(cells, ROWS);
+        final ColumnStatsCollector records = new ColumnStatsCollector().setHeader(true);
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        parser.configure(SpreadsheetParser.OPTION_STATISTICS, records);
+        while (parser.hasNext()) {
+            parser.next();
+        }
+        assertEquals(cells.getStats(0).toString(), records.getStats(0).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalOption() {
+        MemorySpreadsheetParser.of(ROWS).configure(SpreadsheetParser.OPTION_STATISTICS, "statistics");
+    }
+
+    private static List<ColumnStats> collect(final ColumnStatsCollector statistics, final Object[][] rows) {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(rows);
+        parser.configure(SpreadsheetParser.OPTION_STATISTICS, statistics);
+        while (parser.hasNext()) {
+            parser.next();
+        }
+        return statistics.getStats(0);
+    }
+}
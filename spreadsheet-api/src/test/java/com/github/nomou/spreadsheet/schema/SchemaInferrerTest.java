@@ -0,0 +1,96 @@
+package com.github.nomou.spreadsheet.schema;
+
+import com.github.nomou.spreadsheet.IllegalFormatException;
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Schema inference and conversion.
+ */
+public class SchemaInferrerTest {
+
+    @Test
+    public void testInferWithHeader() throws Exception {
+        final SpreadsheetSchema schema = new SchemaInferrer().setHeader(true).infer(MemorySpreadsheetParser.of(
+                new Object[]{"id", "price", "day", "flag", "name"},
+                new Object[]{"1", "1.5", "2020-01-02", "true", "a"},
+                new Object[]{2L, 3, "2020-01-03", false, "b"},
+                new Object[]{"3", null, "2020-01-04", "FALSE", "7"}
+        ));
+        assertTrue(schema.hasHeader());
+        assertEquals(3, schema.getSampledRows());
+        assertEquals(5, schema.getColumnCount());
+        assertEquals(ColumnType.INTEGER, schema.getColumn(0).getType());
+        assertEquals(ColumnType.DECIMAL, schema.getColumn(1).getType());
+        assertTrue(schema.getColumn(1).isNullable());
+        assertEquals(ColumnType.DATE, schema.getColumn(2).getType());
+        assertEquals("yyyy-MM-dd", schema.getColumn(2).getDateFormat());
+        assertEquals(ColumnType.BOOLEAN, schema.getColumn(3).getType());
+        assertEquals(ColumnType.STRING, schema.getColumn(4).getType());
+        assertFalse(schema.getColumn(4).isNullable());
+        assertEquals(4, schema.indexOf("name"));
+    }
+
+    @Test
+    public void testMissingColumnsAreNullable() throws Exception {
+        final SpreadsheetSchema schema = new SchemaInferrer().infer(MemorySpreadsheetParser.of(
+                new Object[]{"1"},
+                new Object[]{"2", "x"}
+        ));
+        assertEquals(2, schema.getColumnCount());
+        assertFalse(schema.getColumn(0).isNullable());
+        assertTrue(schema.getColumn(1).isNullable());
+        assertEquals(1, schema.getColumn(1).getNulls());
+    }
+
+    @Test
+    public void testStrideStopsAtSampleSize() throws Exception {
+        final Object[][] rows = new Object[1000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{String.valueOf(i)};
+        }
+        final SpreadsheetSchema schema = new SchemaInferrer().setSampling(SchemaInferrer.Sampling.STRIDE)
+                .setHeadRows(10).setStride(10).setSampleSize(5).infer(MemorySpreadsheetParser.of(rows));
+        assertEquals(15, schema.getSampledRows());
+        assertEquals(ColumnType.INTEGER, schema.getColumn(0).getType());
+    }
+
+    @Test
+    public void testReservoirSamplesAllRowsUpToSampleSize() throws Exception {
+        final Object[][] rows = new Object[500][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i < 499 ? String.valueOf(i) : "x"};
+        }
+        final SpreadsheetSchema schema = new SchemaInferrer().setHeadRows(0).setSampleSize(1000)
+                .infer(MemorySpreadsheetParser.of(rows));
+        assertEquals(500, schema.getSampledRows());
+        // the single string row is sampled.
+        assertEquals(ColumnType.STRING, schema.getColumn(0).getType());
+    }
+
+    @Test
+    public void testConvert() throws Exception {
+        final SpreadsheetSchema schema = new SchemaInferrer().setHeader(true).infer(MemorySpreadsheetParser.of(
+                new Object[]{"id", "price", "day"},
+                new Object[]{"+1", "1.5", "2020-01-02"}
+        ));
+        final Object[] values = schema.convert(new Object[]{"+12", " 2.25 ", "2020-01-03"});
+        assertEquals(12L, values[0]);
+        assertEquals(2.25, values[1]);
+        assertTrue(values[2] instanceof Date);
+        assertArrayEquals(new Object[]{null, null, null}, schema.convert(new Object[]{"", null, " "}));
+    }
+
+    @Test(expected = IllegalFormatException.class)
+    public void testConvertMismatch() throws Exception {
+        final SpreadsheetSchema schema = new SchemaInferrer().infer(MemorySpreadsheetParser.of(new Object[]{"1"}));
+        schema.convert(new Object[]{"x"});
+    }
+}
@@ -0,0 +1,218 @@
+package com.github.nomou.spreadsheet.table;
+
+import com.github.nomou.spreadsheet.MemorySpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.schema.ColumnType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Loading worksheets into the off-heap table and reading its cells.
+ */
+public class SheetTableTest {
+    private static final Date DATE = new Date(1500000000000L);
+    private static final Object[][] ROWS = {
+            {"id", "amount", "paid", "date"},
+            {1, 2.5, true, DATE},
+            {2L, -1.25f, false, null},
+            {3, null, null, DATE}
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTypedValues() {
+        final SheetTable table = SheetTable.load(MemorySpreadsheetParser.of(ROWS));
+        try {
+            assertEquals("sheet1", table.getWorksheetName());
+            assertEquals(4, table.getRowCount());
+            assertEquals(4, table.getColumnCount());
+
+            assertEquals("amount", table.get(0, 1));
+            assertEquals(1L, table.get(1, 0));
+            assertEquals(2.5, table.get(1, 1));
+            assertEquals(Boolean.TRUE, table.get(1, 2));
+            assertEquals(DATE, table.get(1, 3));
+
+            assertEquals(ColumnType.STRING, table.getType(0, 0));
+            assertEquals(ColumnType.INTEGER, table.getType(2, 0));
+            assertEquals(ColumnType.DECIMAL, table.getType(2, 1));
+            assertEquals(ColumnType.BOOLEAN, table.getType(2, 2));
+            assertEquals(ColumnType.DATE, table.getType(3, 3));
+
+            assertEquals(-1.25, table.getDouble(2, 1), 0);
+            assertEquals(3, table.getLong(3, 0));
+            assertEquals(2, table.getLong(1, 1));
+            assertEquals(3.0, table.getDouble(3, 0), 0);
+            assertFalse(table.getBoolean(2, 2));
+            assertEquals(DATE, table.getDate(3, 3));
+            assertEquals("2.5", table.getString(1, 1));
+        } finally {
+            table.close();
+        }
+    }
+
+    @Test
+    public void testNulls() {
+        final SheetTable table = SheetTable.load(MemorySpreadsheetParser.of(ROWS));
+        try {
+            assertTrue(table.isNull(3, 1));
+            assertNull(table.get(3, 1));
+            assertNull(table.getType(3, 1));
+            assertEquals(0, table.getDouble(3, 1), 0);
+            assertEquals(0, table.getLong(3, 1));
+            assertFalse(table.getBoolean(3, 2));
+            assertNull(table.getDate(2, 3));
+            assertNull(table.getString(3, 2));
+            assertFalse(table.isNull(3, 3));
+        } finally {
+            table.close();
+        }
+    }
+
+    @Test
+    public void testMixedTypesInColumn() {
+        final SheetTable table = SheetTable.load(MemorySpreadsheetParser.of(
+                new Object[]{1}, new Object[]{"a"}, new Object[]{2.5}, new Object[]{true}, new Object[]{DATE}, new Object[]{"a"}));
+        try {
+            assertEquals(1L, table.get(0, 0));
+            assertEquals("a", table.get(1, 0));
+            assertEquals(2.5, table.get(2, 0));
+            assertEquals(Boolean.TRUE, table.get(3, 0));
+            assertEquals(DATE, table.get(4, 0));
+            assertEquals("a", table.get(5, 0));
+            assertEquals(1, table.getDistinctStrings());
+        } finally {
+            table.close();
+        }
+    }
+
+    @Test
+    public void testTypeMismatch() {
+        final SheetTable table = SheetTable.load(MemorySpreadsheetParser.of(ROWS));
+        try {
+            try {
+                table.getDouble(0, 0);
+                fail();
+            } catch (final IllegalStateException expected) {
+                // expected.
+            }
+            try {
+                table.getBoolean(1, 0);
+                fail();
+            } catch (final IllegalStateException expected) {
+                // expected.
+            }
+            try {
+                table.getDate(1, 1);
+                fail();
+            } catch (final IllegalStateException expected) {
+                // expected.
+            }
+        } finally {
+            table.close();
+        }
+    }
+
+    @Test
+    public void testBounds() {
+        final SheetTable table = SheetTable.load(MemorySpreadsheetParser.of(ROWS));
+        try {
+            table.get(4, 0);
+            fail();
+        } catch (final IndexOutOfBoundsException expected) {
+            // expected.
+        }
+        try {
+            table.get(0, 4);
+            fail();
+        } catch (final IndexOutOfBoundsException expected) {
+            // expected.
+        }
+        table.close();
+        try {
+            table.get(0, 0);
+            fail();
+        } catch (final IllegalStateException expected) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testSegments() {
+        assertSegments(false);
+    }
+
+    @Test
+    public void testMapped() {
+        assertSegments(true);
+    }
+
+    @Test
+    public void testWorksheetIndex() {
+        final SpreadsheetParser parser = new MemorySpreadsheetParser(ROWS, new Object[][]{{"x", 1}, {"y", 2}});
+        final SheetTable table = SheetTable.load(parser, 1, false, null);
+        try {
+            assertEquals("sheet2", table.getWorksheetName());
+            assertEquals(2, table.getRowCount());
+            assertEquals("y", table.getString(1, 0));
+            assertEquals(2, table.getLong(1, 1));
+        } finally {
+            table.close();
+        }
+    }
+
+    @Test
+    public void testRecordEvents() {
+        final SpreadsheetParser parser = MemorySpreadsheetParser.of(ROWS);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        final SheetTable table = SheetTable.load(parser);
+        try {
+            assertEquals(4, table.getRowCount());
+            assertEquals(DATE, table.getDate(1, 3));
+            assertTrue(table.isNull(3, 1));
+        } finally {
+            table.close();
+        }
+    }
+
+    /**
+     * Loads more rows than a segment holds and reads them back.
+     */
+    private void assertSegments(final boolean mapped) {
+        final int rows = 40000;
+        final Object[][] values = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            values[i] = 0 == i % 3 ? new Object[]{i, "s" + (i % 100)} : new Object[]{i, null, i * 0.5};
+        }
+        final SheetTable table = SheetTable.load(MemorySpreadsheetParser.of(values), -1, mapped, folder.getRoot());
+        try {
+            assertEquals(rows, table.getRowCount());
+            assertEquals(100, table.getDistinctStrings());
+            assertTrue(0 < table.getMemoryUsage());
+            for (int i = 0; i < rows; i++) {
+                assertEquals(i, table.getSourceRow(i));
+                assertEquals(i, table.getLong(i, 0));
+                if (0 == i % 3) {
+                    assertEquals("s" + (i % 100), table.getString(i, 1));
+                    assertTrue(table.isNull(i, 2));
+                } else {
+                    assertTrue(table.isNull(i, 1));
+                    assertEquals(i * 0.5, table.getDouble(i, 2), 0);
+                }
+            }
+        } finally {
+            table.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.nomou.spreadsheet.util;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * The number parsing of char and byte ranges matches {@link Double#parseDouble(String)} and {@link Long#parseLong(String)}.
+ */
+public class NumberParserTest {
+    private static final String[] DOUBLES = {
+            "0", "-0", "+0", "0.0", "-0.0", "1", "-1", "1.5", ".5", "5.", "-.5", "00012.5000", "1e10", "1E-10", "1e+3",
+            "123456789012345678", "1234567890123456789", "12345678901234567890", "0.1", "0.2", "0.3", "2.2250738585072014E-308",
+            "2.2250738585072011E-308", "4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1.7976931348623157e308",
+            "1.7976931348623158e308", "1.7976931348623159e308", "1e309", "1e-400", "9007199254740993", "9007199254740992.5",
+            "179769313486231570000000000000000000000000000000000000000000000000000000000000000000000000000000000000000",
+            "0.000000000000000000000000000000000000000000001", "1e22", "1e23", "8.41e21", "5e-324", "3.14159265358979323846",
+            "NaN", "Infinity", "-Infinity", "0x1p3", "1.5d", "2f", " 1", "1e99999", "1e-99999"
+    };
+    private static final String[] NOT_NUMBERS = {"", "-", "+", ".", "e5", "1e", "1e+", "1.2.3", "1-2", "abc", "1,5", "--1"};
+
+    @Test
+    public void testParseDoubleMatchesJdk() {
+        for (final String text : DOUBLES) {
+            assertParseDouble(text);
+        }
+        for (final String text : NOT_NUMBERS) {
+            try {
+                NumberParser.parseDouble(text);
+                fail(text);
+            } catch (final NumberFormatException expected) {
+                // expected.
+            }
+        }
+    }
+
+    @Test
+    public void testRandomDoublesMatchJdk() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            final double value;
+            switch (i % 4) {
+                case 0:
+                    value = Double.longBitsToDouble(random.nextLong());
+                    break;
+                case 1:
+                    value = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+                    break;
+                case 2:
+                    value = random.nextInt(1000000) / 100D;
+                    break;
+                default:
+                    value = random.nextGaussian() * 1e6;
+            }
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                assertParseDouble(Double.toString(value));
+                assertParseDouble(String.format(Locale.ROOT, "%.6f", value));
+            }
+        }
+        // random digit strings, up to the fallback length.
+        for (int i = 0; i < 100000; i++) {
+            final StringBuilder text = new StringBuilder();
+            final int digits = 1 + random.nextInt(22);
+            final int dot = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == dot) {
+                    text.append('.');
+                }
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+            if (0 == i % 3) {
+                text.append('e').append(random.nextInt(700) - 350);
+            }
+            assertParseDouble(text.toString());
+        }
+    }
+
+    @Test
+    public void testParseLong() {
+        for (final String text : new String[]{"0", "-0", "+7", "42", "-42", "9223372036854775807", "-9223372036854775808", "007"}) {
+            final long expected = Long.parseLong(text);
+            assertEquals(text, expected, NumberParser.parseLong(text));
+            assertEquals(text, expected, NumberParser.parseLong(text.toCharArray(), 0, text.length()));
+            assertEquals(text, expected, NumberParser.parseLong(ascii(text), 0, text.length()));
+        }
+        for (final String text : new String[]{"", "-", "+", "1.0", "1e3", "9223372036854775808", "-9223372036854775809", " 1", "x"}) {
+            try {
+                NumberParser.parseLong(text);
+                fail(text);
+            } catch (final NumberFormatException expected) {
+                // expected.
+            }
+        }
+    }
+
+    @Test
+    public void testParseNumber() {
+        assertEquals(12L, NumberParser.parseNumber("12"));
+        assertEquals(-12L, NumberParser.parseNumber("-12"));
+        assertEquals(Long.MAX_VALUE, NumberParser.parseNumber("9223372036854775807"));
+        // out of the range of long.
+        assertEquals(9.223372036854775808E18, NumberParser.parseNumber("9223372036854775808"));
+        assertEquals(1.5, NumberParser.parseNumber("1.5"));
+        assertEquals(1.0, NumberParser.parseNumber("1.0"));
+        assertEquals(1e10, NumberParser.parseNumber("1e10"));
+        assertEquals(0.5, NumberParser.parseNumber(".5"));
+        for (final String text : new String[]{"", "-", ".", "1e", "NaN", "Infinity", "0x10", "1.5d", " 1", "1 ", "a1"}) {
+            assertNull(text, NumberParser.parseNumber(text));
+        }
+    }
+
+    @Test
+    public void testRanges() {
+        final String text = "ab|-12.5e2|cd";
+        final char[] chars = text.toCharArray();
+        final byte[] bytes = ascii(text);
+        assertEquals(-1250.0, NumberParser.parseDouble(text, 3, 10), 0);
+        assertEquals(-1250.0, NumberParser.parseDouble(chars, 3, 10), 0);
+        assertEquals(-1250.0, NumberParser.parseDouble(bytes, 3, 10), 0);
+        assertEquals(-1250.0, NumberParser.parseNumber(new StringBuilder(text), 3, 10));
+        assertEquals(-12L, NumberParser.parseNumber(chars, 3, 6));
+        assertEquals(-12L, NumberParser.parseNumber(bytes, 3, 6));
+        assertEquals(12L, NumberParser.parseLong(chars, 4, 6));
+        assertNull(NumberParser.parseNumber(chars, 2, 10));
+        try {
+            NumberParser.parseDouble(chars, 0, 10);
+            fail();
+        } catch (final NumberFormatException expected) {
+            assertEquals("For input string: \"ab|-12.5e2\"", expected.getMessage());
+        }
+    }
+
+    private static void assertParseDouble(final String text) {
+        final double expected = Double.parseDouble(text);
+        final long bits = Double.doubleToRawLongBits(expected);
+        assertEquals(text, bits, Double.doubleToRawLongBits(NumberParser.parseDouble(text)));
+        final String padded = "x" + text + "y";
+        assertEquals(text, bits, Double.doubleToRawLongBits(NumberParser.parseDouble(padded.toCharArray(), 1, padded.length() - 1)));
+        assertEquals(text, bits, Double.doubleToRawLongBits(NumberParser.parseDouble(padded, 1, padded.length() - 1)));
+        assertEquals(text, bits, Double.doubleToRawLongBits(NumberParser.parseDouble(ascii(padded), 1, padded.length() - 1)));
+    }
+
+    private static byte[] ascii(final String text) {
+        final byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.nomou.spreadsheet.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * String deduplication cache.
+ */
+public class StringCacheTest {
+
+    @Test
+    public void testCanonicalInstance() {
+        final StringCache cache = new StringCache();
+        final String first = cache.get(new StringBuilder("Beijing"));
+        final String second = cache.get(new StringBuilder("Beijing"));
+        assertEquals("Beijing", first);
+        assertSame(first, second);
+        assertSame(first, cache.get(new String("Beijing")));
+        assertEquals(3, cache.getLookups());
+        assertEquals(2, cache.getHits());
+        assertEquals(2 / 3D, cache.getHitRate(), 1e-9);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUncachedValues() {
+        final StringCache cache = new StringCache(16, 4);
+        assertNull(cache.get((String) null));
+        assertSame("", cache.get(new StringBuilder()));
+        // longer than the max length.
+        assertNotSame(cache.get(new StringBuilder("abcde")), cache.get(new StringBuilder("abcde")));
+        assertEquals(0, cache.getLookups());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testBoundedCapacity() {
+        final StringCache cache = new StringCache(64, 16);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("v" + i, cache.get(new StringBuilder("v").append(i)));
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(10000, cache.getLookups());
+    }
+
+    @Test
+    public void testEvictionReplacesOlderEntry() {
+        // a single set of two ways.
+        final StringCache cache = new StringCache(2, 16);
+        final String a = cache.get(new StringBuilder("a"));
+        final String b = cache.get(new StringBuilder("b"));
+        assertSame(a, cache.get(new StringBuilder("a")));
+        assertSame(b, cache.get(new StringBuilder("b")));
+        cache.get(new StringBuilder("c"));
+        assertEquals(2, cache.size());
+        // "a" was the older entry.
+        assertNotSame(a, cache.get(new StringBuilder("a")));
+    }
+
+    @Test
+    public void testColumns() {
+        final StringCache cache = new StringCache().columns(1, 3);
+        assertFalse(cache.isEnabled(0));
+        assertTrue(cache.isEnabled(1));
+        assertTrue(cache.isEnabled(3));
+        assertFalse(cache.isEnabled(4));
+        final String s = new String("x");
+        assertSame(s, cache.get(0, s));
+        assertEquals(0, cache.getLookups());
+        final String canonical = cache.get(1, s);
+        assertSame(canonical, cache.get(3, new String("x")));
+    }
+
+    @Test
+    public void testClear() {
+        final StringCache cache = new StringCache();
+        cache.get("a");
+        cache.get("a");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getLookups());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalCapacity() {
+        new StringCache(1, 10);
+    }
+}
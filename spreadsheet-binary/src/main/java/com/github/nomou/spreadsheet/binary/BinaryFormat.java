@@ -0,0 +1,96 @@
+package com.github.nomou.spreadsheet.binary;
+
+import java.nio.charset.Charset;
+
+/**
+ * The layout of the binary spreadsheet format (big-endian).
+ *
+ * <pre>
+ * file      = header worksheet* TAG_END footer trailer
+ * header    = "NSSB" 0x1A 0x0A version(1) reserved(1)
+ * worksheet = TAG_WORKSHEET name block* TAG_END_WORKSHEET
+ * block     = TAG_BLOCK length(4) rows(4) columns(4) strings(4) firstRow(4) explicit(1) [row(4) * rows]
+ *             offsets(4 * (strings + 1)) bytes column*
+ * column    = type(1) data
+ *             NULL:  no data
+ *             MIXED: rows * (type(1) value(8))
+ *             other: null bitmap ((rows + 7) / 8) rows * value(width of the type)
+ * footer    = worksheets(4) (offset(8) records(4) firstRow(4) lastRow(4) firstColumn(4) lastColumn(4) name)*
+ * trailer   = footer offset(8) "NSSB"
+ * name      = length(4, -1 for null) UTF-8 bytes
+ * </pre>
+ *
+ * <p>The records of a worksheet are stored in blocks of up to {@link #BLOCK_ROWS} rows, column by column: all the
+ * values of a column of a block have a fixed width, so a cell is read at a computed offset without decoding the
+ * preceding cells. The strings of a block are stored once (UTF-8) and referenced by their index in the block.
+ * The row numbers of a block are stored only if they are not contiguous, the block length allows skipping a
+ * block and the footer gives the offset of each worksheet.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class BinaryFormat {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final byte[] MAGIC = {'N', 'S', 'S', 'B'};
+    static final byte[] HEADER = {'N', 'S', 'S', 'B', 0x1A, 0x0A};
+    static final byte VERSION = 2;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 12;
+
+    /**
+     * The maximum number of rows of a block.
+     */
+    static final int BLOCK_ROWS = 4096;
+
+    /* *************************
+     * Tags.
+     * *********************** */
+    static final byte TAG_END = 0;
+    static final byte TAG_WORKSHEET = 1;
+    static final byte TAG_BLOCK = 2;
+    static final byte TAG_END_WORKSHEET = 3;
+
+    /* *************************
+     * Column/cell types.
+     * *********************** */
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte DATE = 3;
+    static final byte BOOLEAN = 4;
+    static final byte STRING = 5;
+    static final byte MIXED = 6;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Gets the width of a value of a column type.
+     *
+     * @param type the column type
+     * @return the width in bytes
+     */
+    static int width(final byte type) {
+        if (MIXED == type) {
+            return 9;
+        } else if (STRING == type) {
+            return 4;
+        }
+        return BOOLEAN == type ? 1 : 8;
+    }
+
+    /**
+     * Gets the length of the data of a column of a block.
+     *
+     * @param type the column type
+     * @param rows the number of rows of the block
+     * @return the length in bytes
+     */
+    static int columnLength(final byte type, final int rows) {
+        if (NULL == type) {
+            return 0;
+        }
+        return (MIXED != type ? (rows + 7) >>> 3 : 0) + rows * width(type);
+    }
+}
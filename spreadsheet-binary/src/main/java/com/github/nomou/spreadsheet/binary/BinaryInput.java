@@ -0,0 +1,212 @@
+package com.github.nomou.spreadsheet.binary;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The input of a binary spreadsheet: a memory-mapped file, or a stream whose blocks are read into a heap buffer.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+abstract class BinaryInput implements Closeable {
+
+    /**
+     * Creates the input of a stream, a file stream is memory-mapped from its current position.
+     *
+     * @param in the input stream
+     * @return the input
+     * @throws IOException if an I/O error occurs
+     */
+    static BinaryInput open(final InputStream in) throws IOException {
+        if (in instanceof FileInputStream) {
+            final FileChannel channel = ((FileInputStream) in).getChannel();
+            final long start = channel.position();
+            final long size = channel.size() - start;
+            if (0 <= size && size <= Integer.MAX_VALUE) {
+                return new Mapped(channel.map(FileChannel.MapMode.READ_ONLY, start, size), in);
+            }
+        }
+        return new Stream(in);
+    }
+
+    /**
+     * Returns true if the whole input is memory-mapped.
+     *
+     * @return true if memory-mapped
+     */
+    abstract boolean isMapped();
+
+    abstract byte readByte() throws IOException;
+
+    abstract int readInt() throws IOException;
+
+    abstract long readLong() throws IOException;
+
+    /**
+     * Reads a block body, the returned buffer is valid until the next block is read.
+     *
+     * @param length the length of the block body
+     * @return the block body, from position 0 to the length
+     * @throws IOException if an I/O error occurs
+     */
+    abstract ByteBuffer readBlock(final int length) throws IOException;
+
+    abstract void skip(final int length) throws IOException;
+
+    String readName() throws IOException {
+        final int length = readInt();
+        if (0 > length) {
+            return null;
+        }
+        final ByteBuffer bytes = readBlock(length);
+        final byte[] name = new byte[length];
+        bytes.get(name);
+        return new String(name, BinaryFormat.UTF_8);
+    }
+
+    /**
+     * Memory-mapped input.
+     */
+    static class Mapped extends BinaryInput {
+        final ByteBuffer buffer;
+        private final Closeable source;
+
+        Mapped(final ByteBuffer buffer, final Closeable source) {
+            this.buffer = buffer;
+            this.source = source;
+        }
+
+        @Override
+        boolean isMapped() {
+            return true;
+        }
+
+        @Override
+        byte readByte() throws IOException {
+            check(1);
+            return buffer.get();
+        }
+
+        @Override
+        int readInt() throws IOException {
+            check(4);
+            return buffer.getInt();
+        }
+
+        @Override
+        long readLong() throws IOException {
+            check(8);
+            return buffer.getLong();
+        }
+
+        @Override
+        ByteBuffer readBlock(final int length) throws IOException {
+            check(length);
+            final ByteBuffer block = buffer.slice();
+            block.limit(length);
+            buffer.position(buffer.position() + length);
+            return block;
+        }
+
+        @Override
+        void skip(final int length) throws IOException {
+            check(length);
+            buffer.position(buffer.position() + length);
+        }
+
+        /**
+         * Creates an input reading the same mapping from an offset.
+         *
+         * @param offset the offset
+         * @return the input, closing it does not close this input
+         */
+        Mapped duplicate(final long offset) {
+            final ByteBuffer buffer = this.buffer.duplicate();
+            buffer.position((int) offset);
+            return new Mapped(buffer, null);
+        }
+
+        private void check(final int length) throws EOFException {
+            if (0 > length || buffer.remaining() < length) {
+                throw new EOFException();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null != source) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Stream input.
+     */
+    static class Stream extends BinaryInput {
+        private final DataInputStream in;
+        private byte[] block = new byte[0];
+
+        Stream(final InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        @Override
+        boolean isMapped() {
+            return false;
+        }
+
+        @Override
+        byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+        @Override
+        int readInt() throws IOException {
+            return in.readInt();
+        }
+
+        @Override
+        long readLong() throws IOException {
+            return in.readLong();
+        }
+
+        @Override
+        ByteBuffer readBlock(final int length) throws IOException {
+            if (0 > length) {
+                throw new EOFException();
+            }
+            if (length > block.length) {
+                block = new byte[Math.max(length, block.length << 1)];
+            }
+            in.readFully(block, 0, length);
+            return ByteBuffer.wrap(block, 0, length).slice();
+        }
+
+        @Override
+        void skip(final int length) throws IOException {
+            int remaining = length;
+            while (0 < remaining) {
+                final int skipped = in.skipBytes(remaining);
+                if (0 < skipped) {
+                    remaining -= skipped;
+                } else {
+                    in.readByte();
+                    remaining--;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.AbstractSpreadsheetParser;
+import com.github.nomou.spreadsheet.IllegalFormatException;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SplittableSpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_BLOCK;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.BOOLEAN;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.DATE;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.DOUBLE;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_END;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_END_WORKSHEET;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.LONG;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.MIXED;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.NULL;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.STRING;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.UTF_8;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_WORKSHEET;
+
+/**
+ * Binary spreadsheet parser.
+ *
+ * <p>A file stream is memory-mapped: the cells are read from the mapping without copying the blocks, and the
+ * worksheets can be split ({@link SplittableSpreadsheetParser}) by the offsets of the footer. Other streams are
+ * read block by block. The rows of a worksheet are numbered from 0 in writing order, the empty cells are not
+ * reported.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+class BinarySpreadsheetParser extends AbstractSpreadsheetParser implements SplittableSpreadsheetParser {
+    private final InputStream source;
+    private final boolean split;
+    private BinaryInput input;
+    private boolean headerRead;
+    private long[] worksheetOffsets;
+
+    /* *************************
+     * The current block.
+     * *********************** */
+    private ByteBuffer block;
+    private ByteBuffer blockView;
+    private int blockRows;
+    private int blockColumns;
+    private int blockFirstRow;
+    private int blockRowNumbers;
+    private byte[] columnTypes = new byte[16];
+    private int[] columnOffsets = new int[16];
+    private int stringOffsets;
+    private int stringBytes;
+    private String[] strings = new String[0];
+    private byte[] stringBuffer = new byte[64];
+
+    /* *************************
+     * The current row/cell.
+     * *********************** */
+    private int rowInBlock = -1;
+    private int col = -1;
+    private Object value;
+    private int skipToRow = -1;
+
+    public BinarySpreadsheetParser(final InputStream in) {
+        this.source = in;
+        this.split = false;
+        this.eventType = START_WORKBOOK;
+    }
+
+    /**
+     * Creates a parser of a worksheet of a memory-mapped workbook.
+     */
+    private BinarySpreadsheetParser(final BinarySpreadsheetParser parent, final int worksheetIndex) {
+        this.source = null;
+        this.split = true;
+        this.input = ((BinaryInput.Mapped) parent.input).duplicate(parent.worksheetOffsets[worksheetIndex]);
+        this.headerRead = true;
+        this.worksheetOffsets = parent.worksheetOffsets;
+        this.worksheetIndex = worksheetIndex - 1;
+        this.eventType = START_WORKBOOK;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSplittable() {
+        try {
+            return !split && START_WORKBOOK == this.eventType && getInput().isMapped() && null != readWorksheetOffsets();
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpreadsheetParser createWorksheetParser(final int worksheetIndex) throws SpreadsheetException {
+        if (!isSplittable()) {
+            throw new IllegalStateException("createWorksheetParser() called in illegal state");
+        }
+        if (0 > worksheetIndex || worksheetIndex >= worksheetOffsets.length) {
+            throw new IndexOutOfBoundsException("worksheet index: " + worksheetIndex);
+        }
+        return new BinarySpreadsheetParser(this, worksheetIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The number of worksheets of a stream which is not memory-mapped is known at the end of the workbook
+     * (-1 before).</p>
+     */
+    @Override
+    public int getNumberOfWorksheets() {
+        try {
+            return null != readWorksheetOffsets() ? worksheetOffsets.length : -1;
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    @Override
+    protected int doNext() throws SpreadsheetException {
+        final int event = this.eventType;
+        try {
+            if (START_WORKBOOK == event) {
+                return nextWorksheet() ? START_WORKSHEET : END_WORKBOOK;
+            } else if (START_WORKSHEET == event || END_RECORD == event) {
+                return nextRow() ? START_RECORD : END_WORKSHEET;
+            } else if (START_RECORD == event || END_CELL == event) {
+                return nextCell() ? START_CELL : END_RECORD;
+            } else if (START_CELL == event) {
+                return END_CELL;
+            } else if (END_WORKSHEET == event) {
+                return !split && nextWorksheet() ? START_WORKSHEET : END_WORKBOOK;
+            }
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+        return EOF;
+    }
+
+    @Override
+    protected void doCollectRecord() throws SpreadsheetException {
+        for (int c = 0; c < blockColumns; c++) {
+            final Object value = getCellValue(c);
+            if (null != value) {
+                addRecordValue(c, value);
+            }
+        }
+        this.col = -1;
+        this.eventType = END_RECORD;
+    }
+
+    @Override
+    protected void doParse(final RowHandler handler) throws SpreadsheetException {
+        try {
+            while (nextWorksheet()) {
+                markWorksheetStart();
+                handler.startWorksheet(this.worksheetIndex, this.worksheetName);
+                while (nextRow()) {
+                    final int row = currentRow();
+                    handler.onRow(row);
+                    for (int c = 0; c < blockColumns; c++) {
+                        final Object value = getCellValue(c);
+                        if (null != value) {
+                            handler.onCell(c, value);
+                        }
+                    }
+                    markRecordEnd(row);
+                    handler.endRow(row);
+                    countRecord();
+                }
+                handler.endWorksheet(this.worksheetIndex);
+                if (split) {
+                    break;
+                }
+            }
+            this.eventType = END_WORKBOOK;
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    /**
+     * Moves to the next worksheet, skipping the worksheets before the resume position.
+     *
+     * @return false if there is no more worksheet
+     */
+    private boolean nextWorksheet() throws IOException {
+        final BinaryInput input = getInput();
+        if (!headerRead) {
+            readHeader(input);
+            headerRead = true;
+        }
+        final SpreadsheetPosition resume = this.resumePosition;
+        byte tag;
+        while (TAG_WORKSHEET == (tag = input.readByte())) {
+            this.worksheetIndex++;
+            this.worksheetName = input.readName();
+            this.block = null;
+            this.blockRows = 0;
+            this.rowInBlock = -1;
+            this.col = -1;
+            this.skipToRow = null != resume && resume.getWorksheetIndex() == this.worksheetIndex ? resume.getRow() : -1;
+            if (null == resume || this.worksheetIndex >= resume.getWorksheetIndex()) {
+                return true;
+            }
+            while (TAG_BLOCK == (tag = input.readByte())) {
+                input.skip(input.readInt());
+            }
+            if (TAG_END_WORKSHEET != tag) {
+                throw new IllegalFormatException("illegal tag: " + tag);
+            }
+        }
+        if (TAG_END != tag) {
+            throw new IllegalFormatException("illegal tag: " + tag);
+        }
+        if (null == worksheetOffsets) {
+            // the footer of a stream.
+            final int worksheets = input.readInt();
+            if (0 > worksheets) {
+                throw new IllegalFormatException("illegal footer");
+            }
+            worksheetOffsets = new long[worksheets];
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the next row of the worksheet, skipping the rows before the resume position and the rows
+     * rejected by the row filter.
+     *
+     * @return false if there is no more row
+     */
+    private boolean nextRow() throws IOException {
+        this.col = -1;
+        for (; ; ) {
+            if (++rowInBlock >= blockRows && !nextBlock()) {
+                return false;
+            }
+            final int row = currentRow();
+            if (row <= skipToRow) {
+                continue;
+            }
+            if (null == rowMatcher || accept(rowMatcher)) {
+                return true;
+            }
+            countRecord();
+        }
+    }
+
+    private boolean nextBlock() throws IOException {
+        final BinaryInput input = this.input;
+        byte tag;
+        while (TAG_BLOCK == (tag = input.readByte())) {
+            final int length = input.readInt();
+            if (21 > length) {
+                throw new IllegalFormatException("illegal block length: " + length);
+            }
+            final ByteBuffer block = input.readBlock(length);
+            loadBlock(block);
+            if (1 > blockRows || skipToRow >= getRow(blockRows - 1)) {
+                // the block is entirely before the resume position.
+                continue;
+            }
+            this.rowInBlock = 0;
+            return true;
+        }
+        if (TAG_END_WORKSHEET != tag) {
+            throw new IllegalFormatException("illegal tag: " + tag);
+        }
+        this.block = null;
+        this.blockRows = 0;
+        this.blockColumns = 0;
+        return false;
+    }
+
+    private void loadBlock(final ByteBuffer block) throws IOException {
+        final int rows = block.getInt(0);
+        final int columns = block.getInt(4);
+        final int strings = block.getInt(8);
+        final boolean explicit = 0 != block.get(16);
+        if (0 > rows || 0 > columns || 0 > strings) {
+            throw new IllegalFormatException("illegal block");
+        }
+        this.block = block;
+        this.blockView = block.duplicate();
+        this.blockRows = rows;
+        this.blockColumns = columns;
+        this.blockFirstRow = block.getInt(12);
+        this.blockRowNumbers = explicit ? 17 : -1;
+        this.stringOffsets = 17 + (explicit ? 4 * rows : 0);
+        this.stringBytes = stringOffsets + 4 * (strings + 1);
+        if (strings > this.strings.length) {
+            this.strings = new String[Math.max(strings, this.strings.length << 1)];
+        } else {
+            Arrays.fill(this.strings, 0, strings, null);
+        }
+        if (columns > columnTypes.length) {
+            columnTypes = Arrays.copyOf(columnTypes, Math.max(columns, columnTypes.length << 1));
+            columnOffsets = Arrays.copyOf(columnOffsets, columnTypes.length);
+        }
+        int offset = stringBytes + block.getInt(stringOffsets + 4 * strings);
+        for (int c = 0; c < columns; c++) {
+            final byte type = block.get(offset);
+            columnTypes[c] = type;
+            columnOffsets[c] = offset + 1;
+            offset += 1 + BinaryFormat.columnLength(type, rows);
+        }
+        if (offset > block.limit()) {
+            throw new IllegalFormatException("illegal block");
+        }
+    }
+
+    private int currentRow() {
+        return getRow(rowInBlock);
+    }
+
+    private int getRow(final int rowInBlock) {
+        return 0 > blockRowNumbers ? blockFirstRow + rowInBlock : block.getInt(blockRowNumbers + (rowInBlock << 2));
+    }
+
+    private boolean nextCell() {
+        final int columns = this.blockColumns;
+        for (int c = this.col + 1; c < columns; c++) {
+            final Object value = getCellValue(c);
+            if (null != value) {
+                this.col = c;
+                this.value = value;
+                return true;
+            }
+        }
+        this.col = -1;
+        this.value = null;
+        return false;
+    }
+
+    private boolean accept(final RowFilter.Matcher matcher) {
+        matcher.reset();
+        final int max = Math.min(matcher.getMaxColumn(), blockColumns - 1);
+        for (int c = 0; c <= max; c++) {
+            if (matcher.isReferenced(c) && !matcher.accept(c, getCellValue(c))) {
+                return false;
+            }
+        }
+        return matcher.complete();
+    }
+
+    /**
+     * Gets the value of a cell of the current row.
+     *
+     * @param c the column
+     * @return the value or null if the cell is empty
+     */
+    private Object getCellValue(final int c) {
+        final byte columnType = columnTypes[c];
+        if (NULL == columnType) {
+            return null;
+        }
+        final ByteBuffer block = this.block;
+        final int i = this.rowInBlock;
+        final int offset = columnOffsets[c];
+        if (MIXED == columnType) {
+            final int slot = offset + i * 9;
+            return toValue(block.get(slot), block.getLong(slot + 1));
+        }
+        if (0 == (block.get(offset + (i >>> 3)) & (1 << (i & 7)))) {
+            return null;
+        }
+        final int slots = offset + ((blockRows + 7) >>> 3);
+        if (STRING == columnType) {
+            return getString(block.getInt(slots + (i << 2)));
+        } else if (BOOLEAN == columnType) {
+            return 0 != block.get(slots + i);
+        }
+        return toValue(columnType, block.getLong(slots + (i << 3)));
+    }
+
+    private Object toValue(final byte type, final long bits) {
+        if (LONG == type) {
+            return bits;
+        } else if (DOUBLE == type) {
+            return Double.longBitsToDouble(bits);
+        } else if (DATE == type) {
+            return new Date(bits);
+        } else if (BOOLEAN == type) {
+            return 0 != bits;
+        } else if (STRING == type) {
+            return getString((int) bits);
+        }
+        return null;
+    }
+
+    /**
+     * Gets a string of the current block, each string is decoded once per block.
+     */
+    private String getString(final int code) {
+        String s = strings[code];
+        if (null == s) {
+            final int start = block.getInt(stringOffsets + 4 * code);
+            final int length = block.getInt(stringOffsets + 4 * code + 4) - start;
+            if (length > stringBuffer.length) {
+                stringBuffer = new byte[Math.max(length, stringBuffer.length << 1)];
+            }
+            blockView.position(stringBytes + start);
+            blockView.get(stringBuffer, 0, length);
+            s = strings[code] = new String(stringBuffer, 0, length, UTF_8);
+        }
+        return s;
+    }
+
+    private BinaryInput getInput() throws IOException {
+        if (null == input) {
+            input = BinaryInput.open(source);
+        }
+        return input;
+    }
+
+    private long[] readWorksheetOffsets() throws IOException {
+        final BinaryInput input = getInput();
+        if (null == worksheetOffsets && input.isMapped()) {
+            worksheetOffsets = readFooter(((BinaryInput.Mapped) input).buffer, null);
+        }
+        return worksheetOffsets;
+    }
+
+    private static void readHeader(final BinaryInput input) throws IOException {
+        for (final byte b : BinaryFormat.HEADER) {
+            if (b != input.readByte()) {
+                throw new IllegalFormatException("not a binary spreadsheet");
+            }
+        }
+        final byte version = input.readByte();
+        if (BinaryFormat.VERSION != version) {
+            throw new IllegalFormatException("unsupported version: " + version);
+        }
+        input.readByte();
+    }
+
+    /**
+     * Reads the footer of a memory-mapped workbook.
+     *
+     * @param buffer     the workbook
+     * @param worksheets the list receiving the worksheet metadata or null
+     * @return the offsets of the worksheets
+     * @throws IllegalFormatException if the workbook has no valid trailer
+     */
+    static long[] readFooter(final ByteBuffer buffer, final List<SpreadsheetMetadata.WorksheetMetadata> worksheets) throws IllegalFormatException {
+        final int limit = buffer.limit();
+        if (BinaryFormat.HEADER_SIZE + BinaryFormat.TRAILER_SIZE > limit) {
+            throw new IllegalFormatException("not a binary spreadsheet");
+        }
+        for (int i = 0; i < BinaryFormat.MAGIC.length; i++) {
+            if (BinaryFormat.MAGIC[i] != buffer.get(limit - BinaryFormat.MAGIC.length + i)) {
+                throw new IllegalFormatException("incomplete binary spreadsheet");
+            }
+        }
+        final long footer = buffer.getLong(limit - BinaryFormat.TRAILER_SIZE);
+        if (BinaryFormat.HEADER_SIZE > footer || limit - BinaryFormat.TRAILER_SIZE < footer) {
+            throw new IllegalFormatException("illegal footer offset: " + footer);
+        }
+        final ByteBuffer in = buffer.duplicate();
+        in.position((int) footer);
+        final int count = in.getInt();
+        final long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = in.getLong();
+            final int records = in.getInt();
+            final int firstRow = in.getInt();
+            final int lastRow = in.getInt();
+            final int firstColumn = in.getInt();
+            final int lastColumn = in.getInt();
+            final int length = in.getInt();
+            final byte[] name = new byte[Math.max(length, 0)];
+            in.get(name);
+            if (null != worksheets) {
+                worksheets.add(new SpreadsheetMetadata.WorksheetMetadata(
+                        0 > length ? null : new String(name, UTF_8), firstRow, lastRow, firstColumn, lastColumn, records, true
+                ));
+            }
+        }
+        return offsets;
+    }
+
+    @Override
+    public int getRow() {
+        return 0 <= rowInBlock && rowInBlock < blockRows ? currentRow() : -1;
+    }
+
+    @Override
+    public int getCol() {
+        return col;
+    }
+
+    @Override
+    public Object getValue() {
+        final int st = this.eventType;
+        if (START_CELL != st && END_CELL != st) {
+            throw new IllegalStateException("getValue() called in illegal state");
+        }
+        return this.value;
+    }
+
+    @Override
+    public void close() throws SpreadsheetException {
+        try {
+            if (null != input) {
+                input.close();
+            } else if (null != source) {
+                source.close();
+            }
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    static SpreadsheetMetadata probe(final BinaryInput input) throws IllegalFormatException {
+        final List<SpreadsheetMetadata.WorksheetMetadata> worksheets = new ArrayList<SpreadsheetMetadata.WorksheetMetadata>();
+        readFooter(((BinaryInput.Mapped) input).buffer, worksheets);
+        return new SpreadsheetMetadata(worksheets);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+import com.github.nomou.spreadsheet.spi.SpreadsheetProber;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Binary spreadsheet parser factory.
+ *
+ * <p>The binary format is a compact columnar copy of a workbook (see {@link BinaryFormat}), written once by
+ * {@link BinarySpreadsheetWriterFactory} (eg: converting a large xlsx file) and memory-mapped by the parsers
+ * created on a {@link FileInputStream}.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class BinarySpreadsheetParserFactory implements SpreadsheetParserFactory, SpreadsheetProber {
+    public static final Spreadsheet.Format BINARY = new Spreadsheet.Format("BINARY", BinaryFormat.HEADER, "ssb");
+
+    @Override
+    public Spreadsheet.Format[] getSupportedFormats() {
+        return new Spreadsheet.Format[]{BINARY};
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A {@link FileInputStream} (not wrapped by a buffered stream) is memory-mapped.</p>
+     */
+    @Override
+    public SpreadsheetParser create(final InputStream in) {
+        return new BinarySpreadsheetParser(in);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The metadata is read from the footer of the file, it is exact.</p>
+     */
+    @Override
+    public SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        try {
+            final BinaryInput input = BinaryInput.open(new FileInputStream(file));
+            try {
+                return input.isMapped() ? BinarySpreadsheetParser.probe(input) : null;
+            } finally {
+                input.close();
+            }
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,373 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.AbstractSpreadsheetWriter;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_BLOCK;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.BLOCK_ROWS;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.BOOLEAN;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.DATE;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.DOUBLE;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_END;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_END_WORKSHEET;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.LONG;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.MIXED;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.NULL;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.STRING;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.UTF_8;
+import static com.github.nomou.spreadsheet.binary.BinaryFormat.TAG_WORKSHEET;
+
+/**
+ * Binary spreadsheet writer.
+ *
+ * <p>The records are buffered by blocks of {@link BinaryFormat#BLOCK_ROWS} rows and written column by column.
+ * Integral numbers are stored as Long, other numbers as Double, dates as Date (the pattern is not stored).</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+class BinarySpreadsheetWriter extends AbstractSpreadsheetWriter {
+    private final DataOutputStream out;
+    private long position;
+    private boolean started;
+
+    /* *************************
+     * The current worksheet.
+     * *********************** */
+    private final List<WorksheetEntry> worksheets = new ArrayList<WorksheetEntry>();
+    private WorksheetEntry worksheet;
+
+    /* *************************
+     * The current block.
+     * *********************** */
+    private byte[][] types = new byte[16][];
+    private long[][] values = new long[16][];
+    private final int[] rowNumbers = new int[BLOCK_ROWS];
+    private int rows;
+    private int columns;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private final List<byte[]> stringBytes = new ArrayList<byte[]>();
+    private int stringLength;
+
+    public BinarySpreadsheetWriter(final OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public SpreadsheetWriter start(final String worksheetName) throws SpreadsheetException {
+        try {
+            writeHeader();
+            endWorksheet();
+            worksheet = new WorksheetEntry(position, worksheetName);
+            worksheets.add(worksheet);
+            out.writeByte(TAG_WORKSHEET);
+            position += 1 + writeName(worksheet.name);
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+        this.row = 0;
+        this.col = 0;
+        return this;
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Boolean bool) throws SpreadsheetException {
+        return null != bool ? set(BOOLEAN, bool ? 1 : 0) : skip();
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Number number) throws SpreadsheetException {
+        if (null == number) {
+            return skip();
+        } else if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte
+                || (number instanceof BigInteger && 64 > ((BigInteger) number).bitLength())) {
+            return set(LONG, number.longValue());
+        }
+        return set(DOUBLE, Double.doubleToRawLongBits(number.doubleValue()));
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Date date) throws SpreadsheetException {
+        return null != date ? set(DATE, date.getTime()) : skip();
+    }
+
+    @Override
+    public SpreadsheetWriter write(final Date date, final String pattern) throws SpreadsheetException {
+        return write(date);
+    }
+
+    @Override
+    public SpreadsheetWriter write(final String text) throws SpreadsheetException {
+        if (null == text) {
+            return skip();
+        }
+        Integer code = strings.get(text);
+        if (null == code) {
+            final byte[] bytes = text.getBytes(UTF_8);
+            code = stringBytes.size();
+            strings.put(text, code);
+            stringBytes.add(bytes);
+            stringLength += bytes.length;
+        }
+        return set(STRING, code);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>A null value is written as an empty cell (not as an empty string).</p>
+     */
+    @Override
+    public SpreadsheetWriter write(final Object obj) throws SpreadsheetException {
+        return null != obj ? super.write(obj) : skip();
+    }
+
+    @Override
+    public AbstractSpreadsheetWriter next() throws SpreadsheetException {
+        checkStarted();
+        final WorksheetEntry worksheet = this.worksheet;
+        worksheet.firstRow = 0 < worksheet.records++ ? worksheet.firstRow : this.row;
+        worksheet.lastRow = this.row;
+        rowNumbers[rows] = this.row;
+        if (++rows >= BLOCK_ROWS) {
+            writeBlock();
+        }
+        return super.next();
+    }
+
+    /**
+     * Sets the row number of the current record, the records are numbered from 0 in writing order by default.
+     *
+     * @param row the row number, greater than the row of the previous record
+     */
+    void setRow(final int row) {
+        this.row = row;
+    }
+
+    @Override
+    public void close() throws SpreadsheetException {
+        try {
+            writeHeader();
+            if (null != worksheet && 0 < col) {
+                next();
+            }
+            endWorksheet();
+            final long footer = position + 1;
+            out.writeByte(TAG_END);
+            out.writeInt(worksheets.size());
+            for (final WorksheetEntry entry : worksheets) {
+                out.writeLong(entry.offset);
+                out.writeInt(entry.records);
+                out.writeInt(entry.firstRow);
+                out.writeInt(entry.lastRow);
+                out.writeInt(entry.firstColumn);
+                out.writeInt(entry.lastColumn);
+                writeName(entry.name);
+            }
+            out.writeLong(footer);
+            out.write(BinaryFormat.MAGIC);
+            out.flush();
+            out.close();
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    @Override
+    protected void abort() {
+        try {
+            out.close();
+        } catch (final IOException ignore) {
+            // ignore.
+        }
+    }
+
+    private void checkStarted() throws SpreadsheetException {
+        if (null == worksheet) {
+            throw new SpreadsheetException("not initialized");
+        }
+    }
+
+    private SpreadsheetWriter skip() throws SpreadsheetException {
+        checkStarted();
+        this.col++;
+        return this;
+    }
+
+    private SpreadsheetWriter set(final byte type, final long bits) throws SpreadsheetException {
+        checkStarted();
+        final int col = this.col++;
+        if (col >= types.length) {
+            types = Arrays.copyOf(types, Math.max(col + 1, types.length << 1));
+            values = Arrays.copyOf(values, types.length);
+        }
+        if (null == types[col]) {
+            types[col] = new byte[BLOCK_ROWS];
+            values[col] = new long[BLOCK_ROWS];
+        }
+        types[col][rows] = type;
+        values[col][rows] = bits;
+        columns = Math.max(columns, col + 1);
+        worksheet.firstColumn = 0 > worksheet.firstColumn ? col : Math.min(worksheet.firstColumn, col);
+        worksheet.lastColumn = Math.max(worksheet.lastColumn, col);
+        return this;
+    }
+
+    private void endWorksheet() throws SpreadsheetException {
+        if (null == worksheet) {
+            return;
+        }
+        try {
+            writeBlock();
+            out.writeByte(TAG_END_WORKSHEET);
+            position++;
+            worksheet = null;
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    private void writeBlock() throws SpreadsheetException {
+        final int rows = this.rows;
+        if (1 > rows) {
+            return;
+        }
+        final int columns = this.columns;
+        final byte[] columnTypes = new byte[columns];
+        final int firstRow = rowNumbers[0];
+        boolean contiguous = true;
+        for (int i = 1; contiguous && i < rows; i++) {
+            contiguous = rowNumbers[i] == firstRow + i;
+        }
+        int length = 17 + (contiguous ? 0 : 4 * rows) + 4 * (stringBytes.size() + 1) + stringLength;
+        for (int c = 0; c < columns; c++) {
+            columnTypes[c] = columnType(types[c], rows);
+            length += 1 + BinaryFormat.columnLength(columnTypes[c], rows);
+        }
+
+        final ByteBuffer block = ByteBuffer.allocate(5 + length);
+        block.put(TAG_BLOCK).putInt(length).putInt(rows).putInt(columns).putInt(stringBytes.size());
+        block.putInt(firstRow).put((byte) (contiguous ? 0 : 1));
+        for (int i = 0; !contiguous && i < rows; i++) {
+            block.putInt(rowNumbers[i]);
+        }
+        int offset = 0;
+        for (final byte[] bytes : stringBytes) {
+            block.putInt(offset);
+            offset += bytes.length;
+        }
+        block.putInt(offset);
+        for (final byte[] bytes : stringBytes) {
+            block.put(bytes);
+        }
+        for (int c = 0; c < columns; c++) {
+            writeColumn(block, columnTypes[c], types[c], values[c], rows);
+            if (null != types[c]) {
+                Arrays.fill(types[c], 0, rows, NULL);
+            }
+        }
+        try {
+            out.write(block.array());
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+        position += block.capacity();
+        this.rows = 0;
+        this.columns = 0;
+        this.strings.clear();
+        this.stringBytes.clear();
+        this.stringLength = 0;
+    }
+
+    private static byte columnType(final byte[] types, final int rows) {
+        byte columnType = NULL;
+        for (int i = 0; null != types && i < rows; i++) {
+            final byte type = types[i];
+            if (NULL == type || type == columnType) {
+                continue;
+            }
+            if (NULL != columnType) {
+                return MIXED;
+            }
+            columnType = type;
+        }
+        return columnType;
+    }
+
+    private static void writeColumn(final ByteBuffer block, final byte columnType, final byte[] types, final long[] values, final int rows) {
+        block.put(columnType);
+        if (NULL == columnType) {
+            return;
+        }
+        if (MIXED == columnType) {
+            for (int i = 0; i < rows; i++) {
+                block.put(types[i]).putLong(values[i]);
+            }
+            return;
+        }
+        final int bitmap = block.position();
+        block.position(bitmap + ((rows + 7) >>> 3));
+        for (int i = 0; i < rows; i++) {
+            final boolean present = NULL != types[i];
+            if (present) {
+                block.put(bitmap + (i >>> 3), (byte) (block.get(bitmap + (i >>> 3)) | (1 << (i & 7))));
+            }
+            final long bits = present ? values[i] : 0;
+            if (STRING == columnType) {
+                block.putInt((int) bits);
+            } else if (BOOLEAN == columnType) {
+                block.put((byte) bits);
+            } else {
+                block.putLong(bits);
+            }
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (!started) {
+            out.write(BinaryFormat.HEADER);
+            out.writeByte(BinaryFormat.VERSION);
+            out.writeByte(0);
+            position = BinaryFormat.HEADER_SIZE;
+            started = true;
+        }
+    }
+
+    private int writeName(final String name) throws IOException {
+        if (null == name) {
+            out.writeInt(-1);
+            return 4;
+        }
+        final byte[] bytes = name.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static class WorksheetEntry {
+        final long offset;
+        final String name;
+        int records;
+        int firstRow = -1;
+        int lastRow = -1;
+        int firstColumn = -1;
+        int lastColumn = -1;
+
+        WorksheetEntry(final long offset, final String name) {
+            this.offset = offset;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+import com.github.nomou.spreadsheet.spi.SpreadsheetWriterFactory;
+
+import java.io.OutputStream;
+
+/**
+ * Binary spreadsheet writer factory.
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class BinarySpreadsheetWriterFactory implements SpreadsheetWriterFactory {
+
+    @Override
+    public Spreadsheet.Format[] getSupportedFormats() {
+        return new Spreadsheet.Format[]{BinarySpreadsheetParserFactory.BINARY};
+    }
+
+    @Override
+    public SpreadsheetWriter create(final OutputStream out) {
+        return new BinarySpreadsheetWriter(out);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
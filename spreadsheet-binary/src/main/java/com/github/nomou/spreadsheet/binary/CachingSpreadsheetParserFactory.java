@@ -0,0 +1,442 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parser factory caching the parsed workbooks by content.
+ *
+ * <p>The input is copied to a temp file of the cache directory while its SHA-256 digest is computed. If the
+ * cache holds a workbook of the same digest (hit), the returned parser replays it, otherwise (miss) the workbook
+ * is parsed once by the delegate factory into the binary format ({@link BinaryFormat}) and added to the cache.
+ * In both cases the returned parser is a memory-mapped binary parser, so the options configured on it (row filter,
+ * record events, position...) apply to the cached workbook. The cells of null value are not replayed.</p>
+ *
+ * <p>The least recently used workbooks are evicted when the number of cached workbooks or their total size
+ * exceeds the capacity. The cache directory can be shared by the factories of a process: the cached files are
+ * found again by their name at creation (ordered by last access), but the capacity is enforced by each factory.</p>
+ *
+ * <pre>
+ * final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(
+ *         Spreadsheet.getParserFactory("xls", "xlsx"), new File("cache")
+ * ).setMaxBytes(10L * 1024 * 1024 * 1024);
+ * final SpreadsheetParser parser = factory.create(upload);
+ * </pre>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public class CachingSpreadsheetParserFactory implements SpreadsheetParserFactory {
+    /**
+     * The default number of cached workbooks.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * The default total size of cached workbooks.
+     */
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String EXTENSION = ".ssb";
+    private static final String TEMP_PREFIX = "spreadsheet-cache-";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SpreadsheetParserFactory delegate;
+    private final File directory;
+    private final Map<String, Object> parserOptions = new LinkedHashMap<String, Object>();
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    /**
+     * The cached workbooks in access order: digest to file size.
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75F, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a caching factory.
+     *
+     * @param delegate  the factory parsing the workbooks on a miss
+     * @param directory the cache directory, created if absent
+     */
+    public CachingSpreadsheetParserFactory(final SpreadsheetParserFactory delegate, final File directory) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("cannot create cache directory: " + directory);
+        }
+        this.delegate = delegate;
+        this.directory = directory;
+        load();
+    }
+
+    /**
+     * Sets the maximum number of cached workbooks.
+     *
+     * @param maxEntries the maximum number of cached workbooks
+     * @return this factory
+     */
+    public CachingSpreadsheetParserFactory setMaxEntries(final int maxEntries) {
+        if (1 > maxEntries) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        synchronized (entries) {
+            this.maxEntries = maxEntries;
+            evict(null);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum total size of cached workbooks (the most recent workbook is kept even if larger).
+     *
+     * @param maxBytes the maximum total size in bytes
+     * @return this factory
+     */
+    public CachingSpreadsheetParserFactory setMaxBytes(final long maxBytes) {
+        if (1 > maxBytes) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        synchronized (entries) {
+            this.maxBytes = maxBytes;
+            evict(null);
+        }
+        return this;
+    }
+
+    /**
+     * Sets an option of the delegate parsers (eg: CSV encoding), the options are part of the cache key.
+     *
+     * <p>Only the values having a stable text form (string, number, boolean, character, enum and charset) can be
+     * part of the cache key. The options of an object value (row filter, string cache, cancellation token,
+     * statistics...) are rejected: they are configured on the returned parser instead.</p>
+     *
+     * @param option the option
+     * @param value  the option value
+     * @return this factory
+     * @throws IllegalArgumentException if the value cannot be part of the cache key
+     * @see SpreadsheetParser#configure(String, Object)
+     */
+    public CachingSpreadsheetParserFactory setParserOption(final String option, final Object value) {
+        if (!(value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum || value instanceof Charset)) {
+            throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+        }
+        this.parserOptions.put(option, value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Spreadsheet.Format[] getSupportedFormats() {
+        return delegate.getSupportedFormats();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The input is read entirely (and closed) before the parser is returned.</p>
+     */
+    @Override
+    public SpreadsheetParser create(final InputStream in) throws SpreadsheetException {
+        File spool = null;
+        File temp = null;
+        try {
+            spool = File.createTempFile(TEMP_PREFIX, ".tmp", directory);
+            final String key = spool(in, spool);
+            final File cached = new File(directory, key + EXTENSION);
+            final FileInputStream hit = hit(key, cached);
+            if (null != hit) {
+                hits.incrementAndGet();
+                return new BinarySpreadsheetParser(hit);
+            }
+            misses.incrementAndGet();
+
+            temp = File.createTempFile(TEMP_PREFIX, EXTENSION + ".tmp", directory);
+            convert(spool, temp);
+            if (!temp.renameTo(cached) && !cached.isFile()) {
+                throw new IOException("cannot rename " + temp + " to " + cached);
+            }
+            synchronized (entries) {
+                // opened before another thread can evict it.
+                final FileInputStream opened = new FileInputStream(cached);
+                final Long previous = entries.put(key, cached.length());
+                bytes += cached.length() - (null != previous ? previous : 0);
+                evict(key);
+                return new BinarySpreadsheetParser(opened);
+            }
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        } finally {
+            delete(spool);
+            delete(temp);
+        }
+    }
+
+    /**
+     * Gets the number of parsers created from a cached workbook.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of parsers created by parsing the workbook.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the hit rate.
+     *
+     * @return the hit rate (0..1), 0 if no parser was created
+     */
+    public double getHitRate() {
+        final long hits = this.hits.get();
+        final long lookups = hits + this.misses.get();
+        return 0 < lookups ? (double) hits / lookups : 0;
+    }
+
+    /**
+     * Gets the number of evicted workbooks.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the number of cached workbooks.
+     *
+     * @return the number of cached workbooks
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Gets the total size of cached workbooks.
+     *
+     * @return the size in bytes
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Removes all cached workbooks.
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (final String key : entries.keySet()) {
+                delete(new File(directory, key + EXTENSION));
+            }
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " {" + delegate + ", hits: " + hits + ", misses: " + misses
+                + ", evictions: " + evictions + ", entries: " + size() + ", bytes: " + getBytes() + "}";
+    }
+
+    /**
+     * Copies the input to the spool file and computes its digest (with the format version and parser options).
+     *
+     * @return the hex digest
+     */
+    private String spool(final InputStream in, final File spool) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            final OutputStream out = new FileOutputStream(spool);
+            try {
+                for (int n; 0 < (n = in.read(buffer)); ) {
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        // the workbooks cached in a previous format are not hit.
+        digest.update(BinaryFormat.VERSION);
+        for (final Map.Entry<String, Object> option : parserOptions.entrySet()) {
+            final Object value = option.getValue();
+            digest.update(("\u0000" + option.getKey() + "=" + value.getClass().getName() + ":" + value).getBytes(BinaryFormat.UTF_8));
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Opens the cached workbook, under the lock so that it cannot be evicted before it is opened.
+     *
+     * @return the opened workbook or null if it is not cached
+     */
+    private FileInputStream hit(final String key, final File cached) {
+        final FileInputStream in;
+        synchronized (entries) {
+            final Long size = entries.get(key);
+            if (null == size) {
+                return null;
+            }
+            try {
+                in = new FileInputStream(cached);
+            } catch (final FileNotFoundException e) {
+                // removed by another process.
+                entries.remove(key);
+                bytes -= size;
+                return null;
+            }
+        }
+        // the last access of the cache directory when it is loaded again.
+        cached.setLastModified(System.currentTimeMillis());
+        return in;
+    }
+
+    /**
+     * Parses the spooled workbook by the delegate factory into the binary format.
+     */
+    private void convert(final File spool, final File target) throws IOException {
+        final SpreadsheetParser parser = delegate.create(new BufferedInputStream(new FileInputStream(spool)));
+        final BinarySpreadsheetWriter writer = new BinarySpreadsheetWriter(new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE));
+        boolean completed = false;
+        try {
+            for (final Map.Entry<String, Object> option : parserOptions.entrySet()) {
+                parser.configure(option.getKey(), option.getValue());
+            }
+            final List<Object> values = new ArrayList<Object>();
+            while (parser.hasNext()) {
+                final int event = parser.next();
+                if (SpreadsheetParser.START_WORKSHEET == event) {
+                    writer.start(parser.getWorksheetName());
+                } else if (SpreadsheetParser.START_RECORD == event) {
+                    writer.setRow(parser.getRow());
+                } else if (SpreadsheetParser.END_CELL == event) {
+                    final int col = parser.getCol();
+                    while (values.size() < col) {
+                        values.add(null);
+                    }
+                    values.add(parser.getValue());
+                } else if (SpreadsheetParser.END_RECORD == event) {
+                    writer.write((Object) values.toArray()).next();
+                    values.clear();
+                }
+            }
+            writer.close();
+            completed = true;
+        } finally {
+            parser.close();
+            if (!completed) {
+                writer.abort();
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used workbooks exceeding the capacity.
+     *
+     * @param keep the workbook kept or null
+     */
+    private void evict(final String keep) {
+        final Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || bytes > maxBytes)) {
+            final Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            it.remove();
+            bytes -= eldest.getValue();
+            delete(new File(directory, eldest.getKey() + EXTENSION));
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Loads the cached workbooks of the directory, the least recently used first.
+     */
+    private void load() {
+        final File[] files = directory.listFiles();
+        if (null == files) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                final long m1 = f1.lastModified();
+                final long m2 = f2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+        synchronized (entries) {
+            for (final File file : files) {
+                final String name = file.getName();
+                if (file.isFile() && name.endsWith(EXTENSION) && !name.startsWith(TEMP_PREFIX)) {
+                    final long size = file.length();
+                    entries.put(name.substring(0, name.length() - EXTENSION.length()), size);
+                    bytes += size;
+                }
+            }
+            evict(null);
+        }
+    }
+
+    private static void delete(final File file) {
+        if (null != file && file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.ParallelWorkbookParser;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writing workbooks in the binary format and reading them back, streamed and memory-mapped.
+ */
+public class BinaryRoundTripTest {
+    private static final Date DATE = new Date(1500000000000L);
+    private static final Object[][] PEOPLE = {
+            {"id", "name", "score", "active", "birthday"},
+            {1, "张三", 2.5, true, DATE},
+            {2L, null, -0.75, false},
+            {3, "李四", null, null, DATE},
+            {BigInteger.valueOf(4), "mixed", "text", 1, 2.5f},
+            {new BigDecimal("5.5")}
+    };
+    private static final Object[][] EMPTY = {};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStreamed() throws Exception {
+        final byte[] bytes = write(PEOPLE, EMPTY, PEOPLE);
+        assertEquals(expected(PEOPLE, EMPTY, PEOPLE), read(new BinarySpreadsheetParser(new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void testMapped() throws Exception {
+        final File file = file(write(PEOPLE, EMPTY, PEOPLE));
+        final SpreadsheetParser parser = new BinarySpreadsheetParser(new FileInputStream(file));
+        assertEquals(3, parser.getNumberOfWorksheets());
+        assertEquals(expected(PEOPLE, EMPTY, PEOPLE), read(parser));
+    }
+
+    @Test
+    public void testBlocks() throws Exception {
+        final Object[][] rows = rows(BinaryFormat.BLOCK_ROWS * 2 + 10);
+        final byte[] bytes = write(rows);
+        assertEquals(expected(rows), read(new BinarySpreadsheetParser(new ByteArrayInputStream(bytes))));
+        assertEquals(expected(rows), read(new BinarySpreadsheetParser(new FileInputStream(file(bytes)))));
+    }
+
+    @Test
+    public void testPushMode() throws Exception {
+        final Object[][] rows = rows(BinaryFormat.BLOCK_ROWS + 10);
+        final List<String> records = new ArrayList<String>();
+        final SpreadsheetParser parser = new BinarySpreadsheetParser(new FileInputStream(file(write(rows, PEOPLE))));
+        try {
+            parser.parse(new RowHandler() {
+                private final List<Object> values = new ArrayList<Object>();
+                private int worksheet;
+
+                @Override
+                public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+                    worksheet = worksheetIndex;
+                }
+
+                @Override
+                public void onRow(final int row) {
+                    values.clear();
+                }
+
+                @Override
+                public void onCell(final int col, final Object value) {
+                    while (values.size() < col) {
+                        values.add(null);
+                    }
+                    values.add(value);
+                }
+
+                @Override
+                public void endRow(final int row) {
+                    records.add(format(worksheet, row, values));
+                }
+
+                @Override
+                public void endWorksheet(final int worksheetIndex) {
+                }
+            });
+        } finally {
+            parser.close();
+        }
+        assertEquals(expected(rows, PEOPLE), records);
+    }
+
+    @Test
+    public void testRecordEvents() throws Exception {
+        final SpreadsheetParser parser = new BinarySpreadsheetParser(new ByteArrayInputStream(write(PEOPLE)));
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        assertEquals(expected(PEOPLE), read(parser));
+    }
+
+    @Test
+    public void testRowFilter() throws Exception {
+        final SpreadsheetParser parser = new BinarySpreadsheetParser(new ByteArrayInputStream(write(PEOPLE)));
+        parser.configure(SpreadsheetParser.OPTION_ROW_FILTER, new RowFilter().notNull(4));
+        final List<String> records = read(parser);
+        assertEquals(4, records.size());
+        assertTrue(records.get(2).startsWith("0:3:"));
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        final byte[] bytes = write(PEOPLE, PEOPLE);
+        final List<String> all = expected(PEOPLE, PEOPLE);
+        final SpreadsheetParser parser = new BinarySpreadsheetParser(new ByteArrayInputStream(bytes));
+        parser.configure(SpreadsheetParser.OPTION_POSITION, new SpreadsheetPosition(1, 2, 3, -1));
+        assertEquals(all.subList(PEOPLE.length + 3, all.size()), read(parser));
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+        final Object[][] rows = rows(BinaryFormat.BLOCK_ROWS + 10);
+        final SpreadsheetParser parser = new BinarySpreadsheetParser(new FileInputStream(file(write(PEOPLE, rows, PEOPLE))));
+        final List<String> records = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            final ParallelWorkbookParser parallel = new ParallelWorkbookParser(parser);
+            assertTrue(parallel.isParallel());
+            parallel.parse(new ParallelWorkbookParser.Handler() {
+                @Override
+                public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+                }
+
+                @Override
+                public void record(final int worksheetIndex, final int row, final Object[] values) {
+                    records.add(format(worksheetIndex, row, Arrays.asList(values)));
+                }
+
+                @Override
+                public void endWorksheet(final int worksheetIndex) {
+                }
+            });
+        } finally {
+            parser.close();
+        }
+        final List<String> expected = expected(PEOPLE, rows, PEOPLE);
+        Collections.sort(expected);
+        Collections.sort(records);
+        assertEquals(expected, records);
+    }
+
+    @Test
+    public void testStreamIsNotSplittable() throws Exception {
+        final BinarySpreadsheetParser parser = new BinarySpreadsheetParser(new ByteArrayInputStream(write(PEOPLE)));
+        assertFalse(parser.isSplittable());
+        parser.close();
+    }
+
+    @Test
+    public void testProbe() throws Exception {
+        final SpreadsheetMetadata metadata = new BinarySpreadsheetParserFactory().probe(file(write(PEOPLE, EMPTY)));
+        assertEquals(2, metadata.getNumberOfWorksheets());
+        assertEquals("sheet0", metadata.getWorksheet(0).getName());
+        assertEquals(PEOPLE.length, metadata.getWorksheet(0).getRecords());
+        assertTrue(metadata.getWorksheet(0).isExact());
+        assertEquals(PEOPLE.length - 1, metadata.getWorksheet(0).getLastRow());
+        assertEquals(0, metadata.getWorksheet(1).getRecords());
+    }
+
+    private static Object[][] rows(final int count) {
+        final Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = 0 == i % 7 ? new Object[]{i, null, "s" + (i % 50)} : new Object[]{i, i * 0.5};
+        }
+        return rows;
+    }
+
+    private static byte[] write(final Object[][]... worksheets) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinarySpreadsheetWriter writer = new BinarySpreadsheetWriter(out);
+        for (int i = 0; i < worksheets.length; i++) {
+            writer.start("sheet" + i);
+            for (final Object[] row : worksheets[i]) {
+                for (final Object value : row) {
+                    writer.write(value);
+                }
+                writer.next();
+            }
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private File file(final byte[] bytes) throws IOException {
+        final File file = folder.newFile();
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Formats the records as read back: integral numbers as Long, other numbers as Double.
+     */
+    private static List<String> expected(final Object[][]... worksheets) {
+        final List<String> records = new ArrayList<String>();
+        for (int i = 0; i < worksheets.length; i++) {
+            for (int row = 0; row < worksheets[i].length; row++) {
+                final List<Object> values = new ArrayList<Object>();
+                for (final Object value : worksheets[i][row]) {
+                    if (value instanceof Integer || value instanceof BigInteger) {
+                        values.add(((Number) value).longValue());
+                    } else if (value instanceof Float || value instanceof BigDecimal) {
+                        values.add(((Number) value).doubleValue());
+                    } else {
+                        values.add(value);
+                    }
+                }
+                records.add(format(i, row, values));
+            }
+        }
+        return records;
+    }
+
+    private static List<String> read(final SpreadsheetParser parser) {
+        final List<String> records = new ArrayList<String>();
+        try {
+            Object[] record;
+            while (null != (record = parser.nextRecord(false))) {
+                records.add(format(parser.getWorksheetIndex(), parser.getRow(), Arrays.asList(record)));
+            }
+        } finally {
+            parser.close();
+        }
+        return records;
+    }
+
+    private static String format(final int worksheetIndex, final int row, final List<Object> values) {
+        int width = values.size();
+        while (0 < width && null == values.get(width - 1)) {
+            width--;
+        }
+        final StringBuilder buf = new StringBuilder().append(worksheetIndex).append(':').append(row).append(':');
+        for (final Object value : values.subList(0, width)) {
+            buf.append(null != value ? value.getClass().getSimpleName() + "=" + value : "null").append(',');
+        }
+        return buf.toString();
+    }
+}
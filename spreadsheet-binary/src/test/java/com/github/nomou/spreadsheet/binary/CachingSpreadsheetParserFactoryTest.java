@@ -0,0 +1,235 @@
+package com.github.nomou.spreadsheet.binary;
+
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Caching the parsed workbooks by content: hits, misses and eviction.
+ */
+public class CachingSpreadsheetParserFactoryTest {
+    private static final Object[][] PEOPLE = {
+            {"id", "name", "score"},
+            {1, "张三", 2.5},
+            {2, null, -0.75},
+            {3, "李四"}
+    };
+    private static final Object[][] NUMBERS = {
+            {1, 2, 3},
+            {4, 5, 6}
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMissThenHit() throws Exception {
+        final CountingFactory delegate = new CountingFactory();
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(delegate, folder.getRoot());
+        final List<String> expected = read(new BinarySpreadsheetParser(new ByteArrayInputStream(write(PEOPLE))));
+
+        assertEquals(expected, read(factory.create(new ByteArrayInputStream(write(PEOPLE)))));
+        assertEquals(0, factory.getHits());
+        assertEquals(1, factory.getMisses());
+        assertEquals(1, factory.size());
+        assertTrue(0 < factory.getBytes());
+
+        assertEquals(expected, read(factory.create(new ByteArrayInputStream(write(PEOPLE)))));
+        assertEquals(1, factory.getHits());
+        assertEquals(1, factory.getMisses());
+        assertEquals(0.5, factory.getHitRate(), 0);
+        assertEquals(1, delegate.created.get());
+        assertEquals(1, factory.size());
+    }
+
+    @Test
+    public void testDifferentContentMisses() throws Exception {
+        final CountingFactory delegate = new CountingFactory();
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(delegate, folder.getRoot());
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        read(factory.create(new ByteArrayInputStream(write(NUMBERS))));
+        assertEquals(0, factory.getHits());
+        assertEquals(2, factory.getMisses());
+        assertEquals(2, factory.size());
+        assertEquals(2, delegate.created.get());
+    }
+
+    @Test
+    public void testParserOptionsArePartOfKey() throws Exception {
+        final File directory = folder.getRoot();
+        final CachingSpreadsheetParserFactory plain = new CachingSpreadsheetParserFactory(new CountingFactory(), directory);
+        read(plain.create(new ByteArrayInputStream(write(PEOPLE))));
+
+        final CachingSpreadsheetParserFactory configured = new CachingSpreadsheetParserFactory(new CountingFactory(), directory)
+                .setParserOption(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        read(configured.create(new ByteArrayInputStream(write(PEOPLE))));
+        assertEquals(0, configured.getHits());
+        read(configured.create(new ByteArrayInputStream(write(PEOPLE))));
+        assertEquals(1, configured.getHits());
+        assertEquals(2, configured.size());
+    }
+
+    @Test
+    public void testObjectOptionIsRejected() {
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(new CountingFactory(), folder.getRoot());
+        try {
+            factory.setParserOption(SpreadsheetParser.OPTION_ROW_FILTER, new RowFilter().notNull(0));
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testOptionsOfReturnedParser() throws Exception {
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(new CountingFactory(), folder.getRoot());
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        final SpreadsheetParser parser = factory.create(new ByteArrayInputStream(write(PEOPLE)));
+        parser.configure(SpreadsheetParser.OPTION_ROW_FILTER, new RowFilter().notNull(2));
+        assertEquals(3, read(parser).size());
+        assertEquals(1, factory.getHits());
+    }
+
+    @Test
+    public void testEvictionByEntries() throws Exception {
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(new CountingFactory(), folder.getRoot())
+                .setMaxEntries(2);
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        read(factory.create(new ByteArrayInputStream(write(NUMBERS))));
+        // the workbook of people becomes the most recently used.
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE, NUMBERS))));
+        assertEquals(2, factory.size());
+        assertEquals(1, factory.getEvictions());
+        assertEquals(2, cachedFiles());
+
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        assertEquals(2, factory.getHits());
+        read(factory.create(new ByteArrayInputStream(write(NUMBERS))));
+        assertEquals(2, factory.getHits());
+        assertEquals(4, factory.getMisses());
+    }
+
+    @Test
+    public void testEvictionByBytes() throws Exception {
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(new CountingFactory(), folder.getRoot());
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        final long size = factory.getBytes();
+        factory.setMaxBytes(size);
+        read(factory.create(new ByteArrayInputStream(write(NUMBERS))));
+        assertEquals(1, factory.size());
+        assertEquals(1, factory.getEvictions());
+        assertTrue(factory.getBytes() <= size);
+
+        // the most recent workbook is kept even if larger.
+        factory.setMaxBytes(1);
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE, NUMBERS))));
+        assertEquals(1, factory.size());
+        assertEquals(2, factory.getEvictions());
+    }
+
+    @Test
+    public void testRemovedFileMisses() throws Exception {
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(new CountingFactory(), folder.getRoot());
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        for (final File file : folder.getRoot().listFiles()) {
+            assertTrue(file.delete());
+        }
+        final List<String> expected = read(new BinarySpreadsheetParser(new ByteArrayInputStream(write(PEOPLE))));
+        assertEquals(expected, read(factory.create(new ByteArrayInputStream(write(PEOPLE)))));
+        assertEquals(0, factory.getHits());
+        assertEquals(2, factory.getMisses());
+        assertEquals(1, factory.size());
+    }
+
+    @Test
+    public void testReloadedDirectory() throws Exception {
+        final File directory = folder.getRoot();
+        read(new CachingSpreadsheetParserFactory(new CountingFactory(), directory).create(new ByteArrayInputStream(write(PEOPLE))));
+
+        final CountingFactory delegate = new CountingFactory();
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(delegate, directory);
+        assertEquals(1, factory.size());
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        assertEquals(1, factory.getHits());
+        assertEquals(0, delegate.created.get());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        final CachingSpreadsheetParserFactory factory = new CachingSpreadsheetParserFactory(new CountingFactory(), folder.getRoot());
+        read(factory.create(new ByteArrayInputStream(write(PEOPLE))));
+        read(factory.create(new ByteArrayInputStream(write(NUMBERS))));
+        factory.clear();
+        assertEquals(0, factory.size());
+        assertEquals(0, factory.getBytes());
+        assertEquals(0, cachedFiles());
+    }
+
+    private int cachedFiles() {
+        int count = 0;
+        for (final File file : folder.getRoot().listFiles()) {
+            if (file.getName().endsWith(".ssb")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] write(final Object[][]... worksheets) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinarySpreadsheetWriter writer = new BinarySpreadsheetWriter(out);
+        for (int i = 0; i < worksheets.length; i++) {
+            writer.start("sheet" + i);
+            for (final Object[] row : worksheets[i]) {
+                for (final Object value : row) {
+                    writer.write(value);
+                }
+                writer.next();
+            }
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static List<String> read(final SpreadsheetParser parser) {
+        final List<String> records = new ArrayList<String>();
+        try {
+            Object[] record;
+            while (null != (record = parser.nextRecord(false))) {
+                records.add(parser.getWorksheetIndex() + ":" + parser.getRow() + ":" + Arrays.toString(record));
+            }
+        } finally {
+            parser.close();
+        }
+        return records;
+    }
+
+    /**
+     * Binary parser factory counting the created parsers.
+     */
+    private static class CountingFactory extends BinarySpreadsheetParserFactory {
+        final AtomicInteger created = new AtomicInteger();
+
+        @Override
+        public SpreadsheetParser create(final InputStream in) {
+            created.incrementAndGet();
+            return super.create(in);
+        }
+    }
+}
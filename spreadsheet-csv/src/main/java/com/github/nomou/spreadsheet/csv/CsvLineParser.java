@@ -1,5 +1,8 @@
 package com.github.nomou.spreadsheet.csv;
 
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.util.StringCache;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -61,6 +64,26 @@ class CsvLineParser {
     private String pending;
     private boolean inField = false;
 
+    /**
+     * The row filter matcher, null if rows are not filtered.
+     */
+    private RowFilter.Matcher matcher;
+
+    /**
+     * The string deduplication cache, null if fields are not deduplicated.
+     */
+    private StringCache stringCache;
+
+    /**
+     * Whether the current record was rejected by the matcher.
+     */
+    private boolean rejected;
+
+    /**
+     * The index of the first field of the current line in the current (multi-line) record.
+     */
+    private int fieldOffset;
+
     final boolean ignoreLeadingWhiteSpace;
 
     final boolean ignoreQuotations;
@@ -171,6 +194,60 @@ class CsvLineParser {
         return pending != null;
     }
 
+    /**
+     * Sets the row filter matcher, fields of a rejected record are not materialized (returned as null).
+     *
+     * @param matcher the matcher or null
+     */
+    public void setMatcher(final RowFilter.Matcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Sets the string deduplication cache, the field chars are looked up before a string is created.
+     *
+     * @param stringCache the cache or null
+     */
+    public void setStringCache(final StringCache stringCache) {
+        this.stringCache = stringCache;
+    }
+
+    /**
+     * @return the length of the pending (multi-line) quoted field, 0 if nothing is pending
+     */
+    public int getPendingLength() {
+        return null != pending ? pending.length() : 0;
+    }
+
+    /**
+     * Closes the pending (unterminated) quoted field as the last field of the current record.
+     *
+     * @return the closed field or an empty array if nothing is pending
+     */
+    public String[] flushPending() {
+        if (null == pending) {
+            return new String[0];
+        }
+        final int end = pending.endsWith("\n") ? pending.length() - 1 : pending.length();
+        final StringBuilder sb = new StringBuilder(end).append(pending, 0, end);
+        pending = null;
+        inField = false;
+
+        final List<String> tokens = new ArrayList<String>(1);
+        addToken(tokens, sb);
+        if (!rejected && null != matcher && !matcher.complete()) {
+            rejected = true;
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    /**
+     * @return true if the last parsed record was rejected by the row filter
+     */
+    public boolean isRejected() {
+        return rejected;
+    }
+
     public String[] parseLineMulti(String nextLine) throws IOException {
         return parseLine(nextLine, true);
     }
@@ -203,6 +280,15 @@ class CsvLineParser {
             }
         }
 
+        if (pending == null) {
+            // a new record.
+            rejected = false;
+            fieldOffset = 0;
+            if (null != matcher) {
+                matcher.reset();
+            }
+        }
+
         List<String> tokensOnThisLine = new ArrayList<String>();
         StringBuilder sb = new StringBuilder(INITIAL_READ_SIZE);
         boolean inQuotes = false;
@@ -245,12 +331,14 @@ class CsvLineParser {
                 }
                 inField = !inField;
             } else if (c == separator && !(inQuotes && !ignoreQuotations)) {
-                tokensOnThisLine.add(sb.toString());
+                addToken(tokensOnThisLine, sb);
                 sb = new StringBuilder(INITIAL_READ_SIZE); // start work on next token
                 inField = false;
             } else {
                 if (!strictQuotes || (inQuotes && !ignoreQuotations)) {
-                    sb.append(c);
+                    if (!rejected) {
+                        sb.append(c);
+                    }
                     inField = true;
                 }
             }
@@ -262,17 +350,40 @@ class CsvLineParser {
                 sb.append("\n");
                 pending = sb.toString();
                 sb = null; // this partial content is not to be added to field list yet
+                fieldOffset += tokensOnThisLine.size();
             } else {
                 throw new IOException("Un-terminated quoted field at end of CSV line");
             }
         }
         if (sb != null) {
-            tokensOnThisLine.add(sb.toString());
+            addToken(tokensOnThisLine, sb);
+            if (!rejected && null != matcher && !matcher.complete()) {
+                rejected = true;
+            }
         }
         return tokensOnThisLine.toArray(new String[tokensOnThisLine.size()]);
 
     }
 
+    /**
+     * Adds a completed field, the field is evaluated by the row filter and is not materialized once the record is rejected.
+     *
+     * @param tokens the fields of the current line
+     * @param sb     the field content
+     */
+    private void addToken(final List<String> tokens, final StringBuilder sb) {
+        if (rejected) {
+            tokens.add(null);
+            return;
+        }
+        final int col = fieldOffset + tokens.size();
+        final String token = null != stringCache && stringCache.isEnabled(col) ? stringCache.get(sb) : sb.toString();
+        if (null != matcher && !matcher.accept(col, token)) {
+            rejected = true;
+        }
+        tokens.add(token);
+    }
+
     /**
      * precondition: the current character is a quote or an escape
      *
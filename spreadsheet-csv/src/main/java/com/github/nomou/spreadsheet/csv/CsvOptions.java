@@ -18,10 +18,27 @@ class CsvOptions {
     public static final String OPTION_QUOTE_CHAR_KEY = "quote_char";
     public static final String OPTION_ESCAPE_CHAR_KEY = "escape_char";
 
+    /**
+     * The max number of chars of a field, value: {@link Number}.
+     *
+     * @since 1.1
+     */
+    public static final String OPTION_MAX_FIELD_LENGTH_KEY = "max_field_length";
+
+    /**
+     * Parses the numeric fields: the integers as {@link Long}, the other decimal numbers as {@link Double}
+     * (the leading zeros of a code are lost, off by default), the raw value is the field text.
+     *
+     * @since 1.1
+     */
+    public static final String OPTION_NUMBERS_KEY = "numbers";
+
     private Charset encoding;
     private char separatorChar;
     private char quoteChar;
     private char escapeChar;
+    private int maxFieldLength = CsvParser.DEFAULT_MAX_FIELD_LENGTH;
+    private boolean numbers;
 
     public CsvOptions(final Charset encoding, final char separatorChar, final char quoteChar, final char escapeChar) {
         this.encoding = encoding;
@@ -31,7 +48,10 @@ class CsvOptions {
     }
 
     public CsvParser createParser(final InputStream in) {
-        return new CsvParser(new InputStreamReader(in, encoding), separatorChar, quoteChar, escapeChar);
+        final CsvParser parser = new CsvParser(new InputStreamReader(in, encoding), separatorChar, quoteChar, escapeChar);
+        parser.setCharset(encoding);
+        parser.setMaxFieldLength(maxFieldLength);
+        return parser;
     }
 
     public CsvWriter createWriter(final OutputStream out) {
@@ -66,6 +86,18 @@ class CsvOptions {
             } else {
                 throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
             }
+        } else if (OPTION_MAX_FIELD_LENGTH_KEY.equals(option)) {
+            if (value instanceof Number && 0 < ((Number) value).intValue()) {
+                this.setMaxFieldLength(((Number) value).intValue());
+            } else {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+        } else if (OPTION_NUMBERS_KEY.equals(option)) {
+            if (value instanceof Boolean) {
+                this.setNumbers((Boolean) value);
+            } else {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
         }
         return this;
     }
@@ -101,4 +133,20 @@ class CsvOptions {
     public void setEscapeChar(final char escapeChar) {
         this.escapeChar = escapeChar;
     }
+
+    public int getMaxFieldLength() {
+        return maxFieldLength;
+    }
+
+    public void setMaxFieldLength(final int maxFieldLength) {
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    public boolean isNumbers() {
+        return numbers;
+    }
+
+    public void setNumbers(final boolean numbers) {
+        this.numbers = numbers;
+    }
 }
@@ -13,10 +13,18 @@ package com.github.nomou.spreadsheet.csv;
  * limitations under the License.
  */
 
+import com.github.nomou.spreadsheet.CancellationToken;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.SpreadsheetError;
+import com.github.nomou.spreadsheet.SpreadsheetErrorCollector;
+import com.github.nomou.spreadsheet.util.StringCache;
+
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.LineNumberReader;
 import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * A very simple CSV reader released under a commercial-friendly license.
@@ -25,7 +33,26 @@ import java.io.Reader;
  */
 class CsvParser implements Closeable {
 
-    private final LineNumberReader lnr;
+    private final Reader reader;
+
+    /**
+     * Line buffer.
+     */
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+
+    private int lineNumber;
+
+    /**
+     * The byte offset of the next line, -1 if offsets are not tracked.
+     */
+    private long offset = -1;
+
+    /**
+     * The ASCII-compatible charset used to compute byte offsets.
+     */
+    private Charset charset;
 
     private boolean hasNext = true;
 
@@ -40,6 +67,28 @@ class CsvParser implements Closeable {
      */
     public static final int DEFAULT_SKIP_LINES = 0;
 
+    /**
+     * The default max length of a multi-line quoted field in the lenient mode.
+     */
+    public static final int DEFAULT_MAX_FIELD_LENGTH = 1 << 20;
+
+    /**
+     * The max length of the raw text kept by an error.
+     */
+    private static final int MAX_ERROR_TEXT_LENGTH = 256;
+
+    /**
+     * The error collector of the lenient mode, null if the parser is strict.
+     */
+    private SpreadsheetErrorCollector errorCollector;
+
+    /**
+     * The cancellation token checked while skipping rejected records, null if not cancellable.
+     */
+    private CancellationToken cancellation;
+
+    private int maxFieldLength = DEFAULT_MAX_FIELD_LENGTH;
+
     /**
      * Constructs CsvParser using a comma for the separator.
      *
@@ -158,13 +207,46 @@ class CsvParser implements Closeable {
      * @param lineParser the parser to use to parse input
      */
     public CsvParser(Reader reader, int line, CsvLineParser lineParser) {
-        this.lnr = (reader instanceof LineNumberReader ? (LineNumberReader) reader : new LineNumberReader(reader));
+        this.reader = reader;
         this.skipLines = line;
         this.parser = lineParser;
     }
 
     public int getLineNumber() {
-        return lnr.getLineNumber();
+        return lineNumber;
+    }
+
+    /**
+     * Enables byte offset tracking for the given charset of the underlying source.
+     * <p>Offsets are only tracked for ASCII-compatible charsets (line terminators are single bytes).</p>
+     *
+     * @param charset the charset of the underlying source
+     */
+    public void setCharset(final Charset charset) {
+        final boolean asciiCompatible = Arrays.equals(new byte[]{'\r', '\n', 'A'}, "\r\nA".getBytes(charset));
+        this.charset = asciiCompatible ? charset : null;
+        this.offset = asciiCompatible ? Math.max(0, this.offset) : -1;
+    }
+
+    /**
+     * Sets the position of the underlying source, the source must already be positioned at the given offset.
+     *
+     * @param offset     the byte offset of the next line
+     * @param lineNumber the number of lines before the offset
+     */
+    public void setPosition(final long offset, final int lineNumber) {
+        this.offset = null != charset ? offset : -1;
+        this.lineNumber = lineNumber;
+        this.linesSkiped = true;
+    }
+
+    /**
+     * Returns the byte offset of the next line (after the last returned record).
+     *
+     * @return the byte offset or -1 if offsets are not tracked
+     */
+    public long getOffset() {
+        return offset;
     }
 
     public boolean hasNext() {
@@ -172,34 +254,121 @@ class CsvParser implements Closeable {
     }
 
     /**
-     * Reads the next line from the buffer and converts to a string array.
+     * Sets the row filter matcher, rejected records are skipped by {@link #next()}.
+     *
+     * @param matcher the matcher or null
+     */
+    public void setRowMatcher(final RowFilter.Matcher matcher) {
+        parser.setMatcher(matcher);
+    }
+
+    /**
+     * Sets the string deduplication cache of the line parser.
+     *
+     * @param stringCache the cache or null
+     */
+    public void setStringCache(final StringCache stringCache) {
+        parser.setStringCache(stringCache);
+    }
+
+    /**
+     * Enables the lenient mode: an unterminated quoted field (at the end of the stream or longer than the
+     * max field length) is recorded and closed instead of being dropped or swallowing the rest of the stream.
+     *
+     * @param errorCollector the error collector or null for the strict mode
+     */
+    public void setErrorCollector(final SpreadsheetErrorCollector errorCollector) {
+        this.errorCollector = errorCollector;
+    }
+
+    /**
+     * Sets the max length of a multi-line quoted field in the lenient mode.
+     *
+     * @param maxFieldLength the max number of chars
+     */
+    public void setMaxFieldLength(final int maxFieldLength) {
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * Sets the cancellation token checked every {@link CancellationToken#CHECK_INTERVAL} rejected records.
+     *
+     * @param cancellation the token or null
+     */
+    public void setCancellation(final CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Reads the next (accepted) record from the buffer and converts to a string array.
      *
      * @return a string array with each comma-separated element as a separate
      * entry.
      * @throws IOException if bad things happen during the read
      */
     public String[] next() throws IOException {
+        String[] result;
+        int rejected = 0;
+        do {
+            result = readNext();
+            if (null != cancellation && CancellationToken.CHECK_INTERVAL <= ++rejected) {
+                rejected = 0;
+                cancellation.check();
+            }
+        } while (null != result && parser.isRejected());
+        return result;
+    }
+
+    /**
+     * Reads the next record from the buffer and converts to a string array.
+     *
+     * @return a string array with each comma-separated element as a separate
+     * entry.
+     * @throws IOException if bad things happen during the read
+     */
+    private String[] readNext() throws IOException {
         String[] result = null;
         do {
             String nextLine = readNextLine();
             if (!hasNext) {
+                if (null != errorCollector && parser.isPending()) {
+                    result = closePending(result, SpreadsheetError.Reason.UNTERMINATED_QUOTE);
+                }
                 return result; // should throw if still pending?
             }
-            String[] r = parser.parseLineMulti(nextLine);
-            if (r.length > 0) {
-                if (result == null) {
-                    result = r;
-                } else {
-                    String[] t = new String[result.length + r.length];
-                    System.arraycopy(result, 0, t, 0, result.length);
-                    System.arraycopy(r, 0, t, result.length, r.length);
-                    result = t;
-                }
+            result = concat(result, parser.parseLineMulti(nextLine));
+            if (null != errorCollector && parser.getPendingLength() > maxFieldLength) {
+                result = closePending(result, SpreadsheetError.Reason.FIELD_TOO_LONG);
             }
         } while (parser.isPending());
         return result;
     }
 
+    /**
+     * Records the pending quoted field as an error and closes it as the last field of the record.
+     */
+    private String[] closePending(final String[] result, final SpreadsheetError.Reason reason) {
+        final String[] field = parser.flushPending();
+        final int col = null != result ? result.length : 0;
+        final String text = 0 < field.length && null != field[0] ? field[0] : null;
+        final String rawText = null != text && MAX_ERROR_TEXT_LENGTH < text.length() ? text.substring(0, MAX_ERROR_TEXT_LENGTH) : text;
+        errorCollector.add(0, lineNumber, col, rawText, reason);
+        return concat(result, field);
+    }
+
+    private static String[] concat(final String[] result, final String[] r) {
+        if (r.length > 0) {
+            if (result == null) {
+                return r;
+            }
+            String[] t = new String[result.length + r.length];
+            System.arraycopy(result, 0, t, 0, result.length);
+            System.arraycopy(r, 0, t, result.length, r.length);
+            return t;
+        }
+        return result;
+    }
+
     /**
      * Reads the next line from the file.
      *
@@ -209,23 +378,83 @@ class CsvParser implements Closeable {
     private String readNextLine() throws IOException {
         if (!this.linesSkiped) {
             for (int i = 0; i < skipLines; i++) {
-                lnr.readLine();
+                readLine();
             }
             this.linesSkiped = true;
         }
-        String nextLine = lnr.readLine();
+        String nextLine = readLine();
         if (nextLine == null) {
             hasNext = false;
         }
         return hasNext ? nextLine : null;
     }
 
+    /**
+     * Reads a line terminated by '\n', '\r' or "\r\n" and updates the line number and byte offset.
+     *
+     * @return the line without terminator or null if the end of the stream has been reached
+     * @throws IOException if bad things happen during the read
+     */
+    private String readLine() throws IOException {
+        StringBuilder sb = null;
+        while (true) {
+            if (pos >= limit && !fill()) {
+                if (null == sb) {
+                    return null;
+                }
+                return lineRead(sb.toString(), 0);
+            }
+            final int start = pos;
+            while (pos < limit && '\n' != buf[pos] && '\r' != buf[pos]) {
+                pos++;
+            }
+            if (pos >= limit) {
+                sb = null != sb ? sb : new StringBuilder(128);
+                sb.append(buf, start, pos - start);
+                continue;
+            }
+
+            final String line = null != sb ? sb.append(buf, start, pos - start).toString() : new String(buf, start, pos - start);
+            int terminator = 1;
+            if ('\r' == buf[pos++] && (pos < limit || fill()) && '\n' == buf[pos]) {
+                pos++;
+                terminator = 2;
+            }
+            return lineRead(line, terminator);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        final int n = reader.read(buf, 0, buf.length);
+        pos = 0;
+        limit = Math.max(0, n);
+        return 0 < n;
+    }
+
+    private String lineRead(final String line, final int terminator) {
+        lineNumber++;
+        if (null != charset) {
+            offset += byteLength(line) + terminator;
+        }
+        return line;
+    }
+
+    private int byteLength(final String line) {
+        final int len = line.length();
+        for (int i = 0; i < len; i++) {
+            if (0x80 <= line.charAt(i)) {
+                return charset.encode(CharBuffer.wrap(line)).remaining();
+            }
+        }
+        return len;
+    }
+
     /**
      * Closes the underlying reader.
      *
      * @throws IOException if the close fails
      */
     public void close() throws IOException {
-        lnr.close();
+        reader.close();
     }
 }
\ No newline at end of file
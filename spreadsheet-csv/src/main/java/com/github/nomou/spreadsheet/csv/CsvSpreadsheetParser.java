@@ -1,9 +1,13 @@
 package com.github.nomou.spreadsheet.csv;
 
 import com.github.nomou.spreadsheet.AbstractSpreadsheetParser;
+import com.github.nomou.spreadsheet.RowHandler;
 import com.github.nomou.spreadsheet.SpreadsheetException;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import com.github.nomou.spreadsheet.util.NumberParser;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -17,7 +21,7 @@ import java.util.NoSuchElementException;
  */
 class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
     private static final int CSV_SHEETS = 1;
-    private static final String CSV_SHEET_NAME = "sheet1";
+    static final String CSV_SHEET_NAME = "sheet1";
 
     private final InputStream in;
     private CsvOptions options;
@@ -25,7 +29,7 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
     private String[] cells;
     private int row = -1;
     private int col = -1;
-    private String value;
+    private Object value;
 
     public CsvSpreadsheetParser(final InputStream in) {
         this(in, CsvWriter.GB2312);
@@ -40,7 +44,7 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
     @Override
     public SpreadsheetParser configure(final String option, final Object value) {
         options.set(option, value);
-        return this;
+        return super.configure(option, value);
     }
 
     @Override
@@ -50,10 +54,10 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
 
     @Override
     protected int doNext() throws SpreadsheetException {
-        final CsvParser csvParser = getInternalParser();
         final int event = this.eventType;
         int newEvent = EOF;
         try {
+            final CsvParser csvParser = getInternalParser();
             if (START_WORKBOOK == event) {
                 this.worksheetIndex = 0;
                 this.worksheetName = CSV_SHEET_NAME;
@@ -76,7 +80,7 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
                 if (col >= cells.length) {
                     throw new NoSuchElementException();
                 }
-                value = this.cells[col];
+                value = toValue(this.cells[col]);
                 newEvent = START_CELL;
             } else if (START_CELL == event) {
                 newEvent = END_CELL;
@@ -86,7 +90,7 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
                     col = -1;
                     newEvent = END_RECORD;
                 } else if (col < cells.length) {
-                    value = cells[col];
+                    value = toValue(cells[col]);
                     newEvent = START_CELL;
                 } else {
                     throw new NoSuchElementException();
@@ -100,13 +104,106 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
         return newEvent;
     }
 
-    private CsvParser getInternalParser() {
+    @Override
+    protected void doCollectRecord() throws SpreadsheetException {
+        final String[] cells = this.cells;
+        for (int i = 0; i < cells.length; i++) {
+            addRecordValue(i, toValue(cells[i]));
+        }
+        this.col = -1;
+        this.eventType = END_RECORD;
+    }
+
+    @Override
+    protected void doParse(final RowHandler handler) throws SpreadsheetException {
+        try {
+            final CsvParser csvParser = getInternalParser();
+            this.worksheetIndex = 0;
+            this.worksheetName = CSV_SHEET_NAME;
+            markWorksheetStart();
+            handler.startWorksheet(0, CSV_SHEET_NAME);
+            String[] cells;
+            while (csvParser.hasNext() && null != (cells = csvParser.next()) && 0 < cells.length) {
+                final int row = csvParser.getLineNumber();
+                handler.onRow(row);
+                for (int i = 0; i < cells.length; i++) {
+                    handler.onCell(i, toValue(cells[i]));
+                }
+                markRecordEnd(row);
+                handler.endRow(row);
+                countRecord();
+            }
+            this.close();
+            handler.endWorksheet(0);
+            this.eventType = END_WORKBOOK;
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    /**
+     * Converts a field to the value of the cell.
+     *
+     * <p>The number is parsed from the field text rather than from the field chars of the {@link CsvLineParser}:
+     * the text is created anyway, it is the raw value of the cell, the input of the row filter and the record of
+     * {@link CsvParser#next()}, so parsing the chars before the text is created would save no allocation.</p>
+     *
+     * @param cell the field text
+     * @return the number of a numeric field if the numbers option is enabled, otherwise the field text
+     * @see CsvOptions#OPTION_NUMBERS_KEY
+     */
+    private Object toValue(final String cell) {
+        if (null != cell && options.isNumbers()) {
+            final Number number = NumberParser.parseNumber(cell);
+            return null != number ? number : cell;
+        }
+        return cell;
+    }
+
+    private CsvParser getInternalParser() throws IOException {
         if (null == parser) {
+            final SpreadsheetPosition resume = this.resumePosition;
+            final boolean seek = null != resume && 0 < resume.getOffset();
+            if (seek) {
+                skipFully(in, resume.getOffset());
+            }
             parser = options.createParser(in);
+            if (seek) {
+                parser.setPosition(resume.getOffset(), resume.getRow());
+            }
+            parser.setRowMatcher(rowMatcher);
+            parser.setStringCache(stringCache);
+            parser.setErrorCollector(errorCollector);
+            parser.setCancellation(cancellation);
+            if (null != resume && 0 > resume.getOffset()) {
+                // not seekable (eg: not ASCII-compatible encoding), skip the completed records.
+                for (long i = 0; i < resume.getRecords() && null != parser.next(); i++) {
+                    countRecord();
+                }
+            }
         }
         return parser;
     }
 
+    private static void skipFully(final InputStream in, final long n) throws IOException {
+        long remaining = n;
+        while (0 < remaining) {
+            final long skipped = in.skip(remaining);
+            if (0 < skipped) {
+                remaining -= skipped;
+            } else if (0 > in.read()) {
+                throw new EOFException("position offset " + n + " is beyond the end of stream");
+            } else {
+                remaining--;
+            }
+        }
+    }
+
+    @Override
+    protected long getRecordOffset() {
+        return null != parser ? parser.getOffset() : -1;
+    }
+
     @Override
     public int getRow() {
         return row;
@@ -126,6 +223,15 @@ class CsvSpreadsheetParser extends AbstractSpreadsheetParser {
         return this.value;
     }
 
+    @Override
+    public Object getRawValue() {
+        final int st = this.eventType;
+        if (START_CELL != st && END_CELL != st) {
+            throw new IllegalStateException("getRawValue() called in illegal state");
+        }
+        return this.cells[col];
+    }
+
     @Override
     public void close() throws SpreadsheetException {
         try {
@@ -1,10 +1,17 @@
 package com.github.nomou.spreadsheet.csv;
 
 import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
 import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+import com.github.nomou.spreadsheet.spi.SpreadsheetProber;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
 /**
  * CSV spreadsheet parser factory.
@@ -12,9 +19,14 @@ import java.io.InputStream;
  * @author vacoor
  * @since 1.0
  */
-public class CsvSpreadsheetParserFactory implements SpreadsheetParserFactory {
+public class CsvSpreadsheetParserFactory implements SpreadsheetParserFactory, SpreadsheetProber {
     public static final Spreadsheet.Format CSV = new Spreadsheet.Format("CSV", new byte[0], "csv");
 
+    /**
+     * The number of bytes sampled by {@link #probe(File)}.
+     */
+    private static final int PROBE_SAMPLE_SIZE = 64 * 1024;
+
     @Override
     public Spreadsheet.Format[] getSupportedFormats() {
         return new Spreadsheet.Format[]{CSV};
@@ -24,4 +36,69 @@ public class CsvSpreadsheetParserFactory implements SpreadsheetParserFactory {
     public SpreadsheetParser create(final InputStream in) {
         return new CsvSpreadsheetParser(in);
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>The lines of the first 64KB (with the default quote and separator) are counted, the number of records
+     * of a larger file is extrapolated from its size.</p>
+     */
+    @Override
+    public SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        final byte[] sample = new byte[PROBE_SAMPLE_SIZE];
+        int len = 0;
+        try {
+            final InputStream in = new FileInputStream(file);
+            try {
+                for (int n; len < sample.length && 0 < (n = in.read(sample, len, sample.length - len)); ) {
+                    len += n;
+                }
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+
+        final long size = file.length();
+        final boolean complete = len >= size;
+        boolean quoted = false;
+        int columns = 0;
+        int firstColumns = -1;
+        long records = 0;
+        int recordsEnd = 0;
+        for (int i = 0; i < len; i++) {
+            final byte b = sample[i];
+            if (CsvLineParser.DEFAULT_QUOTE_CHARACTER == b) {
+                quoted = !quoted;
+            } else if (quoted) {
+                continue;
+            } else if (CsvLineParser.DEFAULT_SEPARATOR == b) {
+                columns++;
+            } else if ('\n' == b) {
+                firstColumns = 0 > firstColumns ? columns + 1 : firstColumns;
+                columns = 0;
+                records++;
+                recordsEnd = i + 1;
+            }
+        }
+        if (complete && recordsEnd < len) {
+            // the last line without line separator.
+            firstColumns = 0 > firstColumns ? columns + 1 : firstColumns;
+            records++;
+            recordsEnd = len;
+        }
+        if (!complete) {
+            records = 0 < recordsEnd ? records * size / recordsEnd : 1;
+        }
+        final int lastRow = 0 < records ? (int) Math.min(Integer.MAX_VALUE, records - 1) : -1;
+        return new SpreadsheetMetadata(Collections.singletonList(new SpreadsheetMetadata.WorksheetMetadata(
+                CsvSpreadsheetParser.CSV_SHEET_NAME, 0 < records ? 0 : -1, lastRow, 0 < firstColumns ? 0 : -1,
+                0 < firstColumns ? firstColumns - 1 : -1, records, complete
+        )));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
 }
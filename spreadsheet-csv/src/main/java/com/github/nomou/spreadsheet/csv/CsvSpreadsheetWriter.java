@@ -38,6 +38,7 @@ class CsvSpreadsheetWriter extends AbstractSpreadsheetWriter {
 
     @Override
     public SpreadsheetWriter configure(final String option, final Object value) {
+        super.configure(option, value);
         this.options.set(option, value);
         return this;
     }
@@ -45,7 +46,7 @@ class CsvSpreadsheetWriter extends AbstractSpreadsheetWriter {
     @Override
     public SpreadsheetWriter start(final String worksheetName) throws SpreadsheetException {
         if (null != this.writer) {
-            throw new SpreadsheetException();
+            throw new SpreadsheetException("a csv file holds a single worksheet");
         }
         this.row = 0;
         this.col = 0;
@@ -113,4 +114,16 @@ class CsvSpreadsheetWriter extends AbstractSpreadsheetWriter {
             throw new SpreadsheetException(e);
         }
     }
+
+    @Override
+    protected void abort() {
+        if (null != this.writer) {
+            this.cells.clear();
+            try {
+                this.writer.close();
+            } catch (final IOException ignore) {
+                // ignore.
+            }
+        }
+    }
 }
@@ -23,4 +23,9 @@ public class CsvSpreadsheetWriterFactory implements SpreadsheetWriterFactory {
     public SpreadsheetWriter create(final OutputStream out) {
         return new CsvSpreadsheetWriter(out);
     }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
 }
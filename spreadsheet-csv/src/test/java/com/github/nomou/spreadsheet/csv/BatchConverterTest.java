@@ -0,0 +1,102 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.batch.BatchConverter;
+import com.github.nomou.spreadsheet.batch.BatchStats;
+import com.github.nomou.spreadsheet.batch.ConversionResult;
+import com.github.nomou.spreadsheet.batch.ConversionTask;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Batch conversion of csv files.
+ */
+public class BatchConverterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConvertDirectory() throws Exception {
+        final File in = folder.newFolder("in");
+        final File out = new File(folder.getRoot(), "out");
+        write(new File(in, "a.csv"), "id,name\n1,x\n2,y\n");
+        write(new File(in, "b.csv"), "id,name\n3,z\n");
+
+        final BatchStats stats = new BatchConverter().setSourceExtensions("csv").setUseVirtualThreads(false)
+                .convertDirectory(in, out, "csv");
+        assertEquals(2, stats.getCompleted());
+        assertEquals(0, stats.getFailed());
+        assertEquals(5, stats.getRows());
+        assertTrue(new File(out, "a.csv").isFile());
+        assertTrue(new File(out, "b.csv").isFile());
+        // no temporary file left.
+        assertEquals(2, out.list().length);
+    }
+
+    @Test
+    public void testTargetIsSourceRejected() throws Exception {
+        final File dir = folder.newFolder("same");
+        final File source = new File(dir, "a.csv");
+        write(source, "id,name\n1,x\n");
+        final byte[] content = Files.readAllBytes(source.toPath());
+
+        final BatchStats stats = new BatchConverter().setSourceExtensions("csv").setUseVirtualThreads(false)
+                .convertDirectory(dir, dir, "csv");
+        assertEquals(1, stats.getFailed());
+        assertTrue(stats.getFailures().get(0).getError() instanceof IllegalArgumentException);
+        assertArrayEquals(content, Files.readAllBytes(source.toPath()));
+        assertEquals(Arrays.asList("a.csv"), Arrays.asList(dir.list()));
+    }
+
+    @Test
+    public void testCollidingTargetsRejected() throws Exception {
+        final File a = folder.newFile("a.csv");
+        final File b = folder.newFile("b.csv");
+        write(a, "1\n");
+        write(b, "2\n");
+        final File target = new File(folder.getRoot(), "ab.csv");
+
+        final BatchStats stats = new BatchConverter().setUseVirtualThreads(false)
+                .convert(Arrays.asList(new ConversionTask(a, target), new ConversionTask(b, target)));
+        assertEquals(2, stats.getFailed());
+        for (final ConversionResult failure : stats.getFailures()) {
+            assertTrue(failure.getError() instanceof IllegalArgumentException);
+        }
+        assertFalse(target.exists());
+    }
+
+    @Test
+    public void testFailureKeepsExistingTarget() throws Exception {
+        final File source = folder.newFile("a.csv");
+        write(source, "id,name\n1,x\n");
+        final File target = folder.newFile("a.unknown");
+        write(target, "previous run");
+
+        final BatchStats stats = new BatchConverter().setUseVirtualThreads(false)
+                .convert(Arrays.asList(new ConversionTask(source, target)));
+        assertEquals(1, stats.getFailed());
+        assertEquals("previous run", new String(Files.readAllBytes(target.toPath()), "UTF-8"));
+        assertEquals(2, folder.getRoot().list().length);
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
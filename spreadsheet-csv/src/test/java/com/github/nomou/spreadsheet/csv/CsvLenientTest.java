@@ -0,0 +1,68 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.SpreadsheetError;
+import com.github.nomou.spreadsheet.SpreadsheetErrorCollector;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lenient mode of the csv parser.
+ */
+public class CsvLenientTest {
+
+    @Test
+    public void testUnterminatedQuoteAtEndOfStream() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        final List<String> rows = read("1,a\n2,\"b\n3,c\n", errors, 0);
+        assertEquals("[1, a]", rows.get(0));
+        // the pending field is closed instead of dropped.
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(1).startsWith("[2, b"));
+        assertEquals(1, errors.getErrorCount());
+        final SpreadsheetError error = errors.getErrors().get(0);
+        assertEquals(SpreadsheetError.Reason.UNTERMINATED_QUOTE, error.getReason());
+        assertEquals(1, error.getCol());
+    }
+
+    @Test
+    public void testFieldTooLong() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        final List<String> rows = read("1,\"aaaa\nbbbb\ncccc\n2,d\n", errors, 6);
+        assertEquals(SpreadsheetError.Reason.FIELD_TOO_LONG, errors.getErrors().get(0).getReason());
+        // the rest of the file is not swallowed by the field.
+        assertEquals("[2, d]", rows.get(rows.size() - 1));
+    }
+
+    @Test
+    public void testWellFormedHasNoError() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        assertEquals(Arrays.asList("[1, a\nb]", "[2, c]"), read("1,\"a\nb\"\n2,c\n", errors, 0));
+        assertTrue(errors.isEmpty());
+    }
+
+    private static List<String> read(final String csv, final SpreadsheetErrorCollector errors, final int maxFieldLength) throws Exception {
+        final SpreadsheetParser parser = new CsvSpreadsheetParser(new ByteArrayInputStream(csv.getBytes("UTF-8")));
+        parser.configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors);
+        if (0 < maxFieldLength) {
+            parser.configure(CsvOptions.OPTION_MAX_FIELD_LENGTH_KEY, maxFieldLength);
+        }
+        final List<String> rows = new ArrayList<String>();
+        try {
+            Object[] row;
+            while (null != (row = parser.nextRecord(false))) {
+                rows.add(Arrays.toString(row));
+            }
+        } finally {
+            parser.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The numbers option returning the numeric fields as numbers.
+ */
+public class CsvNumbersTest {
+    private static final String CSV = "id,amount,code,note\n1,2.5,007,\"1,5\"\n-2,1e3,12345678901234567890,x1\n";
+
+    @Test
+    public void testDisabledByDefault() {
+        final SpreadsheetParser parser = open(CSV);
+        parser.nextRecord(false);
+        assertArrayEquals(new Object[]{"1", "2.5", "007", "1,5"}, parser.nextRecord(false));
+        parser.close();
+    }
+
+    @Test
+    public void testNumbers() {
+        final SpreadsheetParser parser = open(CSV);
+        parser.configure(CsvOptions.OPTION_NUMBERS_KEY, true);
+        assertArrayEquals(new Object[]{"id", "amount", "code", "note"}, parser.nextRecord(false));
+        // the integers are longs (leading zeros are lost), the quoted text is not a number.
+        assertArrayEquals(new Object[]{1L, 2.5, 7L, "1,5"}, parser.nextRecord(false));
+        // an integer out of the range of long is a double.
+        assertArrayEquals(new Object[]{-2L, 1000.0, 1.2345678901234567E19, "x1"}, parser.nextRecord(false));
+        parser.close();
+    }
+
+    @Test
+    public void testRawValueIsFieldText() {
+        final SpreadsheetParser parser = open(CSV);
+        parser.configure(CsvOptions.OPTION_NUMBERS_KEY, true);
+        parser.nextRecord(false);
+        assertEquals(SpreadsheetParser.START_RECORD, parser.next());
+        parser.next();
+        parser.next();
+        assertEquals(SpreadsheetParser.START_CELL, parser.next());
+        assertEquals(2.5, parser.getValue());
+        assertEquals("2.5", parser.getRawValue());
+        parser.next();
+        assertEquals(SpreadsheetParser.START_CELL, parser.next());
+        assertEquals(7L, parser.getValue());
+        assertEquals("007", parser.getRawValue());
+        parser.close();
+    }
+
+    @Test
+    public void testPushMode() {
+        final SpreadsheetParser parser = open(CSV);
+        parser.configure(CsvOptions.OPTION_NUMBERS_KEY, true);
+        final List<Object> values = new ArrayList<Object>();
+        parser.parse(new RowHandler() {
+            @Override
+            public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+            }
+
+            @Override
+            public void onRow(final int row) {
+            }
+
+            @Override
+            public void onCell(final int col, final Object value) {
+                values.add(value);
+            }
+
+            @Override
+            public void endRow(final int row) {
+            }
+
+            @Override
+            public void endWorksheet(final int worksheetIndex) {
+            }
+        });
+        parser.close();
+        assertEquals(Arrays.<Object>asList(1L, 2.5, 7L, "1,5"), values.subList(4, 8));
+    }
+
+    @Test
+    public void testRecordEvents() {
+        final SpreadsheetParser parser = open(CSV);
+        parser.configure(CsvOptions.OPTION_NUMBERS_KEY, true);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true);
+        parser.nextRecord(false);
+        assertArrayEquals(new Object[]{1L, 2.5, 7L, "1,5"}, parser.nextRecord(false));
+        parser.close();
+    }
+
+    @Test
+    public void testIllegalValue() {
+        final SpreadsheetParser parser = open(CSV);
+        try {
+            parser.configure(CsvOptions.OPTION_NUMBERS_KEY, "true");
+            fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected.
+        }
+        parser.close();
+    }
+
+    private static SpreadsheetParser open(final String csv) {
+        final Charset charset = Charset.forName("UTF-8");
+        return new CsvSpreadsheetParser(new ByteArrayInputStream(csv.getBytes(charset)), charset);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Probing the csv files from a sample of their lines.
+ */
+public class CsvProbeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testProbeSmallFile() throws Exception {
+        final SpreadsheetMetadata metadata = Spreadsheet.probe(write("small.csv", "id,name,note\n1,a,\"x,\ny\"\n2,b,c"));
+        assertEquals(1, metadata.getNumberOfWorksheets());
+        final SpreadsheetMetadata.WorksheetMetadata worksheet = metadata.getWorksheet(0);
+        assertEquals(CsvSpreadsheetParser.CSV_SHEET_NAME, worksheet.getName());
+        assertEquals(3, worksheet.getRecords());
+        assertTrue(worksheet.isExact());
+        assertEquals(0, worksheet.getFirstRow());
+        assertEquals(2, worksheet.getLastRow());
+        assertEquals(0, worksheet.getFirstColumn());
+        assertEquals(2, worksheet.getLastColumn());
+    }
+
+    @Test
+    public void testProbeEmptyFile() throws Exception {
+        final SpreadsheetMetadata.WorksheetMetadata worksheet =
+                new CsvSpreadsheetParserFactory().probe(write("empty.csv", "")).getWorksheet(0);
+        assertEquals(0, worksheet.getRecords());
+        assertEquals(-1, worksheet.getLastRow());
+        assertEquals(-1, worksheet.getLastColumn());
+    }
+
+    @Test
+    public void testProbeLargeFileIsEstimated() throws Exception {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 10000; i < 30000; i++) {
+            // lines of the same length, the estimate is close.
+            csv.append(i).append(",name").append(i).append('\n');
+        }
+        final SpreadsheetMetadata.WorksheetMetadata worksheet =
+                new CsvSpreadsheetParserFactory().probe(write("large.csv", csv.toString())).getWorksheet(0);
+        assertFalse(worksheet.isExact());
+        assertEquals(1, worksheet.getLastColumn());
+        assertTrue(worksheet.toString(), Math.abs(20000 - worksheet.getRecords()) < 100);
+    }
+
+    private File write(final String name, final String content) throws IOException {
+        final File file = folder.newFile(name);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
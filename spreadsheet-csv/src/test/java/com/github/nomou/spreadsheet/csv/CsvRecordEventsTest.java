@@ -0,0 +1,58 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The csv parser filling the record buffer from its parsed line.
+ */
+public class CsvRecordEventsTest {
+    private static final String CSV = "id,name,score\n1,\"a,\nb\",2.5\n2,,3\n3\n";
+
+    @Test
+    public void testRecordBuffer() throws Exception {
+        final SpreadsheetParser parser = open(CSV, true);
+        assertEquals(SpreadsheetParser.START_WORKSHEET, parser.next());
+        assertEquals(SpreadsheetParser.START_RECORD, parser.next());
+        assertEquals(3, parser.getRecordWidth());
+        assertEquals("score", parser.getRecordValue(2));
+        assertEquals(SpreadsheetParser.END_RECORD, parser.next());
+        assertEquals(SpreadsheetParser.START_RECORD, parser.next());
+        assertEquals("a,\nb", parser.getRecordValue(1));
+        assertEquals(SpreadsheetParser.END_RECORD, parser.next());
+        parser.close();
+    }
+
+    @Test
+    public void testNextRecordMatchesCellEvents() throws Exception {
+        assertSameRecords(CSV, false);
+        assertSameRecords(CSV, true);
+    }
+
+    private static void assertSameRecords(final String csv, final boolean numbers) throws Exception {
+        final SpreadsheetParser cells = open(csv, false);
+        final SpreadsheetParser records = open(csv, true);
+        cells.configure(CsvOptions.OPTION_NUMBERS_KEY, numbers);
+        records.configure(CsvOptions.OPTION_NUMBERS_KEY, numbers);
+        Object[] expected;
+        do {
+            expected = cells.nextRecord(false);
+            assertArrayEquals(expected, records.nextRecord(false));
+        } while (null != expected);
+        cells.close();
+        records.close();
+    }
+
+    private static SpreadsheetParser open(final String csv, final boolean recordEvents) {
+        final Charset charset = Charset.forName("UTF-8");
+        final SpreadsheetParser parser = new CsvSpreadsheetParser(new ByteArrayInputStream(csv.getBytes(charset)), charset);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, recordEvents);
+        return parser;
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Resuming the csv parser from a position token.
+ */
+public class CsvResumeTest {
+    private static final String CSV = "id,name\n1,\"a,\n b\"\n2,中文\n3,c\n4,d\n";
+
+    @Test
+    public void testResumeFromOffset() throws Exception {
+        final String token = positionAfter(CSV, "UTF-8", 2).toToken();
+        final SpreadsheetPosition position = SpreadsheetPosition.parse(token);
+        assertEquals(2, position.getRecords());
+        assertTrue(0 < position.getOffset());
+
+        final List<String> resumed = read(CSV, "UTF-8", token);
+        assertEquals(Arrays.asList("[2, 中文]", "[3, c]", "[4, d]"), resumed);
+    }
+
+    @Test
+    public void testResumeByRecordCount() throws Exception {
+        // UTF-16 is not ASCII-compatible, the completed records are skipped.
+        final SpreadsheetPosition position = positionAfter(CSV, "UTF-16", 3);
+        assertEquals(-1, position.getOffset());
+        assertEquals(Arrays.asList("[3, c]", "[4, d]"), read(CSV, "UTF-16", position.toToken()));
+    }
+
+    @Test
+    public void testPositionOfResumedParser() throws Exception {
+        final SpreadsheetPosition position = positionAfter(CSV, "UTF-8", 2);
+        final SpreadsheetParser parser = open(CSV, "UTF-8");
+        parser.configure(SpreadsheetParser.OPTION_POSITION, position);
+        try {
+            assertEquals(position, parser.getPosition());
+            parser.nextRecord(false);
+            assertEquals(3, parser.getPosition().getRecords());
+            assertEquals(positionAfter(CSV, "UTF-8", 3), parser.getPosition());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testPushPositionMatchesPull() throws Exception {
+        assertEquals(pullPositions(open(CSV, "UTF-8")), pushPositions(open(CSV, "UTF-8")));
+
+        final String token = positionAfter(CSV, "UTF-8", 2).toToken();
+        final SpreadsheetParser pull = open(CSV, "UTF-8");
+        pull.configure(SpreadsheetParser.OPTION_POSITION, token);
+        final SpreadsheetParser push = open(CSV, "UTF-8");
+        push.configure(SpreadsheetParser.OPTION_POSITION, token);
+        final List<SpreadsheetPosition> positions = pullPositions(pull);
+        assertEquals(3, positions.size());
+        assertEquals(positions, pushPositions(push));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPositionAfterStart() throws Exception {
+        final SpreadsheetParser parser = open(CSV, "UTF-8");
+        parser.next();
+        parser.configure(SpreadsheetParser.OPTION_POSITION, SpreadsheetPosition.START);
+    }
+
+    private static SpreadsheetPosition positionAfter(final String csv, final String encoding, final int records) throws Exception {
+        final SpreadsheetParser parser = open(csv, encoding);
+        try {
+            for (int i = 0; i < records; i++) {
+                parser.nextRecord(false);
+            }
+            return parser.getPosition();
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static List<SpreadsheetPosition> pullPositions(final SpreadsheetParser parser) {
+        final List<SpreadsheetPosition> positions = new ArrayList<SpreadsheetPosition>();
+        try {
+            while (null != parser.nextRecord(false)) {
+                positions.add(parser.getPosition());
+            }
+        } finally {
+            parser.close();
+        }
+        return positions;
+    }
+
+    private static List<SpreadsheetPosition> pushPositions(final SpreadsheetParser parser) {
+        final List<SpreadsheetPosition> positions = new ArrayList<SpreadsheetPosition>();
+        try {
+            parser.parse(new RowHandler() {
+                @Override
+                public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+                }
+
+                @Override
+                public void onRow(final int row) {
+                }
+
+                @Override
+                public void onCell(final int col, final Object value) {
+                }
+
+                @Override
+                public void endRow(final int row) {
+                    positions.add(parser.getPosition());
+                }
+
+                @Override
+                public void endWorksheet(final int worksheetIndex) {
+                }
+            });
+        } finally {
+            parser.close();
+        }
+        return positions;
+    }
+
+    private static List<String> read(final String csv, final String encoding, final String token) throws Exception {
+        final SpreadsheetParser parser = open(csv, encoding);
+        parser.configure(SpreadsheetParser.OPTION_POSITION, token);
+        final List<String> records = new ArrayList<String>();
+        try {
+            Object[] record;
+            while (null != (record = parser.nextRecord(false))) {
+                records.add(Arrays.toString(record));
+            }
+        } finally {
+            parser.close();
+        }
+        return records;
+    }
+
+    private static SpreadsheetParser open(final String csv, final String encoding) throws Exception {
+        final Charset charset = Charset.forName(encoding);
+        return new CsvSpreadsheetParser(new ByteArrayInputStream(csv.getBytes(charset)), charset);
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Row filter pushed down to the csv parser.
+ */
+public class CsvRowFilterTest {
+
+    @Test
+    public void testFilteredRowsAreSkipped() throws Exception {
+        final List<Object> ids = parse("1,a\n2,b\n3,a\n4,\n5,a,x\n", new RowFilter().eq(1, "a"));
+        assertEquals(3, ids.size());
+        assertEquals("1", ids.get(0).toString());
+        assertEquals("3", ids.get(1).toString());
+        assertEquals("5", ids.get(2).toString());
+    }
+
+    @Test
+    public void testNumericFilterOnText() throws Exception {
+        final List<Object> ids = parse("1,-0\n2,0.0\n3,zero\n4,1\n", new RowFilter().in(1, 0));
+        assertEquals(2, ids.size());
+        assertEquals("1", ids.get(0).toString());
+        assertEquals("2", ids.get(1).toString());
+    }
+
+    private static List<Object> parse(final String csv, final RowFilter filter) throws Exception {
+        final SpreadsheetParser parser = new CsvSpreadsheetParser(new ByteArrayInputStream(csv.getBytes("UTF-8")));
+        parser.configure(SpreadsheetParser.OPTION_ROW_FILTER, filter);
+        final List<Object> ids = new ArrayList<Object>();
+        try {
+            Object[] row;
+            while (null != (row = parser.nextRecord(false))) {
+                ids.add(row[0]);
+            }
+        } finally {
+            parser.close();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.nomou.spreadsheet.csv;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.util.StringCache;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * String cache of the csv parser.
+ */
+public class CsvStringCacheTest {
+
+    @Test
+    public void testRepeatedValuesShareInstances() throws Exception {
+        final StringCache cache = new StringCache().columns(1);
+        final List<Object[]> rows = parse("1,north\n2,south\n3,north\n4,north\n", cache);
+        assertEquals(4, rows.size());
+        assertSame(rows.get(0)[1], rows.get(2)[1]);
+        assertSame(rows.get(0)[1], rows.get(3)[1]);
+        assertEquals(4, cache.getLookups());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        final List<Object[]> rows = parse("x\nx\n", null);
+        assertEquals(rows.get(0)[0], rows.get(1)[0]);
+        assertNotSame(rows.get(0)[0], rows.get(1)[0]);
+    }
+
+    @Test
+    public void testDefaultCache() throws Exception {
+        final SpreadsheetParser parser = new CsvSpreadsheetParser(new ByteArrayInputStream("a,a\n".getBytes("UTF-8")));
+        parser.configure(SpreadsheetParser.OPTION_STRING_CACHE, true);
+        try {
+            final Object[] row = parser.nextRecord(false);
+            assertSame(row[0], row[1]);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static List<Object[]> parse(final String csv, final StringCache cache) throws Exception {
+        final SpreadsheetParser parser = new CsvSpreadsheetParser(new ByteArrayInputStream(csv.getBytes("UTF-8")));
+        if (null != cache) {
+            parser.configure(SpreadsheetParser.OPTION_STRING_CACHE, cache);
+        }
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        try {
+            Object[] row;
+            while (null != (row = parser.nextRecord(false))) {
+                rows.add(row);
+            }
+        } finally {
+            parser.close();
+        }
+        return rows;
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.nomou.spreadsheet.msexcel;
 
 import com.github.nomou.spreadsheet.AbstractSpreadsheetWriter;
+import com.github.nomou.spreadsheet.CancellationToken;
+import com.github.nomou.spreadsheet.SpreadsheetCancelledException;
 import com.github.nomou.spreadsheet.SpreadsheetException;
 import com.github.nomou.spreadsheet.SpreadsheetWriter;
 import org.apache.poi.ss.usermodel.Cell;
@@ -9,6 +11,7 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -55,6 +58,8 @@ abstract class AbstractPOISpreadsheetWriter extends AbstractSpreadsheetWriter {
             } else {
                 throw new IllegalArgumentException("illegal template value, must be InputStream");
             }
+        } else {
+            super.configure(option, value);
         }
         return this;
     }
@@ -152,6 +157,7 @@ abstract class AbstractPOISpreadsheetWriter extends AbstractSpreadsheetWriter {
      */
     @Override
     public AbstractPOISpreadsheetWriter next() {
+        countRecord();
         row++;
         col = 0;
         return this;
@@ -164,14 +170,41 @@ abstract class AbstractPOISpreadsheetWriter extends AbstractSpreadsheetWriter {
     public void close() {
         try {
             if (null != workbook && null != out) {
-                workbook.write(out);
+                checkCancelled();
+                // the serialization of a large workbook is long, the token is also checked while writing.
+                workbook.write(null != cancellation ? new CancellableOutputStream(out, cancellation) : out);
+                disposeWorkbook(workbook);
                 System.gc();
             }
+        } catch (final CancelledIOException e) {
+            abort();
+            throw e.getCause();
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void abort() {
+        final Workbook workbook = this.workbook;
+        this.workbook = null;
+        this.worksheet = null;
+        if (null != workbook) {
+            disposeWorkbook(workbook);
+        }
+    }
+
+    /**
+     * Releases the resources (temp files) of the workbook.
+     *
+     * @param workbook the workbook
+     */
+    protected void disposeWorkbook(final Workbook workbook) {
+    }
+
     protected Cell getCell(final int col, final int row) {
         if (null == worksheet) {
             throw new IllegalStateException("no writable worksheet at current state, already call start(worksheetName) method?");
@@ -203,4 +236,52 @@ abstract class AbstractPOISpreadsheetWriter extends AbstractSpreadsheetWriter {
     }
 
     protected abstract Workbook createWorkbook(final InputStream template) throws IOException;
+
+    /**
+     * Output stream checking the cancellation token on each write of the workbook (blocks and single bytes).
+     */
+    static class CancellableOutputStream extends FilterOutputStream {
+        private final CancellationToken token;
+
+        CancellableOutputStream(final OutputStream out, final CancellationToken token) {
+            super(out);
+            this.token = token;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            check();
+            out.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            check();
+            out.write(b, off, len);
+        }
+
+        private void check() throws CancelledIOException {
+            try {
+                token.check();
+            } catch (final SpreadsheetCancelledException ex) {
+                throw new CancelledIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Carries the cancellation through the IO of {@link Workbook#write(OutputStream)}.
+     */
+    private static class CancelledIOException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CancelledIOException(final SpreadsheetCancelledException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public synchronized SpreadsheetCancelledException getCause() {
+            return (SpreadsheetCancelledException) super.getCause();
+        }
+    }
 }
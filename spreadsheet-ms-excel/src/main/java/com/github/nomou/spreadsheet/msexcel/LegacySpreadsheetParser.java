@@ -1,8 +1,12 @@
 package com.github.nomou.spreadsheet.msexcel;
 
 import com.github.nomou.spreadsheet.AbstractSpreadsheetParser;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.RowHandler;
 import com.github.nomou.spreadsheet.SpreadsheetException;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import com.github.nomou.spreadsheet.util.ExcelDates;
 import jxl.BooleanCell;
 import jxl.Cell;
 import jxl.CellType;
@@ -17,8 +21,7 @@ import jxl.read.biff.BiffException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.Date;
 import java.util.NoSuchElementException;
 import java.util.TimeZone;
 
@@ -34,8 +37,23 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
     private int col = -1;
     private Object value;
 
+    /**
+     * The current cell, decoded on demand by {@link #getValue()}.
+     */
+    private Cell cell;
+
+    /**
+     * Whether the current cell is decoded, the value is memoized.
+     */
+    private boolean decoded;
+
     private Workbook workbook;
 
+    /**
+     * The time zone of the dates.
+     */
+    private final TimeZone timeZone = TimeZone.getDefault();
+
     LegacySpreadsheetParser(final InputStream in) throws SpreadsheetException {
         initInputSource(in);
     }
@@ -45,7 +63,7 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
      */
     @Override
     public SpreadsheetParser configure(final String option, final Object value) {
-        return this;
+        return super.configure(option, value);
     }
 
     /**
@@ -89,9 +107,36 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
         if (START_CELL != st && END_CELL != st) {
             throw new IllegalStateException("getValue() called in illegal state");
         }
+        if (!this.decoded) {
+            this.value = asJavaObject(this.cell);
+            this.decoded = true;
+        }
         return this.value;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getRawValue() {
+        final int st = this.eventType;
+        if (START_CELL != st && END_CELL != st) {
+            throw new IllegalStateException("getRawValue() called in illegal state");
+        }
+        return null != this.cell ? this.cell.getContents() : getValue();
+    }
+
+    /**
+     * Sets the current cell, the value is decoded on demand.
+     *
+     * @param cell the cell
+     */
+    private void setCell(final Cell cell) {
+        this.cell = cell;
+        this.value = null;
+        this.decoded = null == cell;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -104,27 +149,20 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
 
         int newEvent = EOF;
         if (START_WORKBOOK == st) {
-            this.worksheetIndex = 0;
-            if (1 > worksheets) {
+            // random access: jump to the worksheet of the resume position.
+            this.worksheetIndex = null != resumePosition ? resumePosition.getWorksheetIndex() : 0;
+            if (this.worksheetIndex >= worksheets) {
 //                close();
                 newEvent = END_WORKBOOK;
             } else {
+                this.worksheetName = workbook.getSheet(this.worksheetIndex).getName();
                 newEvent = START_WORKSHEET;
             }
         } else if (START_WORKSHEET == st) {
-            final Sheet sheet = workbook.getSheet(worksheetIndex);
-            final int rows = sheet.getRows();
-            if (1 > rows) {
-                newEvent = END_WORKSHEET;
-            } else {
-                row = -1;
-                Cell[] cells;
-                do {
-                    cells = sheet.getRow(++row);
-                } while (null != cells && 1 > cells.length);
-
-                newEvent = START_RECORD;
-            }
+            final SpreadsheetPosition resume = this.resumePosition;
+            final int from = null != resume && resume.getWorksheetIndex() == worksheetIndex ? resume.getRow() + 1 : 0;
+            row = nextRecordRow(workbook.getSheet(worksheetIndex), from);
+            newEvent = 0 > row ? END_WORKSHEET : START_RECORD;
         } else if (START_RECORD == st) {
             col = 0;
             final Sheet sheet = workbook.getSheet(worksheetIndex);
@@ -132,7 +170,7 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
             if (col >= cells.length) {
                 throw new NoSuchElementException();
             }
-            value = asJavaObject(cells[col]);
+            setCell(cells[col]);
 
             newEvent = START_CELL;
         } else if (START_CELL == st) {
@@ -149,25 +187,118 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
                 if (col >= cells.length) {
                     throw new NoSuchElementException();
                 }
-                value = asJavaObject(cells[col]);
+                setCell(cells[col]);
                 newEvent = START_CELL;
             }
         } else if (END_RECORD == st) {
-            final int rows = workbook.getSheet(worksheetIndex).getRows();
-            if (this.row == rows - 1) {
+            row = nextRecordRow(workbook.getSheet(worksheetIndex), row + 1);
+            newEvent = 0 > row ? END_WORKSHEET : START_RECORD;
+        } else if (END_WORKSHEET == st) {
+            if (worksheetIndex >= worksheets - 1) {
 //                close();
-                newEvent = END_WORKSHEET;
+                newEvent = END_WORKBOOK;
             } else {
-                row++;
-                newEvent = START_RECORD;
+                this.worksheetIndex = worksheetIndex + 1;
+                this.worksheetName = workbook.getSheet(this.worksheetIndex).getName();
+                newEvent = START_WORKSHEET;
             }
-        } else if (END_WORKSHEET == st && worksheetIndex == worksheets - 1) {
-//            close();
-            newEvent = END_WORKBOOK;
         }
         return newEvent;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doParse(final RowHandler handler) throws SpreadsheetException {
+        final Workbook workbook = this.workbook;
+        final int worksheets = workbook.getNumberOfSheets();
+        final SpreadsheetPosition resume = this.resumePosition;
+        for (int i = null != resume ? resume.getWorksheetIndex() : 0; i < worksheets; i++) {
+            final Sheet sheet = workbook.getSheet(i);
+            this.worksheetIndex = i;
+            this.worksheetName = sheet.getName();
+            checkCancelled();
+            markWorksheetStart();
+            handler.startWorksheet(i, this.worksheetName);
+
+            final int rows = sheet.getRows();
+            int r = null != resume && resume.getWorksheetIndex() == i ? resume.getRow() + 1 : 0;
+            while (r < rows && 0 <= (r = nextAcceptedRow(sheet, r))) {
+                final Cell[] cells = sheet.getRow(r);
+                if (0 < cells.length) {
+                    this.row = r;
+                    handler.onRow(r);
+                    for (int c = 0; c < cells.length; c++) {
+                        handler.onCell(c, asJavaObject(cells[c]));
+                    }
+                    markRecordEnd(r);
+                    handler.endRow(r);
+                }
+                countRecord();
+                r++;
+            }
+            handler.endWorksheet(i);
+        }
+        this.row = -1;
+        this.eventType = END_WORKBOOK;
+    }
+
+    /**
+     * Finds the first non-empty row accepted by the row filter, starting from the given row, as
+     * {@link #doParse(RowHandler)} does.
+     *
+     * @param sheet the worksheet
+     * @param from  the first row to test
+     * @return the row or -1 if no more row
+     */
+    private int nextRecordRow(final Sheet sheet, final int from) {
+        final int rows = sheet.getRows();
+        int r = from;
+        while (r < rows && 0 <= (r = nextAcceptedRow(sheet, r))) {
+            if (0 < sheet.getRow(r).length) {
+                return r;
+            }
+            countRecord();
+            r++;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first row accepted by the row filter, starting from the given row.
+     * <p>Only the cells referenced by the row filter are decoded.</p>
+     *
+     * @param sheet the worksheet
+     * @param from  the first row to test
+     * @return the accepted row or -1 if no more row is accepted
+     */
+    private int nextAcceptedRow(final Sheet sheet, final int from) {
+        final RowFilter.Matcher matcher = this.rowMatcher;
+        if (null == matcher) {
+            return from;
+        }
+        final int rows = sheet.getRows();
+        for (int r = from; r < rows; r++) {
+            countRecord();
+            final Cell[] cells = sheet.getRow(r);
+            if (1 > cells.length) {
+                continue;
+            }
+            final int last = Math.min(cells.length - 1, matcher.getMaxColumn());
+
+            boolean accepted = true;
+            matcher.reset();
+            for (int c = 0; c <= last && accepted; c++) {
+                accepted = !matcher.isReferenced(c) || matcher.accept(c, asJavaObject(cells[c]));
+            }
+            if (accepted && matcher.complete()) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -231,18 +362,15 @@ class LegacySpreadsheetParser extends AbstractSpreadsheetParser {
             value = bool.getValue();
         } else if (CellType.LABEL == type || CellType.STRING_FORMULA == type) {
             final LabelCell label = (LabelCell) cell;
-            value = label.getString();
+            value = null != stringCache ? stringCache.get(cell.getColumn(), label.getString()) : label.getString();
             // value = null != value ? value.trim() : null;    // 这里 trim 下, 兼容一下多个换行转换为其他类型出错问题
         } else if (type == CellType.NUMBER || type == CellType.NUMBER_FORMULA) {
             final NumberCell number = (NumberCell) cell;
             value = number.getValue();
         } else if (type == CellType.DATE || type == CellType.DATE_FORMULA) {
             final DateCell date = (DateCell) cell;
-            // 时区为 GMT, Excel 使用GMT时区, Java 会使用默认时区, 这里不做处理了, 直接不允许使用时间
-            final Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
-            calendar.setTime(date.getDate());
-            calendar.add(Calendar.MILLISECOND, -TimeZone.getDefault().getRawOffset());
-            value = calendar.getTime();
+            // jxl 按 GMT 解析日期, 这里转换为默认时区的相同日期时间 (与 POI 一致)
+            value = new Date(ExcelDates.toZoneMillis(date.getDate().getTime(), timeZone));
         /*
         } else if (type == CellType.ERROR || type == CellType.FORMULA_ERROR) {
             // ErrorFormulaCell error = (ErrorFormulaCell) cell;
@@ -1,8 +1,15 @@
 package com.github.nomou.spreadsheet.msexcel;
 
 import com.github.nomou.spreadsheet.AbstractSpreadsheetParser;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SplittableSpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetError;
 import com.github.nomou.spreadsheet.SpreadsheetException;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import com.github.nomou.spreadsheet.util.ExcelDates;
+import com.github.nomou.spreadsheet.util.StringCache;
 import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
 import org.apache.poi.hssf.eventusermodel.HSSFListener;
 import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
@@ -12,17 +19,22 @@ import org.apache.poi.hssf.eventusermodel.dummyrecord.MissingRowDummyRecord;
 import org.apache.poi.hssf.record.*;
 import org.apache.poi.hssf.usermodel.HSSFCell;
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.LocaleUtil;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.TimeZone;
 
 /**
  * POI-based spreadsheet parser for Microsoft Excel 97-2003.
@@ -34,7 +46,8 @@ import java.util.Queue;
  * @see <a href="http://poi.apache.org/">POI</a>
  * @since 1.0
  */
-class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
+class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser implements SplittableSpreadsheetParser {
+    private POIFSFileSystem fs;
     private WorkbookIterator workbookIt;
     private List<BoundSheetRecord> boundSheetRecords;
     private SSTRecord sharedStyleTable;
@@ -44,16 +57,142 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
     private Object value;
     private Record _next;
 
+    /**
+     * The current cell record, decoded on demand by {@link #getValue()}, null once decoded.
+     */
+    private CellValueRecordInterface cellRecord;
+
+    /**
+     * The BOF/EOF nesting depth of the worksheet substream being skipped (resume position), 0 if not skipping.
+     */
+    private int skipDepth;
+
+    /**
+     * The non-cell record read ahead while buffering a row.
+     */
+    private Record pushback;
+
+    /* *************************************************************
+     * Row filter buffer: the cells of the current accepted row,
+     * replayed when bufferPos >= 0.
+     * *********************************************************** */
+    private int buffered;
+    private int bufferPos = -1;
+    private Record[] bufferCells = new Record[16];
+    private Object[] bufferValues = new Object[16];
+    private boolean[] bufferDecoded = new boolean[16];
+
+    /**
+     * Whether the workbook stream is encrypted (the worksheet substreams cannot be read independently).
+     */
+    private boolean encrypted;
+
+    /**
+     * Whether this parser is a worksheet parser sharing the file system of a workbook parser.
+     */
+    private boolean split;
+
+    /**
+     * Whether the workbook uses the 1904 date system.
+     */
+    private boolean date1904;
+
+    /**
+     * The time zone of the dates.
+     */
+    private TimeZone timeZone = LocaleUtil.getUserTimeZone();
+
     LegacySpreadsheetParser2(final InputStream inputStream) throws SpreadsheetException {
         setInputSource(inputStream);
     }
 
+    /**
+     * Creates a parser of one worksheet reading the worksheet substream from its BOF record (BOUNDSHEET offset),
+     * the SST and formats are shared with the workbook parser.
+     *
+     * @param workbook       the workbook parser
+     * @param worksheetIndex the worksheet index
+     */
+    private LegacySpreadsheetParser2(final LegacySpreadsheetParser2 workbook, final int worksheetIndex) throws IOException {
+        this.workbookIt = workbook.openWorksheet(worksheetIndex);
+        this.boundSheetRecords = workbook.boundSheetRecords;
+        this.sharedStyleTable = workbook.sharedStyleTable;
+        this.date1904 = workbook.date1904;
+        this.timeZone = workbook.timeZone;
+        this.worksheetIndex = worksheetIndex - 1;
+        this.split = true;
+        this.eventType = START_WORKBOOK;
+    }
+
+    /**
+     * Opens the record stream of a worksheet substream from its BOF record (BOUNDSHEET offset), the formats of the
+     * workbook globals are shared.
+     *
+     * @param worksheetIndex the worksheet index
+     * @return the record iterator positioned before the worksheet BOF record
+     */
+    private WorkbookIterator openWorksheet(final int worksheetIndex) throws IOException {
+        final DocumentInputStream docIn = this.fs.getRoot().createDocumentInputStream("Workbook");
+        long n = this.boundSheetRecords.get(worksheetIndex).getPositionOfBof();
+        while (0 < n) {
+            final long skipped = docIn.skip(n);
+            if (0 >= skipped) {
+                throw new IOException("unexpected end of workbook stream");
+            }
+            n -= skipped;
+        }
+        return new WorkbookIterator(new RecordFactoryInputStream(docIn, false), this.workbookIt.formats);
+    }
+
+    /**
+     * Seeks to the worksheet of the resume position, the earlier worksheets are not read. The records of an
+     * encrypted stream cannot be read from a worksheet offset, they are skipped from the workbook globals.
+     */
+    private void seekResumeWorksheet() throws SpreadsheetException {
+        final int resumeWorksheet = this.resumePosition.getWorksheetIndex();
+        if (encrypted || null == this.fs || 0 >= resumeWorksheet || resumeWorksheet >= getNumberOfWorksheets()) {
+            return;
+        }
+        try {
+            this.workbookIt = openWorksheet(resumeWorksheet);
+            this.worksheetIndex = resumeWorksheet - 1;
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSplittable() {
+        return !split && !encrypted && START_WORKBOOK == this.eventType && null != this.fs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpreadsheetParser createWorksheetParser(final int worksheetIndex) throws SpreadsheetException {
+        if (!isSplittable()) {
+            throw new IllegalStateException("createWorksheetParser() called in illegal state");
+        }
+        if (0 > worksheetIndex || worksheetIndex >= getNumberOfWorksheets()) {
+            throw new IndexOutOfBoundsException("worksheet index: " + worksheetIndex);
+        }
+        try {
+            return new LegacySpreadsheetParser2(this, worksheetIndex);
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public SpreadsheetParser configure(final String option, final Object value) {
-        return this;
+        return super.configure(option, value);
     }
 
     /**
@@ -97,6 +236,10 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
         if (START_CELL != st && END_CELL != st) {
             throw new IllegalStateException("getValue() called in illegal state");
         }
+        if (null != this.cellRecord) {
+            this.value = asJavaObject(this.cellRecord, this.workbookIt);
+            this.cellRecord = null;
+        }
         return this.value;
     }
 
@@ -104,22 +247,40 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
     @Override
     protected int doNext() throws SpreadsheetException {
         final int t = this.eventType;
+        if (START_WORKBOOK == t && !split && null != this.resumePosition) {
+            seekResumeWorksheet();
+        }
         final WorkbookIterator it = this.workbookIt;
         final int worksheets = getNumberOfWorksheets();
         final int worksheetIndex = this.worksheetIndex;
 
+        // replay the buffered row.
+        if (0 <= this.bufferPos) {
+            if (START_CELL == t) {
+                return END_CELL;
+            }
+            if (this.bufferPos < this.buffered) {
+                nextBufferedCell();
+                return START_CELL;
+            }
+            this.bufferPos = -1;
+            this.buffered = 0;
+            this.col = -1;
+            return END_RECORD;
+        }
+
         // FIX START_RECORD.
         if (START_RECORD == t && null != this._next) {
             if (this._next instanceof CellValueRecordInterface) {
                 final CellValueRecordInterface cell = (CellValueRecordInterface) this._next;
                 this.col = cell.getColumn();
                 this.row = cell.getRow();
-                this.value = asJavaObject(cell, it);
+                setCell(cell, it);
             } else if (this._next instanceof MissingCellDummyRecord) {
                 final MissingCellDummyRecord cell = (MissingCellDummyRecord) this._next;
                 this.col = cell.getColumn();
                 this.row = cell.getRow();
-                this.value = null;
+                setCell(null, it);
             }
             this._next = null;
             return START_CELL;
@@ -130,15 +291,31 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
             return END_CELL;
         }
 
-        // FIX END_WORKBOOK
-        if (END_WORKSHEET == t && !it.hasNext()) {
+        // FIX END_WORKBOOK, a worksheet parser stops at the end of its worksheet substream.
+        if (END_WORKSHEET == t && (split || !it.hasNext())) {
             doPostWorkbook();
             return END_WORKBOOK;
         }
 
         int newEvent = EOF;
-        while (it.hasNext()) {
-            final Record record = it.next();
+        while (null != this.pushback || it.hasNext()) {
+            final Record record = null != this.pushback ? this.pushback : it.next();
+            this.pushback = null;
+
+            // skip records before the resume position.
+            if (0 < this.skipDepth) {
+                countRecord();
+                if (record instanceof BOFRecord) {
+                    this.skipDepth++;
+                } else if (record instanceof EOFRecord) {
+                    this.skipDepth--;
+                }
+                continue;
+            }
+            if (isBeforePosition(record)) {
+                countRecord();
+                continue;
+            }
             /*-
              * --- workbook BOF record
              * --- ...
@@ -188,6 +365,10 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
                 // worksheet start.
                 this.worksheetIndex++;
                 this.worksheetName = this.boundSheetRecords.get(this.worksheetIndex).getSheetname();
+                if (null != this.resumePosition && this.worksheetIndex < this.resumePosition.getWorksheetIndex()) {
+                    this.skipDepth = 1;
+                    continue;
+                }
                 newEvent = START_WORKSHEET;
             } else if (record instanceof RowRecord) {
                 // FIXME.
@@ -199,13 +380,20 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
                 final CellValueRecordInterface cell = (CellValueRecordInterface) record;
                 final int row = cell.getRow();
                 final short column = cell.getColumn();
-                if (0 == column) {
+                if (0 == column && null != this.rowMatcher) {
+                    this.row = row;
+                    if (bufferAcceptedRow(record, it)) {
+                        newEvent = START_RECORD;
+                    } else {
+                        countRecord();
+                    }
+                } else if (0 == column) {
                     this.row = row;
                     this._next = record;
                     newEvent = START_RECORD;
                 } else {
                     this.col = cell.getColumn();
-                    this.value = asJavaObject(cell, it);
+                    setCell(cell, it);
 //                System.out.println("--");
                     // } else if (record instanceof CellRecord) {
                     newEvent = START_CELL;
@@ -220,13 +408,20 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
                 final int row = cell.getRow();
                 final int column = cell.getColumn();
 
-                if (0 == column) {
+                if (0 == column && null != this.rowMatcher) {
+                    this.row = row;
+                    if (bufferAcceptedRow(record, it)) {
+                        newEvent = START_RECORD;
+                    } else {
+                        countRecord();
+                    }
+                } else if (0 == column) {
                     this.row = row;
                     this._next = cell;
                     newEvent = START_RECORD;
                 } else {
                     this.col = cell.getColumn();
-                    this.value = null;
+                    setCell(null, it);
                     newEvent = START_CELL;
                 }
             } else if (record instanceof LastCellOfRowDummyRecord) {
@@ -245,6 +440,173 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
         return newEvent;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doParse(final RowHandler handler) throws SpreadsheetException {
+        if (null != this.rowMatcher || null != this.resumePosition) {
+            // the row filter and the resume position are handled by the pull events.
+            super.doParse(handler);
+            return;
+        }
+        final WorkbookIterator it = this.workbookIt;
+        boolean inWorksheet = false;
+        boolean rowOpened = false;
+        // the BOF/EOF nesting depth of the substreams which are not worksheets (eg: embedded charts).
+        int depth = 0;
+        while (null != this.pushback || it.hasNext()) {
+            final Record record = null != this.pushback ? this.pushback : it.next();
+            this.pushback = null;
+            if (record instanceof CellValueRecordInterface) {
+                final CellValueRecordInterface cell = (CellValueRecordInterface) record;
+                if (!rowOpened) {
+                    rowOpened = true;
+                    this.row = cell.getRow();
+                    handler.onRow(this.row);
+                }
+                handler.onCell(cell.getColumn(), asJavaObject(cell, it));
+            } else if (record instanceof MissingCellDummyRecord) {
+                final MissingCellDummyRecord cell = (MissingCellDummyRecord) record;
+                if (!rowOpened) {
+                    rowOpened = true;
+                    this.row = cell.getRow();
+                    handler.onRow(this.row);
+                }
+                handler.onCell(cell.getColumn(), null);
+            } else if (record instanceof LastCellOfRowDummyRecord) {
+                if (rowOpened) {
+                    rowOpened = false;
+                    markRecordEnd(this.row);
+                    handler.endRow(this.row);
+                    countRecord();
+                }
+            } else if (record instanceof BOFRecord) {
+                if (!inWorksheet && 0 == depth && isWorksheet((BOFRecord) record)) {
+                    inWorksheet = true;
+                    this.worksheetIndex++;
+                    this.worksheetName = this.boundSheetRecords.get(this.worksheetIndex).getSheetname();
+                    checkCancelled();
+                    markWorksheetStart();
+                    handler.startWorksheet(this.worksheetIndex, this.worksheetName);
+                } else {
+                    depth++;
+                }
+            } else if (record instanceof EOFRecord) {
+                if (0 < depth) {
+                    depth--;
+                } else if (inWorksheet) {
+                    if (rowOpened) {
+                        rowOpened = false;
+                        markRecordEnd(this.row);
+                        handler.endRow(this.row);
+                        countRecord();
+                    }
+                    inWorksheet = false;
+                    handler.endWorksheet(this.worksheetIndex);
+                    if (split) {
+                        break;
+                    }
+                }
+            }
+        }
+        this.row = -1;
+        doPostWorkbook();
+        this.eventType = END_WORKBOOK;
+    }
+
+    /**
+     * Buffers the cells of the row started by the given record until the last cell of the row.
+     * <p>Only the cells referenced by the row filter (and formulas, their string result is the next record)
+     * are decoded while buffering, the decoding stops as soon as the row is rejected.</p>
+     *
+     * @param first the first cell record of the row
+     * @param it    the record iterator
+     * @return true if the row is accepted, the buffered cells will be replayed
+     */
+    private boolean bufferAcceptedRow(final Record first, final WorkbookIterator it) {
+        final RowFilter.Matcher matcher = this.rowMatcher;
+        matcher.reset();
+        this.buffered = 0;
+
+        boolean accepted = true;
+        Record record = first;
+        while (null != record && !(record instanceof LastCellOfRowDummyRecord)) {
+            if (record instanceof CellValueRecordInterface || record instanceof MissingCellDummyRecord) {
+                final boolean missing = record instanceof MissingCellDummyRecord;
+                final int column = missing ? ((MissingCellDummyRecord) record).getColumn() : ((CellValueRecordInterface) record).getColumn();
+                if (accepted) {
+                    final boolean decode = !missing && (record instanceof FormulaRecord || matcher.isReferenced(column));
+                    final Object value = decode ? asJavaObject((CellValueRecordInterface) record, it) : null;
+                    bufferCell(record, value, decode || missing);
+                    accepted = matcher.accept(column, value);
+                }
+            } else if (record instanceof EOFRecord || record instanceof BOFRecord) {
+                this.pushback = record;
+                break;
+            }
+            if (null != this.pushback) {
+                record = this.pushback;
+                this.pushback = null;
+            } else {
+                record = it.hasNext() ? it.next() : null;
+            }
+        }
+
+        if (accepted && matcher.complete()) {
+            this.bufferPos = 0;
+            return true;
+        }
+        this.buffered = 0;
+        Arrays.fill(this.bufferCells, null);
+        Arrays.fill(this.bufferValues, null);
+        return false;
+    }
+
+    private void bufferCell(final Record cell, final Object value, final boolean decoded) {
+        final int i = this.buffered++;
+        if (i == this.bufferCells.length) {
+            final int newLength = i << 1;
+            this.bufferCells = Arrays.copyOf(this.bufferCells, newLength);
+            this.bufferValues = Arrays.copyOf(this.bufferValues, newLength);
+            this.bufferDecoded = Arrays.copyOf(this.bufferDecoded, newLength);
+        }
+        this.bufferCells[i] = cell;
+        this.bufferValues[i] = value;
+        this.bufferDecoded[i] = decoded;
+    }
+
+    /**
+     * Sets the current cell, the value is decoded on demand except for formulas (the string result
+     * of a formula is the next record of the stream).
+     *
+     * @param cell the cell record or null if the cell is missing
+     * @param it   the record iterator
+     */
+    private void setCell(final CellValueRecordInterface cell, final WorkbookIterator it) {
+        if (cell instanceof FormulaRecord) {
+            this.value = asJavaObject(cell, it);
+            this.cellRecord = null;
+        } else {
+            this.value = null;
+            this.cellRecord = cell;
+        }
+    }
+
+    private void nextBufferedCell() {
+        final int i = this.bufferPos++;
+        final Record cell = this.bufferCells[i];
+        if (cell instanceof MissingCellDummyRecord) {
+            this.col = ((MissingCellDummyRecord) cell).getColumn();
+        } else {
+            this.col = ((CellValueRecordInterface) cell).getColumn();
+        }
+        this.value = this.bufferValues[i];
+        this.cellRecord = this.bufferDecoded[i] ? null : (CellValueRecordInterface) cell;
+        this.bufferCells[i] = null;
+        this.bufferValues[i] = null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -264,7 +626,8 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
             final POIFSFileSystem fs = new POIFSFileSystem(inputSource);
             final InputStream docIn = fs.getRoot().createDocumentInputStream("Workbook");
 
-            this.workbookIt = new WorkbookIterator(new RecordFactoryInputStream(docIn, false));
+            this.fs = fs;
+            this.workbookIt = new WorkbookIterator(new RecordFactoryInputStream(docIn, false), null);
             this.doPreWorkbook();
             this.eventType = START_WORKBOOK;
         } catch (final IOException e) {
@@ -284,6 +647,10 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
                 boundSheetRecords.add((BoundSheetRecord) record);
             } else if (record instanceof SSTRecord) {
                 sharedStyleTable = (SSTRecord) record;
+            } else if (record instanceof DateWindow1904Record) {
+                this.date1904 = 1 == ((DateWindow1904Record) record).getWindowing();
+            } else if (record instanceof FilePassRecord) {
+                this.encrypted = true;
             } else if (record instanceof EOFRecord) {
                 break;
             }
@@ -299,6 +666,7 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
         this.sharedStyleTable = null;
         this.boundSheetRecords = null;
         this.workbookIt = null;
+        this.fs = null;
     }
 
     private Object asJavaObject(final CellValueRecordInterface cell, final WorkbookIterator it) {
@@ -312,13 +680,18 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
         } else if (cell instanceof NumberRecord) {
             final NumberRecord numberic = (NumberRecord) cell;
             final double value = numberic.getValue();
-            ret = workbook.isDateRecord(numberic) ? HSSFDateUtil.getJavaDate(value) : value;
+            ret = workbook.isDateRecord(numberic) ? toDate(value) : value;
         } else if (cell instanceof LabelRecord) {
-            ret = ((LabelRecord) cell).getValue();
+            ret = dedup(cell.getColumn(), ((LabelRecord) cell).getValue());
             // ret = null != ret ? ret.trim() : null;    // 这里 trim 下, 兼容一下多个换行转换为其他类型出错问题
         } else if (cell instanceof LabelSSTRecord) { // 引用共享字符串表的 label 类型
             final LabelSSTRecord labelSST = (LabelSSTRecord) cell;
-            ret = sharedStyleTable.getString(labelSST.getSSTIndex()).getString();
+            final int sstIndex = labelSST.getSSTIndex();
+            if (null != errorCollector && (null == sharedStyleTable || 0 > sstIndex || sstIndex >= sharedStyleTable.getNumUniqueStrings())) {
+                ret = invalidCell(cell, String.valueOf(sstIndex), SpreadsheetError.Reason.INVALID_SHARED_STRING);
+            } else {
+                ret = sharedStyleTable.getString(sstIndex).getString();
+            }
             // ret = null != ret ? ret.trim() : null;    // 这里 trim 下, 兼容一下多个换行转换为其他类型出错问题
         } else if (cell instanceof FormulaRecord) {
             final FormulaRecord formula = (FormulaRecord) cell;
@@ -335,25 +708,77 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
                  * true if this FormulaRecord is followed by a StringRecord representing the cached text result of the formula evaluation.
                  */
                 if (!formula.hasCachedResultString()) {
-                    throw new IllegalStateException("text formula not has cached result string");
+                    if (null == errorCollector) {
+                        throw new IllegalStateException("text formula not has cached result string");
+                    }
+                    ret = invalidCell(cell, null, SpreadsheetError.Reason.MALFORMED_RECORD);
                 } else if (!it.hasNext()) {
-                    throw new IllegalStateException("text formula record is not flowed string record");
+                    if (null == errorCollector) {
+                        throw new IllegalStateException("text formula record is not flowed string record");
+                    }
+                    ret = invalidCell(cell, null, SpreadsheetError.Reason.MALFORMED_RECORD);
                 } else {
                     final Record record = it.next();
                     if (!(record instanceof StringRecord)) {
-                        throw new IllegalStateException("text formula record is not flowed string record");
+                        if (null == errorCollector) {
+                            throw new IllegalStateException("text formula record is not flowed string record");
+                        }
+                        // keep the unexpected record for the main loop.
+                        this.pushback = record;
+                        ret = invalidCell(cell, null, SpreadsheetError.Reason.MALFORMED_RECORD);
+                    } else {
+                        ret = dedup(cell.getColumn(), ((StringRecord) record).getString());
                     }
-                    ret = ((StringRecord) record).getString();
                 }
             } else {    // 默认为 Number
                 final double value = formula.getValue();
-                ret = workbook.isDateRecord(formula) ? HSSFDateUtil.getJavaDate(value) : value;
+                ret = workbook.isDateRecord(formula) ? toDate(value) : value;
             }
         }
 
         return ret;
     }
 
+    private Date toDate(final double serial) {
+        return ExcelDates.isValid(serial) ? new Date(ExcelDates.toMillis(serial, date1904, timeZone)) : null;
+    }
+
+    /**
+     * Returns true if the given record is a cell of a row before the resume position.
+     */
+    private boolean isBeforePosition(final Record record) {
+        final SpreadsheetPosition resume = this.resumePosition;
+        if (null == resume || resume.getWorksheetIndex() != this.worksheetIndex) {
+            return false;
+        }
+        final int row;
+        if (record instanceof CellValueRecordInterface) {
+            row = ((CellValueRecordInterface) record).getRow();
+        } else if (record instanceof MissingCellDummyRecord) {
+            row = ((MissingCellDummyRecord) record).getRow();
+        } else if (record instanceof LastCellOfRowDummyRecord) {
+            row = ((LastCellOfRowDummyRecord) record).getRow();
+        } else {
+            return false;
+        }
+        return row <= resume.getRow();
+    }
+
+    /**
+     * Records a malformed cell of the lenient mode.
+     *
+     * @return null, the value of a malformed cell
+     */
+    private Object invalidCell(final CellValueRecordInterface cell, final String rawText, final SpreadsheetError.Reason reason) {
+        errorCollector.add(this.worksheetIndex, cell.getRow(), cell.getColumn(), rawText, reason);
+        return null;
+    }
+
+    private String dedup(final int col, final String value) {
+        final StringCache cache = this.stringCache;
+        return null != cache ? cache.get(col, value) : value;
+    }
+
     private static boolean isWorkbook(final BOFRecord record) {
         return BOFRecord.TYPE_WORKBOOK == record.getType();
     }
@@ -365,15 +790,31 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
     private static class WorkbookIterator implements Iterator<Record> {
         private final RecordFactoryInputStream recordFactory;
         private final Queue<Record> out = new ArrayDeque<Record>();
-        private FormatTrackingHSSFListener delegate = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(new HSSFListener() {
-            @Override
-            public void processRecord(final Record r) {
-                out.offer(r);
-            }
-        }));
+        private final HSSFListener delegate;
+        private final FormatTrackingHSSFListener formats;
 
-        WorkbookIterator(final RecordFactoryInputStream recordFactory) {
+        /**
+         * Whether each extended format is a date format (decoded on first use): unknown, date or not date.
+         */
+        private byte[] dateFormats = new byte[0];
+
+        /**
+         * Creates a record iterator.
+         *
+         * @param recordFactory the record stream
+         * @param formats       the formats of the workbook globals (worksheet substream), or null to track the
+         *                      formats of the stream
+         */
+        WorkbookIterator(final RecordFactoryInputStream recordFactory, final FormatTrackingHSSFListener formats) {
+            final HSSFListener missingRecordAware = new MissingRecordAwareHSSFListener(new HSSFListener() {
+                @Override
+                public void processRecord(final Record r) {
+                    out.offer(r);
+                }
+            });
             this.recordFactory = recordFactory;
+            this.formats = null != formats ? formats : new FormatTrackingHSSFListener(missingRecordAware);
+            this.delegate = null != formats ? missingRecordAware : this.formats;
         }
 
         /**
@@ -418,9 +859,18 @@ class LegacySpreadsheetParser2 extends AbstractSpreadsheetParser {
          * @return true if the cell is date record.
          */
         boolean isDateRecord(final CellValueRecordInterface cell) {
-            final int formatIndex = this.delegate.getFormatIndex(cell);
-            final String formatString = this.delegate.getFormatString(cell);
-            return HSSFDateUtil.isADateFormat(formatIndex, formatString);
+            final int xf = cell.getXFIndex() & 0xFFFF;
+            if (xf < dateFormats.length && 0 != dateFormats[xf]) {
+                return 1 == dateFormats[xf];
+            }
+            final int formatIndex = this.formats.getFormatIndex(cell);
+            final String formatString = this.formats.getFormatString(cell);
+            final boolean date = HSSFDateUtil.isADateFormat(formatIndex, formatString);
+            if (xf >= dateFormats.length) {
+                dateFormats = Arrays.copyOf(dateFormats, Math.max(xf + 1, dateFormats.length << 1));
+            }
+            dateFormats[xf] = (byte) (date ? 1 : 2);
+            return date;
         }
     }
 }
@@ -2,9 +2,12 @@ package com.github.nomou.spreadsheet.msexcel;
 
 import com.github.nomou.spreadsheet.Spreadsheet;
 import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
 import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+import com.github.nomou.spreadsheet.spi.SpreadsheetProber;
 
+import java.io.File;
 import java.io.InputStream;
 
 /**
@@ -13,9 +16,16 @@ import java.io.InputStream;
  * @author vacoor
  * @since 1.0
  */
-public class LegacySpreadsheetParserFactory implements SpreadsheetParserFactory {
-    private static final boolean JXL_PRESENT = SpreadsheetImplUtils.isPresent(SpreadsheetImplUtils.JXL_CLASS_NAME);
-    private static final boolean POI_HSSF_PRESENT = SpreadsheetImplUtils.isPresent(SpreadsheetImplUtils.HSSF_STREAMING_CLASS_NAME);
+public class LegacySpreadsheetParserFactory implements SpreadsheetParserFactory, SpreadsheetProber {
+    /**
+     * The jxl engine, used first if present.
+     */
+    public static final String ENGINE_JXL = "jxl";
+
+    /**
+     * The POI HSSF engine.
+     */
+    public static final String ENGINE_HSSF = "poi-hssf";
 
     /**
      * Microsoft Excel 5.0/95, Microsoft Excel 97-2003(*.xls).
@@ -26,6 +36,24 @@ public class LegacySpreadsheetParserFactory implements SpreadsheetParserFactory
 
     public static final Spreadsheet.Format OLE2 = new Spreadsheet.Format("Microsoft Excel 5.0/95, 97-2003", OLE2_FILE_HEADER, "xls");
 
+    private final String engine;
+
+    /**
+     * Creates a factory using jxl if present, otherwise POI HSSF.
+     */
+    public LegacySpreadsheetParserFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a factory using the given engine.
+     *
+     * @param engine {@link #ENGINE_JXL}, {@link #ENGINE_HSSF} or null for the first present
+     */
+    public LegacySpreadsheetParserFactory(final String engine) {
+        this.engine = checkEngine(engine);
+    }
+
     @Override
     public Spreadsheet.Format[] getSupportedFormats() {
         return new Spreadsheet.Format[]{OLE2};
@@ -33,12 +61,48 @@ public class LegacySpreadsheetParserFactory implements SpreadsheetParserFactory
 
     @Override
     public SpreadsheetParser create(final InputStream in) throws SpreadsheetException {
-        if (JXL_PRESENT) {
+        final String resolved = getEngine();
+        if (ENGINE_JXL.equals(resolved)) {
             return new LegacySpreadsheetParser(in);
         }
-        if (POI_HSSF_PRESENT) {
+        if (ENGINE_HSSF.equals(resolved)) {
             return new LegacySpreadsheetParser2(in);
         }
-        throw new SpreadsheetException("jxl and POI HSSF missing");
+        throw new SpreadsheetException(null != engine ? engine + " missing" : "jxl and POI HSSF missing");
+    }
+
+    /**
+     * Gets the resolved engine.
+     *
+     * @return {@link #ENGINE_JXL}, {@link #ENGINE_HSSF} or null if the engine is missing
+     */
+    public String getEngine() {
+        return resolveEngine(engine);
+    }
+
+    @Override
+    public SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        // the record walk needs POIFS, otherwise the workbook is scanned.
+        return SpreadsheetImplUtils.isHssfPresent() ? new LegacySpreadsheetProber().probe(file) : null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + getEngine() + "]";
+    }
+
+    static String checkEngine(final String engine) {
+        if (null != engine && !ENGINE_JXL.equals(engine) && !ENGINE_HSSF.equals(engine)) {
+            throw new IllegalArgumentException("illegal engine: " + engine);
+        }
+        return engine;
+    }
+
+    static String resolveEngine(final String engine) {
+        if (null == engine) {
+            return SpreadsheetImplUtils.isJxlPresent() ? ENGINE_JXL : SpreadsheetImplUtils.isHssfPresent() ? ENGINE_HSSF : null;
+        }
+        final boolean present = ENGINE_JXL.equals(engine) ? SpreadsheetImplUtils.isJxlPresent() : SpreadsheetImplUtils.isHssfPresent();
+        return present ? engine : null;
     }
 }
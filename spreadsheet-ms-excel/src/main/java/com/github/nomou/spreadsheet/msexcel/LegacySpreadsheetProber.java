@@ -0,0 +1,195 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metadata probe for Microsoft Excel 5.0/95, 97-2003.
+ *
+ * <p>The BIFF records of the workbook stream are walked without being decoded: the BOUNDSHEET records of the
+ * workbook globals give the names and stream offsets of the worksheets, then each worksheet substream is read
+ * from its offset up to its DIMENSIONS record. The SST and the cells are skipped.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class LegacySpreadsheetProber {
+    private static final int BOF_SID = 0x0809;
+    private static final int EOF_SID = 0x000A;
+    private static final int FILEPASS_SID = 0x002F;
+    private static final int CODEPAGE_SID = 0x0042;
+    private static final int BOUNDSHEET_SID = 0x0085;
+    private static final int DIMENSIONS_SID = 0x0200;
+    private static final int BIFF8_VERSION = 0x0600;
+    private static final int WORKSHEET_TYPE = 0x00;
+
+    private boolean biff8;
+    private Charset charset = Charset.forName("ISO-8859-1");
+
+    /**
+     * Probes a file.
+     *
+     * @param file the file
+     * @return the metadata or null if the workbook is encrypted
+     * @throws SpreadsheetException if the file is not a workbook
+     */
+    SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        NPOIFSFileSystem fs = null;
+        try {
+            fs = new NPOIFSFileSystem(file, true);
+            final DirectoryNode root = fs.getRoot();
+            final String stream = root.hasEntry("Workbook") ? "Workbook" : root.hasEntry("WORKBOOK") ? "WORKBOOK" : "Book";
+            if (!root.hasEntry(stream)) {
+                throw new SpreadsheetException("workbook stream not found");
+            }
+
+            final List<String> names = new ArrayList<String>();
+            final List<Long> offsets = new ArrayList<Long>();
+            DocumentInputStream in = root.createDocumentInputStream(stream);
+            try {
+                if (!readGlobals(in, names, offsets)) {
+                    return null;
+                }
+            } finally {
+                in.close();
+            }
+
+            final List<SpreadsheetMetadata.WorksheetMetadata> worksheets = new ArrayList<SpreadsheetMetadata.WorksheetMetadata>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                in = root.createDocumentInputStream(stream);
+                try {
+                    skipFully(in, offsets.get(i));
+                    worksheets.add(readDimensions(in, names.get(i)));
+                } finally {
+                    in.close();
+                }
+            }
+            return new SpreadsheetMetadata(worksheets);
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        } catch (final RuntimeException e) {
+            // truncated record (RecordFormatException, IndexOutOfBounds...).
+            throw new SpreadsheetException(e.getMessage(), e);
+        } finally {
+            if (null != fs) {
+                try {
+                    fs.close();
+                } catch (final IOException ignore) {
+                    // ignore.
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the workbook globals up to their EOF record.
+     *
+     * @return false if the workbook is encrypted
+     */
+    private boolean readGlobals(final DocumentInputStream in, final List<String> names, final List<Long> offsets) throws IOException {
+        while (0 < in.available()) {
+            final int sid = in.readUShort();
+            final int len = in.readUShort();
+            if (BOF_SID == sid) {
+                biff8 = BIFF8_VERSION == in.readUShort();
+                skipFully(in, len - 2);
+            } else if (FILEPASS_SID == sid) {
+                return false;
+            } else if (CODEPAGE_SID == sid) {
+                charset = toCharset(in.readUShort(), charset);
+                skipFully(in, len - 2);
+            } else if (BOUNDSHEET_SID == sid) {
+                final long offset = in.readInt() & 0xFFFFFFFFL;
+                in.readUByte();
+                final int type = in.readUByte();
+                final int cch = in.readUByte();
+                int read = 7;
+                final String name;
+                if (biff8) {
+                    final boolean wide = 0 != (in.readUByte() & 0x01);
+                    final byte[] bytes = new byte[wide ? cch << 1 : cch];
+                    in.readFully(bytes);
+                    name = new String(bytes, wide ? Charset.forName("UTF-16LE") : Charset.forName("ISO-8859-1"));
+                    read += 1 + bytes.length;
+                } else {
+                    final byte[] bytes = new byte[cch];
+                    in.readFully(bytes);
+                    name = new String(bytes, charset);
+                    read += bytes.length;
+                }
+                skipFully(in, len - read);
+                if (WORKSHEET_TYPE == type) {
+                    names.add(name);
+                    offsets.add(offset);
+                }
+            } else if (EOF_SID == sid) {
+                break;
+            } else {
+                skipFully(in, len);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the worksheet substream from its BOF up to the DIMENSIONS record.
+     */
+    private SpreadsheetMetadata.WorksheetMetadata readDimensions(final DocumentInputStream in, final String name) throws IOException {
+        while (0 < in.available()) {
+            final int sid = in.readUShort();
+            final int len = in.readUShort();
+            if (DIMENSIONS_SID == sid) {
+                final int firstRow;
+                final int lastRow;
+                if (biff8) {
+                    firstRow = in.readInt();
+                    lastRow = in.readInt() - 1;
+                } else {
+                    firstRow = in.readUShort();
+                    lastRow = in.readUShort() - 1;
+                }
+                final int firstColumn = in.readUShort();
+                final int lastColumn = in.readUShort() - 1;
+                if (lastRow < firstRow) {
+                    return new SpreadsheetMetadata.WorksheetMetadata(name, -1, -1, -1, -1, 0, false);
+                }
+                return new SpreadsheetMetadata.WorksheetMetadata(name, firstRow, lastRow, firstColumn, lastColumn, lastRow - firstRow + 1L, false);
+            } else if (EOF_SID == sid) {
+                break;
+            }
+            skipFully(in, len);
+        }
+        return new SpreadsheetMetadata.WorksheetMetadata(name, -1, -1, -1, -1, 0, false);
+    }
+
+    private static void skipFully(final DocumentInputStream in, long n) throws IOException {
+        while (0 < n) {
+            final long skipped = in.skip(n);
+            if (0 >= skipped) {
+                throw new IOException("unexpected end of workbook stream");
+            }
+            n -= skipped;
+        }
+    }
+
+    private static Charset toCharset(final int codepage, final Charset defaultCharset) {
+        if (1200 == codepage) {
+            return Charset.forName("UTF-16LE");
+        }
+        for (final String name : new String[]{"Cp" + codepage, "MS" + codepage, "windows-" + codepage}) {
+            if (Charset.isSupported(name)) {
+                return Charset.forName(name);
+            }
+        }
+        return defaultCharset;
+    }
+}
@@ -72,6 +72,8 @@ class LegacySpreadsheetWriter extends AbstractSpreadsheetWriter {
             } else {
                 throw new IllegalArgumentException("illegal template value, must be InputStream");
             }
+        } else {
+            super.configure(option, value);
         }
         return this;
     }
@@ -173,4 +175,19 @@ class LegacySpreadsheetWriter extends AbstractSpreadsheetWriter {
         }
         System.gc();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void abort() {
+        // the workbook is dropped unwritten.
+        workbook = null;
+        worksheet = null;
+        try {
+            out.close();
+        } catch (final IOException ignore) {
+            // ignore.
+        }
+    }
 }
@@ -14,8 +14,24 @@ import java.io.OutputStream;
  * @since 1.0
  */
 public class LegacySpreadsheetWriterFactory implements SpreadsheetWriterFactory {
-    private static final boolean JXL_PRESENT = SpreadsheetImplUtils.isPresent(SpreadsheetImplUtils.JXL_CLASS_NAME);
-    private static final boolean POI_HSSF_PRESENT = SpreadsheetImplUtils.isPresent(SpreadsheetImplUtils.HSSF_STREAMING_CLASS_NAME);
+    private final String engine;
+
+    /**
+     * Creates a factory using jxl if present, otherwise POI HSSF.
+     */
+    public LegacySpreadsheetWriterFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a factory using the given engine.
+     *
+     * @param engine {@link LegacySpreadsheetParserFactory#ENGINE_JXL}, {@link LegacySpreadsheetParserFactory#ENGINE_HSSF}
+     *               or null for the first present
+     */
+    public LegacySpreadsheetWriterFactory(final String engine) {
+        this.engine = LegacySpreadsheetParserFactory.checkEngine(engine);
+    }
 
     @Override
     public Spreadsheet.Format[] getSupportedFormats() {
@@ -24,12 +40,27 @@ public class LegacySpreadsheetWriterFactory implements SpreadsheetWriterFactory
 
     @Override
     public SpreadsheetWriter create(final OutputStream out) throws SpreadsheetException {
-        if (JXL_PRESENT) {
+        final String resolved = getEngine();
+        if (LegacySpreadsheetParserFactory.ENGINE_JXL.equals(resolved)) {
             return new LegacySpreadsheetWriter(out);
         }
-        if (POI_HSSF_PRESENT) {
+        if (LegacySpreadsheetParserFactory.ENGINE_HSSF.equals(resolved)) {
             return new LegacySpreadsheetWriter2(out, null);
         }
-        throw new IllegalStateException("jxl and POI HSSF missing");
+        throw new IllegalStateException(null != engine ? engine + " missing" : "jxl and POI HSSF missing");
+    }
+
+    /**
+     * Gets the resolved engine.
+     *
+     * @return the engine or null if the engine is missing
+     */
+    public String getEngine() {
+        return LegacySpreadsheetParserFactory.resolveEngine(engine);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + getEngine() + "]";
     }
 }
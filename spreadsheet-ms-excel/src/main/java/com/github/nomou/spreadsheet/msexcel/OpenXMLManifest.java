@@ -0,0 +1,148 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The CRC-32 and the uncompressed size of the worksheet and shared parts (shared strings, styles) of a Microsoft
+ * Excel 2007+ workbook, used by the incremental re-parse.
+ *
+ * <p>A parser configured with a manifest (see {@link OpenXMLSpreadsheetParserFactory#OPTION_MANIFEST_KEY}) emits
+ * only the worksheets whose part changed since the manifest was recorded, or all worksheets if a shared part
+ * changed. The manifest is updated with the parts of the parsed workbook when the end of the workbook is
+ * reached:</p>
+ * <pre>
+ * final OpenXMLManifest manifest = file.exists() ? OpenXMLManifest.load(new FileInputStream(file)) : new OpenXMLManifest();
+ * parser.configure(OpenXMLSpreadsheetParserFactory.OPTION_MANIFEST_KEY, manifest);
+ * ... // events of the changed worksheets only
+ * manifest.store(new FileOutputStream(file));
+ * </pre>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+public final class OpenXMLManifest {
+    private final Map<String, long[]> parts = new TreeMap<String, long[]>();
+
+    /**
+     * Creates an empty manifest, all worksheets are changed.
+     */
+    public OpenXMLManifest() {
+    }
+
+    /**
+     * Loads a manifest stored by {@link #store(OutputStream)}.
+     *
+     * @param in the input stream, closed by this method
+     * @return the manifest
+     * @throws IOException if an I/O error occurs or the manifest is malformed
+     */
+    public static OpenXMLManifest load(final InputStream in) throws IOException {
+        final Properties properties = new Properties();
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        for (final String part : properties.stringPropertyNames()) {
+            final String value = properties.getProperty(part);
+            final int comma = value.indexOf(',');
+            try {
+                manifest.put(part, Long.parseLong(value.substring(0, Math.max(0, comma)), 16), Long.parseLong(value.substring(comma + 1)));
+            } catch (final NumberFormatException ex) {
+                throw new IOException("malformed manifest entry: " + part + "=" + value, ex);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Stores this manifest.
+     *
+     * @param out the output stream, closed by this method
+     * @throws IOException if an I/O error occurs
+     */
+    public void store(final OutputStream out) throws IOException {
+        final Properties properties = new Properties();
+        for (final Map.Entry<String, long[]> part : parts.entrySet()) {
+            properties.setProperty(part.getKey(), Long.toHexString(part.getValue()[0]) + "," + part.getValue()[1]);
+        }
+        try {
+            properties.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Gets the names of the recorded parts.
+     *
+     * @return the part names (eg: "/xl/worksheets/sheet1.xml")
+     */
+    public Set<String> getParts() {
+        return Collections.unmodifiableSet(parts.keySet());
+    }
+
+    /**
+     * Gets the CRC-32 of a part.
+     *
+     * @param part the part name
+     * @return the CRC-32 or -1 if the part is not recorded
+     */
+    public long getCrc(final String part) {
+        final long[] state = parts.get(part);
+        return null != state ? state[0] : -1;
+    }
+
+    /**
+     * Gets the uncompressed size of a part.
+     *
+     * @param part the part name
+     * @return the size or -1 if the part is not recorded
+     */
+    public long getSize(final String part) {
+        final long[] state = parts.get(part);
+        return null != state ? state[1] : -1;
+    }
+
+    /**
+     * Gets the number of recorded parts.
+     *
+     * @return the number of parts, 0 if the manifest is empty
+     */
+    public int size() {
+        return parts.size();
+    }
+
+    /**
+     * Returns true if the part is recorded with the same CRC-32 and size.
+     */
+    boolean matches(final String part, final long crc, final long size) {
+        final long[] state = parts.get(part);
+        return null != state && state[0] == crc && state[1] == size;
+    }
+
+    void put(final String part, final long crc, final long size) {
+        parts.put(part, new long[]{crc, size});
+    }
+
+    /**
+     * Replaces the recorded parts.
+     */
+    void reset(final OpenXMLManifest manifest) {
+        parts.clear();
+        parts.putAll(manifest.parts);
+    }
+
+    @Override
+    public String toString() {
+        return "OpenXMLManifest" + parts.keySet();
+    }
+}
@@ -1,8 +1,16 @@
 package com.github.nomou.spreadsheet.msexcel;
 
 import com.github.nomou.spreadsheet.AbstractSpreadsheetParser;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SplittableSpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetError;
 import com.github.nomou.spreadsheet.SpreadsheetException;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import com.github.nomou.spreadsheet.util.ExcelDates;
+import com.github.nomou.spreadsheet.util.NumberParser;
+import com.github.nomou.spreadsheet.util.StringCache;
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
@@ -13,8 +21,10 @@ import org.apache.poi.openxml4j.opc.PackagePartName;
 import org.apache.poi.openxml4j.opc.PackageRelationship;
 import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
 import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.openxml4j.opc.ZipPackagePart;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.LocaleUtil;
 import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.apache.poi.xssf.model.SharedStringsTable;
 import org.apache.poi.xssf.model.StylesTable;
@@ -32,22 +42,34 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 
 /**
  * POI-based spreadsheet parser for Microsoft Excel 2007+.
  *
+ * <p>The cell values are decoded on demand. In lenient mode ({@link #OPTION_ERROR_COLLECTOR}) the cells are checked
+ * as soon as read, whether their values are requested or not; the cells of the rows rejected by the row filter are
+ * only checked if referenced by the filter.</p>
+ *
  * @author vacoor
  * @see <a href="http://poi.apache.org/">POI</a>
  * @see XSSFReader
  * @see org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler
  * @since 1.0
  */
-class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
+class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser implements SplittableSpreadsheetParser {
+    private static final byte STYLE_UNKNOWN = 0;
+    private static final byte STYLE_DATE = 1;
+    private static final byte STYLE_NUMBER = 2;
+
     private static final Set<String> WORKSHEET_RELS = Collections.unmodifiableSet(
             new HashSet<String>(Arrays.asList(XSSFRelation.WORKSHEET.getRelation(), XSSFRelation.CHARTSHEET.getRelation()))
     );
@@ -90,22 +112,149 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
      */
     private OpenXMLWorksheetParser worksheetParser = null;
 
+    /**
+     * Whether this parser is a worksheet parser sharing the package of a workbook parser.
+     */
+    private boolean split;
+
+    /**
+     * The workbook reader, the styles and shared strings are loaded from it before the first parsed worksheet.
+     */
+    private XSSFReader reader;
+
+    /* *********************
+     *  Number styles.
+     * ******************* */
+    /**
+     * Whether the workbook uses the 1904 date system.
+     */
+    private boolean date1904;
+
+    /**
+     * The time zone of the dates.
+     */
+    private TimeZone timeZone = LocaleUtil.getUserTimeZone();
+
+    /**
+     * The kind of each cell style (decoded on first use): unknown, date or number format.
+     */
+    private byte[] styleKinds = new byte[0];
+    private short[] styleFormats = new short[0];
+    private String[] styleFormatStrings = new String[0];
+
+    private final DataFormatter dataFormatter = new DataFormatter();
+
+    /* *********************
+     *  Incremental re-parse.
+     * ******************* */
+    /**
+     * The manifest of the previous parse, or null to emit all worksheets.
+     */
+    private OpenXMLManifest manifest;
+
+    /**
+     * The parts of this workbook, recorded to the manifest at the end of the workbook.
+     */
+    private OpenXMLManifest currentParts;
+
+    /**
+     * Whether a shared part (shared strings, styles) changed since the manifest.
+     */
+    private boolean sharedChanged;
+
+    /**
+     * The next changed worksheet, opened while skipping the unchanged worksheets.
+     */
+    private InputStream pendingWorksheet;
+
     /**
      * Creates a Open-XML spreadsheet parser.
      *
-     * @param in the Open-XML spreadhseet stream
-     * @throws SpreadsheetException
+     * @param in the Open-XML spreadsheet stream
+     * @throws SpreadsheetException if the stream is not a valid Open-XML spreadsheet
      */
     public OpenXMLSpreadsheetParser(final InputStream in) throws SpreadsheetException {
         this.initInputSource(in);
     }
 
+    /**
+     * Creates a Open-XML spreadsheet parser reading the parts of a file on demand (zip central directory).
+     *
+     * @param file the Open-XML spreadsheet file
+     * @throws SpreadsheetException if the file cannot be opened or is not a valid Open-XML spreadsheet
+     */
+    OpenXMLSpreadsheetParser(final File file) throws SpreadsheetException {
+        this.initInputSource(file);
+    }
+
+    /**
+     * Creates a parser of one worksheet sharing the package, shared strings and styles of a workbook parser.
+     *
+     * @param workbook       the workbook parser
+     * @param worksheetIndex the worksheet index
+     */
+    private OpenXMLSpreadsheetParser(final OpenXMLSpreadsheetParser workbook, final int worksheetIndex) throws IOException, OpenXML4JException {
+        workbook.loadTables();
+        this.date1904 = workbook.date1904;
+        this.timeZone = workbook.timeZone;
+        this.spreadsheet = workbook.spreadsheet;
+        this.workbookPart = workbook.workbookPart;
+        this.sharedStringsTable = workbook.sharedStringsTable;
+        this.stylesTable = workbook.stylesTable;
+        this.worksheetRelNames = workbook.worksheetRelNames;
+        this.worksheets = (XSSFReader.SheetIterator) new XSSFReader(spreadsheet).getSheetsData();
+        for (int i = 0; i < worksheetIndex; i++) {
+            this.worksheets.next().close();
+        }
+        this.worksheetIndex = worksheetIndex - 1;
+        this.split = true;
+        this.eventType = START_WORKBOOK;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSplittable() {
+        return !split && START_WORKBOOK == this.eventType && null != this.spreadsheet;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SpreadsheetParser createWorksheetParser(final int worksheetIndex) throws SpreadsheetException {
+        if (!isSplittable()) {
+            throw new IllegalStateException("createWorksheetParser() called in illegal state");
+        }
+        if (0 > worksheetIndex || worksheetIndex >= getNumberOfWorksheets()) {
+            throw new IndexOutOfBoundsException("worksheet index: " + worksheetIndex);
+        }
+        try {
+            return new OpenXMLSpreadsheetParser(this, worksheetIndex);
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        } catch (final OpenXML4JException e) {
+            throw new SpreadsheetException(e.getMessage(), e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public SpreadsheetParser configure(final String option, final Object value) {
-        return this;
+        if (OpenXMLSpreadsheetParserFactory.OPTION_MANIFEST_KEY.equals(option)) {
+            if (START_WORKBOOK != this.eventType) {
+                throw new IllegalStateException("option '" + option + "' must be configured before parsing");
+            }
+            if (null != value && !(value instanceof OpenXMLManifest)) {
+                throw new IllegalArgumentException("illegal option '" + option + "' value '" + value + "'.");
+            }
+            this.manifest = (OpenXMLManifest) value;
+            return this;
+        }
+        return super.configure(option, value);
     }
 
     /**
@@ -149,7 +298,19 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         if (START_CELL != st && END_CELL != st) {
             throw new IllegalStateException("getValue() called in illegal state");
         }
-        return this.worksheetParser.value;
+        return this.worksheetParser.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getRawValue() {
+        final int st = this.eventType;
+        if (START_CELL != st && END_CELL != st) {
+            throw new IllegalStateException("getRawValue() called in illegal state");
+        }
+        return this.worksheetParser.text;
     }
 
     /* **********************************************************
@@ -165,10 +326,13 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         try {
             int newEvent = EOF;
             if (START_WORKBOOK == t || END_WORKSHEET == t) {
-                if (worksheets.hasNext()) {
+                this.skipWorksheetsBeforePosition();
+                this.skipUnchangedWorksheets();
+                if (hasNextWorksheet() && !(split && END_WORKSHEET == t)) {
                     this.doPreParseWorksheet();
                     newEvent = START_WORKSHEET;
                 } else {
+                    this.recordManifest();
                     this.doPostParseWorkbook();
                     newEvent = END_WORKBOOK;
                 }
@@ -189,6 +353,46 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doParse(final RowHandler handler) throws SpreadsheetException {
+        if (null != this.rowMatcher) {
+            // the row filter buffers the row prefix, replays the pull events.
+            super.doParse(handler);
+            return;
+        }
+        try {
+            this.skipWorksheetsBeforePosition();
+            this.skipUnchangedWorksheets();
+            while (hasNextWorksheet()) {
+                this.doPreParseWorksheet();
+                checkCancelled();
+                final int index = this.worksheetIndex;
+                markWorksheetStart();
+                handler.startWorksheet(index, this.worksheetName);
+                this.worksheetParser.parse(handler);
+                this.doPostParseWorksheet();
+                handler.endWorksheet(index);
+                if (split) {
+                    break;
+                }
+                this.skipWorksheetsBeforePosition();
+                this.skipUnchangedWorksheets();
+            }
+            this.recordManifest();
+            this.doPostParseWorkbook();
+            this.eventType = END_WORKBOOK;
+        } catch (final InvalidFormatException e) {
+            throw new SpreadsheetException(e.getMessage(), e.getCause());
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        } catch (final XMLStreamException e) {
+            throw new SpreadsheetException("XML Stream error", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -246,8 +450,12 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
      */
     protected Object toJavaObject(final String t, final String s, final String value) {
         Object parsed = null;
+        final SpreadsheetError.Reason malformed = null != errorCollector ? checkCell(t, s, value) : null;
         if (null == value) {
             parsed = null;
+        } else if (null != malformed) {
+            // lenient.
+            parsed = invalidCell(value, malformed);
         } else if ("b".equals(t)) {
             // boolean
             parsed = 1 > value.length() || value.charAt(0) == '0' ? Boolean.FALSE : Boolean.TRUE;
@@ -272,27 +480,20 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
             // so always add double-quote characters.
             parsed = value;
         } else if ("n".equals(t)) {
-            parsed = Double.parseDouble(value);
+            parsed = NumberParser.parseDouble(value);
         } else if (null != s) {
             // It's a number, but almost certainly one
             // with a special style or format
             final int styleIndex = Integer.parseInt(s);
-            final XSSFCellStyle style = stylesTable.getStyleAt(styleIndex);
-
-            final short formatIndex = style.getDataFormat();
-            String formatString = style.getDataFormatString();
-
-            if (null == formatString) {
-                formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
-            }
+            final byte kind = styleKind(styleIndex);
 
             final String n = value;
             // 判断是否是日期格式
-            if (HSSFDateUtil.isADateFormat(formatIndex, n)) {
-                final Double d = Double.parseDouble(n);
-                parsed = HSSFDateUtil.getJavaDate(d);
-            } else if (null != formatString && null != n) {
-                parsed = new DataFormatter().formatRawCellContents(Double.parseDouble(n), formatIndex, formatString);
+            if (STYLE_DATE == kind) {
+                final double d = NumberParser.parseDouble(n);
+                parsed = ExcelDates.isValid(d) ? new Date(ExcelDates.toMillis(d, date1904, timeZone)) : null;
+            } else if (null != styleFormatStrings[styleIndex] && null != n) {
+                parsed = dataFormatter.formatRawCellContents(NumberParser.parseDouble(n), styleFormats[styleIndex], styleFormatStrings[styleIndex]);
             } else {
                 parsed = n;
             }
@@ -307,6 +508,81 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         return parsed;
     }
 
+    /**
+     * Checks a raw cell value without decoding it (lenient mode): the shared string index, the number and the style.
+     *
+     * @param t     the type attribute
+     * @param s     the style attribute
+     * @param value the raw value
+     * @return the reason the cell is malformed or null if valid
+     */
+    private SpreadsheetError.Reason checkCell(final String t, final String s, final String value) {
+        if (null == value || "b".equals(t) || "e".equals(t) || "inlineStr".equals(t) || "str".equals(t)) {
+            return null;
+        } else if ("s".equals(t)) {
+            final int idx = SpreadsheetImplUtils.parseIndex(value);
+            return 0 <= idx && idx < sharedStringsTable.getUniqueCount() ? null : SpreadsheetError.Reason.INVALID_SHARED_STRING;
+        } else if ("n".equals(t)) {
+            return SpreadsheetImplUtils.isDouble(value) ? null : SpreadsheetError.Reason.INVALID_NUMBER;
+        } else if (null != s && !isValidStyle(s)) {
+            return SpreadsheetError.Reason.INVALID_STYLE;
+        } else if (null != s) {
+            return SpreadsheetImplUtils.isDouble(value) ? null : SpreadsheetError.Reason.INVALID_NUMBER;
+        }
+        return null == t ? null : SpreadsheetError.Reason.UNEXPECTED_TYPE;
+    }
+
+    /**
+     * Gets the kind of a cell style, the style is decoded once (the style objects of POI are created per call).
+     *
+     * @param styleIndex the style index
+     * @return {@link #STYLE_DATE} or {@link #STYLE_NUMBER}
+     */
+    private byte styleKind(final int styleIndex) {
+        if (styleIndex < styleKinds.length && STYLE_UNKNOWN != styleKinds[styleIndex]) {
+            return styleKinds[styleIndex];
+        }
+        final XSSFCellStyle style = stylesTable.getStyleAt(styleIndex);
+        final short formatIndex = style.getDataFormat();
+        String formatString = style.getDataFormatString();
+        if (null == formatString) {
+            formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+        }
+        if (styleIndex >= styleKinds.length) {
+            final int length = Math.max(styleIndex + 1, stylesTable.getNumCellStyles());
+            styleKinds = Arrays.copyOf(styleKinds, length);
+            styleFormats = Arrays.copyOf(styleFormats, length);
+            styleFormatStrings = Arrays.copyOf(styleFormatStrings, length);
+        }
+        /*-
+         * the cell value was passed as the format string, so only the built-in date formats are dates (the custom
+         * date formats are formatted as text), kept as is.
+         */
+        styleKinds[styleIndex] = HSSFDateUtil.isInternalDateFormat(formatIndex) ? STYLE_DATE : STYLE_NUMBER;
+        styleFormats[styleIndex] = formatIndex;
+        styleFormatStrings[styleIndex] = formatString;
+        return styleKinds[styleIndex];
+    }
+
+    /**
+     * Returns true if the given style attribute is a valid style index.
+     */
+    private boolean isValidStyle(final String s) {
+        final int styleIndex = SpreadsheetImplUtils.parseIndex(s);
+        return 0 <= styleIndex && styleIndex < stylesTable.getNumCellStyles();
+    }
+
+    /**
+     * Records a malformed cell of the lenient mode.
+     *
+     * @return null, the value of a malformed cell
+     */
+    private Object invalidCell(final String value, final SpreadsheetError.Reason reason) {
+        final OpenXMLWorksheetParser parser = this.worksheetParser;
+        errorCollector.add(worksheetIndex, null != parser ? parser.row : -1, null != parser ? parser.decodingCol : -1, value, reason);
+        return null;
+    }
+
     /**
      * TODO doc me.
      */
@@ -325,8 +601,8 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
              * StyleTable 不同版本构造器不一样, 因此这里改用 XSSFReader 来读取.
              */
             final XSSFReader reader = new XSSFReader(spreadsheet);
-            this.stylesTable = reader.getStylesTable();
-            this.sharedStringsTable = reader.getSharedStringsTable();
+            this.reader = reader;
+            this.date1904 = isDate1904(workbookPart);
             this.worksheets = (XSSFReader.SheetIterator) reader.getSheetsData();
 
             final Map<String, PackagePartName> sheetRelNameMap = new HashMap<String, PackagePartName>();
@@ -342,6 +618,37 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         }
     }
 
+    /**
+     * Reads the date system of the workbook part (&lt;workbookPr date1904="1"/&gt;, before the sheets).
+     */
+    static boolean isDate1904(final PackagePart workbookPart) throws IOException {
+        final InputStream in = workbookPart.getInputStream();
+        try {
+            final XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (XMLStreamReader.START_ELEMENT != reader.next()) {
+                        continue;
+                    }
+                    final String name = reader.getLocalName();
+                    if ("workbookPr".equals(name)) {
+                        final String date1904 = reader.getAttributeValue(null, "date1904");
+                        return "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+                    } else if ("sheets".equals(name)) {
+                        break;
+                    }
+                }
+                return false;
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new IOException("malformed workbook part", e);
+        } finally {
+            in.close();
+        }
+    }
+
     /**
      * TODO doc me.
      */
@@ -355,8 +662,12 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         this.stylesTable = null;
         this.sharedStringsTable = null;
         this.workbookPart = null;
+        this.reader = null;
+        closeQuiet(this.pendingWorksheet);
+        this.pendingWorksheet = null;
 
-        if (null != this.spreadsheet) {
+        // the package of a worksheet parser is closed by its workbook parser.
+        if (null != this.spreadsheet && !this.split) {
             this.spreadsheet.close();
         }
         this.spreadsheet = null;
@@ -366,11 +677,120 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
      * TODO doc me.
      */
     void doPreParseWorksheet() throws XMLStreamException, IOException, InvalidFormatException {
-        final InputStream worksheetIn = this.worksheets.next();
+        this.loadTables();
+        final InputStream worksheetIn = null != this.pendingWorksheet ? this.pendingWorksheet : this.worksheets.next();
+        this.pendingWorksheet = null;
 
         this.worksheetIndex++;
         this.worksheetName = this.worksheets.getSheetName();
         this.worksheetParser = new OpenXMLWorksheetParser(worksheetIn);
+
+        final SpreadsheetPosition resume = this.resumePosition;
+        if (null != resume && resume.getWorksheetIndex() == this.worksheetIndex) {
+            this.worksheetParser.skipToRow = resume.getRow();
+        }
+    }
+
+    /**
+     * Skips the worksheet parts before the resume position without parsing them.
+     */
+    void skipWorksheetsBeforePosition() throws IOException {
+        final SpreadsheetPosition resume = this.resumePosition;
+        while (null != resume && this.worksheetIndex + 1 < resume.getWorksheetIndex() && this.worksheets.hasNext()) {
+            this.worksheets.next().close();
+            this.worksheetIndex++;
+        }
+    }
+
+    /**
+     * Returns true if there is a worksheet to parse.
+     */
+    boolean hasNextWorksheet() {
+        return null != this.pendingWorksheet || this.worksheets.hasNext();
+    }
+
+    /**
+     * Loads the styles and the shared strings, they are not loaded if no worksheet is parsed.
+     */
+    void loadTables() throws IOException, InvalidFormatException {
+        final XSSFReader reader = this.reader;
+        if (null != reader) {
+            this.stylesTable = reader.getStylesTable();
+            this.sharedStringsTable = reader.getSharedStringsTable();
+            this.reader = null;
+        }
+    }
+
+    /**
+     * Skips the worksheets whose part is unchanged since the manifest (incremental re-parse), an unchanged
+     * worksheet is not inflated. All worksheets are changed if a shared part changed.
+     */
+    void skipUnchangedWorksheets() throws IOException {
+        if (null == this.manifest || this.split || null != this.pendingWorksheet) {
+            return;
+        }
+        if (null == this.currentParts) {
+            this.currentParts = new OpenXMLManifest();
+            boolean changed = false;
+            for (final XSSFRelation relation : Arrays.asList(XSSFRelation.SHARED_STRINGS, XSSFRelation.STYLES)) {
+                for (final PackagePart part : spreadsheet.getPartsByContentType(relation.getContentType())) {
+                    changed |= !recordPart(part);
+                }
+            }
+            this.sharedChanged = changed;
+        }
+        while (this.worksheets.hasNext()) {
+            final InputStream worksheetIn = this.worksheets.next();
+            if (!recordPart(this.worksheets.getSheetPart()) || this.sharedChanged) {
+                this.pendingWorksheet = worksheetIn;
+                return;
+            }
+            worksheetIn.close();
+            this.worksheetIndex++;
+        }
+    }
+
+    /**
+     * Records the CRC-32 and the size of a part.
+     *
+     * @return true if the part is unchanged since the manifest
+     */
+    boolean recordPart(final PackagePart part) throws IOException {
+        long crc = -1;
+        long size = -1;
+        if (part instanceof ZipPackagePart) {
+            final ZipEntry entry = ((ZipPackagePart) part).getZipArchive();
+            crc = null != entry ? entry.getCrc() : -1;
+            size = null != entry ? entry.getSize() : -1;
+        }
+        if (0 > crc || 0 > size) {
+            // the entries of a package read from a stream are already inflated, checksum them.
+            final CRC32 checksum = new CRC32();
+            final byte[] buffer = new byte[8192];
+            final InputStream in = part.getInputStream();
+            try {
+                size = 0;
+                for (int n; 0 < (n = in.read(buffer)); size += n) {
+                    checksum.update(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+            crc = checksum.getValue();
+        }
+        final String name = part.getPartName().getName();
+        this.currentParts.put(name, crc, size);
+        return this.manifest.matches(name, crc, size);
+    }
+
+    /**
+     * Updates the manifest with the parts of this workbook, at the end of the workbook.
+     */
+    void recordManifest() {
+        if (null != this.manifest && null != this.currentParts && null == this.resumePosition) {
+            this.manifest.reset(this.currentParts);
+        }
+        this.currentParts = null;
     }
 
     /**
@@ -396,6 +816,16 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         }
     }
 
+    void closeQuiet(final InputStream in) {
+        try {
+            if (null != in) {
+                in.close();
+            }
+        } catch (final IOException e) {
+            // ignore.
+        }
+    }
+
     /**
      * TODO doc me.
      */
@@ -444,10 +874,63 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         private int col = -1;
 
         /**
-         * Current cell value.
+         * Current cell value, decoded on demand.
          */
         private Object value;
 
+        /**
+         * Whether the current cell value is decoded.
+         */
+        private boolean valueDecoded;
+
+        /**
+         * Current cell raw text.
+         */
+        private String text;
+
+        /**
+         * Current cell type attribute.
+         */
+        private String cellType;
+
+        /**
+         * Current cell style attribute.
+         */
+        private String cellStyle;
+
+        /* *************************************************************
+         * Row filter prefix buffer: the cells of the current row up to
+         * the last column referenced by the row filter.
+         * *********************************************************** */
+        private int buffered;
+        private int bufferPos;
+        private int[] bufferCols = new int[16];
+        private String[] bufferTypes = new String[16];
+        private String[] bufferStyles = new String[16];
+        private String[] bufferTexts = new String[16];
+        private Object[] bufferValues = new Object[16];
+        private boolean[] bufferDecoded = new boolean[16];
+
+        /**
+         * The column of the cell being decoded.
+         */
+        private int decodingCol = -1;
+
+        /**
+         * The rows up to this row are skipped without decoding cells (resume position).
+         */
+        private int skipToRow = -1;
+
+        /**
+         * Whether the current cell is replayed from the buffer.
+         */
+        private boolean fromBuffer;
+
+        /**
+         * Whether the closing tag of the current row was consumed while buffering.
+         */
+        private boolean rowClosed;
+
         /**
          * Create a SpreadsheetML worksheet parser using given inputstream.
          *
@@ -477,22 +960,206 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
 
             int newEvent = EOF;
             if (START_WORKSHEET == st) {
-                newEvent = nextRowOpened(reader, true) ? START_RECORD : END_WORKSHEET;
+                newEvent = nextRecordOpened(reader, true) ? START_RECORD : END_WORKSHEET;
             } else if (START_RECORD == st || END_CELL == st) {
-                newEvent = nextCellOpened(reader) ? START_CELL : (nextRowClosed(reader) ? END_RECORD : EOF);
+                if (bufferPos < buffered) {
+                    nextBufferedCell();
+                    newEvent = START_CELL;
+                } else if (rowClosed) {
+                    this.col = -1;
+                    this.value = null;
+                    this.text = null;
+                    this.valueDecoded = true;
+                    newEvent = END_RECORD;
+                } else {
+                    this.fromBuffer = false;
+                    newEvent = nextCellOpened(reader) ? START_CELL : (nextRowClosed(reader) ? END_RECORD : EOF);
+                }
             } else if (START_CELL == st) {
-                newEvent = nextCellClosed(reader) ? END_CELL : EOF;
+                newEvent = fromBuffer || nextCellClosed(reader) ? END_CELL : EOF;
             } else if (END_RECORD == st) {
-                newEvent = nextRowOpened(reader, false) ? START_RECORD : END_WORKSHEET;
+                newEvent = nextRecordOpened(reader, false) ? START_RECORD : END_WORKSHEET;
             }
 
             return this.state = newEvent;
         }
 
+        /**
+         * Parses the rows of the worksheet in push mode, the cells are decoded as soon as read.
+         *
+         * @param handler the row handler
+         * @throws XMLStreamException parse exception.
+         */
+        void parse(final RowHandler handler) throws XMLStreamException {
+            final XMLStreamReader reader = this.reader;
+            boolean opened = false;
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (XMLEvent.START_ELEMENT == event) {
+                    final String localName = reader.getLocalName();
+                    if (CELL_TAG.equals(localName) && opened) {
+                        final int col = parseColumn(reader.getAttributeValue(null, "r"));
+                        final String text = readCellValue(reader);
+                        handler.onCell(col, asJavaObject(col, this.cellType, this.cellStyle, text));
+                    } else if (ROW_TAG.equals(localName) && nextRowOpened(reader, false)) {
+                        if (this.row <= this.skipToRow) {
+                            nextClosedTag(reader, ROW_TAG, true);
+                            countRecord();
+                            continue;
+                        }
+                        this.skipToRow = -1;
+                        opened = true;
+                        handler.onRow(this.row);
+                    }
+                } else if (XMLEvent.END_ELEMENT == event) {
+                    final String localName = reader.getLocalName();
+                    if (ROW_TAG.equals(localName) && opened) {
+                        opened = false;
+                        markRecordEnd(this.row);
+                        handler.endRow(this.row);
+                        countRecord();
+                    } else if ("sheetData".equals(localName)) {
+                        break;
+                    }
+                }
+            }
+            this.row = -1;
+            this.state = END_WORKSHEET;
+        }
+
         /* ************************************
          *
          * ********************************** */
 
+        /**
+         * Opens the next row accepted by the row filter.
+         *
+         * @param reader    StAX reader.
+         * @param allowSkip allow skip other elements before the first row
+         * @return found?
+         * @throws XMLStreamException parse exception.
+         */
+        boolean nextRecordOpened(final XMLStreamReader reader, final boolean allowSkip) throws XMLStreamException {
+            this.buffered = 0;
+            this.bufferPos = 0;
+            this.rowClosed = false;
+            this.fromBuffer = false;
+
+            final RowFilter.Matcher matcher = rowMatcher;
+            boolean skip = allowSkip;
+            while (nextRowOpened(reader, skip)) {
+                skip = false;
+                if (this.row <= this.skipToRow) {
+                    nextClosedTag(reader, ROW_TAG, true);
+                    countRecord();
+                    continue;
+                }
+                this.skipToRow = -1;
+                if (null == matcher || bufferAcceptedRowPrefix(reader, matcher)) {
+                    return true;
+                }
+                countRecord();
+            }
+            return false;
+        }
+
+        /**
+         * Buffers the raw cells of the current row until all columns referenced by the row filter are seen.
+         * <p>Only the referenced cells are decoded, a rejected row is skipped up to its closing tag.</p>
+         *
+         * @param reader  StAX reader.
+         * @param matcher the row filter matcher.
+         * @return true if the row is accepted
+         * @throws XMLStreamException parse exception.
+         */
+        boolean bufferAcceptedRowPrefix(final XMLStreamReader reader, final RowFilter.Matcher matcher) throws XMLStreamException {
+            matcher.reset();
+            this.buffered = 0;
+            this.bufferPos = 0;
+            this.rowClosed = false;
+
+            final int maxColumn = matcher.getMaxColumn();
+            while (nextOpenedTag(reader, CELL_TAG, false)) {
+                final int col = parseColumn(reader.getAttributeValue(null, "r"));
+                final String text = readCellValue(reader);
+                nextCellClosed(reader);
+
+                final int i = bufferCell(col, text);
+                if (matcher.isReferenced(col)) {
+                    final Object decoded = asJavaObject(col, this.cellType, this.cellStyle, text);
+                    bufferValues[i] = decoded;
+                    bufferDecoded[i] = true;
+                    if (!matcher.accept(col, decoded)) {
+                        nextClosedTag(reader, ROW_TAG, true);
+                        return false;
+                    }
+                }
+                if (col >= maxColumn) {
+                    if (!matcher.complete()) {
+                        nextClosedTag(reader, ROW_TAG, true);
+                        return false;
+                    }
+                    return true;
+                }
+            }
+
+            // the row has no more cells.
+            this.rowClosed = nextRowClosed(reader);
+            return matcher.complete();
+        }
+
+        /**
+         * Appends the current raw cell to the row buffer.
+         *
+         * @return the buffer index
+         */
+        int bufferCell(final int col, final String text) {
+            final int i = this.buffered++;
+            if (i == bufferCols.length) {
+                final int newLength = i << 1;
+                bufferCols = Arrays.copyOf(bufferCols, newLength);
+                bufferTypes = Arrays.copyOf(bufferTypes, newLength);
+                bufferStyles = Arrays.copyOf(bufferStyles, newLength);
+                bufferTexts = Arrays.copyOf(bufferTexts, newLength);
+                bufferValues = Arrays.copyOf(bufferValues, newLength);
+                bufferDecoded = Arrays.copyOf(bufferDecoded, newLength);
+            }
+            bufferCols[i] = col;
+            bufferTypes[i] = this.cellType;
+            bufferStyles[i] = this.cellStyle;
+            bufferTexts[i] = text;
+            bufferValues[i] = null;
+            bufferDecoded[i] = false;
+            return i;
+        }
+
+        /**
+         * Replays the next buffered cell.
+         */
+        void nextBufferedCell() {
+            final int i = this.bufferPos++;
+            this.fromBuffer = true;
+            this.col = bufferCols[i];
+            this.cellType = bufferTypes[i];
+            this.cellStyle = bufferStyles[i];
+            this.text = bufferTexts[i];
+            this.value = bufferValues[i];
+            this.valueDecoded = bufferDecoded[i] || reportMalformedCell(this.col, this.text);
+            bufferTexts[i] = null;
+            bufferValues[i] = null;
+        }
+
+        /**
+         * Gets the current cell value, the raw value is decoded once per cell event.
+         */
+        Object getValue() {
+            if (!this.valueDecoded) {
+                this.value = asJavaObject(this.col, this.cellType, this.cellStyle, this.text);
+                this.valueDecoded = true;
+            }
+            return this.value;
+        }
+
         /**
          * TODO doc me.
          */
@@ -533,6 +1200,8 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
             }
             this.col = -1;
             this.value = null;
+            this.text = null;
+            this.valueDecoded = true;
             return false;
         }
 
@@ -549,14 +1218,49 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         }
 
         /**
-         * Parse current cell element value.
+         * Captures the raw value of the current cell element, the value is decoded on demand ({@link #getValue()}),
+         * a malformed cell is reported at once.
          *
          * @param reader StAX reader.
          * @return found?
          * @throws XMLStreamException parse exception.
          */
         boolean nextCellValue(final XMLStreamReader reader) throws XMLStreamException {
-            boolean found = false;
+            this.text = readCellValue(reader);
+            this.value = null;
+            this.valueDecoded = reportMalformedCell(this.col, this.text);
+            return null != this.text;
+        }
+
+        /**
+         * Reports the current cell to the error collector (lenient mode) when it is scanned if it is malformed,
+         * so the cells whose values are never requested are reported too.
+         *
+         * @param col  the cell column
+         * @param text the raw value
+         * @return true if the cell is malformed, its value is null
+         */
+        boolean reportMalformedCell(final int col, final String text) {
+            if (null == errorCollector || null == text) {
+                return false;
+            }
+            final SpreadsheetError.Reason reason = checkCell(this.cellType, this.cellStyle, text);
+            if (null == reason) {
+                return false;
+            }
+            this.decodingCol = col;
+            invalidCell(text, reason);
+            return true;
+        }
+
+        /**
+         * Reads the raw text of the current cell element, the type/style attributes are kept in cellType/cellStyle.
+         *
+         * @param reader StAX reader.
+         * @return the raw text or null if the cell has no value
+         * @throws XMLStreamException parse exception.
+         */
+        String readCellValue(final XMLStreamReader reader) throws XMLStreamException {
             String text = null;
             int event = reader.getEventType();
             String localName = XMLEvent.START_ELEMENT == event ? reader.getLocalName() : null;
@@ -564,8 +1268,8 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
                 throw new IllegalStateException("must be in start element 'c'");
             }
 
-            final String t = reader.getAttributeValue(null, TYPE_ATTRIBUTE);
-            final String s = reader.getAttributeValue(null, STYLE_ATTRIBUTE);
+            this.cellType = reader.getAttributeValue(null, TYPE_ATTRIBUTE);
+            this.cellStyle = reader.getAttributeValue(null, STYLE_ATTRIBUTE);
             while (reader.hasNext()) {
                 event = reader.next();
 
@@ -577,7 +1281,6 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
                             break;
                         }
                         if (XMLEvent.CHARACTERS == event || XMLEvent.CDATA == event || XMLEvent.SPACE == event || XMLEvent.ENTITY_REFERENCE == event) {
-                            found = true;
                             text = null != text ? text + reader.getText() : reader.getText();
                         }
                     }
@@ -589,8 +1292,7 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
                     break;
                 }
             }
-            this.value = asJavaObject(t, s, text);
-            return found;
+            return text;
         }
 
         /**
@@ -623,10 +1325,13 @@ class OpenXMLSpreadsheetParser extends AbstractSpreadsheetParser {
         }
 
         /**
-         * TODO doc me.
+         * Converts the raw cell value, string values are deduplicated by the string cache if configured.
          */
-        Object asJavaObject(final String t, final String s, final String value) {
-            return toJavaObject(t, s, value);
+        Object asJavaObject(final int col, final String t, final String s, final String value) {
+            this.decodingCol = col;
+            final Object parsed = toJavaObject(t, s, value);
+            final StringCache cache = stringCache;
+            return null != cache && parsed instanceof String ? cache.get(col, (String) parsed) : parsed;
         }
 
         /* ************************************
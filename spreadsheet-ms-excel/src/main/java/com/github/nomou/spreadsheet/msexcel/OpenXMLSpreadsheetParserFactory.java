@@ -2,9 +2,12 @@ package com.github.nomou.spreadsheet.msexcel;
 
 import com.github.nomou.spreadsheet.Spreadsheet;
 import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
 import com.github.nomou.spreadsheet.SpreadsheetParser;
 import com.github.nomou.spreadsheet.spi.SpreadsheetParserFactory;
+import com.github.nomou.spreadsheet.spi.SpreadsheetProber;
 
+import java.io.File;
 import java.io.InputStream;
 
 /**
@@ -13,8 +16,11 @@ import java.io.InputStream;
  * @author vacoor
  * @since 1.0
  */
-public class OpenXMLSpreadsheetParserFactory implements SpreadsheetParserFactory {
-    private static final boolean POI_OOXML_PRESENT = SpreadsheetImplUtils.isPresent(SpreadsheetImplUtils.SXSSF_STREAMING_CLASS_NAME, SpreadsheetImplUtils.OOXML_CLASS_NAME);
+public class OpenXMLSpreadsheetParserFactory implements SpreadsheetParserFactory, SpreadsheetProber {
+    /**
+     * The POI OOXML (SXSSF) engine.
+     */
+    public static final String ENGINE_OOXML = "poi-ooxml";
 
     /**
      * Microsoft Excel 2007+(*.xlsx) - OPEN-XML.
@@ -25,6 +31,14 @@ public class OpenXMLSpreadsheetParserFactory implements SpreadsheetParserFactory
 
     public static final Spreadsheet.Format OOXML = new Spreadsheet.Format("Microsoft Excel 2007+", OOXML_FILE_HEADER, "xlsx");
 
+    /**
+     * The {@link OpenXMLManifest} of the incremental re-parse: only the worksheets whose part changed since the
+     * manifest are emitted, the manifest is updated at the end of the workbook.
+     *
+     * @since 1.1
+     */
+    public static final String OPTION_MANIFEST_KEY = "manifest";
+
     @Override
     public Spreadsheet.Format[] getSupportedFormats() {
         return new Spreadsheet.Format[]{OOXML};
@@ -32,9 +46,44 @@ public class OpenXMLSpreadsheetParserFactory implements SpreadsheetParserFactory
 
     @Override
     public SpreadsheetParser create(final InputStream in) throws SpreadsheetException {
-        if (POI_OOXML_PRESENT) {
+        if (SpreadsheetImplUtils.isOoxmlPresent()) {
             return new OpenXMLSpreadsheetParser(in);
         }
         throw new SpreadsheetException(String.format("POI '%s' or '%s' missing", SpreadsheetImplUtils.SXSSF_STREAMING_CLASS_NAME, SpreadsheetImplUtils.OOXML_CLASS_NAME));
     }
+
+    /**
+     * Creates a parser of a file, the parts are inflated on demand from the zip central directory (the parts of a
+     * stream are all inflated upfront), so the unchanged worksheets of an incremental re-parse cost nothing.
+     *
+     * @param file the file
+     * @return the parser
+     * @throws SpreadsheetException if the file cannot be opened
+     * @see #OPTION_MANIFEST_KEY
+     */
+    public SpreadsheetParser create(final File file) throws SpreadsheetException {
+        if (SpreadsheetImplUtils.isOoxmlPresent()) {
+            return new OpenXMLSpreadsheetParser(file);
+        }
+        throw new SpreadsheetException(String.format("POI '%s' or '%s' missing", SpreadsheetImplUtils.SXSSF_STREAMING_CLASS_NAME, SpreadsheetImplUtils.OOXML_CLASS_NAME));
+    }
+
+    @Override
+    public SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        return new OpenXMLSpreadsheetProber().probe(file);
+    }
+
+    /**
+     * Gets the resolved engine.
+     *
+     * @return {@link OpenXMLSpreadsheetParserFactory#ENGINE_OOXML} or null if POI OOXML is missing
+     */
+    public String getEngine() {
+        return SpreadsheetImplUtils.isOoxmlPresent() ? OpenXMLSpreadsheetParserFactory.ENGINE_OOXML : null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + getEngine() + "]";
+    }
 }
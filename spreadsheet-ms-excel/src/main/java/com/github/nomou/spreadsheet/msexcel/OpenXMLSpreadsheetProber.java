@@ -0,0 +1,242 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Metadata probe for Microsoft Excel 2007+.
+ *
+ * <p>Only the zip central directory, the workbook part (and its relationships) and the head of each worksheet
+ * part (up to &lt;sheetData&gt;) are read. The records are estimated from the &lt;dimension&gt; of the worksheet,
+ * or if it is missing or degenerated (some writers always declare "A1"), from the rows of the first 64KB of
+ * &lt;sheetData&gt; extrapolated to the uncompressed size of the part.</p>
+ *
+ * @author vacoor
+ * @since 1.1
+ */
+final class OpenXMLSpreadsheetProber {
+    private static final String OFFICE_DOCUMENT_REL_TYPE = "/officeDocument";
+    private static final String DEFAULT_WORKBOOK_PART = "xl/workbook.xml";
+    private static final String R_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    private final XMLInputFactory factory = XMLInputFactory.newFactory();
+
+    SpreadsheetMetadata probe(final File file) throws SpreadsheetException {
+        ZipFile zip = null;
+        try {
+            zip = new ZipFile(file);
+            String workbookPart = null;
+            for (final Map.Entry<String, String> rel : readRelationships(zip, "_rels/.rels", "").entrySet()) {
+                if (rel.getKey().endsWith(OFFICE_DOCUMENT_REL_TYPE)) {
+                    workbookPart = rel.getValue();
+                }
+            }
+            workbookPart = null != workbookPart ? workbookPart : DEFAULT_WORKBOOK_PART;
+            final int slash = workbookPart.lastIndexOf('/');
+            final String dir = workbookPart.substring(0, slash + 1);
+            final Map<String, String> targets = readRelationships(zip, dir + "_rels/" + workbookPart.substring(slash + 1) + ".rels", dir);
+
+            final List<SpreadsheetMetadata.WorksheetMetadata> worksheets = new ArrayList<SpreadsheetMetadata.WorksheetMetadata>();
+            final Map<String, String> sheets = readSheets(zip, workbookPart);
+            for (final Map.Entry<String, String> sheet : sheets.entrySet()) {
+                final String target = targets.get(sheet.getValue());
+                final ZipEntry entry = null != target ? zip.getEntry(target) : null;
+                if (null == entry) {
+                    throw new SpreadsheetException("worksheet part not found: " + sheet.getKey());
+                }
+                worksheets.add(probeWorksheet(zip, entry, sheet.getKey()));
+            }
+            return new SpreadsheetMetadata(worksheets);
+        } catch (final IOException e) {
+            throw new SpreadsheetException(e);
+        } catch (final XMLStreamException e) {
+            throw new SpreadsheetException(e);
+        } finally {
+            if (null != zip) {
+                try {
+                    zip.close();
+                } catch (final IOException ignore) {
+                    // ignore.
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a relationships part.
+     *
+     * @return map.key: relationship id, or type for the package relationships; map.value: target part name
+     */
+    private Map<String, String> readRelationships(final ZipFile zip, final String part, final String dir) throws IOException, XMLStreamException {
+        final Map<String, String> rels = new HashMap<String, String>();
+        final ZipEntry entry = zip.getEntry(part);
+        if (null == entry) {
+            return rels;
+        }
+        final InputStream in = zip.getInputStream(entry);
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                if (XMLStreamConstants.START_ELEMENT == reader.next() && "Relationship".equals(reader.getLocalName())) {
+                    final String target = reader.getAttributeValue(null, "Target");
+                    final String resolved = target.startsWith("/") ? target.substring(1) : dir + target;
+                    rels.put(reader.getAttributeValue(null, "Id"), resolved);
+                    rels.put(reader.getAttributeValue(null, "Type"), resolved);
+                }
+            }
+            reader.close();
+        } finally {
+            in.close();
+        }
+        return rels;
+    }
+
+    /**
+     * Reads the sheets of the workbook part.
+     *
+     * @return map.key: sheet name, map.value: relationship id
+     */
+    private Map<String, String> readSheets(final ZipFile zip, final String part) throws IOException, XMLStreamException {
+        final ZipEntry entry = zip.getEntry(part);
+        if (null == entry) {
+            throw new SpreadsheetException("workbook part not found: " + part);
+        }
+        final Map<String, String> sheets = new LinkedHashMap<String, String>();
+        final InputStream in = zip.getInputStream(entry);
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (XMLStreamConstants.START_ELEMENT == event && "sheet".equals(reader.getLocalName())) {
+                    sheets.put(reader.getAttributeValue(null, "name"), reader.getAttributeValue(R_NS, "id"));
+                } else if (XMLStreamConstants.END_ELEMENT == event && "sheets".equals(reader.getLocalName())) {
+                    break;
+                }
+            }
+            reader.close();
+        } finally {
+            in.close();
+        }
+        return sheets;
+    }
+
+    private SpreadsheetMetadata.WorksheetMetadata probeWorksheet(final ZipFile zip, final ZipEntry entry, final String name) throws IOException, XMLStreamException {
+        final CountingInputStream in = new CountingInputStream(zip.getInputStream(entry));
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(in);
+            int[] dimension = null;
+            long sheetDataStart = -1;
+            long records = 0;
+            int firstRow = -1;
+            int lastRow = -1;
+            int firstColumn = -1;
+            int lastColumn = -1;
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (XMLStreamConstants.START_ELEMENT == event) {
+                    final String localName = reader.getLocalName();
+                    if ("dimension".equals(localName)) {
+                        dimension = parseRange(reader.getAttributeValue(null, "ref"));
+                    } else if ("sheetData".equals(localName)) {
+                        if (null != dimension && (dimension[0] != dimension[2] || dimension[1] != dimension[3])) {
+                            final long rows = dimension[2] - dimension[0] + 1;
+                            return new SpreadsheetMetadata.WorksheetMetadata(name, dimension[0], dimension[2], dimension[1], dimension[3], rows, false);
+                        }
+                        sheetDataStart = in.count;
+                    } else if ("row".equals(localName)) {
+                        final int row = SpreadsheetImplUtils.parseIndex(reader.getAttributeValue(null, "r"));
+                        firstRow = 0 > firstRow ? row - 1 : firstRow;
+                        lastRow = 0 < row ? row - 1 : lastRow + 1;
+                        records++;
+                        if (0 <= sheetDataStart && in.count - sheetDataStart >= SAMPLE_SIZE) {
+                            // sampled, extrapolates to the size of the part.
+                            final long estimated = Math.max(records, records * (entry.getSize() - sheetDataStart) / (in.count - sheetDataStart));
+                            return new SpreadsheetMetadata.WorksheetMetadata(name, firstRow, -1, firstColumn, lastColumn, estimated, false);
+                        }
+                    } else if ("c".equals(localName)) {
+                        final int[] cell = parseRange(reader.getAttributeValue(null, "r"));
+                        if (null != cell) {
+                            firstColumn = 0 > firstColumn ? cell[1] : Math.min(firstColumn, cell[1]);
+                            lastColumn = Math.max(lastColumn, cell[1]);
+                        }
+                    }
+                } else if (XMLStreamConstants.END_ELEMENT == event && "sheetData".equals(reader.getLocalName())) {
+                    break;
+                }
+            }
+            return new SpreadsheetMetadata.WorksheetMetadata(name, firstRow, lastRow, firstColumn, lastColumn, records, true);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parses a cell range reference ("A1:D300" or "A1").
+     *
+     * @return [first row, first column, last row, last column] (0-based) or null if illegal
+     */
+    static int[] parseRange(String ref) {
+        if (null == ref) {
+            return null;
+        }
+        ref = ref.replace("$", "");
+        final int colon = ref.indexOf(':');
+        final int[] first = parseCell(0 > colon ? ref : ref.substring(0, colon));
+        final int[] last = 0 > colon ? first : parseCell(ref.substring(colon + 1));
+        return null != first && null != last ? new int[]{first[0], first[1], last[0], last[1]} : null;
+    }
+
+    private static int[] parseCell(final String ref) {
+        int i = 0;
+        int col = 0;
+        final int len = ref.length();
+        while (i < len && Character.isLetter(ref.charAt(i))) {
+            col = col * 26 + (Character.toUpperCase(ref.charAt(i)) - 'A' + 1);
+            i++;
+        }
+        final int row = SpreadsheetImplUtils.parseIndex(ref.substring(i));
+        return 0 < col && 0 < row ? new int[]{row - 1, col - 1} : null;
+    }
+
+    /**
+     * Counts the uncompressed bytes read from a part.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            count += 0 <= b ? 1 : 0;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            count += 0 < n ? n : 0;
+            return n;
+        }
+    }
+}
@@ -45,4 +45,15 @@ class OpenXMLSpreadsheetWriter extends AbstractPOISpreadsheetWriter {
             return new SXSSFWorkbook(this.rowAccessWindowSize);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void disposeWorkbook(final Workbook workbook) {
+        if (workbook instanceof SXSSFWorkbook) {
+            // deletes the temp files of the flushed rows.
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+    }
 }
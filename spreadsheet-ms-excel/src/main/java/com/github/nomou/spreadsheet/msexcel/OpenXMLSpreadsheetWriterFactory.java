@@ -14,7 +14,6 @@ import java.io.OutputStream;
  * @since 1.0
  */
 public class OpenXMLSpreadsheetWriterFactory implements SpreadsheetWriterFactory {
-    private static final boolean POI_OOXML_PRESENT = SpreadsheetImplUtils.isPresent(SpreadsheetImplUtils.SXSSF_STREAMING_CLASS_NAME, SpreadsheetImplUtils.OOXML_CLASS_NAME);
 
     @Override
     public Spreadsheet.Format[] getSupportedFormats() {
@@ -23,9 +22,23 @@ public class OpenXMLSpreadsheetWriterFactory implements SpreadsheetWriterFactory
 
     @Override
     public SpreadsheetWriter create(final OutputStream out) throws SpreadsheetException {
-        if (POI_OOXML_PRESENT) {
+        if (SpreadsheetImplUtils.isOoxmlPresent()) {
             return new OpenXMLSpreadsheetWriter(out, null);
         }
         throw new SpreadsheetException(String.format("POI '%s' or '%s' missing", SpreadsheetImplUtils.SXSSF_STREAMING_CLASS_NAME, SpreadsheetImplUtils.OOXML_CLASS_NAME));
     }
+
+    /**
+     * Gets the resolved engine.
+     *
+     * @return {@link OpenXMLSpreadsheetParserFactory#ENGINE_OOXML} or null if POI OOXML is missing
+     */
+    public String getEngine() {
+        return SpreadsheetImplUtils.isOoxmlPresent() ? OpenXMLSpreadsheetParserFactory.ENGINE_OOXML : null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + getEngine() + "]";
+    }
 }
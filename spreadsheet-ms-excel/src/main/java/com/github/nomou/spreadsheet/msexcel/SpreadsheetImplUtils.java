@@ -18,6 +18,34 @@ class SpreadsheetImplUtils {
     private SpreadsheetImplUtils() {
     }
 
+    /*
+     * The presence checks are evaluated on first use (holder classes), not when the factories are loaded.
+     */
+
+    static boolean isJxlPresent() {
+        return JxlHolder.PRESENT;
+    }
+
+    static boolean isHssfPresent() {
+        return HssfHolder.PRESENT;
+    }
+
+    static boolean isOoxmlPresent() {
+        return OoxmlHolder.PRESENT;
+    }
+
+    private static class JxlHolder {
+        private static final boolean PRESENT = isPresent(JXL_CLASS_NAME);
+    }
+
+    private static class HssfHolder {
+        private static final boolean PRESENT = isPresent(HSSF_STREAMING_CLASS_NAME);
+    }
+
+    private static class OoxmlHolder {
+        private static final boolean PRESENT = isPresent(SXSSF_STREAMING_CLASS_NAME, OOXML_CLASS_NAME);
+    }
+
     private static boolean isPresent(final String className) {
         try {
             Class.forName(className);
@@ -35,4 +63,102 @@ class SpreadsheetImplUtils {
         }
         return true;
     }
+
+    /**
+     * Parses a non-negative decimal index without throwing.
+     *
+     * @param text the text
+     * @return the index or -1 if the text is not a valid index
+     */
+    static int parseIndex(final String text) {
+        final int len = null != text ? text.length() : 0;
+        if (1 > len || 9 < len) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < len; i++) {
+            final char c = text.charAt(i);
+            if ('0' > c || '9' < c) {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * Returns true if {@link Double#parseDouble(String)} accepts the given text (without throwing).
+     * <p>Grammar: optional whitespace, sign, "NaN" | "Infinity" | decimal with optional exponent | hexadecimal
+     * with binary exponent, optional [fFdD] suffix (except NaN/Infinity), optional whitespace.</p>
+     *
+     * @param text the text
+     * @return true if the text is a java floating point literal
+     */
+    static boolean isDouble(final String text) {
+        if (null == text) {
+            return false;
+        }
+        int end = text.length();
+        int i = 0;
+        while (i < end && ' ' >= text.charAt(i)) {
+            i++;
+        }
+        while (end > i && ' ' >= text.charAt(end - 1)) {
+            end--;
+        }
+        if (i < end && ('+' == text.charAt(i) || '-' == text.charAt(i))) {
+            i++;
+        }
+        if (i >= end) {
+            return false;
+        }
+        if (text.startsWith("NaN", i)) {
+            return i + 3 == end;
+        }
+        if (text.startsWith("Infinity", i)) {
+            return i + 8 == end;
+        }
+        final char last = text.charAt(end - 1);
+        if ('f' == last || 'F' == last || 'd' == last || 'D' == last) {
+            end--;
+        }
+        final boolean hex = i + 1 < end && '0' == text.charAt(i) && ('x' == text.charAt(i + 1) || 'X' == text.charAt(i + 1));
+        if (hex) {
+            i += 2;
+        }
+        int digits = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            final char c = text.charAt(i);
+            if (('0' <= c && '9' >= c) || (hex && (('a' <= c && 'f' >= c) || ('A' <= c && 'F' >= c)))) {
+                digits++;
+            } else if ('.' == c && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (0 == digits) {
+            return false;
+        }
+        final boolean exponent = i < end && (hex ? ('p' == text.charAt(i) || 'P' == text.charAt(i)) : ('e' == text.charAt(i) || 'E' == text.charAt(i)));
+        if (hex && !exponent) {
+            // the binary exponent is required.
+            return false;
+        }
+        if (exponent) {
+            i++;
+            if (i < end && ('+' == text.charAt(i) || '-' == text.charAt(i))) {
+                i++;
+            }
+            final int start = i;
+            while (i < end && '0' <= text.charAt(i) && '9' >= text.charAt(i)) {
+                i++;
+            }
+            if (start == i) {
+                return false;
+            }
+        }
+        return i == end;
+    }
 }
@@ -0,0 +1,84 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.batch.BatchConverter;
+import com.github.nomou.spreadsheet.batch.BatchStats;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Batch conversion of excel workbooks of several worksheets to csv, a format of a single worksheet.
+ */
+public class BatchConverterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMultipleWorksheetsToCsvRejected() throws Exception {
+        final File in = folder.newFolder("in");
+        final File out = folder.newFolder("out");
+        workbook(new File(in, "book.xlsx"));
+
+        final BatchStats stats = new BatchConverter().setSourceExtensions("xlsx").setUseVirtualThreads(false)
+                .convertDirectory(in, out, "csv");
+        assertEquals(1, stats.getCompleted());
+        assertEquals(1, stats.getFailed());
+        final Throwable error = stats.getFailures().get(0).getError();
+        assertTrue(error instanceof SpreadsheetException);
+        assertTrue(error.getMessage().contains("'second'"));
+        assertTrue(error.getMessage().contains("single worksheet"));
+        // neither target nor temporary file.
+        assertEquals(0, out.list().length);
+    }
+
+    @Test
+    public void testFirstWorksheetToCsv() throws Exception {
+        final File in = folder.newFolder("in");
+        final File out = folder.newFolder("out");
+        workbook(new File(in, "book.xlsx"));
+
+        final BatchStats stats = new BatchConverter().setSourceExtensions("xlsx").setUseVirtualThreads(false)
+                .setFirstWorksheetOnly(true)
+                .convertDirectory(in, out, "csv");
+        assertEquals(0, stats.getFailed());
+        assertEquals(2, stats.getRows());
+        final String csv = new String(Files.readAllBytes(new File(out, "book.csv").toPath()), "UTF-8");
+        assertTrue(csv.contains("a1"));
+        assertTrue(csv.contains("a2"));
+        assertFalse(csv.contains("b1"));
+    }
+
+    private static void workbook(final File file) throws IOException {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final String[] names = {"first", "second"};
+        for (int s = 0; s < names.length; s++) {
+            final Sheet sheet = workbook.createSheet(names[s]);
+            for (int r = 0; r < 2; r++) {
+                final Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue((char) ('a' + s) + String.valueOf(r + 1));
+                row.createCell(1).setCellValue(r);
+            }
+        }
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            workbook.write(out);
+        } finally {
+            out.close();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.CancellationToken;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SpreadsheetCancelledException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetWriter;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Cancellation of the excel writers and parsers, the resources (temp files, packages) are released.
+ */
+public class CancellationTest {
+    private static final int ROWS = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File tempFiles;
+
+    @Before
+    public void setUp() throws IOException {
+        tempFiles = folder.newFolder("poifiles");
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(tempFiles));
+    }
+
+    @After
+    public void tearDown() {
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+    }
+
+    @Test
+    public void testCancelOpenXMLWriterDisposesTempFiles() {
+        final CancellationToken token = new CancellationToken();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final SpreadsheetWriter writer = new OpenXMLSpreadsheetWriter(out, null, 100);
+        writer.configure(SpreadsheetWriter.OPTION_CANCELLATION, token);
+        writer.start("sheet1");
+        writeRows(writer, ROWS);
+        // the rows beyond the access window are flushed to a temp file.
+        assertTrue(0 < countFiles(tempFiles));
+
+        token.cancel();
+        assertCancelled(writer);
+        assertEquals(0, countFiles(tempFiles));
+        writer.close();
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void testCancelWhileClosing() {
+        final CancellationToken token = new CancellationToken();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // the token is cancelled by the first write of the serialized workbook.
+        final OutputStream out = new OutputStream() {
+            @Override
+            public void write(final int b) {
+                token.cancel();
+                bytes.write(b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                token.cancel();
+                bytes.write(b, off, len);
+            }
+        };
+        final SpreadsheetWriter writer = new OpenXMLSpreadsheetWriter(out, null, 100);
+        writer.configure(SpreadsheetWriter.OPTION_CANCELLATION, token);
+        writer.start("sheet1");
+        writeRows(writer, ROWS);
+        try {
+            writer.close();
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            assertEquals("cancelled", expected.getMessage());
+        }
+        assertEquals(0, countFiles(tempFiles));
+        // aborted, nothing left to write.
+        bytes.reset();
+        writer.close();
+        assertEquals(0, bytes.size());
+    }
+
+    @Test
+    public void testCancelBeforeClosing() {
+        for (final boolean openXML : new boolean[]{true, false}) {
+            final CancellationToken token = new CancellationToken();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final SpreadsheetWriter writer = openXML ? new OpenXMLSpreadsheetWriter(out, null, 100) : new LegacySpreadsheetWriter2(out, null);
+            writer.configure(SpreadsheetWriter.OPTION_CANCELLATION, token);
+            writer.start("sheet1");
+            writeRows(writer, 10);
+            token.cancel();
+            try {
+                writer.close();
+                fail();
+            } catch (final SpreadsheetCancelledException expected) {
+                // expected.
+            }
+            writer.close();
+            assertEquals(0, out.size());
+            assertEquals(0, countFiles(tempFiles));
+        }
+    }
+
+    @Test
+    public void testDeadlineAbortsLegacyWriter() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final SpreadsheetWriter writer = new LegacySpreadsheetWriter2(out, null);
+        writer.configure(SpreadsheetWriter.OPTION_DEADLINE, System.currentTimeMillis() - 1000);
+        writer.start("sheet1");
+        assertCancelled(writer);
+        writer.close();
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void testCancellableOutputStream() throws IOException {
+        final CancellationToken token = new CancellationToken();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final OutputStream out = new AbstractPOISpreadsheetWriter.CancellableOutputStream(bytes, token);
+        out.write(1);
+        out.write(new byte[]{2, 3}, 0, 2);
+        token.cancel();
+        for (int i = 0; i < 2; i++) {
+            try {
+                if (0 == i) {
+                    out.write(4);
+                } else {
+                    out.write(new byte[]{4}, 0, 1);
+                }
+                fail();
+            } catch (final IOException expected) {
+                assertTrue(expected.getCause() instanceof SpreadsheetCancelledException);
+            }
+        }
+        assertEquals(3, bytes.size());
+    }
+
+    @Test
+    public void testCancelLegacyParserReleasesWorkbook() throws Exception {
+        final File xls = write(new HSSFWorkbook(), "cancel.xls");
+        final CancellationToken token = new CancellationToken();
+        final SpreadsheetParser parser = new LegacySpreadsheetParser2(new FileInputStream(xls));
+        parser.configure(SpreadsheetParser.OPTION_CANCELLATION, token);
+        assertEquals(1, parser.getNumberOfWorksheets());
+        readUntilCancelled(parser, token);
+        assertFalse(parser.hasNext());
+        // the record stream and the workbook globals are released.
+        assertEquals(0, parser.getNumberOfWorksheets());
+        parser.close();
+    }
+
+    @Test
+    public void testCancelOpenXMLParserClosesPackage() throws Exception {
+        Assume.assumeTrue(new File("/proc/self/fd").isDirectory());
+        final File xlsx = write(new XSSFWorkbook(), "cancel.xlsx");
+        final CancellationToken token = new CancellationToken();
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(xlsx);
+        parser.configure(SpreadsheetParser.OPTION_CANCELLATION, token);
+        assertTrue(0 < openFiles(xlsx));
+        readUntilCancelled(parser, token);
+        assertFalse(parser.hasNext());
+        assertEquals(0, openFiles(xlsx));
+        parser.close();
+    }
+
+    @Test
+    public void testCancelOpenXMLParserInPushMode() throws Exception {
+        Assume.assumeTrue(new File("/proc/self/fd").isDirectory());
+        final File xlsx = write(new XSSFWorkbook(), "push.xlsx");
+        final CancellationToken token = new CancellationToken();
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(xlsx);
+        parser.configure(SpreadsheetParser.OPTION_CANCELLATION, token);
+        final int[] rows = new int[1];
+        try {
+            parser.parse(new RowHandler() {
+                @Override
+                public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+                }
+
+                @Override
+                public void onRow(final int row) {
+                    if (10 == ++rows[0]) {
+                        token.cancel();
+                    }
+                }
+
+                @Override
+                public void onCell(final int col, final Object value) {
+                }
+
+                @Override
+                public void endRow(final int row) {
+                }
+
+                @Override
+                public void endWorksheet(final int worksheetIndex) {
+                }
+            });
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            // expected.
+        }
+        assertTrue(rows[0] < ROWS);
+        assertEquals(0, openFiles(xlsx));
+    }
+
+    /**
+     * Reads a few records, cancels the token and reads until the cancellation is reported.
+     */
+    private static void readUntilCancelled(final SpreadsheetParser parser, final CancellationToken token) {
+        for (int i = 0; i < 10; i++) {
+            parser.nextRecord(false);
+        }
+        token.cancel();
+        int records = 10;
+        try {
+            while (null != parser.nextRecord(false)) {
+                records++;
+            }
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            assertEquals("cancelled", expected.getMessage());
+        }
+        // reported within a check interval.
+        assertTrue(records < 10 + CancellationToken.CHECK_INTERVAL);
+    }
+
+    private static void writeRows(final SpreadsheetWriter writer, final int rows) {
+        for (int i = 0; i < rows; i++) {
+            writer.write("r" + i).write(i).next();
+        }
+    }
+
+    private static void assertCancelled(final SpreadsheetWriter writer) {
+        try {
+            writeRows(writer, CancellationToken.CHECK_INTERVAL);
+            fail();
+        } catch (final SpreadsheetCancelledException expected) {
+            // expected.
+        }
+    }
+
+    private File write(final Workbook workbook, final String name) throws IOException {
+        final Sheet sheet = workbook.createSheet("sheet1");
+        for (int i = 0; i < ROWS; i++) {
+            final Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue("r" + i);
+            row.createCell(1).setCellValue(i);
+        }
+        final File file = folder.newFile(name);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            workbook.write(out);
+        } finally {
+            out.close();
+            workbook.close();
+        }
+        return file;
+    }
+
+    private static int countFiles(final File directory) {
+        int n = 0;
+        final File[] files = directory.listFiles();
+        for (final File file : null != files ? files : new File[0]) {
+            n += file.isDirectory() ? countFiles(file) : 1;
+        }
+        return n;
+    }
+
+    /**
+     * Counts the file descriptors of this process open on the given file.
+     */
+    private static int openFiles(final File file) throws IOException {
+        int n = 0;
+        final File[] fds = new File("/proc/self/fd").listFiles();
+        for (final File fd : null != fds ? fds : new File[0]) {
+            try {
+                if (file.getCanonicalPath().equals(Files.readSymbolicLink(fd.toPath()).toString())) {
+                    n++;
+                }
+            } catch (final IOException ignore) {
+                // closed meanwhile.
+            }
+        }
+        return n;
+    }
+}
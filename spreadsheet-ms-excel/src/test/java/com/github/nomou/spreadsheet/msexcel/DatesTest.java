@@ -0,0 +1,200 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.util.ExcelDates;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The date cells of the engines match the Apache POI user model, in both date systems and a daylight saving zone.
+ */
+public class DatesTest {
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+
+    /**
+     * Serials of both sides of the daylight saving transitions of 2019 and before 1900-03-01.
+     */
+    private static final double[] SERIALS = {1, 59.5, 61.25, 43534.05, 43534.1, 43534.125, 43772.04, 43772.0625, 43831.5};
+
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(ZONE);
+        LocaleUtil.setUserTimeZone(ZONE);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+        LocaleUtil.resetUserTimeZone();
+    }
+
+    @Test
+    public void testLegacy() throws Exception {
+        final Map<String, Date> expected = userModel(DatesTest.class.getResourceAsStream("/biff8.xls"));
+        assertTrue(0 < expected.size());
+        assertEquals(expected, dates(ResumeTest.open("/biff8.xls")));
+    }
+
+    @Test
+    public void testLegacyJxl() throws Exception {
+        final Map<String, Date> expected = userModel(DatesTest.class.getResourceAsStream("/biff8.xls"));
+        assertEquals(expected, dates(new LegacySpreadsheetParser(DatesTest.class.getResourceAsStream("/biff8.xls"))));
+    }
+
+    @Test
+    public void testLegacySerials() throws Exception {
+        assertSerials(new HSSFWorkbook(), false);
+    }
+
+    @Test
+    public void testLegacyDate1904() throws Exception {
+        final HSSFWorkbook workbook = new HSSFWorkbook();
+        ((DateWindow1904Record) workbook.getInternalWorkbook().findFirstRecordBySid(DateWindow1904Record.sid)).setWindowing((short) 1);
+        assertSerials(workbook, true);
+    }
+
+    @Test
+    public void testOpenXMLSerials() throws Exception {
+        assertSerials(new XSSFWorkbook(), false);
+    }
+
+    @Test
+    public void testOpenXMLDate1904() throws Exception {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        workbook.getCTWorkbook().getWorkbookPr().setDate1904(true);
+        assertSerials(workbook, true);
+    }
+
+    /**
+     * Writes the serials as date cells and reads them back with the engine and the POI user model.
+     */
+    private static void assertSerials(final Workbook workbook, final boolean date1904) throws Exception {
+        final CellStyle style = workbook.createCellStyle();
+        // the built-in "m/d/yy h:mm".
+        style.setDataFormat((short) 0x16);
+        final Sheet sheet = workbook.createSheet("dates");
+        for (int i = 0; i < SERIALS.length; i++) {
+            final Cell cell = sheet.createRow(i).createCell(0);
+            cell.setCellValue(SERIALS[i]);
+            cell.setCellStyle(style);
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            workbook.write(out);
+        } finally {
+            workbook.close();
+        }
+        final byte[] bytes = workbook instanceof XSSFWorkbook ? withoutCellTypes(out.toByteArray()) : out.toByteArray();
+
+        final Map<String, Date> expected = userModel(new ByteArrayInputStream(bytes));
+        assertEquals(SERIALS.length, expected.size());
+        for (int i = 0; i < SERIALS.length; i++) {
+            assertEquals(ExcelDates.toMillis(SERIALS[i], date1904, ZONE), expected.get(key(0, i, 0)).getTime());
+        }
+        final SpreadsheetParser parser = workbook instanceof XSSFWorkbook
+                ? new OpenXMLSpreadsheetParser(new ByteArrayInputStream(bytes))
+                : new LegacySpreadsheetParser2(new ByteArrayInputStream(bytes));
+        assertEquals(expected, dates(parser));
+    }
+
+    /**
+     * Removes the number cell type written by POI: Excel writes the numbers without a cell type, and a cell of the
+     * number type is read as a number whatever its style.
+     */
+    private static byte[] withoutCellTypes(final byte[] xlsx) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(xlsx));
+        final ZipOutputStream zout = new ZipOutputStream(bytes);
+        try {
+            final byte[] buffer = new byte[4096];
+            ZipEntry entry;
+            while (null != (entry = zin.getNextEntry())) {
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                for (int n; 0 < (n = zin.read(buffer)); ) {
+                    content.write(buffer, 0, n);
+                }
+                zout.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().startsWith("xl/worksheets/")) {
+                    zout.write(content.toString("UTF-8").replace(" t=\"n\"", "").getBytes("UTF-8"));
+                } else {
+                    content.writeTo(zout);
+                }
+                zout.closeEntry();
+            }
+        } finally {
+            zin.close();
+            zout.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the date cells with the POI user model.
+     */
+    private static Map<String, Date> userModel(final InputStream in) throws Exception {
+        final Map<String, Date> dates = new TreeMap<String, Date>();
+        final Workbook workbook = WorkbookFactory.create(in);
+        try {
+            for (int s = 0; s < workbook.getNumberOfSheets(); s++) {
+                for (final Row row : workbook.getSheetAt(s)) {
+                    for (final Cell cell : row) {
+                        if (Cell.CELL_TYPE_NUMERIC == cell.getCellType() && DateUtil.isCellDateFormatted(cell)) {
+                            dates.put(key(s, row.getRowNum(), cell.getColumnIndex()), cell.getDateCellValue());
+                        }
+                    }
+                }
+            }
+        } finally {
+            workbook.close();
+        }
+        return dates;
+    }
+
+    private static Map<String, Date> dates(final SpreadsheetParser parser) {
+        final Map<String, Date> dates = new TreeMap<String, Date>();
+        try {
+            while (parser.hasNext()) {
+                if (SpreadsheetParser.END_CELL == parser.next() && parser.getValue() instanceof Date) {
+                    dates.put(key(parser.getWorksheetIndex(), parser.getRow(), parser.getCol()), (Date) parser.getValue());
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return dates;
+    }
+
+    private static String key(final int worksheet, final int row, final int col) {
+        return worksheet + ":" + row + ":" + col;
+    }
+}
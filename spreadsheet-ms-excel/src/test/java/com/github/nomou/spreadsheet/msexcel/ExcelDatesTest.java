@@ -0,0 +1,103 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.util.ExcelDates;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The Excel serial date conversions match the Apache POI {@link DateUtil}.
+ */
+public class ExcelDatesTest {
+    private static final String[] ZONES = {
+            "UTC", "Asia/Shanghai", "Asia/Kolkata", "Europe/London",
+            "Europe/Berlin", "America/New_York", "America/Sao_Paulo", "Australia/Sydney"
+    };
+    private static final int SAMPLES_PER_ZONE = 600000;
+
+    @Test
+    public void testMatchesDateUtil() {
+        // 4.8M samples: 8 zones (daylight saving, half-hour and southern offsets), both date systems.
+        final Random random = new Random(20200101L);
+        for (final String id : ZONES) {
+            final TimeZone zone = TimeZone.getTimeZone(id);
+            for (int i = 0; i < SAMPLES_PER_ZONE; i++) {
+                final boolean date1904 = 0 == (i & 1);
+                final double serial;
+                if (0 == i % 3) {
+                    // whole minutes, as typed in a cell.
+                    serial = random.nextInt(73000) + random.nextInt(1440) / 1440D;
+                } else {
+                    serial = random.nextDouble() * 73000;
+                }
+                final long expected = DateUtil.getJavaDate(serial, date1904, zone).getTime();
+                if (expected != ExcelDates.toMillis(serial, date1904, zone)) {
+                    assertEquals(id + " " + serial + " " + date1904, expected, ExcelDates.toMillis(serial, date1904, zone));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDaylightSavingTransitions() {
+        final TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        // 2019-03-10 02:00 to 03:00 is skipped, 2019-11-03 01:00 to 02:00 is repeated.
+        for (final double day : new double[]{43534, 43772}) {
+            for (int minute = 0; minute < 4 * 60; minute++) {
+                final double serial = day + minute / 1440D;
+                assertEquals(serial + "", DateUtil.getJavaDate(serial, false, zone).getTime(), ExcelDates.toMillis(serial, false, zone));
+            }
+        }
+    }
+
+    @Test
+    public void testLeapYearBug() {
+        // the serial 60 is the non-existent 1900-02-29, read as 1900-03-01 like Excel shows the next day.
+        final TimeZone utc = TimeZone.getTimeZone("UTC");
+        for (int serial = 1; serial < 70; serial++) {
+            assertEquals(serial + "", DateUtil.getJavaDate(serial, false, utc).getTime(), ExcelDates.toMillis(serial, false, utc));
+        }
+        assertEquals(utc(1900, Calendar.JANUARY, 1), ExcelDates.toUtcMillis(1, false));
+        assertEquals(utc(1900, Calendar.FEBRUARY, 28), ExcelDates.toUtcMillis(59, false));
+        assertEquals(utc(1900, Calendar.MARCH, 1), ExcelDates.toUtcMillis(61, false));
+    }
+
+    @Test
+    public void testDateSystems() {
+        assertEquals(utc(2020, Calendar.JANUARY, 1) + ExcelDates.DAY_MILLIS / 2, ExcelDates.toUtcMillis(43831.5, false));
+        assertEquals(utc(1904, Calendar.JANUARY, 1), ExcelDates.toUtcMillis(0, true));
+        // the same date is 1462 days apart in the two date systems.
+        assertEquals(ExcelDates.toUtcMillis(43831, false), ExcelDates.toUtcMillis(43831 - 1462, true));
+    }
+
+    @Test
+    public void testEpochDay() {
+        assertEquals(0, ExcelDates.toEpochDay(25569, false));
+        assertEquals(0, ExcelDates.toEpochDay(25569.99, false));
+        assertEquals(-1, ExcelDates.toEpochDay(25568.5, false));
+        assertEquals(18262, ExcelDates.toEpochDay(43831.75, false));
+        assertEquals(utc(1904, Calendar.JANUARY, 2) / ExcelDates.DAY_MILLIS, ExcelDates.toEpochDay(1.25, true));
+    }
+
+    @Test
+    public void testIsValid() {
+        assertTrue(ExcelDates.isValid(0));
+        assertTrue(ExcelDates.isValid(43831.5));
+        assertFalse(ExcelDates.isValid(-1));
+        assertEquals(DateUtil.isValidExcelDate(-0.5), ExcelDates.isValid(-0.5));
+    }
+
+    private static long utc(final int year, final int month, final int day) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.util.StringCache;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * String cache of the excel parsers: the repeated strings share an instance, the strings longer than the max
+ * length are never cached.
+ */
+public class ExcelStringCacheTest {
+    private static final int ROWS = 3;
+    private static final String SHORT = "ab";
+    private static final String LONG = "abcdefgh";
+
+    @Test
+    public void testLegacy() throws Exception {
+        final byte[] xls = xls();
+        assertNotCached(read(new LegacySpreadsheetParser2(new ByteArrayInputStream(xls)), null));
+        assertCached(new LegacySpreadsheetParser2(new ByteArrayInputStream(xls)));
+    }
+
+    @Test
+    public void testLegacyJxl() throws Exception {
+        final byte[] xls = xls();
+        assertNotCached(read(new LegacySpreadsheetParser(new ByteArrayInputStream(xls)), null));
+        assertCached(new LegacySpreadsheetParser(new ByteArrayInputStream(xls)));
+    }
+
+    @Test
+    public void testOpenXML() throws Exception {
+        final String[] rows = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            final int r = i + 1;
+            rows[i] = "<row r=\"" + r + "\">"
+                    + "<c r=\"A" + r + "\" t=\"str\"><f>\"a\"&amp;\"b\"</f><v>" + SHORT + "</v></c>"
+                    + "<c r=\"B" + r + "\" t=\"inlineStr\"><is><t>" + LONG + "</t></is></c>"
+                    + "</row>";
+        }
+        final byte[] xlsx = OpenXMLFixtures.withRows(rows);
+        assertNotCached(read(new OpenXMLSpreadsheetParser(new ByteArrayInputStream(xlsx)), null));
+        assertCached(new OpenXMLSpreadsheetParser(new ByteArrayInputStream(xlsx)));
+    }
+
+    /**
+     * Reads the rows with a cache of strings up to 4 chars.
+     */
+    private static void assertCached(final SpreadsheetParser parser) {
+        final StringCache cache = new StringCache(64, 4);
+        final List<Object[]> rows = read(parser, cache);
+        assertEquals(ROWS, rows.size());
+        for (int i = 1; i < ROWS; i++) {
+            assertSame(rows.get(0)[0], rows.get(i)[0]);
+            assertEquals(LONG, rows.get(i)[1]);
+            assertNotSame(rows.get(0)[1], rows.get(i)[1]);
+        }
+        // the long strings are not looked up.
+        assertEquals(ROWS, cache.getLookups());
+        assertEquals(ROWS - 1, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * The engine creates a string per cell without a cache, so the shared instances come from the cache.
+     */
+    private static void assertNotCached(final List<Object[]> rows) {
+        assertEquals(ROWS, rows.size());
+        assertEquals(SHORT, rows.get(0)[0]);
+        assertEquals(SHORT, rows.get(1)[0]);
+        assertNotSame(rows.get(0)[0], rows.get(1)[0]);
+    }
+
+    /**
+     * Creates an xls whose string cells are formulas: their cached results are string records, not shared strings.
+     */
+    private static byte[] xls() throws Exception {
+        final HSSFWorkbook workbook = new HSSFWorkbook();
+        try {
+            final Sheet sheet = workbook.createSheet("strings");
+            final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+            for (int i = 0; i < ROWS; i++) {
+                final Row row = sheet.createRow(i);
+                final Cell shortCell = row.createCell(0);
+                shortCell.setCellFormula("\"a\"&\"b\"");
+                evaluator.evaluateFormulaCell(shortCell);
+                final Cell longCell = row.createCell(1);
+                longCell.setCellFormula("\"abcd\"&\"efgh\"");
+                evaluator.evaluateFormulaCell(longCell);
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        } finally {
+            workbook.close();
+        }
+    }
+
+    private static List<Object[]> read(final SpreadsheetParser parser, final StringCache cache) {
+        if (null != cache) {
+            parser.configure(SpreadsheetParser.OPTION_STRING_CACHE, cache);
+        }
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        try {
+            Object[] row;
+            while (null != (row = parser.nextRecord(false))) {
+                rows.add(row);
+            }
+        } finally {
+            parser.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.SpreadsheetError;
+import com.github.nomou.spreadsheet.SpreadsheetErrorCollector;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Cell values decoded on demand and the raw cell values.
+ */
+public class LazyDecodeTest {
+
+    @Test
+    public void testOpenXMLRawValue() throws Exception {
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(new ByteArrayInputStream(OpenXMLFixtures.withRows(
+                "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"B1\" t=\"n\"><v>2.5</v></c></row>")));
+        try {
+            nextCell(parser);
+            // the shared string index.
+            assertEquals("0", parser.getRawValue());
+            final Object value = parser.getValue();
+            assertTrue(value instanceof String);
+            assertSame(value, parser.getValue());
+            nextCell(parser);
+            assertEquals("2.5", parser.getRawValue());
+            assertEquals(2.5, parser.getValue());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testUndecodedCellIsValidated() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(new ByteArrayInputStream(OpenXMLFixtures.withRows(
+                "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>999</v></c><c r=\"B1\" t=\"s\"><v>998</v></c><c r=\"C1\" t=\"n\"><v>1</v></c></row>")));
+        parser.configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors);
+        try {
+            nextCell(parser);
+            // reported when scanned, the value is never requested.
+            assertEquals("999", parser.getRawValue());
+            assertEquals(1, errors.getErrorCount());
+            nextCell(parser);
+            assertNull(parser.getValue());
+            assertNull(parser.getValue());
+            // recorded once.
+            assertEquals(2, errors.getErrorCount());
+            assertEquals("999", errors.getErrors().get(0).getRawText());
+            assertEquals(0, errors.getErrors().get(0).getCol());
+            assertEquals("998", errors.getErrors().get(1).getRawText());
+            assertEquals(1, errors.getErrors().get(1).getCol());
+            nextCell(parser);
+            assertEquals(1D, parser.getValue());
+            assertEquals(2, errors.getErrorCount());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testSkippedCellsAreValidated() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(new ByteArrayInputStream(OpenXMLFixtures.withRows(
+                "<row r=\"1\"><c r=\"A1\" t=\"n\"><v>1</v></c><c r=\"B1\" t=\"n\"><v>x</v></c><c r=\"C1\" t=\"n\"><v>1</v></c></row>",
+                "<row r=\"2\"><c r=\"A2\" t=\"n\"><v>2</v></c><c r=\"B2\" s=\"999\"><v>3</v></c><c r=\"C2\" t=\"n\"><v>2</v></c></row>",
+                "<row r=\"3\"><c r=\"A3\" t=\"n\"><v>3</v></c><c r=\"B3\" t=\"q\"><v>4</v></c><c r=\"C3\" t=\"n\"><v>3</v></c></row>")));
+        parser.configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors);
+        // the cells before the filtered column are buffered undecoded.
+        parser.configure(SpreadsheetParser.OPTION_ROW_FILTER, new RowFilter().between(2, 2, null));
+        try {
+            while (parser.hasNext()) {
+                parser.next();
+            }
+        } finally {
+            parser.close();
+        }
+        // the cells of the rows rejected by the filter are only validated if referenced by the filter.
+        assertEquals(2, errors.getErrorCount());
+        assertEquals(SpreadsheetError.Reason.INVALID_STYLE, errors.getErrors().get(0).getReason());
+        assertEquals(1, errors.getErrors().get(0).getRow());
+        assertEquals(SpreadsheetError.Reason.UNEXPECTED_TYPE, errors.getErrors().get(1).getReason());
+        assertEquals(2, errors.getErrors().get(1).getRow());
+    }
+
+    @Test
+    public void testLegacyRawValue() throws Exception {
+        final InputStream in = LazyDecodeTest.class.getResourceAsStream("/biff8.xls");
+        final SpreadsheetParser parser = new LegacySpreadsheetParser(in);
+        try {
+            // row 1: the date cell (column 5) and the number cell (column 6).
+            Object date = null;
+            Object number = null;
+            while (null == number && SpreadsheetParser.EOF != parser.next()) {
+                if (SpreadsheetParser.END_CELL == parser.getEventType() && 1 == parser.getRow()) {
+                    if (5 == parser.getCol()) {
+                        date = parser.getValue();
+                        assertTrue(parser.getRawValue() instanceof String);
+                    } else if (6 == parser.getCol()) {
+                        number = parser.getValue();
+                        assertEquals("5", parser.getRawValue());
+                    }
+                }
+            }
+            assertTrue(date instanceof Date);
+            assertEquals(5.0, number);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testDecodedValueWithoutRawForm() throws Exception {
+        final SpreadsheetParser parser = ResumeTest.open("/biff8.xls");
+        try {
+            nextCell(parser);
+            assertEquals(parser.getValue(), parser.getRawValue());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testRawValueOutsideCell() throws Exception {
+        final SpreadsheetParser parser = ResumeTest.open("/sml.xlsx");
+        try {
+            parser.next();
+            parser.getRawValue();
+            fail("raw value outside a cell event");
+        } catch (final IllegalStateException expected) {
+            // START_WORKSHEET.
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static void nextCell(final SpreadsheetParser parser) throws Exception {
+        while (SpreadsheetParser.EOF != parser.next()) {
+            if (SpreadsheetParser.START_CELL == parser.getEventType()) {
+                return;
+            }
+        }
+        throw new AssertionError("no more cell");
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetError;
+import com.github.nomou.spreadsheet.SpreadsheetErrorCollector;
+import com.github.nomou.spreadsheet.SpreadsheetException;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Lenient mode of the excel parsers.
+ */
+public class LenientTest {
+    private static final String MALFORMED_ROW = "<row r=\"1\">"
+            + "<c r=\"A1\" t=\"s\"><v>999</v></c>"
+            + "<c r=\"B1\" t=\"n\"><v>1.2.3</v></c>"
+            + "<c r=\"C1\" s=\"999\"><v>1</v></c>"
+            + "<c r=\"D1\" t=\"zz\"><v>x</v></c>"
+            + "</row>";
+    private static final String VALID_ROW = "<row r=\"2\">"
+            + "<c r=\"A2\" t=\"s\"><v>0</v></c>"
+            + "<c r=\"B2\" t=\"n\"><v>2.5</v></c>"
+            + "</row>";
+
+    @Test
+    public void testMalformedCellsAreCollected() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        final List<Object[]> rows = read(OpenXMLFixtures.withRows(MALFORMED_ROW, VALID_ROW), errors);
+
+        assertEquals(2, rows.size());
+        for (final Object value : rows.get(0)) {
+            assertNull(value);
+        }
+        assertEquals(2.5, rows.get(1)[1]);
+
+        assertEquals(4, errors.getErrorCount());
+        assertError(errors.getErrors().get(0), 0, "999", SpreadsheetError.Reason.INVALID_SHARED_STRING);
+        assertError(errors.getErrors().get(1), 1, "1.2.3", SpreadsheetError.Reason.INVALID_NUMBER);
+        assertError(errors.getErrors().get(2), 2, "1", SpreadsheetError.Reason.INVALID_STYLE);
+        assertError(errors.getErrors().get(3), 3, "x", SpreadsheetError.Reason.UNEXPECTED_TYPE);
+    }
+
+    @Test
+    public void testFullCollectorCountsErrors() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(1);
+        read(OpenXMLFixtures.withRows(MALFORMED_ROW, VALID_ROW), errors);
+        assertEquals(4, errors.getErrorCount());
+        assertEquals(1, errors.getErrors().size());
+        assertEquals(3, errors.getDroppedCount());
+        errors.clear();
+        assertTrue(errors.isEmpty());
+        assertEquals(0, errors.getErrors().size());
+    }
+
+    @Test
+    public void testStrictModeFails() throws Exception {
+        try {
+            read(OpenXMLFixtures.withRows(MALFORMED_ROW), null);
+            fail("malformed cell accepted in strict mode");
+        } catch (final RuntimeException expected) {
+            // the malformed cell aborts the parse.
+        }
+    }
+
+    @Test
+    public void testValidWorkbookHasNoError() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        final SpreadsheetParser parser = ResumeTest.open("/biff8.xls");
+        parser.configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors);
+        try {
+            while (null != parser.nextRecord(false)) {
+                // read all records.
+            }
+        } finally {
+            parser.close();
+        }
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void testNotAWorkbook() throws Exception {
+        final SpreadsheetErrorCollector errors = new SpreadsheetErrorCollector(10);
+        try {
+            // bad.xlsx is a text file, the lenient mode only covers malformed cells.
+            new OpenXMLSpreadsheetParser(LenientTest.class.getResourceAsStream("/bad.xlsx"))
+                    .configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors).nextRecord(false);
+            fail("text file parsed as a workbook");
+        } catch (final SpreadsheetException expected) {
+            // not a workbook.
+        } catch (final IllegalArgumentException expected) {
+            // not an OOXML package.
+        }
+        assertTrue(errors.isEmpty());
+    }
+
+    private static void assertError(final SpreadsheetError error, final int col, final String rawText,
+                                    final SpreadsheetError.Reason reason) {
+        assertEquals(0, error.getWorksheetIndex());
+        assertEquals(0, error.getRow());
+        assertEquals(col, error.getCol());
+        assertEquals(rawText, error.getRawText());
+        assertEquals(reason, error.getReason());
+    }
+
+    private static List<Object[]> read(final byte[] xlsx, final SpreadsheetErrorCollector errors) throws Exception {
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(new ByteArrayInputStream(xlsx));
+        if (null != errors) {
+            parser.configure(SpreadsheetParser.OPTION_ERROR_COLLECTOR, errors);
+        }
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        try {
+            Object[] row;
+            while (null != (row = parser.nextRecord(false))) {
+                rows.add(row);
+            }
+        } finally {
+            parser.close();
+        }
+        return rows;
+    }
+}
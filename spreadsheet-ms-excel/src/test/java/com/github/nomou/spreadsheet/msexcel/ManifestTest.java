@@ -0,0 +1,188 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The incremental re-parse skipping the worksheets unchanged since the manifest.
+ */
+public class ManifestTest {
+    private static final String SHEET1 = "/xl/worksheets/sheet1.xml";
+    private static final String SHEET2 = "/xl/worksheets/sheet2.xml";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEmptyManifestEmitsAll() throws Exception {
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        assertEquals(0, manifest.size());
+        assertEquals(Arrays.asList("0:a", "0:1", "1:b", "1:2"), parse(workbook("a", 1, "b", 2), manifest));
+        assertTrue(manifest.getParts().containsAll(Arrays.asList(SHEET1, SHEET2)));
+        assertTrue(0 < manifest.getCrc(SHEET1));
+        assertTrue(0 < manifest.getSize(SHEET2));
+        assertEquals(-1, manifest.getCrc("/xl/worksheets/sheet3.xml"));
+        assertEquals(-1, manifest.getSize("/xl/worksheets/sheet3.xml"));
+    }
+
+    @Test
+    public void testUnchangedWorkbookEmitsNothing() throws Exception {
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        parse(workbook("a", 1, "b", 2), manifest);
+        assertEquals(Collections.<String>emptyList(), parse(workbook("a", 1, "b", 2), manifest));
+    }
+
+    @Test
+    public void testChangedWorksheetOnly() throws Exception {
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        parse(workbook("a", 1, "b", 2), manifest);
+        final long crc = manifest.getCrc(SHEET2);
+        // the worksheet index of a skipped worksheet is kept.
+        assertEquals(Arrays.asList("1:b", "1:3"), parse(workbook("a", 1, "b", 3), manifest));
+        assertTrue(crc != manifest.getCrc(SHEET2));
+        assertEquals(Arrays.asList("0:a", "0:4"), parse(workbook("a", 4, "b", 3), manifest));
+    }
+
+    @Test
+    public void testChangedSharedStringsEmitsAll() throws Exception {
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        parse(workbook("a", 1, "b", 2), manifest);
+        assertEquals(Arrays.asList("0:a", "0:1", "1:c", "1:2"), parse(workbook("a", 1, "c", 2), manifest));
+    }
+
+    @Test
+    public void testFileParser() throws Exception {
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        final File file = file(workbook("a", 1, "b", 2));
+        assertEquals(4, parse(new OpenXMLSpreadsheetParser(file), manifest).size());
+        // the crc of the zip entries matches the checksum of the inflated parts.
+        assertEquals(Collections.<String>emptyList(), parse(workbook("a", 1, "b", 2), manifest));
+        assertEquals(Collections.<String>emptyList(), parse(new OpenXMLSpreadsheetParser(file), manifest));
+        assertEquals(Arrays.asList("1:b", "1:5"), parse(new OpenXMLSpreadsheetParser(file(workbook("a", 1, "b", 5))), manifest));
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        final OpenXMLManifest manifest = new OpenXMLManifest();
+        parse(workbook("a", 1, "b", 2), manifest);
+        final File file = folder.newFile();
+        manifest.store(new FileOutputStream(file));
+
+        final OpenXMLManifest loaded = OpenXMLManifest.load(new FileInputStream(file));
+        assertEquals(manifest.getParts(), loaded.getParts());
+        for (final String part : manifest.getParts()) {
+            assertEquals(manifest.getCrc(part), loaded.getCrc(part));
+            assertEquals(manifest.getSize(part), loaded.getSize(part));
+        }
+        assertEquals(Arrays.asList("1:b", "1:3"), parse(workbook("a", 1, "b", 3), loaded));
+    }
+
+    @Test
+    public void testMalformedManifest() throws Exception {
+        try {
+            OpenXMLManifest.load(new ByteArrayInputStream("/xl/worksheets/sheet1.xml=zz,1".getBytes("ISO-8859-1")));
+            fail();
+        } catch (final IOException expected) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testIllegalOption() throws Exception {
+        final SpreadsheetParser parser = new OpenXMLSpreadsheetParser(new ByteArrayInputStream(workbook("a", 1, "b", 2)));
+        try {
+            try {
+                parser.configure(OpenXMLSpreadsheetParserFactory.OPTION_MANIFEST_KEY, "manifest");
+                fail();
+            } catch (final IllegalArgumentException expected) {
+                // expected.
+            }
+            parser.next();
+            try {
+                parser.configure(OpenXMLSpreadsheetParserFactory.OPTION_MANIFEST_KEY, new OpenXMLManifest());
+                fail();
+            } catch (final IllegalStateException expected) {
+                // expected.
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Creates a workbook of two worksheets, each one of a shared string row and a number row.
+     */
+    private static byte[] workbook(final String text1, final int number1, final String text2, final int number2) throws IOException {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        fill(workbook.createSheet("first"), text1, number1);
+        fill(workbook.createSheet("second"), text2, number2);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            workbook.write(out);
+        } finally {
+            workbook.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static void fill(final Sheet sheet, final String text, final int number) {
+        sheet.createRow(0).createCell(0).setCellValue(text);
+        final Row row = sheet.createRow(1);
+        row.createCell(0).setCellValue(number);
+    }
+
+    private File file(final byte[] bytes) throws IOException {
+        final File file = folder.newFile("workbook" + folder.getRoot().list().length + ".xlsx");
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static List<String> parse(final byte[] workbook, final OpenXMLManifest manifest) {
+        return parse(new OpenXMLSpreadsheetParser(new ByteArrayInputStream(workbook)), manifest);
+    }
+
+    /**
+     * Reads the cells of the emitted worksheets as "worksheet:value".
+     */
+    private static List<String> parse(final SpreadsheetParser parser, final OpenXMLManifest manifest) {
+        parser.configure(OpenXMLSpreadsheetParserFactory.OPTION_MANIFEST_KEY, manifest);
+        final List<String> cells = new ArrayList<String>();
+        try {
+            while (parser.hasNext()) {
+                if (SpreadsheetParser.END_CELL == parser.next() && null != parser.getValue()) {
+                    final Object value = parser.getValue();
+                    cells.add(parser.getWorksheetIndex() + ":" + (value instanceof Number ? ((Number) value).intValue() : value));
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds xlsx fixtures from sml.xlsx with a custom worksheet.
+ */
+final class OpenXMLFixtures {
+    private static final String SHEET_HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>";
+    private static final String SHEET_TAIL = "</sheetData></worksheet>";
+
+    private OpenXMLFixtures() {
+    }
+
+    /**
+     * Creates a workbook of sml.xlsx (shared strings and styles) whose worksheet has the given rows.
+     *
+     * @param rows the row elements
+     * @return the xlsx content
+     */
+    static byte[] withRows(final String... rows) throws IOException {
+        final StringBuilder sheet = new StringBuilder(SHEET_HEAD);
+        for (final String row : rows) {
+            sheet.append(row);
+        }
+        return replace("xl/worksheets/sheet1.xml", sheet.append(SHEET_TAIL).toString());
+    }
+
+    private static byte[] replace(final String name, final String content) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final InputStream in = OpenXMLFixtures.class.getResourceAsStream("/sml.xlsx");
+        final ZipInputStream zin = new ZipInputStream(in);
+        final ZipOutputStream zout = new ZipOutputStream(bytes);
+        try {
+            final byte[] buffer = new byte[4096];
+            ZipEntry entry;
+            while (null != (entry = zin.getNextEntry())) {
+                zout.putNextEntry(new ZipEntry(entry.getName()));
+                if (name.equals(entry.getName())) {
+                    zout.write(content.getBytes("UTF-8"));
+                } else {
+                    int n;
+                    while (0 < (n = zin.read(buffer))) {
+                        zout.write(buffer, 0, n);
+                    }
+                }
+                zout.closeEntry();
+            }
+        } finally {
+            zin.close();
+            zout.close();
+        }
+        return bytes.toByteArray();
+    }
+}
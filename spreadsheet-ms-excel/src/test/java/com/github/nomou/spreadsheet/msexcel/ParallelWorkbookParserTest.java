@@ -0,0 +1,188 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.ParallelWorkbookParser;
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Parsing the worksheets of the excel workbooks concurrently.
+ */
+public class ParallelWorkbookParserTest {
+
+    @Test
+    public void testParseLegacy() throws Exception {
+        assertParse("/biff8.xls", 72);
+    }
+
+    @Test
+    public void testParseOpenXML() throws Exception {
+        assertParse("/sml.xlsx", 10);
+    }
+
+    @Test
+    public void testParseOrderedMatchesSequential() throws Exception {
+        final List<String> expected = sequential("/biff8.xls");
+        final SpreadsheetParser parser = ResumeTest.open("/biff8.xls");
+        try {
+            final ParallelWorkbookParser parallel = new ParallelWorkbookParser(parser).setParallelism(2).setBufferedBatches(1);
+            assertTrue(parallel.isParallel());
+            final RecordingHandler handler = new RecordingHandler();
+            parallel.parseOrdered(handler);
+            assertEquals(expected, handler.records);
+            assertEquals(Arrays.asList("start 0", "end 0", "start 1", "end 1"), handler.worksheets);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testLegacyJxlIsSequential() throws Exception {
+        final SpreadsheetParser parser = new LegacySpreadsheetParser(ParallelWorkbookParserTest.class.getResourceAsStream("/formula.xls"));
+        try {
+            final ParallelWorkbookParser parallel = new ParallelWorkbookParser(parser);
+            assertFalse(parallel.isParallel());
+            final RecordingHandler handler = new RecordingHandler();
+            parallel.parse(handler);
+            assertEquals(Arrays.asList("start 0", "end 0"), handler.worksheets);
+            assertEquals(10, handler.records.size());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testOptionsAppliedToWorksheets() throws Exception {
+        final SpreadsheetParser parser = ResumeTest.open("/biff8.xls");
+        try {
+            final RecordingHandler handler = new RecordingHandler();
+            new ParallelWorkbookParser(parser)
+                    .configure(SpreadsheetParser.OPTION_ROW_FILTER, new RowFilter().notNull(5))
+                    .parse(handler);
+            final SpreadsheetParser sequential = ResumeTest.open("/biff8.xls");
+            sequential.configure(SpreadsheetParser.OPTION_ROW_FILTER, new RowFilter().notNull(5));
+            final List<String> expected = read(sequential);
+            assertTrue(0 < expected.size() && expected.size() < 72);
+            Collections.sort(handler.records);
+            Collections.sort(expected);
+            assertEquals(expected, handler.records);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testRecordEvents() throws Exception {
+        for (final String resource : new String[]{"/biff8.xls", "/sml.xlsx"}) {
+            final List<String> expected = sequential(resource);
+            final SpreadsheetParser parser = ResumeTest.open(resource);
+            try {
+                final RecordingHandler handler = new RecordingHandler();
+                new ParallelWorkbookParser(parser)
+                        .setParallelism(2)
+                        .configure(SpreadsheetParser.OPTION_RECORD_EVENTS, true)
+                        .parseOrdered(handler);
+                assertEquals(expected, handler.records);
+            } finally {
+                parser.close();
+            }
+        }
+    }
+
+    @Test
+    public void testHandlerFailureIsThrown() throws Exception {
+        final RuntimeException failure = new IllegalStateException("handler failed");
+        final SpreadsheetParser parser = ResumeTest.open("/biff8.xls");
+        try {
+            new ParallelWorkbookParser(parser).parse(new RecordingHandler() {
+                @Override
+                public void record(final int worksheetIndex, final int row, final Object[] values) {
+                    if (1 == worksheetIndex && 3 == row) {
+                        throw failure;
+                    }
+                }
+            });
+            fail();
+        } catch (final IllegalStateException expected) {
+            assertSame(failure, expected);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static void assertParse(final String resource, final int records) throws Exception {
+        final List<String> expected = sequential(resource);
+        assertEquals(records, expected.size());
+        final SpreadsheetParser parser = ResumeTest.open(resource);
+        try {
+            final ParallelWorkbookParser parallel = new ParallelWorkbookParser(parser);
+            assertTrue(parallel.isParallel());
+            final RecordingHandler handler = new RecordingHandler();
+            parallel.parse(handler);
+            Collections.sort(expected);
+            Collections.sort(handler.records);
+            assertEquals(expected, handler.records);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Reads the records of a workbook with a sequential parser.
+     */
+    private static List<String> sequential(final String resource) throws Exception {
+        return read(ResumeTest.open(resource));
+    }
+
+    private static List<String> read(final SpreadsheetParser parser) {
+        final List<String> records = new ArrayList<String>();
+        try {
+            Object[] record;
+            while (null != (record = parser.nextRecord(false))) {
+                records.add(format(parser.getWorksheetIndex(), parser.getRow(), record));
+            }
+        } finally {
+            parser.close();
+        }
+        return records;
+    }
+
+    private static String format(final int worksheetIndex, final int row, final Object[] values) {
+        int width = values.length;
+        while (0 < width && null == values[width - 1]) {
+            width--;
+        }
+        return worksheetIndex + ":" + row + ":" + Arrays.toString(Arrays.copyOf(values, width));
+    }
+
+    private static class RecordingHandler implements ParallelWorkbookParser.Handler {
+        final List<String> worksheets = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> records = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+            worksheets.add("start " + worksheetIndex);
+        }
+
+        @Override
+        public void record(final int worksheetIndex, final int row, final Object[] values) {
+            records.add(format(worksheetIndex, row, values));
+        }
+
+        @Override
+        public void endWorksheet(final int worksheetIndex) {
+            worksheets.add("end " + worksheetIndex);
+        }
+    }
+}
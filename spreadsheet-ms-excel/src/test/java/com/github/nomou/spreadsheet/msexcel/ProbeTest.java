@@ -0,0 +1,127 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.Spreadsheet;
+import com.github.nomou.spreadsheet.SpreadsheetMetadata;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Probing the worksheet metadata of the excel files without parsing the cells.
+ */
+public class ProbeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testProbeLegacy() throws Exception {
+        final SpreadsheetMetadata metadata = Spreadsheet.probe(copy("/biff8.xls"));
+        assertEquals(2, metadata.getNumberOfWorksheets());
+        assertRange(metadata.getWorksheet(0), 0, 34, 0, 10);
+        assertRange(metadata.getWorksheet(1), 0, 36, 0, 5);
+        assertEquals(35, metadata.getWorksheet(0).getRecords());
+        assertEquals(37, metadata.getWorksheet(1).getRecords());
+        assertFalse(metadata.getWorksheet(0).isExact());
+    }
+
+    @Test
+    public void testProbeBiff5() throws Exception {
+        final SpreadsheetMetadata metadata = Spreadsheet.probe(copy("/biff5.xls"));
+        assertEquals(2, metadata.getNumberOfWorksheets());
+        assertEquals(35, metadata.getWorksheet(0).getRecords());
+        assertEquals(37, metadata.getWorksheet(1).getRecords());
+    }
+
+    @Test
+    public void testProbeOpenXML() throws Exception {
+        final SpreadsheetMetadata metadata = Spreadsheet.probe(copy("/sml.xlsx"));
+        assertEquals(1, metadata.getNumberOfWorksheets());
+        assertRange(metadata.getWorksheet(0), 0, 9, 0, 3);
+        assertEquals(10, metadata.getWorksheet(0).getRecords());
+    }
+
+    @Test
+    public void testProbeOpenXMLWithoutDimension() throws Exception {
+        final File file = folder.newFile("rows.xlsx");
+        write(file, OpenXMLFixtures.withRows(
+                "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>a</t></is></c></row>",
+                "<row r=\"2\"><c r=\"A2\"><v>1</v></c></row>",
+                "<row r=\"3\"><c r=\"A3\"><v>2</v></c></row>"));
+        final SpreadsheetMetadata metadata = new OpenXMLSpreadsheetParserFactory().probe(file);
+        assertEquals(1, metadata.getNumberOfWorksheets());
+        assertEquals(3, metadata.getWorksheet(0).getRecords());
+    }
+
+    @Test
+    public void testProbeAgreesWithParser() throws Exception {
+        for (final String resource : new String[]{"/biff8.xls", "/formula.xls", "/sml.xlsx", "/formula.xlsx", "/template.xlsx"}) {
+            final SpreadsheetMetadata metadata = Spreadsheet.probe(copy(resource));
+            final List<String> names = new ArrayList<String>();
+            final List<Long> records = new ArrayList<Long>();
+            final SpreadsheetParser parser = ResumeTest.open(resource);
+            try {
+                for (int event = parser.getEventType(); SpreadsheetParser.END_WORKBOOK != event; event = parser.next()) {
+                    if (SpreadsheetParser.START_WORKSHEET == event) {
+                        names.add(parser.getWorksheetName());
+                        records.add(0L);
+                    } else if (SpreadsheetParser.END_RECORD == event) {
+                        records.set(records.size() - 1, records.get(records.size() - 1) + 1);
+                    }
+                }
+            } finally {
+                parser.close();
+            }
+            assertEquals(resource, names.size(), metadata.getNumberOfWorksheets());
+            for (int i = 0; i < names.size(); i++) {
+                assertEquals(resource, names.get(i), metadata.getWorksheet(i).getName());
+                assertEquals(resource, (long) records.get(i), metadata.getWorksheet(i).getRecords());
+            }
+        }
+    }
+
+    private static void assertRange(final SpreadsheetMetadata.WorksheetMetadata worksheet, final int firstRow,
+                                    final int lastRow, final int firstColumn, final int lastColumn) {
+        assertEquals(firstRow, worksheet.getFirstRow());
+        assertEquals(lastRow, worksheet.getLastRow());
+        assertEquals(firstColumn, worksheet.getFirstColumn());
+        assertEquals(lastColumn, worksheet.getLastColumn());
+    }
+
+    private File copy(final String resource) throws IOException {
+        final File file = folder.newFile(resource.substring(1));
+        final InputStream in = ProbeTest.class.getResourceAsStream(resource);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            final byte[] buffer = new byte[4096];
+            int n;
+            while (0 < (n = in.read(buffer))) {
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+        return file;
+    }
+
+    private static void write(final File file, final byte[] bytes) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.RowFilter;
+import com.github.nomou.spreadsheet.RowHandler;
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The push mode delivers the same worksheets, records and positions as the pull events.
+ */
+public class PushPullParityTest {
+
+    @Test
+    public void testLegacy() throws Exception {
+        assertParity("/biff8.xls", false, null);
+        assertParity("/formula.xls", false, null);
+    }
+
+    @Test
+    public void testLegacyJxl() throws Exception {
+        assertParity("/biff8.xls", true, null);
+        assertParity("/biff5.xls", true, null);
+    }
+
+    @Test
+    public void testLegacyJxlReadsAllWorksheets() throws Exception {
+        final List<String> events = pull(open("/biff8.xls", true, null));
+        assertEquals(72 + 4, events.size());
+    }
+
+    @Test
+    public void testOpenXML() throws Exception {
+        assertParity("/sml.xlsx", false, null);
+        assertParity("/formula.xlsx", false, null);
+    }
+
+    @Test
+    public void testRowFilter() throws Exception {
+        assertParity("/biff8.xls", false, new RowFilter().notNull(5));
+        assertParity("/biff8.xls", true, new RowFilter().notNull(5));
+        assertParity("/sml.xlsx", false, new RowFilter().notNull(1));
+    }
+
+    @Test
+    public void testResumed() throws Exception {
+        final SpreadsheetPosition position = new SpreadsheetPosition(0, 20, 21, -1);
+        final List<String> pull = pull(resumed("/biff8.xls", true, position));
+        assertEquals(pull, push(resumed("/biff8.xls", true, position)));
+        assertEquals(pull, push(resumed("/biff8.xls", false, position)));
+    }
+
+    private static void assertParity(final String resource, final boolean jxl, final RowFilter filter) throws Exception {
+        final List<String> pull = pull(open(resource, jxl, filter));
+        assertEquals(resource, pull, push(open(resource, jxl, filter)));
+    }
+
+    private static SpreadsheetParser open(final String resource, final boolean jxl, final RowFilter filter) throws Exception {
+        final SpreadsheetParser parser = jxl
+                ? new LegacySpreadsheetParser(PushPullParityTest.class.getResourceAsStream(resource))
+                : ResumeTest.open(resource);
+        if (null != filter) {
+            parser.configure(SpreadsheetParser.OPTION_ROW_FILTER, filter);
+        }
+        return parser;
+    }
+
+    private static SpreadsheetParser resumed(final String resource, final boolean jxl, final SpreadsheetPosition position) throws Exception {
+        final SpreadsheetParser parser = open(resource, jxl, null);
+        parser.configure(SpreadsheetParser.OPTION_POSITION, position);
+        return parser;
+    }
+
+    /**
+     * Reads the worksheets, the non-null cells of the records and the position after each record.
+     */
+    private static List<String> pull(final SpreadsheetParser parser) {
+        final List<String> events = new ArrayList<String>();
+        try {
+            StringBuilder record = null;
+            for (int event = parser.getEventType(); SpreadsheetParser.END_WORKBOOK != event; event = parser.next()) {
+                if (SpreadsheetParser.START_WORKSHEET == event) {
+                    events.add("start " + parser.getWorksheetIndex() + " " + parser.getWorksheetName());
+                } else if (SpreadsheetParser.START_RECORD == event) {
+                    record = new StringBuilder().append(parser.getRow()).append(':');
+                } else if (SpreadsheetParser.END_CELL == event && null != parser.getValue()) {
+                    record.append(' ').append(parser.getCol()).append('=').append(parser.getValue());
+                } else if (SpreadsheetParser.END_RECORD == event) {
+                    events.add(record.append(" @").append(parser.getPosition()).toString());
+                } else if (SpreadsheetParser.END_WORKSHEET == event) {
+                    events.add("end " + parser.getWorksheetIndex());
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return events;
+    }
+
+    private static List<String> push(final SpreadsheetParser parser) {
+        final List<String> events = new ArrayList<String>();
+        try {
+            parser.parse(new RowHandler() {
+                private StringBuilder record;
+
+                @Override
+                public void startWorksheet(final int worksheetIndex, final String worksheetName) {
+                    events.add("start " + worksheetIndex + " " + worksheetName);
+                }
+
+                @Override
+                public void onRow(final int row) {
+                    record = new StringBuilder().append(row).append(':');
+                }
+
+                @Override
+                public void onCell(final int col, final Object value) {
+                    if (null != value) {
+                        record.append(' ').append(col).append('=').append(value);
+                    }
+                }
+
+                @Override
+                public void endRow(final int row) {
+                    events.add(record.append(" @").append(parser.getPosition()).toString());
+                }
+
+                @Override
+                public void endWorksheet(final int worksheetIndex) {
+                    events.add("end " + worksheetIndex);
+                }
+            });
+        } finally {
+            parser.close();
+        }
+        return events;
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * The record events mode of the excel parsers.
+ */
+public class RecordEventsTest {
+
+    @Test
+    public void testLegacy() throws Exception {
+        assertSameRecords("/biff8.xls", false);
+        assertSameRecords("/formula.xls", false);
+    }
+
+    @Test
+    public void testLegacyJxl() throws Exception {
+        assertSameRecords("/biff8.xls", true);
+    }
+
+    @Test
+    public void testOpenXML() throws Exception {
+        assertSameRecords("/sml.xlsx", false);
+        assertSameRecords("/formula.xlsx", false);
+    }
+
+    @Test
+    public void testNoCellEvents() throws Exception {
+        final SpreadsheetParser parser = open("/sml.xlsx", false, true);
+        try {
+            int records = 0;
+            while (parser.hasNext()) {
+                final int event = parser.next();
+                assertNotEquals(SpreadsheetParser.START_CELL, event);
+                assertNotEquals(SpreadsheetParser.END_CELL, event);
+                if (SpreadsheetParser.END_RECORD == event) {
+                    records++;
+                }
+            }
+            assertEquals(10, records);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static void assertSameRecords(final String resource, final boolean jxl) throws Exception {
+        final SpreadsheetParser cells = open(resource, jxl, false);
+        final SpreadsheetParser records = open(resource, jxl, true);
+        try {
+            Object[] expected;
+            do {
+                expected = cells.nextRecord(false);
+                assertArrayEquals(resource, expected, records.nextRecord(false));
+            } while (null != expected);
+        } finally {
+            cells.close();
+            records.close();
+        }
+    }
+
+    private static SpreadsheetParser open(final String resource, final boolean jxl, final boolean recordEvents) throws Exception {
+        final SpreadsheetParser parser = jxl
+                ? new LegacySpreadsheetParser(RecordEventsTest.class.getResourceAsStream(resource))
+                : ResumeTest.open(resource);
+        parser.configure(SpreadsheetParser.OPTION_RECORD_EVENTS, recordEvents);
+        return parser;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.nomou.spreadsheet.msexcel;
+
+import com.github.nomou.spreadsheet.SpreadsheetParser;
+import com.github.nomou.spreadsheet.SpreadsheetPosition;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Resuming the excel parsers from a position token.
+ */
+public class ResumeTest {
+
+    @Test
+    public void testResumeLegacyInLaterWorksheet() throws Exception {
+        assertResume("/biff8.xls", 1, 5);
+    }
+
+    @Test
+    public void testResumeLegacyAcrossWorksheets() throws Exception {
+        assertResume("/biff8.xls", 0, 20);
+    }
+
+    @Test
+    public void testResumeLegacyAfterLastRecord() throws Exception {
+        final List<String> all = read(open("/biff8.xls"), null, -1, -1);
+        final SpreadsheetParser parser = open("/biff8.xls");
+        parser.configure(SpreadsheetParser.OPTION_POSITION, new SpreadsheetPosition(1, 36, 37, -1).toToken());
+        assertEquals(0, read(parser, null, -1, -1).size());
+        assertEquals(72, all.size());
+    }
+
+    @Test
+    public void testResumeOpenXML() throws Exception {
+        assertResume("/sml.xlsx", 0, 3);
+    }
+
+    @Test
+    public void testPositionAtStart() throws Exception {
+        final SpreadsheetParser parser = open("/biff8.xls");
+        try {
+            assertEquals(SpreadsheetPosition.START, parser.getPosition());
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Reads a workbook, takes the position after the given record, then checks a resumed parser reads the
+     * remaining records.
+     */
+    private static void assertResume(final String resource, final int worksheet, final int row) throws Exception {
+        final SpreadsheetPosition[] position = new SpreadsheetPosition[1];
+        final List<String> all = read(open(resource), position, worksheet, row);
+        assertEquals(worksheet, position[0].getWorksheetIndex());
+        assertEquals(row, position[0].getRow());
+
+        final SpreadsheetParser parser = open(resource);
+        parser.configure(SpreadsheetParser.OPTION_POSITION, position[0].toToken());
+        final List<String> resumed = read(parser, null, -1, -1);
+        final List<String> expected = all.subList(indexOf(all, worksheet, row) + 1, all.size());
+        assertEquals(expected, resumed);
+    }
+
+    private static int indexOf(final List<String> records, final int worksheet, final int row) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).startsWith(worksheet + ":" + row + ":")) {
+                return i;
+            }
+        }
+        throw new AssertionError("no record " + worksheet + ":" + row);
+    }
+
+    private static List<String> read(final SpreadsheetParser parser, final SpreadsheetPosition[] position,
+                                     final int worksheet, final int row) throws Exception {
+        final List<String> records = new ArrayList<String>();
+        try {
+            Object[] record;
+            while (null != (record = parser.nextRecord(false))) {
+                records.add(parser.getWorksheetIndex() + ":" + parser.getRow() + ":" + Arrays.toString(record));
+                if (null != position && worksheet == parser.getWorksheetIndex() && row == parser.getRow()) {
+                    position[0] = parser.getPosition();
+                }
+            }
+        } finally {
+            parser.close();
+        }
+        return records;
+    }
+
+    static SpreadsheetParser open(final String resource) throws Exception {
+        final InputStream in = ResumeTest.class.getResourceAsStream(resource);
+        return resource.endsWith(".xlsx") ? new OpenXMLSpreadsheetParser(in) : new LegacySpreadsheetParser2(in);
+    }
+}